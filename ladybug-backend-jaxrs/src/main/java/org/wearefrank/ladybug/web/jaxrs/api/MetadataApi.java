@@ -31,6 +31,7 @@ import java.util.Map;
 import lombok.Setter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.wearefrank.ladybug.web.common.Constants;
+import org.wearefrank.ladybug.web.common.HttpBadRequestException;
 import org.wearefrank.ladybug.web.common.HttpInternalServerErrorException;
 import org.wearefrank.ladybug.web.common.HttpNotFoundException;
 import org.wearefrank.ladybug.web.common.MetadataApiImpl;
@@ -69,6 +70,42 @@ public class MetadataApi extends ApiBase {
 		}
 	}
 
+	/**
+	 * Searches the storage metadata one page at a time.
+	 *
+	 * @param storageName Name of the storage to search.
+	 * @param metadataNames The metadata names to return.
+	 * @param pageSize Maximum number of results to return.
+	 * @param cursor The nextCursor of the previous page or empty for the first page.
+	 * @param sort The metadata name to sort on or empty to sort on the first metadata name.
+	 * @param direction The sort direction (asc or desc).
+	 * @param filterHeaders The headers on which we filter.
+	 * @param filterParams The regex on which the report names will be filtered
+	 * @return Response containing fields metadata [List[Map[String, String]]] and nextCursor [String].
+	 */
+	@GET
+	@Path("/{storage}/page")
+	@Produces(MediaType.APPLICATION_JSON)
+	public Response getMetadataPage(@PathParam("storage") String storageName,
+									@QueryParam("metadataNames") List<String> metadataNames,
+									@DefaultValue("100") @QueryParam("pageSize") int pageSize,
+									@QueryParam("cursor") String cursor,
+									@QueryParam("sort") String sort,
+									@DefaultValue("desc") @QueryParam("direction") String direction,
+									@QueryParam("filterHeader") List<String> filterHeaders,
+									@QueryParam("filter") List<String> filterParams) {
+		try {
+			Map<String, Object> page = delegate.getMetadataPage(storageName, metadataNames, pageSize, cursor, sort, direction, filterHeaders, filterParams);
+			return Response.ok().entity(page).build();
+		} catch (HttpBadRequestException e) {
+			return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+		} catch (HttpNotFoundException e) {
+			return Response.status(Response.Status.NOT_FOUND).entity(e.getMessage()).build();
+		} catch (HttpInternalServerErrorException e) {
+			return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity("Could not find metadata with page size " + pageSize + " and filter [" + filterParams + "] - detailed error message - " + e + Arrays.toString(e.getStackTrace())).build();
+		}
+	}
+
 	/**
 	 * Returns the user help for each filter header.
 	 *
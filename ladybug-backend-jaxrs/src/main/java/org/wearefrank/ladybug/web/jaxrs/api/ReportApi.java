@@ -16,8 +16,11 @@
 package org.wearefrank.ladybug.web.jaxrs.api;
 
 import java.io.InputStream;
+import java.io.OutputStreamWriter;
 import java.io.Serializable;
+import java.io.Writer;
 import java.lang.invoke.MethodHandles;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -41,6 +44,7 @@ import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.QueryParam;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
 import lombok.Setter;
 import org.wearefrank.ladybug.Report;
 import org.wearefrank.ladybug.TestTool;
@@ -77,6 +81,7 @@ public class ReportApi extends ApiBase {
 	 * @param storageName Name of the storage.
 	 * @param storageId Storage id of the report.
 	 * @param globalTransformer True if reportXmlTransformer should be set for the report.
+	 * @param xml False to omit the report xml from the response (see getReportXml()).
 	 * @return A response containing serialized Report object.
 	 */
 	@GET
@@ -84,15 +89,44 @@ public class ReportApi extends ApiBase {
 	@Produces(MediaType.APPLICATION_JSON)
 	public Response getReport(@PathParam("storage") String storageName,
 							  @PathParam("storageId") int storageId,
-							  @QueryParam("globalTransformer") @DefaultValue("false") boolean globalTransformer) {
+							  @QueryParam("globalTransformer") @DefaultValue("false") boolean globalTransformer,
+							  @QueryParam("xml") @DefaultValue("true") boolean xml) {
 		try {
-			Map<String, Object> result = delegate.getReport(storageName, storageId, globalTransformer);
+			Map<String, Object> result = delegate.getReport(storageName, storageId, globalTransformer, xml);
 			return Response.ok(result).build();
 		} catch(HttpNotFoundException e) {
 			return Response.status(Response.Status.NOT_FOUND).entity(e.getMessage()).build();
 		}
 	}
 
+	/**
+	 * Returns the report xml for the given storage and id. The report xml is streamed to the client without building
+	 * and caching the complete report xml in memory.
+	 *
+	 * @param storageName Name of the storage.
+	 * @param storageId Storage id of the report.
+	 * @param globalTransformer True if reportXmlTransformer should be set for the report.
+	 * @return A response containing the report xml.
+	 */
+	@GET
+	@Path("/{storage}/{storageId}/xml")
+	@Produces(MediaType.APPLICATION_XML)
+	public Response getReportXml(@PathParam("storage") String storageName,
+								 @PathParam("storageId") int storageId,
+								 @QueryParam("globalTransformer") @DefaultValue("false") boolean globalTransformer) {
+		try {
+			Report report = delegate.getReportWithTransformer(storageName, storageId, globalTransformer);
+			StreamingOutput streamingOutput = outputStream -> {
+				Writer writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8);
+				report.writeXml(writer);
+				writer.flush();
+			};
+			return Response.ok(streamingOutput, MediaType.APPLICATION_XML + ";charset=UTF-8").build();
+		} catch(HttpNotFoundException e) {
+			return Response.status(Response.Status.NOT_FOUND).entity(e.getMessage()).build();
+		}
+	}
+
 	/**
 	 * Get a list of uids for the checkpoints of a specific report. Currently only implementing getting the uids of the
 	 * checkpoints to show or hide according to a specific view (trying to apply the best practice that path params are
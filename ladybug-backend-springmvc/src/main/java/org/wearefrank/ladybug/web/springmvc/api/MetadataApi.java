@@ -21,6 +21,7 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.wearefrank.ladybug.web.common.HttpBadRequestException;
 import org.wearefrank.ladybug.web.common.HttpInternalServerErrorException;
 import org.wearefrank.ladybug.web.common.HttpNotFoundException;
 import org.wearefrank.ladybug.web.common.MetadataApiImpl;
@@ -59,6 +60,28 @@ public class MetadataApi {
 		}
 	}
 
+	@GetMapping(value = "/{storage}/page", produces = MediaType.APPLICATION_JSON_VALUE)
+	@RolesAllowed({"IbisObserver", "IbisDataAdmin", "IbisAdmin", "IbisTester"})
+	public ResponseEntity<?> getMetadataPage(@PathVariable("storage") String storageName,
+											 @RequestParam(name = "metadataNames") List<String> metadataNames,
+											 @RequestParam(name = "pageSize", defaultValue = "100") int pageSize,
+											 @RequestParam(name = "cursor", required = false) String cursor,
+											 @RequestParam(name = "sort", required = false) String sort,
+											 @RequestParam(name = "direction", defaultValue = "desc") String direction,
+											 @RequestParam(name = "filterHeader", defaultValue = "") List<String> filterHeaders,
+											 @RequestParam(name = "filter", defaultValue = "") List<String> filterParams) {
+		try {
+			Map<String, Object> page = delegate.getMetadataPage(storageName, metadataNames, pageSize, cursor, sort, direction, filterHeaders, filterParams);
+			return ResponseEntity.ok(page);
+		} catch(HttpBadRequestException e) {
+			return ResponseEntity.badRequest().body(e.getMessage());
+		} catch(HttpNotFoundException e) {
+			return ResponseEntity.status(404).body(e.getMessage());
+		} catch(HttpInternalServerErrorException e) {
+			return ResponseEntity.internalServerError().body("Could not find metadata with page size " + pageSize + " and filter [" + filterParams + "] - detailed error message - " + e + Arrays.toString(e.getStackTrace()));
+		}
+	}
+
 	/**
 	 * Returns the user help for each filter header.
 	 *
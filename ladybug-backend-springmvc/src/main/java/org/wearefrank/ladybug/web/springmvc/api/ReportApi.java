@@ -36,6 +36,7 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.wearefrank.ladybug.Report;
 import org.wearefrank.ladybug.util.ExportResult;
 import org.wearefrank.ladybug.web.common.HttpBadRequestException;
@@ -48,7 +49,10 @@ import org.wearefrank.ladybug.web.common.shownreport.ShownReport;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStreamWriter;
 import java.io.Serializable;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
 import java.util.List;
 
@@ -70,21 +74,52 @@ public class ReportApi {
 	 * @param storageName Name of the storage.
 	 * @param storageId Storage id of the report.
 	 * @param globalTransformer True if reportXmlTransformer should be set for the report.
+	 * @param xml False to omit the report xml from the response (see getReportXml()).
 	 * @return A response containing serialized Report object.
 	 */
 	@GetMapping(value = "/{storage}/{storageId}", produces = MediaType.APPLICATION_JSON_VALUE)
 	@RolesAllowed({"IbisObserver", "IbisDataAdmin", "IbisAdmin", "IbisTester"})
 	public ResponseEntity<?> getReport(@PathVariable("storage") String storageName,
 									   @PathVariable("storageId") int storageId,
-									   @RequestParam(name = "globalTransformer", defaultValue = "false") boolean globalTransformer) {
+									   @RequestParam(name = "globalTransformer", defaultValue = "false") boolean globalTransformer,
+									   @RequestParam(name = "xml", defaultValue = "true") boolean xml) {
 		try {
-			Map<String, Object> result = delegate.getReport(storageName, storageId, globalTransformer);
+			Map<String, Object> result = delegate.getReport(storageName, storageId, globalTransformer, xml);
 			return ResponseEntity.ok(result);
 		} catch (HttpNotFoundException e) {
 			return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
 		}
 	}
 
+	/**
+	 * Returns the report xml for the given storage and id. The report xml is streamed to the client without building
+	 * and caching the complete report xml in memory.
+	 *
+	 * @param storageName Name of the storage.
+	 * @param storageId Storage id of the report.
+	 * @param globalTransformer True if reportXmlTransformer should be set for the report.
+	 * @return A response containing the report xml.
+	 */
+	@GetMapping(value = "/{storage}/{storageId}/xml", produces = MediaType.APPLICATION_XML_VALUE)
+	@RolesAllowed({"IbisObserver", "IbisDataAdmin", "IbisAdmin", "IbisTester"})
+	public ResponseEntity<?> getReportXml(@PathVariable("storage") String storageName,
+										  @PathVariable("storageId") int storageId,
+										  @RequestParam(name = "globalTransformer", defaultValue = "false") boolean globalTransformer) {
+		try {
+			Report report = delegate.getReportWithTransformer(storageName, storageId, globalTransformer);
+			StreamingResponseBody streamingResponseBody = outputStream -> {
+				Writer writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8);
+				report.writeXml(writer);
+				writer.flush();
+			};
+			return ResponseEntity.ok()
+					.contentType(new MediaType(MediaType.APPLICATION_XML, StandardCharsets.UTF_8))
+					.body(streamingResponseBody);
+		} catch (HttpNotFoundException e) {
+			return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
+		}
+	}
+
 	/**
 	 * Get a list of uids for the checkpoints of a specific report. Currently only implementing getting the uids of the
 	 * checkpoints to show or hide according to a specific view (trying to apply the best practice that path params are
@@ -0,0 +1,76 @@
+/*
+   Copyright 2026 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.wearefrank.ladybug.benchmark;
+
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+
+import org.wearefrank.ladybug.Report;
+import org.wearefrank.ladybug.TestTool;
+
+/**
+ * Spring context shared by the benchmarks of a JMH fork (see springLadybugBenchmarks.xml) and a factory for the reports
+ * used as input by the benchmarks.
+ *
+ * @author Jaco de Groot
+ */
+public class BenchmarkContext {
+	public static final String SOURCE_CLASS_NAME = BenchmarkContext.class.getName();
+	private static ClassPathXmlApplicationContext context;
+
+	private static synchronized ClassPathXmlApplicationContext getContext() {
+		if (context == null) {
+			context = new ClassPathXmlApplicationContext("springLadybugBenchmarks.xml");
+		}
+		return context;
+	}
+
+	public static Object getBean(String name) {
+		return getContext().getBean(name);
+	}
+
+	public static <T> T getBean(Class<T> requiredType) {
+		return getContext().getBean(requiredType);
+	}
+
+	/**
+	 * Capture a report with a startpoint, infopoints and an endpoint containing XML messages of the specified size.
+	 *
+	 * @param numberOfCheckpoints  total number of checkpoints (at least 2)
+	 * @param messageSize          approximate number of characters per message
+	 * @return                     the captured report
+	 */
+	public static Report createReport(int numberOfCheckpoints, int messageSize) {
+		TestTool testTool = (TestTool)getBean("testTool");
+		String correlationId = "benchmark-" + System.nanoTime();
+		testTool.startpoint(correlationId, SOURCE_CLASS_NAME, "Benchmark report", createMessage(0, messageSize));
+		for (int i = 1; i < numberOfCheckpoints - 1; i++) {
+			testTool.infopoint(correlationId, SOURCE_CLASS_NAME, "Checkpoint " + i, createMessage(i, messageSize));
+		}
+		testTool.endpoint(correlationId, SOURCE_CLASS_NAME, "Benchmark report",
+				createMessage(numberOfCheckpoints - 1, messageSize));
+		return ((CountingLogStorage)testTool.getDebugStorage()).getLastReport();
+	}
+
+	public static String createMessage(int number, int size) {
+		StringBuilder message = new StringBuilder("<message number=\"" + number + "\">");
+		for (int i = 0; message.length() < size; i++) {
+			message.append("<element id=\"" + i + "\">value " + i + "</element>");
+		}
+		message.append("</message>");
+		return message.toString();
+	}
+
+}
@@ -0,0 +1,121 @@
+/*
+   Copyright 2026 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.wearefrank.ladybug.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.Node;
+
+import org.wearefrank.ladybug.TestTool;
+
+/**
+ * Cost of capturing a message (Checkpoint.setMessage() and the message encoder and capturer) per message type. Every
+ * invocation creates a report with a startpoint containing the message and an endpoint without a message. Streams are
+ * read and closed like the instrumented code would do before the endpoint is called.
+ *
+ * @author Jaco de Groot
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CheckpointMessageBenchmark {
+	@Param({"100", "10000", "1000000"})
+	public int messageSize;
+	private TestTool testTool;
+	private String string;
+	private byte[] bytes;
+	private Node node;
+	private long counter;
+
+	@Setup
+	public void setUp() throws Exception {
+		testTool = (TestTool)BenchmarkContext.getBean("testTool");
+		string = BenchmarkContext.createMessage(0, messageSize);
+		bytes = string.getBytes(StandardCharsets.UTF_8);
+		DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
+		node = documentBuilderFactory.newDocumentBuilder().parse(new ByteArrayInputStream(bytes)).getDocumentElement();
+	}
+
+	@Benchmark
+	public String string() {
+		return capture(string);
+	}
+
+	@Benchmark
+	public String bytes() {
+		return capture(bytes);
+	}
+
+	@Benchmark
+	public String node() {
+		return capture(node);
+	}
+
+	@Benchmark
+	public String reader() throws IOException {
+		String correlationId = nextCorrelationId();
+		Reader reader = testTool.startpoint(correlationId, BenchmarkContext.SOURCE_CLASS_NAME, "Benchmark",
+				new StringReader(string));
+		char[] buffer = new char[8192];
+		while (reader.read(buffer) != -1);
+		reader.close();
+		return testTool.endpoint(correlationId, BenchmarkContext.SOURCE_CLASS_NAME, "Benchmark", "end");
+	}
+
+	@Benchmark
+	public String inputStream() throws IOException {
+		String correlationId = nextCorrelationId();
+		InputStream inputStream = testTool.startpoint(correlationId, BenchmarkContext.SOURCE_CLASS_NAME, "Benchmark",
+				new ByteArrayInputStream(bytes));
+		byte[] buffer = new byte[8192];
+		while (inputStream.read(buffer) != -1);
+		inputStream.close();
+		return testTool.endpoint(correlationId, BenchmarkContext.SOURCE_CLASS_NAME, "Benchmark", "end");
+	}
+
+	private String capture(Object message) {
+		String correlationId = nextCorrelationId();
+		testTool.startpoint(correlationId, BenchmarkContext.SOURCE_CLASS_NAME, "Benchmark", message);
+		return testTool.endpoint(correlationId, BenchmarkContext.SOURCE_CLASS_NAME, "Benchmark", "end");
+	}
+
+	private String nextCorrelationId() {
+		return Thread.currentThread().getName() + "-" + counter++;
+	}
+
+}
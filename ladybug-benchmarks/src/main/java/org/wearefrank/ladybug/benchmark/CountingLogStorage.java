@@ -0,0 +1,104 @@
+/*
+   Copyright 2026 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.wearefrank.ladybug.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import org.wearefrank.ladybug.Report;
+import org.wearefrank.ladybug.storage.LogStorage;
+
+/**
+ * Debug storage that only counts the reports it receives so benchmarks of the capture path don't measure (and aren't
+ * slowed down by) a real storage. The last stored report is kept to be used as input for other benchmarks.
+ *
+ * @author Jaco de Groot
+ */
+public class CountingLogStorage implements LogStorage {
+	private @Setter @Getter String name;
+	private AtomicLong count = new AtomicLong();
+	private volatile Report lastReport;
+
+	@Override
+	public void storeWithoutException(Report report) {
+		count.incrementAndGet();
+		lastReport = report;
+	}
+
+	public long getCount() {
+		return count.get();
+	}
+
+	public Report getLastReport() {
+		return lastReport;
+	}
+
+	@Override
+	public Report getReport(Integer storageId) {
+		return null;
+	}
+
+	@Override
+	public int getSize() {
+		return 0;
+	}
+
+	@Override
+	public List<Integer> getStorageIds() {
+		return new ArrayList<Integer>();
+	}
+
+	@Override
+	public List<List<Object>> getMetadata(int maxNumberOfRecords, List<String> metadataNames,
+			List<String> searchValues, int metadataValueType) {
+		return new ArrayList<List<Object>>();
+	}
+
+	@Override
+	public void clear() {
+		count.set(0);
+		lastReport = null;
+	}
+
+	@Override
+	public void close() {
+	}
+
+	@Override
+	public int getFilterType(String column) {
+		return FILTER_RESET;
+	}
+
+	@Override
+	public List getFilterValues(String column) {
+		return null;
+	}
+
+	@Override
+	public String getUserHelp(String column) {
+		return null;
+	}
+
+	@Override
+	public String getWarningsAndErrors() {
+		return null;
+	}
+
+}
@@ -0,0 +1,76 @@
+/*
+   Copyright 2026 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.wearefrank.ladybug.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.wearefrank.ladybug.Report;
+import org.wearefrank.ladybug.storage.StorageException;
+import org.wearefrank.ladybug.util.Export;
+import org.wearefrank.ladybug.util.Import;
+import org.wearefrank.ladybug.util.ReportFormat;
+
+/**
+ * Conversion of a report to and from the bytes written by the storages for every {@link ReportFormat}.
+ *
+ * @author Jaco de Groot
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReportBytesBenchmark {
+	@Param
+	public ReportFormat reportFormat;
+	@Param({"10", "100"})
+	public int numberOfCheckpoints;
+	@Param({"1000"})
+	public int messageSize;
+	private Report report;
+	private byte[] reportBytes;
+
+	@Setup
+	public void setUp() throws StorageException {
+		report = BenchmarkContext.createReport(numberOfCheckpoints, messageSize);
+		reportBytes = Export.getReportBytes(report, reportFormat);
+	}
+
+	@Benchmark
+	public byte[] getReportBytes() throws StorageException {
+		return Export.getReportBytes(report, reportFormat);
+	}
+
+	@Benchmark
+	public Report getReport() throws StorageException {
+		return Import.getReport(new ByteArrayInputStream(reportBytes), 0, (long)reportBytes.length, null);
+	}
+
+}
@@ -0,0 +1,96 @@
+/*
+   Copyright 2026 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.wearefrank.ladybug.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.wearefrank.ladybug.Report;
+import org.wearefrank.ladybug.transform.ReportXmlTransformer;
+
+/**
+ * Report.toXml() (used by the report xml shown in the GUI and by the compare and run functionality) without a
+ * transformation and with the default transformation configured for Ladybug (as global transformation, also from
+ * multiple threads, and as report specific transformation). The cached XML is flushed before every invocation.
+ *
+ * @author Jaco de Groot
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReportXmlBenchmark {
+	@Param({"10", "100"})
+	public int numberOfCheckpoints;
+	@Param({"1000"})
+	public int messageSize;
+	private Report report;
+	private Report reportWithXslt;
+	private Report reportWithTransformation;
+
+	@Setup
+	public void setUp() {
+		report = BenchmarkContext.createReport(numberOfCheckpoints, messageSize);
+		reportWithXslt = BenchmarkContext.createReport(numberOfCheckpoints, messageSize);
+		reportWithXslt.setGlobalReportXmlTransformer(BenchmarkContext.getBean(ReportXmlTransformer.class));
+		reportWithTransformation = BenchmarkContext.createReport(numberOfCheckpoints, messageSize);
+		reportWithTransformation.setTransformation(BenchmarkContext.getBean(ReportXmlTransformer.class).getXslt());
+	}
+
+	@Benchmark
+	public String toXml() {
+		report.flushCachedXml();
+		return report.toXml();
+	}
+
+	@Benchmark
+	public String toXmlWithXslt() {
+		reportWithXslt.flushCachedXml();
+		return reportWithXslt.toXml();
+	}
+
+	@Benchmark
+	@Threads(4)
+	public String toXmlWithXsltConcurrent() {
+		reportWithXslt.flushCachedXml();
+		return reportWithXslt.toXml();
+	}
+
+	/**
+	 * Report specific transformation, flushCachedXml() will also remove the report specific ReportXmlTransformer hence
+	 * the XSLT needs to be compiled again when not cached
+	 */
+	@Benchmark
+	public String toXmlWithReportTransformation() {
+		reportWithTransformation.flushCachedXml();
+		return reportWithTransformation.toXml();
+	}
+
+}
@@ -0,0 +1,127 @@
+/*
+   Copyright 2026 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.wearefrank.ladybug.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.wearefrank.ladybug.MetadataExtractor;
+import org.wearefrank.ladybug.Report;
+import org.wearefrank.ladybug.storage.LogStorage;
+import org.wearefrank.ladybug.storage.StorageException;
+
+/**
+ * Store, getReport and getMetadata on the memory, file and database (embedded H2) log storage. The storage is filled
+ * with a number of reports before the measurement starts. Every stored report needs to be a separate instance (the
+ * memory storage keeps a reference to it) hence the store benchmark includes a Report.clone().
+ *
+ * @author Jaco de Groot
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StorageBenchmark {
+	@Param({"memoryLogStorage", "fileStorage", "databaseStorage"})
+	public String storage;
+	@Param({"1000"})
+	public int numberOfReports;
+	@Param({"10"})
+	public int numberOfCheckpoints;
+	@Param({"1000"})
+	public int messageSize;
+	private LogStorage logStorage;
+	private Report report;
+	private List<Integer> storageIds;
+	private List<String> metadataNames;
+	private List<String> searchValues;
+
+	@Setup
+	@SuppressWarnings("unchecked")
+	public void setUp() throws Exception {
+		deleteBenchmarkData();
+		logStorage = (LogStorage)BenchmarkContext.getBean(storage);
+		logStorage.clear();
+		report = BenchmarkContext.createReport(numberOfCheckpoints, messageSize);
+		for (int i = 0; i < numberOfReports; i++) {
+			logStorage.storeWithoutException(report.clone());
+		}
+		storageIds = new ArrayList<Integer>(logStorage.getStorageIds());
+		// Same metadata as shown in the Debug tab (and used as columns by the database storage)
+		metadataNames = (List<String>)BenchmarkContext.getBean("metadataNames");
+		searchValues = new ArrayList<String>();
+		for (int i = 0; i < metadataNames.size(); i++) {
+			searchValues.add(null);
+		}
+	}
+
+	@TearDown
+	public void tearDown() throws StorageException, IOException {
+		logStorage.clear();
+		logStorage.close();
+		deleteBenchmarkData();
+	}
+
+	@Benchmark
+	public Report store() throws CloneNotSupportedException {
+		Report clone = report.clone();
+		logStorage.storeWithoutException(clone);
+		return clone;
+	}
+
+	@Benchmark
+	public Report getReport() throws StorageException {
+		return logStorage.getReport(storageIds.get(ThreadLocalRandom.current().nextInt(storageIds.size())));
+	}
+
+	@Benchmark
+	public List<List<Object>> getMetadata() throws StorageException {
+		return logStorage.getMetadata(100, metadataNames, searchValues, MetadataExtractor.VALUE_TYPE_GUI);
+	}
+
+	private static void deleteBenchmarkData() throws IOException {
+		Path path = new File("target/benchmark-data").toPath();
+		if (Files.exists(path)) {
+			try (Stream<Path> paths = Files.walk(path)) {
+				paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+			}
+		}
+	}
+
+}
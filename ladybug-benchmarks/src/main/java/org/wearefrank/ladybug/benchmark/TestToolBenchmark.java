@@ -0,0 +1,102 @@
+/*
+   Copyright 2026 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.wearefrank.ladybug.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.wearefrank.ladybug.TestTool;
+
+/**
+ * Throughput of a report with a startpoint and an endpoint (the minimal report) for 1 to 64 threads. With distinct
+ * correlationIds every invocation creates its own report. With a shared correlationId all threads add their checkpoints
+ * to the same report in progress (which will detect the threads as new child threads) to measure contention on a
+ * report.
+ *
+ * @author Jaco de Groot
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TestToolBenchmark {
+	@Param({"distinct", "shared"})
+	public String correlationIds;
+	private TestTool testTool;
+	private AtomicLong counter = new AtomicLong();
+
+	@Setup
+	public void setUp() {
+		testTool = (TestTool)BenchmarkContext.getBean("testTool");
+	}
+
+	@TearDown
+	public void tearDown() {
+		testTool.close("shared");
+	}
+
+	@Benchmark
+	@Threads(1)
+	public String threads1() {
+		return startpointEndpoint();
+	}
+
+	@Benchmark
+	@Threads(4)
+	public String threads4() {
+		return startpointEndpoint();
+	}
+
+	@Benchmark
+	@Threads(16)
+	public String threads16() {
+		return startpointEndpoint();
+	}
+
+	@Benchmark
+	@Threads(64)
+	public String threads64() {
+		return startpointEndpoint();
+	}
+
+	private String startpointEndpoint() {
+		String correlationId;
+		if ("shared".equals(correlationIds)) {
+			correlationId = "shared";
+		} else {
+			correlationId = "distinct-" + counter.incrementAndGet();
+		}
+		testTool.startpoint(correlationId, BenchmarkContext.SOURCE_CLASS_NAME, "Benchmark", "start");
+		return testTool.endpoint(correlationId, BenchmarkContext.SOURCE_CLASS_NAME, "Benchmark", "end");
+	}
+
+}
@@ -0,0 +1,133 @@
+/*
+   Copyright 2026 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.wearefrank.ladybug;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Output stream used by {@link Checkpoint} to capture a byte stream (see {@link MessageCapturer#toOutputStream(Object,
+ * OutputStream, java.util.function.Consumer, java.util.function.Consumer)}). Works the same as {@link CaptureWriter}
+ * but for bytes, the captured message is passed to {@link #captured(byte[], int)}.
+ *
+ * @author Jaco de Groot
+ */
+abstract class CaptureOutputStream extends OutputStream {
+	static final int CHUNK_SIZE = 8192;
+	private static final int MAX_POOLED_CHUNKS = 16;
+	// Shared by all threads and bounded so the pool never holds more than MAX_POOLED_CHUNKS chunks in total
+	private static final ArrayBlockingQueue<byte[]> pool = new ArrayBlockingQueue<byte[]>(MAX_POOLED_CHUNKS);
+	private final int maxLength;
+	private final List<byte[]> chunks = new ArrayList<byte[]>();
+	private byte[] chunk;
+	private int chunkLength;
+	private int capturedLength = 0;
+	private int length = 0;
+	private boolean closed = false;
+
+	/**
+	 * @param maxLength  maximum number of bytes to capture, -1 for no maximum
+	 */
+	CaptureOutputStream(int maxLength) {
+		this.maxLength = maxLength < 0 ? Integer.MAX_VALUE : maxLength;
+	}
+
+	/**
+	 * Called once when the output stream is closed.
+	 * 
+	 * @param message                    the captured bytes
+	 * @param preTruncatedMessageLength  the number of bytes written when message has been truncated, otherwise -1
+	 */
+	protected abstract void captured(byte[] message, int preTruncatedMessageLength);
+
+	@Override
+	public synchronized void write(int b) {
+		length++;
+		if (capturedLength < maxLength) {
+			nextChunkWhenFull();
+			chunk[chunkLength++] = (byte)b;
+			capturedLength++;
+		}
+	}
+
+	@Override
+	public synchronized void write(byte[] b, int off, int len) {
+		length += len;
+		int remaining = Math.min(len, maxLength - capturedLength);
+		while (remaining > 0) {
+			nextChunkWhenFull();
+			int n = Math.min(remaining, chunk.length - chunkLength);
+			System.arraycopy(b, off, chunk, chunkLength, n);
+			chunkLength += n;
+			capturedLength += n;
+			off += n;
+			remaining -= n;
+		}
+	}
+
+	private void nextChunkWhenFull() {
+		if (chunk == null || chunkLength == chunk.length) {
+			chunk = pool.poll();
+			if (chunk == null) {
+				chunk = new byte[CHUNK_SIZE];
+			}
+			chunks.add(chunk);
+			chunkLength = 0;
+		}
+	}
+
+	@Override
+	public void flush() {
+	}
+
+	@Override
+	public void close() {
+		byte[] message;
+		int preTruncatedMessageLength = -1;
+		synchronized(this) {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			message = toByteArray();
+			if (length > capturedLength) {
+				preTruncatedMessageLength = length;
+			}
+			for (byte[] chunk : chunks) {
+				if (!pool.offer(chunk)) {
+					break;
+				}
+			}
+			chunks.clear();
+			chunk = null;
+		}
+		captured(message, preTruncatedMessageLength);
+	}
+
+	public synchronized byte[] toByteArray() {
+		byte[] bytes = new byte[capturedLength];
+		int pos = 0;
+		for (byte[] chunk : chunks) {
+			int n = chunk == this.chunk ? chunkLength : chunk.length;
+			System.arraycopy(chunk, 0, bytes, pos, n);
+			pos += n;
+		}
+		return bytes;
+	}
+
+}
@@ -0,0 +1,148 @@
+/*
+   Copyright 2026 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.wearefrank.ladybug;
+
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Writer used by {@link Checkpoint} to capture a character stream (see {@link MessageCapturer#toWriter(Object,
+ * Writer, java.util.function.Consumer)}). Characters are kept in chunks of a fixed size which are taken from
+ * and returned to a small pool shared by all threads, so writing a large stream doesn't grow and copy one contiguous
+ * buffer. Characters after the maximum length are counted but not kept. The captured message is created once when the
+ * writer is closed and passed to {@link #captured(String, int)}.
+ *
+ * @author Jaco de Groot
+ */
+abstract class CaptureWriter extends Writer {
+	static final int CHUNK_SIZE = 8192;
+	private static final int MAX_POOLED_CHUNKS = 16;
+	// Shared by all threads and bounded so the pool never holds more than MAX_POOLED_CHUNKS chunks in total
+	private static final ArrayBlockingQueue<char[]> pool = new ArrayBlockingQueue<char[]>(MAX_POOLED_CHUNKS);
+	private final int maxLength;
+	private final List<char[]> chunks = new ArrayList<char[]>();
+	private char[] chunk;
+	private int chunkLength;
+	private int capturedLength = 0;
+	private int length = 0;
+	private boolean closed = false;
+
+	/**
+	 * @param maxLength  maximum number of characters to capture, -1 for no maximum
+	 */
+	CaptureWriter(int maxLength) {
+		this.maxLength = maxLength < 0 ? Integer.MAX_VALUE : maxLength;
+	}
+
+	/**
+	 * Called once when the writer is closed.
+	 * 
+	 * @param message                    the captured characters
+	 * @param preTruncatedMessageLength  the number of characters written when message has been truncated, otherwise -1
+	 */
+	protected abstract void captured(String message, int preTruncatedMessageLength);
+
+	@Override
+	public synchronized void write(int c) {
+		length++;
+		if (capturedLength < maxLength) {
+			nextChunkWhenFull();
+			chunk[chunkLength++] = (char)c;
+			capturedLength++;
+		}
+	}
+
+	@Override
+	public synchronized void write(char[] cbuf, int off, int len) {
+		length += len;
+		int remaining = Math.min(len, maxLength - capturedLength);
+		while (remaining > 0) {
+			nextChunkWhenFull();
+			int n = Math.min(remaining, chunk.length - chunkLength);
+			System.arraycopy(cbuf, off, chunk, chunkLength, n);
+			chunkLength += n;
+			capturedLength += n;
+			off += n;
+			remaining -= n;
+		}
+	}
+
+	@Override
+	public synchronized void write(String str, int off, int len) {
+		length += len;
+		int remaining = Math.min(len, maxLength - capturedLength);
+		while (remaining > 0) {
+			nextChunkWhenFull();
+			int n = Math.min(remaining, chunk.length - chunkLength);
+			str.getChars(off, off + n, chunk, chunkLength);
+			chunkLength += n;
+			capturedLength += n;
+			off += n;
+			remaining -= n;
+		}
+	}
+
+	private void nextChunkWhenFull() {
+		if (chunk == null || chunkLength == chunk.length) {
+			chunk = pool.poll();
+			if (chunk == null) {
+				chunk = new char[CHUNK_SIZE];
+			}
+			chunks.add(chunk);
+			chunkLength = 0;
+		}
+	}
+
+	@Override
+	public void flush() {
+	}
+
+	@Override
+	public void close() {
+		String message;
+		int preTruncatedMessageLength = -1;
+		synchronized(this) {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			message = toString();
+			if (length > capturedLength) {
+				preTruncatedMessageLength = length;
+			}
+			for (char[] chunk : chunks) {
+				if (!pool.offer(chunk)) {
+					break;
+				}
+			}
+			chunks.clear();
+			chunk = null;
+		}
+		captured(message, preTruncatedMessageLength);
+	}
+
+	@Override
+	public synchronized String toString() {
+		StringBuilder builder = new StringBuilder(capturedLength);
+		for (char[] chunk : chunks) {
+			builder.append(chunk, 0, chunk == this.chunk ? chunkLength : chunk.length);
+		}
+		return builder.toString();
+	}
+
+}
@@ -17,11 +17,12 @@ package org.wearefrank.ladybug;
 
 import java.beans.ExceptionListener;
 import java.beans.Transient;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
-import java.io.StringWriter;
 import java.lang.invoke.MethodHandles;
+import java.lang.ref.Cleaner;
+import java.lang.ref.SoftReference;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -77,10 +78,12 @@ public class Checkpoint implements Serializable, Cloneable {
 	private String stubNotFound;
 	private int preTruncatedMessageLength = -1;
 	// For transient fields see comment above the first transient field in class Report
-	private transient StringWriter messageCapturerWriter;
-	private transient ByteArrayOutputStream messageCapturerOutputStream;
+	private transient CaptureWriter messageCapturerWriter;
+	private transient CaptureOutputStream messageCapturerOutputStream;
 	private transient Map<String, Pattern> variablesPatternMap;
 	private transient Span span = null;
+	// Shared with clones of this checkpoint, see StoredMessage
+	private transient StoredMessage storedMessage;
 
 	public Checkpoint() {
 		// Only for Java XML encoding/decoding! Use other constructor instead.
@@ -159,6 +162,18 @@ public class Checkpoint implements Serializable, Cloneable {
 				message = report.getMessageTransformer().transform(this, message);
 			}
 		}
+		storedMessage = null;
+		if (message != null && report != null && report.getTestTool() != null
+				&& report.getTestTool().getMessageStore() != null
+				&& message.length() >= report.getTestTool().getMessageStore().getMinMessageLength()) {
+			MessageStore messageStore = report.getTestTool().getMessageStore();
+			try {
+				storedMessage = new StoredMessage(messageStore, messageStore.store(message), message);
+				message = null;
+			} catch (StorageException e) {
+				// Already logged by message store, keep message in memory
+			}
+		}
 		this.message = message;
 	}
 
@@ -167,10 +182,15 @@ public class Checkpoint implements Serializable, Cloneable {
 		// Report.closeStreamingMessageListeners(). The first call here will allow the message encoder to set the
 		// message to a value that shows that Ladybug is waiting for the stream to be read, captured and closed or any
 		// other message
-		ToStringResult toStringResult = report.getMessageEncoder().toString(message, null);
+		// Pass max message length to prevent encoding (large) parts of the message that would be truncated anyway
+		ToStringResult toStringResult = report.getMessageEncoder().toString(message, null,
+				report.getTestTool().getMaxMessageLength());
 		setMessage(toStringResult.getString());
 		setEncoding(toStringResult.getEncoding());
 		setMessageClassName(toStringResult.getMessageClassName());
+		if (toStringResult.getPreTruncatedLength() > -1) {
+			setPreTruncatedMessageLength(toStringResult.getPreTruncatedLength());
+		}
 		if (message != null && report.getMessageCapturer() != null) {
 			// Use message capturer only once for the same message
 			if (report.isKnownStreamingMessage(message)) {
@@ -190,107 +210,25 @@ public class Checkpoint implements Serializable, Cloneable {
 					String[] charset = new String[1];
 					Throwable[] exception = new Throwable[1];
 					if (streamingType == StreamingType.CHARACTER_STREAM) {
-						messageCapturerWriter = new StringWriter() {
-								int length = 0;
-								boolean truncated = false;
-
-								@Override
-								public void write(String str) {
-									write(str.toCharArray(), 0, str.length());
-								}
-
-								@Override
-								public void write(String str, int off, int len) {
-									write(str.toCharArray(), off, len);
-								}
-
-								@Override
-								public void write(int c) {
-									char[] cbuf = new char[1];
-									cbuf[0] = (char)c;
-									write(cbuf, 0, 1);
-								}
-
-								@Override
-								public void write(char[] cbuf) {
-									write(cbuf, 0, cbuf.length);
-								}
-
+						messageCapturerWriter = new CaptureWriter(testTool.getMaxMessageLength()) {
 								@Override
-								public void write(char[] cbuf, int off, int len) {
-									if (length + len > testTool.getMaxMessageLength()) {
-										if (!truncated) {
-											super.write(cbuf, off, testTool.getMaxMessageLength() - length);
-											truncated = true;
-										}
-									}
-									length = length + len;
-									if (truncated) {
-										return;
-									} else {
-										super.write(cbuf, off, len);
-									}
-								}
-
-								@Override
-								public void close() throws IOException {
-									super.close();
-									int preTruncatedMessageLength = -1;
-									if (truncated) {
-										preTruncatedMessageLength = length;
-									}
+								protected void captured(String message, int preTruncatedMessageLength) {
 									messageCapturerWriter = null;
 									report.closeStreamingMessage(toStringResult.getMessageClassName(),
 											messageToClose[0], streamingType.toString(), charset[0],
-											toString(), preTruncatedMessageLength, exception[0]);
+											message, preTruncatedMessageLength, exception[0]);
 								}
 						};
 						message = report.getMessageCapturer().toWriter(message, messageCapturerWriter,
 								exceptionNotifier -> exception[0] = exceptionNotifier);
 					} else {
-						messageCapturerOutputStream = new ByteArrayOutputStream() {
-								int length = 0;
-								boolean truncated = false;
-
-								@Override
-								public void write(int b) {
-									byte[] buf = new byte[1];
-									buf[0] = (byte)b;
-									write(buf, 0, 1);
-								}
-
-								@Override
-								public void write(byte[] b) {
-									write(b, 0, b.length);
-								}
-
-								@Override
-								public void write(byte[] b, int off, int len) {
-									if (length + len > testTool.getMaxMessageLength()) {
-										if (!truncated) {
-											super.write(b, off, testTool.getMaxMessageLength() - length);
-											truncated = true;
-										}
-									}
-									length = length + len;
-									if (truncated) {
-										return;
-									} else {
-										super.write(b, off, len);
-									}
-								}
-
+						messageCapturerOutputStream = new CaptureOutputStream(testTool.getMaxMessageLength()) {
 								@Override
-								public void close() throws IOException {
-									super.close();
-									int preTruncatedMessageLength = -1;
-									if (truncated) {
-										preTruncatedMessageLength = length;
-									}
+								protected void captured(byte[] message, int preTruncatedMessageLength) {
 									messageCapturerOutputStream = null;
 									report.closeStreamingMessage(toStringResult.getMessageClassName(),
 											messageToClose[0], streamingType.toString(), charset[0],
-											toByteArray(), preTruncatedMessageLength, exception[0]);
+											message, preTruncatedMessageLength, exception[0]);
 								}
 						};
 						message = report.getMessageCapturer().toOutputStream(message, messageCapturerOutputStream,
@@ -318,6 +256,14 @@ public class Checkpoint implements Serializable, Cloneable {
 	}
 
 	public String getMessage() {
+		if (storedMessage != null) {
+			try {
+				return storedMessage.getMessage();
+			} catch (StorageException e) {
+				log.error("Could not read message of checkpoint '" + name + "' from message store", e);
+				return null;
+			}
+		}
 		return message;
 	}
 
@@ -330,21 +276,13 @@ public class Checkpoint implements Serializable, Cloneable {
 	}
 
 	public void closeMessageCapturer() {
-		try {
-			if (messageCapturerWriter != null) {
-				noCloseReceivedForStream = true;
-				messageCapturerWriter.close();
-			}
-		} catch (IOException e) {
-			log.warn("Could not close messageCapturerWriter", e);
+		if (messageCapturerWriter != null) {
+			noCloseReceivedForStream = true;
+			messageCapturerWriter.close();
 		}
-		try {
-			if (messageCapturerOutputStream != null) {
-				noCloseReceivedForStream = true;
-				messageCapturerOutputStream.close();
-			}
-		} catch (IOException e) {
-			log.warn("Could not close messageCapturerOutputStream", e);
+		if (messageCapturerOutputStream != null) {
+			noCloseReceivedForStream = true;
+			messageCapturerOutputStream.close();
 		}
 	}
 
@@ -481,6 +419,7 @@ public class Checkpoint implements Serializable, Cloneable {
 	 * @return estimated memory usage in bytes
 	 */
 	public long getEstimatedMemoryUsage() {
+		// A message in the message store is only referenced softly
 		if (message == null) {
 			return 0L;
 		} else {
@@ -662,6 +601,35 @@ public class Checkpoint implements Serializable, Cloneable {
 	public Span getSpan() {
 		return span;
 	}
+
+	private void writeObject(ObjectOutputStream objectOutputStream) throws IOException {
+		if (storedMessage == null) {
+			objectOutputStream.defaultWriteObject();
+		} else {
+			// Write the message itself instead of the key of the message in the message store. Use putFields() instead
+			// of setting field message and calling defaultWriteObject() as this object must not be modified (other
+			// threads might read it while it is being serialized)
+			ObjectOutputStream.PutField fields = objectOutputStream.putFields();
+			fields.put("report", report);
+			fields.put("threadName", threadName);
+			fields.put("sourceClassName", sourceClassName);
+			fields.put("messageClassName", messageClassName);
+			fields.put("name", name);
+			fields.put("message", getMessage());
+			fields.put("messageContext", messageContext);
+			fields.put("encoding", encoding);
+			fields.put("streaming", streaming);
+			fields.put("waitingForStream", waitingForStream);
+			fields.put("noCloseReceivedForStream", noCloseReceivedForStream);
+			fields.put("type", type);
+			fields.put("level", level);
+			fields.put("stub", stub);
+			fields.put("stubbed", stubbed);
+			fields.put("stubNotFound", stubNotFound);
+			fields.put("preTruncatedMessageLength", preTruncatedMessageLength);
+			objectOutputStream.writeFields();
+		}
+	}
 }
 
 class XMLEncoderExceptionListener implements ExceptionListener {
@@ -676,4 +644,49 @@ class XMLEncoderExceptionListener implements ExceptionListener {
 		return exceptionThrown;
 	}
 
-}
\ No newline at end of file
+}
+
+/**
+ * Message of a checkpoint that has been stored in a {@link MessageStore}. Clones of a checkpoint share the same
+ * instance. When the instance becomes unreachable (the checkpoint and all its clones are not referenced anymore) the
+ * message is released by a cleaner thread.
+ */
+class StoredMessage {
+	private static final Cleaner CLEANER = Cleaner.create();
+	private final MessageStore messageStore;
+	private final String key;
+	private SoftReference<String> messageReference;
+
+	StoredMessage(MessageStore messageStore, String key, String message) {
+		this.messageStore = messageStore;
+		this.key = key;
+		messageReference = new SoftReference<String>(message);
+		CLEANER.register(this, new Release(messageStore, key));
+	}
+
+	synchronized String getMessage() throws StorageException {
+		String message = messageReference.get();
+		if (message == null) {
+			message = messageStore.getMessage(key);
+			messageReference = new SoftReference<String>(message);
+		}
+		return message;
+	}
+
+	// Must not reference the StoredMessage instance, otherwise it would never become unreachable
+	private static class Release implements Runnable {
+		private final MessageStore messageStore;
+		private final String key;
+
+		Release(MessageStore messageStore, String key) {
+			this.messageStore = messageStore;
+			this.key = key;
+		}
+
+		@Override
+		public void run() {
+			messageStore.release(key);
+		}
+	}
+
+}
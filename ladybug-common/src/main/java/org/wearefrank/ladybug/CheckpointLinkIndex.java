@@ -0,0 +1,140 @@
+/*
+   Copyright 2026 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.wearefrank.ladybug;
+
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index on the checkpoints of a report used to link the checkpoints of a report that is being rerun to the checkpoints
+ * of the original report (see {@link LinkMethodType}). The paths of all checkpoints are calculated in one pass instead
+ * of calling {@link Checkpoint#getPath()} (which scans the checkpoints before it) for every checkpoint. The index is
+ * created by {@link Report} the first time it is needed and is recreated when the list of checkpoints has changed.
+ *
+ * @author Jaco de Groot
+ */
+class CheckpointLinkIndex {
+	private List<Checkpoint> checkpoints;
+	private int size;
+	private Map<Path, Integer> indexByPath = new HashMap<Path, Integer>();
+	private Map<SimpleEntry<String, Integer>, List<Checkpoint>> checkpointsByNameAndType =
+			new HashMap<SimpleEntry<String, Integer>, List<Checkpoint>>();
+	private int[] nextEndpointOrAbortpoint;
+
+	/**
+	 * The checkpoints following a checkpoint until the next checkpoint with the same or a lower level. The path of a
+	 * checkpoint is the path of the checkpoint that starts the scope it is in with the name and count of the checkpoint
+	 * added (the count being the number of checkpoints in the same scope with the same level and name before it).
+	 */
+	private static class Scope {
+		int level;
+		Path path;
+		Map<SimpleEntry<String, Integer>, Integer> counts = new HashMap<SimpleEntry<String, Integer>, Integer>();
+
+		Scope(int level, Path path) {
+			this.level = level;
+			this.path = path;
+		}
+	}
+
+	CheckpointLinkIndex(List<Checkpoint> checkpoints) {
+		this.checkpoints = checkpoints;
+		size = checkpoints.size();
+		Deque<Scope> scopes = new ArrayDeque<Scope>();
+		scopes.push(new Scope(-1, null));
+		for (int i = 0; i < size; i++) {
+			Checkpoint checkpoint = checkpoints.get(i);
+			int level = checkpoint.getLevel();
+			Path path;
+			if (level < 0) {
+				// Invalid level, not used by Checkpoint.getPath() to find the scope of other checkpoints
+				path = checkpoint.getPath();
+			} else {
+				while (scopes.peek().level >= level) {
+					scopes.pop();
+				}
+				Scope parent = scopes.peek();
+				path = new Path(level + 1);
+				for (int j = 0; j <= parent.level; j++) {
+					path.names[j] = parent.path.names[j];
+					path.counts[j] = parent.path.counts[j];
+				}
+				path.setName(level, checkpoint.getName());
+				path.counts[level] = parent.counts.merge(new SimpleEntry<String, Integer>(checkpoint.getName(), level),
+						1, Integer::sum) - 1;
+				scopes.push(new Scope(level, path));
+			}
+			indexByPath.putIfAbsent(path, i);
+			checkpointsByNameAndType.computeIfAbsent(
+					new SimpleEntry<String, Integer>(checkpoint.getName(), checkpoint.getType()),
+					key -> new ArrayList<Checkpoint>()).add(checkpoint);
+		}
+		nextEndpointOrAbortpoint = new int[size];
+		int next = -1;
+		for (int i = size - 1; i >= 0; i--) {
+			int type = checkpoints.get(i).getType();
+			if (type == CheckpointType.ENDPOINT.toInt() || type == CheckpointType.ABORTPOINT.toInt()) {
+				next = i;
+			}
+			nextEndpointOrAbortpoint[i] = next;
+		}
+	}
+
+	boolean isValidFor(List<Checkpoint> checkpoints) {
+		return this.checkpoints == checkpoints && size == checkpoints.size();
+	}
+
+	Checkpoint getCheckpoint(Path path) {
+		Integer i = indexByPath.get(path);
+		return i == null ? null : checkpoints.get(i);
+	}
+
+	/**
+	 * Get the nth checkpoint with the specified name and type.
+	 *
+	 * @param name  name of the checkpoint
+	 * @param type  type of the checkpoint
+	 * @param n     1 for the first checkpoint with the specified name and type
+	 * @return      the checkpoint or null when not found
+	 */
+	Checkpoint getCheckpoint(String name, int type, int n) {
+		List<Checkpoint> list = checkpointsByNameAndType.get(new SimpleEntry<String, Integer>(name, type));
+		if (list != null && n > 0 && n <= list.size()) {
+			return list.get(n - 1);
+		}
+		return null;
+	}
+
+	/**
+	 * Get the first endpoint or abortpoint starting from (and including) the checkpoint with the specified path.
+	 *
+	 * @param path  path of the checkpoint to start from
+	 * @return      the endpoint or abortpoint or null when not found
+	 */
+	Checkpoint getEndpointOrAbortpoint(Path path) {
+		Integer i = indexByPath.get(path);
+		if (i != null && nextEndpointOrAbortpoint[i] != -1) {
+			return checkpoints.get(nextEndpointOrAbortpoint[i]);
+		}
+		return null;
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
-   Copyright 2021-2023, 2025 WeAreFrank!
+   Copyright 2021-2023, 2025-2026 WeAreFrank!
 
    Licensed under the Apache License, Version 2.0 (the "License");
    you may not use this file except in compliance with the License.
@@ -47,12 +47,29 @@ public interface MessageEncoder {
 	 */
 	public ToStringResult toString(Object message, String charset);
 
+	/**
+	 * Encode the message from object to string with a maximum length. Implementations can use maxLength to prevent
+	 * the encoding of (large) parts of the message that will be truncated anyway and set the length of the complete
+	 * string representation with {@link ToStringResult#setPreTruncatedLength(int)}. The default implementation
+	 * encodes the complete message and leaves the truncation to the caller.
+	 * 
+	 * @param message    the object to encode to string
+	 * @param charset    see {@link #toString(Object, String)}
+	 * @param maxLength  maximum length of the string representation or -1 for no maximum
+	 * @return           see {@link #toString(Object, String)}
+	 */
+	public default ToStringResult toString(Object message, String charset, int maxLength) {
+		return toString(message, charset);
+	}
+
 	@Getter
 	@Setter
 	public class ToStringResult {
 		private String string;
 		private String encoding;
 		private String messageClassName;
+		// Length of the string before it was truncated to maxLength or -1 when not truncated
+		private int preTruncatedLength = -1;
 
 		public ToStringResult(String string, String encoding) {
 			this.string = string;
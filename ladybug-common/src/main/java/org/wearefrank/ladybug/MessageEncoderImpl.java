@@ -1,5 +1,5 @@
 /*
-   Copyright 2021-2023, 2025 WeAreFrank!
+   Copyright 2021-2023, 2025-2026 WeAreFrank!
 
    Licensed under the Apache License, Version 2.0 (the "License");
    you may not use this file except in compliance with the License.
@@ -15,6 +15,9 @@
 */
 package org.wearefrank.ladybug;
 
+import java.beans.ConstructorProperties;
+import java.beans.DefaultPersistenceDelegate;
+import java.beans.PersistenceDelegate;
 import java.beans.XMLEncoder;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
@@ -26,14 +29,21 @@ import java.io.StringReader;
 import java.io.StringWriter;
 import java.io.UnsupportedEncodingException;
 import java.io.Writer;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
 import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
 import java.nio.charset.CharacterCodingException;
 import java.nio.charset.Charset;
 import java.nio.charset.CharsetDecoder;
 import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 
 import org.w3c.dom.Node;
 
@@ -59,10 +69,61 @@ public class MessageEncoderImpl implements MessageEncoder {
 	public static final String DATE_PATTERN = "yyyy-MM-dd'T'HH:mm:ss.SSSZ";
 	public static final String DATE_ENCODER = "SimpleDateFormat(\"" + DATE_PATTERN + "\")";
 	public static final String WAITING_FOR_STREAM_MESSAGE = "Waiting for stream to be read, captured and closed...";
+	private static final int DECODE_SKIP_BUFFER_SIZE = 8192;
+	private static final Function<Object, ToStringResult> XML_ENCODER_FUNCTION = MessageEncoderImpl::toXmlEncoderString;
+	private static final Function<Object, ToStringResult> TO_STRING_ENCODER_FUNCTION =
+			message -> new ToStringResult(message.toString(), TO_STRING_ENCODER);
+	private final Map<Class<?>, Function<Object, ToStringResult>> encoders =
+			new ConcurrentHashMap<Class<?>, Function<Object, ToStringResult>>();
+	// Remember per class which encoder to use (an encoder added with addEncoder() for the class or one of its
+	// superclasses or interfaces, or toString() when XMLEncoder cannot instantiate objects of the class, otherwise
+	// XMLEncoder) to prevent XMLEncoder (which is expensive and has synchronized introspection) from being tried over
+	// and over again for classes that aren't beans. Only decisions based on the class are cached, whether XMLEncoder
+	// succeeds for an object of a class it can instantiate may depend on the values of the object's properties. A
+	// ClassValue doesn't prevent classes (and their class loaders) from being garbage collected. It is replaced when
+	// an encoder is added
+	private volatile ClassValue<Function<Object, ToStringResult>> classEncodersCache = createClassEncodersCache();
+	private final AtomicLong classEncodersCacheLookups = new AtomicLong();
+	private final AtomicLong classEncodersCacheMisses = new AtomicLong();
+
+	/**
+	 * Add an encoder for objects of the specified class and its subclasses (e.g. an encoder that uses Jackson to
+	 * convert records to JSON). Encoders are only used for objects for which none of the other encoders of this class
+	 * apply (e.g. not for a String, byte[], stream, Throwable, Node or Date). Set the encoding of the
+	 * {@link ToStringResult} to make it possible for {@link #toObject(Checkpoint, Object)} (in a subclass of this
+	 * class) to convert the string back to an object when the checkpoint is used as a stub.
+	 * 
+	 * @param <T>      type of objects to encode
+	 * @param clazz    class of objects to encode
+	 * @param encoder  function that converts an object to a {@link ToStringResult}
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> void addEncoder(Class<T> clazz, Function<? super T, ToStringResult> encoder) {
+		encoders.put(clazz, message -> encoder.apply((T)message));
+		classEncodersCache = createClassEncodersCache();
+	}
+
+	/**
+	 * @return number of times the encoder to use for the class of an object was found in the cache
+	 */
+	public long getClassEncodersCacheHits() {
+		return classEncodersCacheLookups.get() - classEncodersCacheMisses.get();
+	}
+
+	/**
+	 * @return number of times the encoder to use for the class of an object was not found in the cache
+	 */
+	public long getClassEncodersCacheMisses() {
+		return classEncodersCacheMisses.get();
+	}
 
 	@Override
-	@SneakyThrows(UnsupportedEncodingException.class)
 	public ToStringResult toString(Object message, String charset) {
+		return toString(message, charset, -1);
+	}
+
+	@Override
+	public ToStringResult toString(Object message, String charset, int maxLength) {
 		ToStringResult toStringResult;
 		if (message == null) {
 			toStringResult = new ToStringResult(null, null);
@@ -82,11 +143,10 @@ public class MessageEncoderImpl implements MessageEncoder {
 					// This will throw an exception were new String(((byte[])message), "UTF-8") would use the
 					// replacement character instead of throwing an exception. See https://en.wikipedia.org/wiki/UTF-8
 					// also (search for replacement character)
-					CharBuffer charBuffer = charsetDecoder.decode(ByteBuffer.wrap((byte[])message));
-					toStringResult = new ToStringResult(charBuffer.toString(), encoding);
+					toStringResult = decode(charsetDecoder, (byte[])message, maxLength);
+					toStringResult.setEncoding(encoding);
 				} catch (CharacterCodingException e) {
-					toStringResult = new ToStringResult(java.util.Base64.getEncoder().encodeToString((byte[])message),
-							BASE64_ENCODER);
+					toStringResult = toBase64String((byte[])message, maxLength);
 				}
 			} else if (message instanceof Reader || message instanceof InputStream
 					|| message instanceof Writer || message instanceof OutputStream) {
@@ -97,32 +157,167 @@ public class MessageEncoderImpl implements MessageEncoder {
 				((Throwable)message).printStackTrace(new PrintWriter(stringWriter));
 				toStringResult = new ToStringResult(stringWriter.toString(), THROWABLE_ENCODER);
 			} else if (message instanceof Node) {
-				Node node = (Node)message;
-				toStringResult = new ToStringResult(XmlUtil.nodeToString(node), DOM_NODE_ENCODER);
+				TruncatingWriter truncatingWriter = new TruncatingWriter(maxLength);
+				XmlUtil.nodeToWriter((Node)message, truncatingWriter);
+				toStringResult = new ToStringResult(truncatingWriter.toString(), DOM_NODE_ENCODER);
+				if (truncatingWriter.isTruncated()) {
+					toStringResult.setPreTruncatedLength(truncatingWriter.getLength());
+				}
 			} else if (message instanceof Date) {
 				toStringResult = new ToStringResult(new SimpleDateFormat(DATE_PATTERN).format((Date)message),
 						DATE_ENCODER);
 			} else {
-				String xml = null;
-				ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-				XMLEncoder encoder = new XMLEncoder(byteArrayOutputStream);
-				XMLEncoderExceptionListener exceptionListener = new XMLEncoderExceptionListener();
-				encoder.setExceptionListener(exceptionListener);
-				encoder.writeObject(message);
-				encoder.close();
-				xml = byteArrayOutputStream.toString("UTF-8");
-				if (exceptionListener.isExceptionThrown()) {
-					// Object doesn't seem to be a bean
-					toStringResult = new ToStringResult(message.toString(), TO_STRING_ENCODER);
-				} else {
-					toStringResult = new ToStringResult(xml, XML_ENCODER);
-				}
+				toStringResult = toClassEncoderString(message);
 			}
 			toStringResult.setMessageClassName(message.getClass().getTypeName());
 		}
 		return toStringResult;
 	}
 
+	/**
+	 * Decode all bytes (to find out whether they can be decoded and to count the number of characters) but only keep
+	 * the first maxLength characters in memory
+	 */
+	private static ToStringResult decode(CharsetDecoder charsetDecoder, byte[] bytes, int maxLength)
+			throws CharacterCodingException {
+		// A byte will never be decoded to more than one char by the charsets that are commonly used for messages, but
+		// don't rely on it for other charsets
+		if (maxLength < 0 || (bytes.length <= maxLength && charsetDecoder.maxCharsPerByte() <= 1.0f)) {
+			return new ToStringResult(charsetDecoder.decode(ByteBuffer.wrap(bytes)).toString(), null);
+		}
+		ByteBuffer byteBuffer = ByteBuffer.wrap(bytes);
+		CharBuffer charBuffer = CharBuffer.allocate(maxLength);
+		CharBuffer skipBuffer = CharBuffer.allocate(DECODE_SKIP_BUFFER_SIZE);
+		int skipped = 0;
+		CoderResult coderResult = charsetDecoder.decode(byteBuffer, charBuffer, true);
+		while (coderResult.isOverflow()) {
+			skipped += skipBuffer.position();
+			skipBuffer.clear();
+			coderResult = charsetDecoder.decode(byteBuffer, skipBuffer, true);
+		}
+		if (coderResult.isError()) {
+			coderResult.throwException();
+		}
+		CharBuffer outputBuffer = charBuffer.hasRemaining() ? charBuffer : skipBuffer;
+		while (charsetDecoder.flush(outputBuffer).isOverflow()) {
+			outputBuffer = skipBuffer;
+			skipped += skipBuffer.position();
+			skipBuffer.clear();
+		}
+		int length = charBuffer.position() + skipped + skipBuffer.position();
+		charBuffer.flip();
+		ToStringResult toStringResult = new ToStringResult(charBuffer.toString(), null);
+		if (length > maxLength) {
+			toStringResult.setPreTruncatedLength(length);
+		}
+		return toStringResult;
+	}
+
+	/**
+	 * Only encode the bytes needed for the first maxLength characters, the length of the complete Base64 string can be
+	 * calculated
+	 */
+	private static ToStringResult toBase64String(byte[] bytes, int maxLength) {
+		int length = (bytes.length + 2) / 3 * 4;
+		if (maxLength < 0 || length <= maxLength) {
+			return new ToStringResult(java.util.Base64.getEncoder().encodeToString(bytes), BASE64_ENCODER);
+		} else {
+			// When maxLength is within the last group of four characters not all bytes of the group are available
+			int numberOfBytes = Math.min((maxLength + 3) / 4 * 3, bytes.length);
+			byte[] prefix = java.util.Arrays.copyOf(bytes, numberOfBytes);
+			String string = java.util.Base64.getEncoder().encodeToString(prefix).substring(0, maxLength);
+			ToStringResult toStringResult = new ToStringResult(string, BASE64_ENCODER);
+			toStringResult.setPreTruncatedLength(length);
+			return toStringResult;
+		}
+	}
+
+	private ToStringResult toClassEncoderString(Object message) {
+		classEncodersCacheLookups.incrementAndGet();
+		ToStringResult toStringResult = classEncodersCache.get(message.getClass()).apply(message);
+		if (toStringResult == null) {
+			// Object doesn't seem to be a bean (or encoder added with addEncoder() returned null)
+			toStringResult = TO_STRING_ENCODER_FUNCTION.apply(message);
+		}
+		return toStringResult;
+	}
+
+	private ClassValue<Function<Object, ToStringResult>> createClassEncodersCache() {
+		return new ClassValue<Function<Object, ToStringResult>>() {
+			@Override
+			protected Function<Object, ToStringResult> computeValue(Class<?> clazz) {
+				classEncodersCacheMisses.incrementAndGet();
+				Function<Object, ToStringResult> encoder = findEncoder(clazz);
+				if (encoder == null) {
+					if (isXmlEncoderInstantiable(clazz)) {
+						encoder = XML_ENCODER_FUNCTION;
+					} else {
+						encoder = TO_STRING_ENCODER_FUNCTION;
+					}
+				}
+				return encoder;
+			}
+		};
+	}
+
+	/**
+	 * Check whether XMLEncoder is able to instantiate objects of a class. When the class has no specific persistence
+	 * delegate (like arrays, enums, primitive wrappers and some collections have) the default persistence delegate
+	 * needs a public class with a public no-argument constructor or a public constructor annotated with
+	 * {@link ConstructorProperties}, otherwise XMLEncoder will fail for every object of the class.
+	 */
+	private static boolean isXmlEncoderInstantiable(Class<?> clazz) {
+		PersistenceDelegate persistenceDelegate;
+		try (XMLEncoder encoder = new XMLEncoder(OutputStream.nullOutputStream())) {
+			persistenceDelegate = encoder.getPersistenceDelegate(clazz);
+		}
+		if (persistenceDelegate.getClass() != DefaultPersistenceDelegate.class) {
+			return true;
+		}
+		if (!Modifier.isPublic(clazz.getModifiers())) {
+			return false;
+		}
+		for (Constructor<?> constructor : clazz.getConstructors()) {
+			if (constructor.getParameterCount() == 0 || constructor.isAnnotationPresent(ConstructorProperties.class)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private Function<Object, ToStringResult> findEncoder(Class<?> clazz) {
+		if (encoders.isEmpty()) {
+			return null;
+		}
+		for (Class<?> superclass = clazz; superclass != null; superclass = superclass.getSuperclass()) {
+			Function<Object, ToStringResult> encoder = encoders.get(superclass);
+			if (encoder != null) {
+				return encoder;
+			}
+		}
+		for (Map.Entry<Class<?>, Function<Object, ToStringResult>> entry : encoders.entrySet()) {
+			if (entry.getKey().isAssignableFrom(clazz)) {
+				return entry.getValue();
+			}
+		}
+		return null;
+	}
+
+	@SneakyThrows(UnsupportedEncodingException.class)
+	private static ToStringResult toXmlEncoderString(Object message) {
+		ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+		XMLEncoder encoder = new XMLEncoder(byteArrayOutputStream);
+		XMLEncoderExceptionListener exceptionListener = new XMLEncoderExceptionListener();
+		encoder.setExceptionListener(exceptionListener);
+		encoder.writeObject(message);
+		encoder.close();
+		if (exceptionListener.isExceptionThrown()) {
+			return null;
+		} else {
+			return new ToStringResult(byteArrayOutputStream.toString("UTF-8"), XML_ENCODER);
+		}
+	}
+
 	@Override
 	@SneakyThrows
 	public Object toObject(Checkpoint checkpoint) {
@@ -199,3 +394,58 @@ public class MessageEncoderImpl implements MessageEncoder {
 	}
 
 }
+
+/**
+ * Writer that keeps the first maxLength characters written to it and counts the total number of characters
+ */
+class TruncatingWriter extends Writer {
+	private StringBuilder stringBuilder = new StringBuilder();
+	private int maxLength;
+	private int length = 0;
+
+	TruncatingWriter(int maxLength) {
+		this.maxLength = maxLength;
+	}
+
+	@Override
+	public void write(char[] cbuf, int off, int len) {
+		if (maxLength < 0) {
+			stringBuilder.append(cbuf, off, len);
+		} else if (stringBuilder.length() < maxLength) {
+			stringBuilder.append(cbuf, off, Math.min(len, maxLength - stringBuilder.length()));
+		}
+		length += len;
+	}
+
+	@Override
+	public void write(String str, int off, int len) {
+		if (maxLength < 0) {
+			stringBuilder.append(str, off, off + len);
+		} else if (stringBuilder.length() < maxLength) {
+			stringBuilder.append(str, off, off + Math.min(len, maxLength - stringBuilder.length()));
+		}
+		length += len;
+	}
+
+	@Override
+	public void flush() {
+	}
+
+	@Override
+	public void close() {
+	}
+
+	int getLength() {
+		return length;
+	}
+
+	boolean isTruncated() {
+		return maxLength > -1 && length > maxLength;
+	}
+
+	@Override
+	public String toString() {
+		return stringBuilder.toString();
+	}
+
+}
@@ -0,0 +1,62 @@
+/*
+   Copyright 2026 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.wearefrank.ladybug;
+
+import org.wearefrank.ladybug.storage.StorageException;
+
+/**
+ * Implement this interface to keep large checkpoint messages out of the heap. When a message store is wired to
+ * {@link TestTool} messages with a length of at least {@link #getMinMessageLength()} are stored in the message store
+ * and the checkpoint will only hold the key of the message. The message is read from the message store again when
+ * {@link Checkpoint#getMessage()} is called (and kept in memory for as long as the garbage collector allows). When no
+ * checkpoint in memory references the key anymore (e.g. because the report has been deleted from or evicted by a memory
+ * storage, or because it has been written to a file or database storage) {@link #release(String)} is called by a cleaner
+ * thread.
+ * 
+ * @author Jaco de Groot
+ */
+public interface MessageStore {
+
+	/**
+	 * @return  the minimum length of a message to be stored in the message store
+	 */
+	public int getMinMessageLength();
+
+	/**
+	 * Store a message. Storing the same message more than once should return the same key.
+	 * 
+	 * @param message  the message to store
+	 * @return         the key to get the message
+	 * @throws StorageException ...
+	 */
+	public String store(String message) throws StorageException;
+
+	/**
+	 * @param key  the key returned by {@link #store(String)}
+	 * @return     the message
+	 * @throws StorageException ...
+	 */
+	public String getMessage(String key) throws StorageException;
+
+	/**
+	 * Release a message. Called once for every call to {@link #store(String)}. The message can be removed from the
+	 * message store when it has been released as many times as it has been stored.
+	 * 
+	 * @param key  the key returned by {@link #store(String)}
+	 */
+	public void release(String key);
+
+}
@@ -1,5 +1,5 @@
 /*
-   Copyright 2020, 2022-2025 WeAreFrank!, 2018 Nationale-Nederlanden
+   Copyright 2020, 2022-2026 WeAreFrank!, 2018 Nationale-Nederlanden
 
    Licensed under the Apache License, Version 2.0 (the "License");
    you may not use this file except in compliance with the License.
@@ -15,6 +15,9 @@
 */
 package org.wearefrank.ladybug;
 
+import java.util.Arrays;
+import java.util.Objects;
+
 /**
  * @author Jaco de Groot
  */
@@ -43,8 +46,7 @@ public class Path {
 			return false;
 		} else {
 			for (int i = 0; i < names.length; i++) {
-				if (!((names[i] == null && path.names[i] == null) || names[i].equals(path.names[i]))
-						|| counts[i] != path.counts[i]) {
+				if (!Objects.equals(names[i], path.names[i]) || counts[i] != path.counts[i]) {
 					return false;
 				}
 			}
@@ -52,6 +54,16 @@ public class Path {
 		return true;
 	}
 
+	@Override
+	public boolean equals(Object object) {
+		return object instanceof Path && equals((Path)object);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * Arrays.hashCode(names) + Arrays.hashCode(counts);
+	}
+
 	public String toString() {
 		StringBuilder builder = new StringBuilder();
 		for (int i = 0; i < names.length; i++) {
@@ -16,14 +16,19 @@
 package org.wearefrank.ladybug;
 
 import java.beans.Transient;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.lang.invoke.MethodHandles;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -69,6 +74,7 @@ public class Report implements Serializable {
 	private static final long serialVersionUID = 5;
 	private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 	public static final long TIME_NOT_SET_VALUE = Long.MIN_VALUE;
+	public static final String MESSAGE_DROPPED = "Message not captured because the memory budget for reports in progress was reached";
 	// Please note that the set method should return void for XmlEncoder to store the property
 	private @Setter @Getter long startTime;
 	private @Setter @Getter long endTime = TIME_NOT_SET_VALUE;
@@ -96,13 +102,22 @@ public class Report implements Serializable {
 	private transient long mainThreadFinishedTime = TIME_NOT_SET_VALUE;
 	private transient List<String> threads = new ArrayList<>();
 	private transient List<String> threadsWithThreadCreatepoint = new ArrayList<>();
-	private transient Map<String, Integer> threadCheckpointIndex = new HashMap<>();
+	// While the report is in progress the checkpoints are added to a block per thread (with the blocks of the child
+	// threads nested in the block of the parent thread at the position where the child thread was created) instead of
+	// being inserted in the middle of list checkpoints (which would shift the checkpoints of the other threads and the
+	// indexes of all threads after it). List checkpoints is (re)created from the blocks when needed, see
+	// getCheckpoints()
+	private transient volatile ThreadBlock mainThreadBlock;
+	private transient Map<String, ThreadBlock> threadBlocks = new HashMap<>();
+	private transient int numberOfCheckpointsInProgress;
+	private transient boolean checkpointsFlattened = true;
 	private transient Map<String, Integer> threadFirstLevel = new HashMap<>();
 	private transient Map<String, Integer> threadLevel = new HashMap<>();
 	private transient Map<String, String> threadParent = new HashMap<>();
 	private transient int threadsActiveCount = 0;
 	private transient TestTool testTool;
 	private transient boolean closed;
+	private transient long reportInProgressSequenceNumber;
 	private transient Storage storage;
 	// Property storageId will not be exposed by JSON-B when using storageId instead of transientStorageId, see also:
 	//   https://github.com/jakartaee/jsonb-api/issues/269
@@ -129,6 +144,7 @@ public class Report implements Serializable {
 	private transient ReportXmlTransformer globalReportXmlTransformer;
 	private transient String xml;
 	private transient Report originalReport;
+	private transient volatile CheckpointLinkIndex checkpointLinkIndex;
 	private transient boolean differenceChecked = false;
 	private transient boolean differenceFound = false;
 	private transient Map<String, String> truncatedMessageMap = new RefCompareMap<>();
@@ -136,6 +152,9 @@ public class Report implements Serializable {
 	private transient boolean logReportFilterMatching = true;
 	private transient boolean logMaxCheckpoints = true;
 	private transient boolean logMaxMemoryUsage = true;
+	private transient boolean captureRefused = false;
+	private transient boolean messagesDropped = false;
+	private transient boolean removedFromReportsInProgress = false;
 	private transient Map<Object, Set<Checkpoint>> streamingMessageListeners = new HashMap<>();
 	private transient Map<Object, StreamingMessageResult> streamingMessageResults = new HashMap<>();
 
@@ -163,6 +182,44 @@ public class Report implements Serializable {
 		return closed;
 	}
 
+	protected void setReportInProgressSequenceNumber(long reportInProgressSequenceNumber) {
+		this.reportInProgressSequenceNumber = reportInProgressSequenceNumber;
+	}
+
+	protected long getReportInProgressSequenceNumber() {
+		return reportInProgressSequenceNumber;
+	}
+
+	protected void setCaptureRefused(boolean captureRefused) {
+		this.captureRefused = captureRefused;
+	}
+
+	protected boolean isCaptureRefused() {
+		return captureRefused;
+	}
+
+	protected void setMessagesDropped(boolean messagesDropped) {
+		this.messagesDropped = messagesDropped;
+	}
+
+	protected boolean isMessagesDropped() {
+		return messagesDropped;
+	}
+
+	/**
+	 * Called by TestTool (while holding the lock on the report) when the report is removed from the reports in
+	 * progress. Checkpoints added after this call are no longer added to the memory usage of the reports in progress.
+	 * 
+	 * @return the estimated memory usage that has been added to the memory usage of the reports in progress
+	 */
+	protected long removedFromReportsInProgress() {
+		if (removedFromReportsInProgress) {
+			return 0L;
+		}
+		removedFromReportsInProgress = true;
+		return estimatedMemoryUsage;
+	}
+
 	@Transient
 	@JsonIgnore
 	public void setStorage(Storage storage) {
@@ -271,7 +328,11 @@ public class Report implements Serializable {
 	protected void init() {
 		mainThread = Thread.currentThread().getName();
 		threads.add(mainThread);
-		threadCheckpointIndex.put(mainThread, 0);
+		ThreadBlock threadBlock = new ThreadBlock();
+		threadBlock.items.addAll(checkpoints);
+		threadBlocks.put(mainThread, threadBlock);
+		numberOfCheckpointsInProgress = checkpoints.size();
+		mainThreadBlock = threadBlock;
 		threadFirstLevel.put(mainThread, 0);
 		threadLevel.put(mainThread, 0);
 		threadsActiveCount++;
@@ -306,12 +367,14 @@ public class Report implements Serializable {
 					&& !threads.contains(Thread.currentThread().getName())) {
 				checkpointType = CheckpointType.THREAD_STARTPOINT.toInt();
 				childThreadId = Thread.currentThread().getName();
-				if (threads.size() == 0 || checkpoints.size() == 0) {
+				if (threads.size() == 0 || numberOfCheckpointsInProgress == 0) {
 					// No threads can happen when a report is still open because not all message capturers are closed
 					// while all threads are finished
 					// No checkpoint can happen when two threads start a new report for the same correlationId and one
-					// of them is the first to run the synchronized(reportsInProgress) in class TestTool and the other 
-					// is the first to run the synchronized(report) in class TestTool (see also devMode in TestTool)
+					// of them registers the report it created with createReport() (while holding the lock on the new
+					// report in getOrCreateReportInProgress() in class TestTool) and the other one receives that report
+					// from the map of reports in progress and is the first to run the synchronized(report) in class
+					// TestTool (see also devMode in TestTool)
 					warnNewChildThreadDetected(childThreadId, null, true, name, checkpointType, true);
 					return message;
 				} else {
@@ -347,7 +410,11 @@ public class Report implements Serializable {
 
 	private void threadCreatepoint(String parentThreadName, String childThreadId) {
 		threads.add(threads.indexOf(parentThreadName), childThreadId);
-		threadCheckpointIndex.put(childThreadId, threadCheckpointIndex.get(parentThreadName));
+		ThreadBlock parentThreadBlock = threadBlocks.get(parentThreadName);
+		ThreadBlock threadBlock = new ThreadBlock();
+		threadBlock.parentSpan = parentThreadBlock.getCurrentSpan();
+		parentThreadBlock.items.add(threadBlock);
+		threadBlocks.put(childThreadId, threadBlock);
 		threadFirstLevel.put(childThreadId, threadLevel.get(parentThreadName));
 		threadLevel.put(childThreadId, threadLevel.get(parentThreadName));
 		threadParent.put(childThreadId, parentThreadName);
@@ -359,20 +426,18 @@ public class Report implements Serializable {
 	 * visualize the status of waiting for a thread to start. A threadCreatepoint should be visualized as an error as a
 	 * thread was expected to start but didn't start.
 	 * 
-	 * @param index
-	 * @param threadName
+	 * @param threadBlock
+	 * @param childThreadId
 	 */
-	private void removeThreadCreatepoint(int index, String childThreadId) {
+	private void removeThreadCreatepoint(ThreadBlock threadBlock, String childThreadId) {
 		if (threadsWithThreadCreatepoint.remove(childThreadId)) {
 			// When testTool.getMaxCheckpoints() or testTool.getMaxMemoryUsage() is reached method threadCreatepoint()
-			// will still be called but no checkpoint is added, hence check index < checkpoints.size()
-			if (index < checkpoints.size()) {
-				checkpoints.remove(index);
-				for (int i = threads.indexOf(childThreadId) + 1; i < threads.size(); i++) {
-					String key = threads.get(i);
-					Integer value = threadCheckpointIndex.get(key);
-					threadCheckpointIndex.put(key, value - 1);
-				}
+			// will still be called but no checkpoint is added, hence check threadCreatepoint != null
+			if (threadBlock.threadCreatepoint != null) {
+				threadBlock.items.remove(threadBlock.threadCreatepoint);
+				threadBlock.threadCreatepoint = null;
+				numberOfCheckpointsInProgress--;
+				checkpointsFlattened = false;
 			}
 		}
 	}
@@ -381,24 +446,25 @@ public class Report implements Serializable {
 			StubableCode stubableCode, StubableCodeThrowsException stubableCodeThrowsException,
 			Set<String> matchingStubStrategies, int checkpointType, int levelChangeNextCheckpoint) {
 		String threadName = Thread.currentThread().getName();
-		Integer index = threadCheckpointIndex.get(threadName);
+		ThreadBlock threadBlock = threadBlocks.get(threadName);
 		Integer level = threadLevel.get(threadName);
 		if (checkpointType == CheckpointType.THREAD_STARTPOINT.toInt()) {
-			// At this point index will already be != null when name of the child thread was used as childThreadId
-			// when calling threadCreatepoint() (no rename of child thread id in the relevant maps needed in that case)
-			if (index == null) {
-				index = threadCheckpointIndex.remove(childThreadId);
-				if (index != null) {
+			// At this point threadBlock will already be != null when name of the child thread was used as
+			// childThreadId when calling threadCreatepoint() (no rename of child thread id in the relevant maps needed
+			// in that case)
+			if (threadBlock == null) {
+				threadBlock = threadBlocks.remove(childThreadId);
+				if (threadBlock != null) {
 					// Rename child thread id in the relevant lists and maps to the actual thread name of the child
 					// thread (which at this point is the current thread (calling it's first checkpoint with
-					// threadStartpoint()) for as far as they are not already the same (in which case index will be
-					// initialized with a non null value at the beginning of this method)
+					// threadStartpoint()) for as far as they are not already the same (in which case threadBlock will
+					// be initialized with a non null value at the beginning of this method)
 					threads.add(threads.indexOf(childThreadId), threadName);
 					threads.remove(childThreadId);
 					if (threadsWithThreadCreatepoint.remove(childThreadId)) {
 						threadsWithThreadCreatepoint.add(threadName);
 					}
-					threadCheckpointIndex.put(threadName, index);
+					threadBlocks.put(threadName, threadBlock);
 					level = threadFirstLevel.remove(childThreadId);
 					threadFirstLevel.put(threadName, level);
 					level = threadLevel.remove(childThreadId);
@@ -410,23 +476,27 @@ public class Report implements Serializable {
 							+ "', use the same childThreadId when calling threadCreatepoint() and threadStartpoint()");
 				}
 			}
-			if (index != null) {
-				removeThreadCreatepoint(index, threadName);
+			if (threadBlock != null) {
+				removeThreadCreatepoint(threadBlock, threadName);
 			}
 		}
-		if (index == null) {
+		if (threadBlock == null) {
 			log.warn("Unknown thread '" + threadName + "', ignored checkpoint "
 			 		+ getCheckpointLogDescription(name, checkpointType, level));
 		} else {
-			if (!isReportFilterMatching()) {
+			if (!isReportFilterMatching() || captureRefused) {
 				message = TestTool.execute(stubableCode, stubableCodeThrowsException, message);
 				if (logReportFilterMatching) {
-					log.debug("Report name doesn't match report filter regex, ignored checkpoint "
+					String reason = "Report name doesn't match report filter regex";
+					if (captureRefused) {
+						reason = "Maximum memory usage of reports in progress reached";
+					}
+					log.debug(reason + ", ignored checkpoint "
 							+ getCheckpointLogDescription(name, checkpointType, level) + " "
 							+ getOtherCheckpointsLogDescription());
 					logReportFilterMatching = false;
 				}
-			} else if (checkpoints.size() >= testTool.getMaxCheckpoints()) {
+			} else if (numberOfCheckpointsInProgress >= testTool.getMaxCheckpoints()) {
 				message = TestTool.execute(stubableCode, stubableCodeThrowsException, message);
 				if (logMaxCheckpoints) {
 					log.warn("Maximum number of checkpoints (" + testTool.getMaxCheckpoints()
@@ -444,8 +514,13 @@ public class Report implements Serializable {
 					logMaxMemoryUsage = false;
 				}
 			} else {
+				if (checkpointType == CheckpointType.THREAD_CREATEPOINT.toInt()) {
+					// The checkpoint to visualize waiting for the child thread is the first checkpoint in the block of
+					// the child thread (see removeThreadCreatepoint())
+					threadBlock = threadBlocks.get(childThreadId);
+				}
 				message = addCheckpoint(threadName, sourceClassName, name, message, messageContext, stubableCode,
-						stubableCodeThrowsException, matchingStubStrategies, checkpointType, index, level);
+						stubableCodeThrowsException, matchingStubStrategies, checkpointType, threadBlock, level);
 			}
 			Integer newLevel = level + levelChangeNextCheckpoint;
 			threadLevel.put(threadName, newLevel);
@@ -461,20 +536,24 @@ public class Report implements Serializable {
 	@SneakyThrows
 	private  <T> T addCheckpoint(String threadName, String sourceClassName, String name, T message, Map<String, Object> messageContext,
 			StubableCode stubableCode, StubableCodeThrowsException stubableCodeThrowsException,
-			Set<String> matchingStubStrategies, int checkpointType, Integer index, Integer level) {
+			Set<String> matchingStubStrategies, int checkpointType, ThreadBlock threadBlock, Integer level) {
 		Checkpoint checkpoint = new Checkpoint(this, threadName, sourceClassName, name, checkpointType, level);
 		checkpoint.setMessageContext(messageContext);
+		// Block of the current thread (parameter threadBlock is the block of the child thread for a threadCreatepoint)
+		ThreadBlock currentThreadBlock = null;
 		if (testTool.getOpenTelemetryTracer() != null) {
+			currentThreadBlock = threadBlocks.get(threadName);
 			SpanBuilder checkpointSpanBuilder = testTool.getOpenTelemetryTracer().spanBuilder("checkpoint - " + name);
-			for (Checkpoint checkpointInList: checkpoints) {
-				if (checkpointInList.getType() == 1 && checkpointInList.getLevel() == checkpoint.getLevel() - 1) {
-					checkpointSpanBuilder.setParent(Context.current().with(checkpointInList.getSpan()));
-				}
+			Span parentSpan = currentThreadBlock.getCurrentSpan();
+			if (parentSpan != null) {
+				checkpointSpanBuilder.setParent(Context.current().with(parentSpan));
 			}
 			Span checkpointSpan = checkpointSpanBuilder.startSpan();
 			checkpointSpan.setAttribute("checkpointType", checkpoint.getType());
 			checkpointSpan.setAttribute("checkpointTypeAsString", checkpoint.getTypeAsString());
 			checkpointSpan.setAttribute("checkpointLevel", checkpoint.getLevel());
+			checkpointSpan.setAttribute("correlationId", correlationId);
+			checkpointSpan.setAttribute("threadName", threadName);
 			checkpoint.setSpan(checkpointSpan);
 		}
 		boolean stub = false;
@@ -512,54 +591,53 @@ public class Report implements Serializable {
 			if (stub) {
 				checkpoint.setStubbed(true);
 				message = getMessageEncoder().toObject(originalCheckpoint, message);
-				message = checkpoint.setMessage(message);
+				message = setMessage(checkpoint, message);
 			}
 		}
 		if (!stub) {
 			try {
 				message = TestTool.execute(stubableCode, stubableCodeThrowsException, message);
 			} catch(Throwable t) {
+				if (checkpoint.getSpan() != null) {
+					checkpoint.getSpan().end();
+				}
 				testTool.abortpoint(correlationId, sourceClassName, name, t.getMessage());
 				throw t;
 			}
-			message = checkpoint.setMessage(message);
+			message = setMessage(checkpoint, message);
 		}
-		if (index > checkpoints.size()) {
-			// This code should not be necessary anymore (see testRemoveThreadCreatepoint() for the issue that has been
-			// fixed). Keep the following code for now and remove it somewhere in the future
-			String warning = "Ladybug adjustment of checkpoint index to prevent IndexOutOfBoundsException."
-					+ " For unknown reason index is " + index + " while checkpoints size is " + checkpoints.size() + "."
-					+ " Please create an issue at https://github.com/wearefrank/ladybug/issues/new\n"
-					+ getThreadInfo();
-			log.warn(warning);
-			Checkpoint warningCheckpoint = new Checkpoint(this, threadName, this.getClass().getCanonicalName(),
-					"WARNING", CheckpointType.INFOPOINT.toInt(), level);
-			warningCheckpoint.setMessage(warning);
-			threadCheckpointIndex.put(threadName, checkpoints.size());
-			index = checkpoints.size() - 1;
-			checkpoints.add(index, warningCheckpoint);
-			index++;
+		// Add checkpoint to the block of the thread after stubable code has been executed. Otherwise when a report in
+		// progress is opened it might give the impression that the stubable code is already executed
+		threadBlock.items.add(checkpoint);
+		if (checkpointType == CheckpointType.THREAD_CREATEPOINT.toInt()) {
+			threadBlock.threadCreatepoint = checkpoint;
 		}
-		// Add checkpoint to the list after stubable code has been executed. Otherwise when a report in progress is
-		// opened it might give the impression that the stubable code is already executed
-		checkpoints.add(index, checkpoint);
-		for (int i = threads.indexOf(threadName); i < threads.size(); i++) {
-			String key = threads.get(i);
-			Integer value = threadCheckpointIndex.get(key);
-			threadCheckpointIndex.put(key, value + 1);
+		numberOfCheckpointsInProgress++;
+		checkpointsFlattened = false;
+		long checkpointEstimatedMemoryUsage = checkpoint.getEstimatedMemoryUsage();
+		estimatedMemoryUsage += checkpointEstimatedMemoryUsage;
+		if (!removedFromReportsInProgress) {
+			testTool.addReportsInProgressEstimatedMemoryUsage(checkpointEstimatedMemoryUsage);
 		}
-		estimatedMemoryUsage += checkpoint.getEstimatedMemoryUsage();
 		if (log.isDebugEnabled()) {
 			log.debug("Added checkpoint " + getCheckpointLogDescription(name, checkpointType, level));
 		}
-		if (testTool.getOpenTelemetryTracer() != null) {
-			if (checkpointType != 1) {
-				checkpoint.getSpan().end();
-			}
-			if (checkpointType == 2) {
-				for (Checkpoint checkpointInList: checkpoints) {
-					if (checkpointInList.getType() == 1 && checkpointInList.getLevel() == checkpoint.getLevel() - 1) {
-						checkpointInList.getSpan().end();
+		if (currentThreadBlock != null) {
+			Span checkpointSpan = checkpoint.getSpan();
+			checkpointSpan.setAttribute("checkpointStubbed", checkpoint.isStubbed());
+			if (checkpointType == CheckpointType.STARTPOINT.toInt()
+					|| checkpointType == CheckpointType.THREAD_STARTPOINT.toInt()) {
+				// Span will be ended by the corresponding endpoint and is the parent of the spans of the checkpoints
+				// in between
+				currentThreadBlock.startpointSpans.push(checkpointSpan);
+			} else {
+				checkpointSpan.end();
+				if (checkpointType == CheckpointType.ENDPOINT.toInt()
+						|| checkpointType == CheckpointType.THREAD_ENDPOINT.toInt()
+						|| checkpointType == CheckpointType.ABORTPOINT.toInt()) {
+					Span startpointSpan = currentThreadBlock.startpointSpans.poll();
+					if (startpointSpan != null) {
+						startpointSpan.end();
 					}
 				}
 			}
@@ -568,11 +646,21 @@ public class Report implements Serializable {
 		return message;
 	}
 
+	private <T> T setMessage(Checkpoint checkpoint, T message) {
+		if (messagesDropped) {
+			// Keep the checkpoint without the message (and don't wrap streams with a message capturer)
+			checkpoint.setMessage(MESSAGE_DROPPED);
+			return message;
+		}
+		return checkpoint.setMessage(message);
+	}
+
 	public String getThreadInfo() {
 		return "\nmainThread: " + mainThread
 				+ "\nmainThreadFinishedTime: " + mainThreadFinishedTime
 				+ "\nthreads: " + threads
-				+ "\nthreadCheckpointIndex: " + threadCheckpointIndex
+				+ "\nthreadBlocks: " + threadBlocks.keySet()
+				+ "\nnumberOfCheckpointsInProgress: " + numberOfCheckpointsInProgress
 				+ "\nthreadFirstLevel: " + threadFirstLevel
 				+ "\nthreadLevel: " + threadLevel
 				+ "\nthreadParent: " + threadParent
@@ -604,21 +692,9 @@ public class Report implements Serializable {
 	public Checkpoint getOriginalEndpointOrAbortpointForCurrentLevel() {
 		Checkpoint result = null;
 		if (originalReport != null) {
+			List<Checkpoint> checkpoints = getCheckpoints();
 			Checkpoint lastCheckpoint = (Checkpoint)checkpoints.get(checkpoints.size() - 1);
-			Checkpoint checkpoint = originalReport.getCheckpoint(lastCheckpoint.getPath());
-			if (checkpoint != null) {
-				int i = originalReport.checkpoints.indexOf(checkpoint) + 1;
-				while (checkpoint.getType() != CheckpointType.ENDPOINT.toInt()
-						&& checkpoint.getType() != CheckpointType.ABORTPOINT.toInt()
-						&& i < originalReport.checkpoints.size()) {
-					checkpoint = (Checkpoint)originalReport.checkpoints.get(i);
-					i++;
-				}
-				if (checkpoint.getType() == CheckpointType.ENDPOINT.toInt()
-						|| checkpoint.getType() == CheckpointType.ABORTPOINT.toInt()) {
-					result = checkpoint;
-				}
-			}
+			result = originalReport.getCheckpointLinkIndex().getEndpointOrAbortpoint(lastCheckpoint.getPath());
 		}
 		return result;
 	}
@@ -641,17 +717,26 @@ public class Report implements Serializable {
 	}
 
 	protected void closeThread(String threadName, boolean removeThreadCreatepoint) {
-		Integer index = threadCheckpointIndex.get(threadName);
-		if (index != null) {
+		ThreadBlock threadBlock = threadBlocks.get(threadName);
+		if (threadBlock != null) {
 			if (removeThreadCreatepoint) {
-				removeThreadCreatepoint(index, threadName);
+				removeThreadCreatepoint(threadBlock, threadName);
+			}
+			for (Span span : threadBlock.startpointSpans) {
+				// Thread closed before all endpoints were added
+				span.end();
 			}
 			threads.remove(threadName);
-			threadCheckpointIndex.remove(threadName);
+			threadBlocks.remove(threadName);
 			threadFirstLevel.remove(threadName);
 			threadLevel.remove(threadName);
 			threadParent.remove(threadName);
 			threadsActiveCount--;
+			if (threadsActiveCount < 1) {
+				// No checkpoints can be added anymore, create the final list of checkpoints and release the blocks
+				getCheckpoints();
+				mainThreadBlock = null;
+			}
 		} else {
 			log.warn("Thread '" + threadName + "' to close for report with correlationId '" + correlationId + "' not found");
 		}
@@ -693,7 +778,7 @@ public class Report implements Serializable {
 	}
 
 	protected void closeMessageCapturers() {
-		for (Checkpoint checkpoint : checkpoints) {
+		for (Checkpoint checkpoint : getCheckpoints()) {
 			checkpoint.closeMessageCapturer();
 		}
 	}
@@ -757,15 +842,17 @@ public class Report implements Serializable {
 	}
 
 	public Checkpoint getCheckpoint(Path path) {
-		Checkpoint result = null;
-		Iterator<Checkpoint> iterator = checkpoints.iterator();
-		while (result == null && iterator.hasNext()) {
-			Checkpoint checkpoint = (Checkpoint)iterator.next();
-			if (path.equals(checkpoint.getPath())) {
-				result = checkpoint;
-			}
+		return getCheckpointLinkIndex().getCheckpoint(path);
+	}
+
+	private CheckpointLinkIndex getCheckpointLinkIndex() {
+		CheckpointLinkIndex index = checkpointLinkIndex;
+		List<Checkpoint> checkpoints = getCheckpoints();
+		if (index == null || !index.isValidFor(checkpoints)) {
+			index = new CheckpointLinkIndex(checkpoints);
+			checkpointLinkIndex = index;
 		}
-		return result;
+		return index;
 	}
 
 	public Checkpoint getCheckpoint(Checkpoint counterpartCheckpoint) {
@@ -791,7 +878,7 @@ public class Report implements Serializable {
 				// Checkpoint constructed but not added to list of checkpoints yet
 				i = counterpartCheckpoint.getReport().getCheckpoints().size();
 			}
-			return checkpoints.get(i);
+			return getCheckpoints().get(i);
 		} else if (LinkMethodType.NTH_NAME_AND_TYPE.toString().equals(linkMethod)) {
 			int counterpartCount = 0;
 			for (Checkpoint checkpoint : counterpartCheckpoint.getReport().getCheckpoints()) {
@@ -803,16 +890,8 @@ public class Report implements Serializable {
 			if (counterpartCheckpointInProgress) {
 				counterpartCount++;
 			}
-			int count = 0;
-			for (Checkpoint checkpoint : checkpoints) {
-				if (Objects.equals(counterpartCheckpoint.getName(), checkpoint.getName())
-						&& counterpartCheckpoint.getType() == checkpoint.getType()) {
-					count++;
-				}
-				if (counterpartCount == count) {
-					return checkpoint;
-				}
-			}
+			return getCheckpointLinkIndex().getCheckpoint(counterpartCheckpoint.getName(),
+					counterpartCheckpoint.getType(), counterpartCount);
 		}
 		return null;
 	}
@@ -822,15 +901,28 @@ public class Report implements Serializable {
 	}
 
 	public List<Checkpoint> getCheckpoints() {
+		if (mainThreadBlock != null) {
+			// Report in progress, checkpoints are added by the threads of the report while holding the lock on the
+			// report (see TestTool)
+			synchronized(this) {
+				ThreadBlock threadBlock = mainThreadBlock;
+				if (threadBlock != null && !checkpointsFlattened) {
+					List<Checkpoint> checkpoints = new ArrayList<Checkpoint>(numberOfCheckpointsInProgress);
+					threadBlock.addCheckpointsTo(checkpoints);
+					this.checkpoints = checkpoints;
+					checkpointsFlattened = true;
+				}
+			}
+		}
 		return checkpoints;
 	}
 	
 	public Checkpoint getInputCheckpoint() {
-		return checkpoints.get(0);
+		return getCheckpoints().get(0);
 	}
 
 	public int getNumberOfCheckpoints() {
-		return checkpoints.size();
+		return getCheckpoints().size();
 	}
 
 	public long getEstimatedMemoryUsage() {
@@ -839,7 +931,7 @@ public class Report implements Serializable {
 		// every time a checkpoint is added (to check whether the max memory usage has been exceeded) so recalculating
 		// it every time would be bad for performance.
 		if (estimatedMemoryUsage == 0L && mainThread == null) {
-			for (Checkpoint checkpoint : checkpoints) {
+			for (Checkpoint checkpoint : getCheckpoints()) {
 				estimatedMemoryUsage += checkpoint.getEstimatedMemoryUsage();
 			}
 		}
@@ -909,7 +1001,7 @@ public class Report implements Serializable {
 		report.setHost(host);
 		report.setApplication(application);
 		List<Checkpoint> checkpoints = new ArrayList<Checkpoint>();
-		for (Checkpoint checkpoint : this.checkpoints) {
+		for (Checkpoint checkpoint : getCheckpoints()) {
 			checkpoint = checkpoint.clone();
 			checkpoint.setReport(report);
 			checkpoints.add(checkpoint);
@@ -918,6 +1010,13 @@ public class Report implements Serializable {
 		return report;
 	}
 
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		// Serialization will use variable checkpoints (instead of getCheckpoints()), make sure it contains all
+		// checkpoints when the report is still in progress
+		getCheckpoints();
+		out.defaultWriteObject();
+	}
+
 	@Override
 	public String toString() {
 		return name;
@@ -927,104 +1026,150 @@ public class Report implements Serializable {
 		return toXml(null);
 	}
 
+	@SneakyThrows(IOException.class)
 	public String toXml(ReportRunner reportRunner) {
 		log.debug("Enter Report.toXml() for report with storage id {}", getStorageId());
 		if (xml == null) {
 			log.debug("No XML was cached, calculating it");
-			StringBuilder builder = new StringBuilder();
-			builder.append("<Report");
-			builder.append(" Name=\"" + EscapeUtil.escapeXml(name) + "\"");
-			builder.append(" Description=\"" + EscapeUtil.escapeXml(description) + "\"");
-			builder.append(" Path=\"" + EscapeUtil.escapeXml(path) + "\"");
-			builder.append(" CorrelationId=\"" + EscapeUtil.escapeXml(correlationId) + "\"");
-			builder.append(" StartTime=\"" + startTime + "\"");
-			builder.append(" EndTime=\"" + endTime + "\"");
-			builder.append(" NumberOfCheckpoints=\"" + getNumberOfCheckpoints() + "\"");
-			builder.append(" EstimatedMemoryUsage=\"" + getEstimatedMemoryUsage() + "\"");
-			if (getHost() != null) {
-				builder.append(" Host=\"" + getHost() + "\"");
+			StringWriter stringWriter = new StringWriter();
+			writeXml(reportRunner, stringWriter);
+			xml = stringWriter.toString();
+		}
+		log.debug("Leave Report.toXml()");
+		return xml;
+	}
+
+	public void writeXml(Writer writer) throws IOException {
+		writeXml(null, writer);
+	}
+
+	/**
+	 * Write the same XML as returned by {@link #toXml(ReportRunner)} to a writer without building (and caching) the
+	 * complete XML as a String first (unless it was already cached by {@link #toXml(ReportRunner)}). When a report
+	 * XML transformation applies the transformer needs the complete (untransformed) XML as input, in that case only
+	 * the output of the transformer is written to the writer directly.
+	 * 
+	 * @param reportRunner  see {@link #toXml(ReportRunner)}
+	 * @param writer        writer to write the XML to
+	 * @throws IOException  when thrown by writer
+	 */
+	public void writeXml(ReportRunner reportRunner, Writer writer) throws IOException {
+		if (xml != null) {
+			writer.write(xml);
+		} else {
+			ReportXmlTransformer transformer = getApplicableReportXmlTransformer();
+			if (transformer == null) {
+				writeUntransformedXml(reportRunner, writer);
+			} else {
+				StringWriter stringWriter = new StringWriter();
+				writeUntransformedXml(reportRunner, stringWriter);
+				transformer.transform(stringWriter.toString(), writer);
 			}
-			if (getApplication() != null) {
-				builder.append(" Application=\"" + getApplication() + "\"");
+		}
+	}
+
+	private ReportXmlTransformer getApplicableReportXmlTransformer() {
+		if (reportXmlTransformer != null || (transformation != null && transformation.trim().length() > 0)) {
+			log.debug("Transorming raw XML using report-specific transformation");
+			if (reportXmlTransformer == null) {
+				reportXmlTransformer = new ReportXmlTransformer();
+				reportXmlTransformer.setXslt(transformation);
 			}
-			builder.append(">");
-			for (Checkpoint checkpoint : checkpoints) {
-				String message;
-				if(reportRunner != null && checkpoint.containsVariables()) {
-					message = checkpoint.getMessageWithResolvedVariables(reportRunner);
-				} else {
-					message = checkpoint.getMessage();
-				}
-				builder.append("<Checkpoint");
-				builder.append(" Name=\"" + EscapeUtil.escapeXml(checkpoint.getName()) + "\"");
-				builder.append(" Type=\"" + EscapeUtil.escapeXml(checkpoint.getTypeAsString()) + "\"");
-				builder.append(" Level=\"" + checkpoint.getLevel() + "\"");
-				if (checkpoint.getSourceClassName() != null) {
-					builder.append(" SourceClassName=\"" + EscapeUtil.escapeXml(checkpoint.getSourceClassName()) + "\"");
-				}
-				if (checkpoint.getMessageClassName() != null) {
-					builder.append(" MessageClassName=\"" + EscapeUtil.escapeXml(checkpoint.getMessageClassName()) + "\"");
-				}
-				if (checkpoint.getPreTruncatedMessageLength() != -1) {
-					builder.append(" PreTruncatedMessageLength=\"" + checkpoint.getPreTruncatedMessageLength() + "\"");
-				}
-				if (checkpoint.getEncoding() != null) {
-					builder.append(" Encoding=\"" + EscapeUtil.escapeXml(checkpoint.getEncoding()) + "\"");
-				}
-				if (checkpoint.getStreaming() != null) {
-					builder.append(" Streaming=\"" + EscapeUtil.escapeXml(checkpoint.getStreaming()) + "\"");
-				}
-				if (checkpoint.isWaitingForStream()) {
-					builder.append(" WaitingForStream=\"" + checkpoint.isWaitingForStream() + "\"");
-				}
-				if (checkpoint.getStub() != StubType.FOLLOW_REPORT_STRATEGY.toInt()) {
-					builder.append(" Stub=\"" + checkpoint.getStub() + "\"");
-				}
-				if (checkpoint.isStubbed()) {
-					builder.append(" Stubbed=\"" + checkpoint.isStubbed() + "\"");
-				}
-				if (checkpoint.getStubNotFound() != null) {
-					builder.append(" StubNotFound=\"" + checkpoint.getStubNotFound() + "\"");
-				}
-				if (message == null) {
-					builder.append(" Null=\"true\"/>");
-				} else {
-					if (XmlUtil.isXml(message)) {
-						String textDecl = null;
-						if (message.startsWith("<?")) {
-							int i = message.indexOf("?>") + 2;
-							textDecl = message.substring(0, i);
-							builder.append(" TextDecl=\"");
-							builder.append(EscapeUtil.escapeXml(textDecl));
-							builder.append("\">");
-							message = message.substring(i);
-						} else {
-							builder.append(">");
-						}
-						builder.append(message);
+			return reportXmlTransformer;
+		} else if (globalReportXmlTransformer != null) {
+			log.debug("Transorming raw XML using global transformation");
+			return globalReportXmlTransformer;
+		}
+		return null;
+	}
+
+	private void writeUntransformedXml(ReportRunner reportRunner, Writer writer) throws IOException {
+		writer.write("<Report");
+		writeXmlAttribute(writer, "Name", EscapeUtil.escapeXml(name));
+		writeXmlAttribute(writer, "Description", EscapeUtil.escapeXml(description));
+		writeXmlAttribute(writer, "Path", EscapeUtil.escapeXml(path));
+		writeXmlAttribute(writer, "CorrelationId", EscapeUtil.escapeXml(correlationId));
+		writeXmlAttribute(writer, "StartTime", String.valueOf(startTime));
+		writeXmlAttribute(writer, "EndTime", String.valueOf(endTime));
+		writeXmlAttribute(writer, "NumberOfCheckpoints", String.valueOf(getNumberOfCheckpoints()));
+		writeXmlAttribute(writer, "EstimatedMemoryUsage", String.valueOf(getEstimatedMemoryUsage()));
+		if (getHost() != null) {
+			writeXmlAttribute(writer, "Host", getHost());
+		}
+		if (getApplication() != null) {
+			writeXmlAttribute(writer, "Application", getApplication());
+		}
+		writer.write(">");
+		for (Checkpoint checkpoint : getCheckpoints()) {
+			String message;
+			if(reportRunner != null && checkpoint.containsVariables()) {
+				message = checkpoint.getMessageWithResolvedVariables(reportRunner);
+			} else {
+				message = checkpoint.getMessage();
+			}
+			writer.write("<Checkpoint");
+			writeXmlAttribute(writer, "Name", EscapeUtil.escapeXml(checkpoint.getName()));
+			writeXmlAttribute(writer, "Type", EscapeUtil.escapeXml(checkpoint.getTypeAsString()));
+			writeXmlAttribute(writer, "Level", String.valueOf(checkpoint.getLevel()));
+			if (checkpoint.getSourceClassName() != null) {
+				writeXmlAttribute(writer, "SourceClassName", EscapeUtil.escapeXml(checkpoint.getSourceClassName()));
+			}
+			if (checkpoint.getMessageClassName() != null) {
+				writeXmlAttribute(writer, "MessageClassName", EscapeUtil.escapeXml(checkpoint.getMessageClassName()));
+			}
+			if (checkpoint.getPreTruncatedMessageLength() != -1) {
+				writeXmlAttribute(writer, "PreTruncatedMessageLength",
+						String.valueOf(checkpoint.getPreTruncatedMessageLength()));
+			}
+			if (checkpoint.getEncoding() != null) {
+				writeXmlAttribute(writer, "Encoding", EscapeUtil.escapeXml(checkpoint.getEncoding()));
+			}
+			if (checkpoint.getStreaming() != null) {
+				writeXmlAttribute(writer, "Streaming", EscapeUtil.escapeXml(checkpoint.getStreaming()));
+			}
+			if (checkpoint.isWaitingForStream()) {
+				writeXmlAttribute(writer, "WaitingForStream", String.valueOf(checkpoint.isWaitingForStream()));
+			}
+			if (checkpoint.getStub() != StubType.FOLLOW_REPORT_STRATEGY.toInt()) {
+				writeXmlAttribute(writer, "Stub", String.valueOf(checkpoint.getStub()));
+			}
+			if (checkpoint.isStubbed()) {
+				writeXmlAttribute(writer, "Stubbed", String.valueOf(checkpoint.isStubbed()));
+			}
+			if (checkpoint.getStubNotFound() != null) {
+				writeXmlAttribute(writer, "StubNotFound", checkpoint.getStubNotFound());
+			}
+			if (message == null) {
+				writer.write(" Null=\"true\"/>");
+			} else {
+				if (XmlUtil.isXml(message)) {
+					String textDecl = null;
+					if (message.startsWith("<?")) {
+						int i = message.indexOf("?>") + 2;
+						textDecl = message.substring(0, i);
+						writeXmlAttribute(writer, "TextDecl", EscapeUtil.escapeXml(textDecl));
+						writer.write(">");
+						writer.write(message, i, message.length() - i);
 					} else {
-						builder.append(">");
-						builder.append(EscapeUtil.escapeXml(message));
+						writer.write(">");
+						writer.write(message);
 					}
-					builder.append("</Checkpoint>");
-				}
-			}
-			builder.append("</Report>");
-			xml = builder.toString();
-			if (reportXmlTransformer != null || (transformation != null && transformation.trim().length() > 0)) {
-				log.debug("Transorming raw XML using report-specific transformation");
-				if (reportXmlTransformer == null) {
-					reportXmlTransformer = new ReportXmlTransformer();
-					reportXmlTransformer.setXslt(transformation);
+				} else {
+					writer.write(">");
+					writer.write(EscapeUtil.escapeXml(message));
 				}
-				xml = reportXmlTransformer.transform(xml);
-			} else if (globalReportXmlTransformer != null) {
-				log.debug("Transorming raw XML using global transformation");
-				xml = globalReportXmlTransformer.transform(xml);
+				writer.write("</Checkpoint>");
 			}
 		}
-		log.debug("Leave Report.toXml()");
-		return xml;
+		writer.write("</Report>");
+	}
+
+	private static void writeXmlAttribute(Writer writer, String name, String value) throws IOException {
+		writer.write(" ");
+		writer.write(name);
+		writer.write("=\"");
+		writer.write(String.valueOf(value));
+		writer.write("\"");
 	}
 
 	public void flushCachedXml() {
@@ -1108,6 +1253,40 @@ public class Report implements Serializable {
 	}
 }
 
+/**
+ * Checkpoints of a thread of a report in progress in order of execution together with the blocks of the child threads
+ * created by the thread at the position in the list at which they were created. The checkpoints of a child thread are
+ * shown before the checkpoints its parent thread added after creating the child thread.
+ */
+class ThreadBlock {
+	// Checkpoint or ThreadBlock
+	List<Object> items = new ArrayList<Object>();
+	// Checkpoint shown while waiting for the thread to start (see Report.removeThreadCreatepoint())
+	Checkpoint threadCreatepoint;
+	// OpenTelemetry spans of the startpoints of the thread that haven't been ended by an endpoint yet (innermost first)
+	Deque<Span> startpointSpans = new ArrayDeque<Span>();
+	// Innermost span of the parent thread at the moment the thread was created
+	Span parentSpan;
+
+	Span getCurrentSpan() {
+		Span span = startpointSpans.peek();
+		if (span == null) {
+			span = parentSpan;
+		}
+		return span;
+	}
+
+	void addCheckpointsTo(List<Checkpoint> checkpoints) {
+		for (Object item : items) {
+			if (item instanceof ThreadBlock) {
+				((ThreadBlock)item).addCheckpointsTo(checkpoints);
+			} else {
+				checkpoints.add((Checkpoint)item);
+			}
+		}
+	}
+}
+
 /**
  * A custom implementation of the map interface that compares keys based on their object reference, i.e. comparing with 'o1 == o2' rather than 'o1.equals(o2)'.
  * This greatly enhances the performance of maps with large objects as keys.
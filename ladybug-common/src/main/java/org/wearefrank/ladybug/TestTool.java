@@ -20,13 +20,19 @@ import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.rmi.server.UID;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Comparator;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
@@ -48,6 +54,7 @@ import org.wearefrank.ladybug.storage.CrudStorage;
 import org.wearefrank.ladybug.storage.LogStorage;
 import org.wearefrank.ladybug.storage.Storage;
 import org.wearefrank.ladybug.storage.StorageException;
+import org.wearefrank.ladybug.storage.async.AsyncLogStorage;
 import org.wearefrank.ladybug.storage.memory.MemoryLogStorage;
 import org.wearefrank.ladybug.transform.MessageTransformer;
 import org.wearefrank.ladybug.util.OpenTelemetryUtil;
@@ -64,20 +71,29 @@ public class TestTool {
 	private int maxCheckpoints = 2500;
 	private int maxMessageLength = 10000000;
 	private long maxMemoryUsage = 100000000L;
+	private long reportsInProgressMemoryBudget = -1L;
+	private long maxReportsInProgressMemoryUsage = -1L;
 	private Debugger debugger;
 	private Rerunner rerunner;
 	private boolean reportGeneratorEnabled = true;
 	private boolean defaultReportGeneratorEnabledSet = false;
 	private boolean defaultReportGeneratorEnabled = true;
-	private List<Report> reportsInProgress = new ArrayList<Report>();
-	private Map<String, Report> reportsInProgressByCorrelationId = new HashMap<String, Report>();
-	private long numberOfReportsInProgress = 0;
-	private Map<String, Report> originalReports = new HashMap<String, Report>();
+	// Reports in progress ordered by sequence number in descending order (latest report first, as shown by the GUI)
+	private ConcurrentNavigableMap<Long, Report> reportsInProgress =
+			new ConcurrentSkipListMap<Long, Report>(Comparator.reverseOrder());
+	private ConcurrentMap<String, Report> reportsInProgressByCorrelationId = new ConcurrentHashMap<String, Report>();
+	private AtomicLong reportsInProgressSequenceNumber = new AtomicLong(0);
+	private AtomicLong numberOfReportsInProgress = new AtomicLong(0);
+	private AtomicLong reportsInProgressEstimatedMemoryUsage = new AtomicLong(0);
+	private AtomicLong numberOfDegradedReports = new AtomicLong(0);
+	private AtomicLong numberOfRefusedReports = new AtomicLong(0);
+	private ConcurrentMap<String, Report> originalReports = new ConcurrentHashMap<String, Report>();
 	private @Setter @Getter @Inject @Autowired LogStorage debugStorage;
 	private @Setter @Getter @Inject @Autowired CrudStorage testStorage;
 	private MessageEncoder messageEncoder = new MessageEncoderImpl();
 	private MessageCapturer messageCapturer = new MessageCapturerImpl();
 	private MessageTransformer messageTransformer;
+	private MessageStore messageStore;
 	private String regexFilter;
 	private boolean defaultRegexFilterSet = false;
 	private String defaultRegexFilter;
@@ -192,6 +208,34 @@ public class TestTool {
 		return maxMemoryUsage;
 	}
 
+	/**
+	 * Set the estimated memory usage in bytes of all reports in progress together at which new reports will be created
+	 * without messages (only the checkpoints are kept). Default value is -1 (no budget).
+	 * 
+	 * @param reportsInProgressMemoryBudget ...
+	 */
+	public void setReportsInProgressMemoryBudget(long reportsInProgressMemoryBudget) {
+		this.reportsInProgressMemoryBudget = reportsInProgressMemoryBudget;
+	}
+
+	public long getReportsInProgressMemoryBudget() {
+		return reportsInProgressMemoryBudget;
+	}
+
+	/**
+	 * Set the estimated memory usage in bytes of all reports in progress together at which no new reports will be
+	 * created anymore (the checkpoints of these reports are ignored). Default value is -1 (no maximum).
+	 * 
+	 * @param maxReportsInProgressMemoryUsage ...
+	 */
+	public void setMaxReportsInProgressMemoryUsage(long maxReportsInProgressMemoryUsage) {
+		this.maxReportsInProgressMemoryUsage = maxReportsInProgressMemoryUsage;
+	}
+
+	public long getMaxReportsInProgressMemoryUsage() {
+		return maxReportsInProgressMemoryUsage;
+	}
+
 	public void setDebugger(Debugger debugger) {
 		log.trace("TestTool.setDebugger() called");
 		this.debugger = debugger;
@@ -250,6 +294,20 @@ public class TestTool {
 		return messageTransformer;
 	}
 
+	/**
+	 * Store large messages outside the heap (e.g. {@link org.wearefrank.ladybug.storage.file.FileMessageStore}).
+	 * Default is null, all messages are kept in memory.
+	 * 
+	 * @param messageStore  the message store to use for large messages
+	 */
+	public void setMessageStore(MessageStore messageStore) {
+		this.messageStore = messageStore;
+	}
+
+	public MessageStore getMessageStore() {
+		return messageStore;
+	}
+
 	public void setMessageCapturer(MessageCapturer messageCapturer) {
 		this.messageCapturer = messageCapturer;
 	}
@@ -358,6 +416,16 @@ public class TestTool {
 		return tracer;
 	}
 
+	/**
+	 * Set the tracer to create OpenTelemetry spans with instead of the tracer created for openTelemetryEndpoint (e.g. a
+	 * tracer of an OpenTelemetry SDK configured by the application or a test)
+	 *
+	 * @param tracer ...
+	 */
+	public void setOpenTelemetryTracer(Tracer tracer) {
+		this.tracer = tracer;
+	}
+
 	private <T> T checkpoint(String correlationId, String childThreadId, String sourceClassName, String name,
 			T message, StubableCode stubableCode, StubableCodeThrowsException stubableCodeThrowsException,
 			Set<String> matchingStubStrategies, int checkpointType, int levelChangeNextCheckpoint) {
@@ -371,34 +439,26 @@ public class TestTool {
 			Set<String> matchingStubStrategies, int checkpointType, int levelChangeNextCheckpoint) {
 		boolean executeStubableCode = true;
 		if (reportGeneratorEnabled) {
-			Report report;
-			// Blocking for all threads for all reports
-			synchronized(reportsInProgress) {
-				report = getReportInProgress(correlationId);
-				if (report == null) {
-					report = createReport(correlationId, name, checkpointType);
-				}
-			}
+			// Only blocking for threads that need to create a new report for the same correlationId
+			Report report = getOrCreateReportInProgress(correlationId, name, checkpointType);
 			if (devMode) randomSleep();
 			while (report != null) {
+				boolean storeReport = false;
 				// "synchronized(report)" is only blocking for threads writing to the same report (which is only the
 				// case when multiple threads use the same correlationId)
 				synchronized(report) {
-					// "synchronized(report)" is used instead of "synchronized(reportsInProgress)" and separate from the
-					// "synchronized(reportsInProgress)" in getReportInProgress() to prevent threads from being blocked
-					// as much as possible. But in the very rare/unusual case that one thread calls the last endpoint of
-					// a report (which will close the report) and another thread in parallel calls a startpoint for the
-					// same correlationId this last thread can receive the report object from getReportInProgress() and
-					// start waiting for a lock on the report object while the first thread is executing
-					// report.checkpoint() below and closing the report. Hence double check that the report isn't
-					// closed.
+					// "synchronized(report)" is used separate from the lookup in getOrCreateReportInProgress() to
+					// prevent threads from being blocked as much as possible. But in the very rare/unusual case that
+					// one thread calls the last endpoint of a report (which will close the report) and another thread
+					// in parallel calls a startpoint for the same correlationId this last thread can receive the report
+					// object from getOrCreateReportInProgress() and start waiting for a lock on the report object while
+					// the first thread is executing report.checkpoint() below and closing the report. Hence double check
+					// that the report isn't closed.
 					if (report.isClosed()) {
-						synchronized(reportsInProgress) {
-							report = getReportInProgress(correlationId);
-							if (report == null) {
-								report = createReport(correlationId, name, checkpointType);
-							}
-						}
+						// The report has been removed from reportsInProgressByCorrelationId by the closing thread (while
+						// holding the lock on the report) so this will either return a report created by another thread
+						// in the mean time or create a new report
+						report = getOrCreateReportInProgress(correlationId, name, checkpointType);
 						// Synchronize and check isClosed() on report again as it will now point to a different report
 						continue;
 					}
@@ -406,7 +466,10 @@ public class TestTool {
 					message = report.checkpoint(childThreadId, sourceClassName, name, message, messageContext, stubableCode,
 							stubableCodeThrowsException, matchingStubStrategies, checkpointType,
 							levelChangeNextCheckpoint);
-					closeReportIfFinished(report);
+					storeReport = closeIfFinished(report);
+				}
+				if (storeReport) {
+					storeClosedReport(report);
 				}
 				report = null;
 			}
@@ -417,6 +480,32 @@ public class TestTool {
 		return message;
 	}
 
+	private Report getOrCreateReportInProgress(String correlationId, String name, int checkpointType) {
+		Report report = reportsInProgressByCorrelationId.get(correlationId);
+		if (report == null) {
+			// Create the report outside the lock of the concurrent map (computeIfAbsent() would hold the lock on the
+			// bin of the map while creating the report, blocking threads for other correlationIds in the same bin)
+			Report newReport = createReport(correlationId, name, checkpointType);
+			if (newReport != null) {
+				// Threads that receive the new report from the map will wait for the lock on the report in
+				// checkpoint() until the report has been registered
+				synchronized(newReport) {
+					report = reportsInProgressByCorrelationId.putIfAbsent(correlationId, newReport);
+					if (report == null) {
+						// When two threads call a startpoint for the same correlationId at the same time only the
+						// report of the first thread is registered, the report of the other thread is discarded
+						registerReportInProgress(newReport);
+						report = newReport;
+					}
+				}
+			}
+		}
+		return report;
+	}
+
+	/**
+	 * Create a new report without registering it. Returns null when the checkpoint isn't a startpoint.
+	 */
 	private Report createReport(String correlationId, String name, int checkpointType) {
 		Report report = null;
 		if (checkpointType == CheckpointType.STARTPOINT.toInt()) {
@@ -437,22 +526,6 @@ public class TestTool {
 					report.setReportFilterMatching(false);
 				}
 			}
-			Report originalReport;
-			synchronized(originalReports) {
-				originalReport = (Report)originalReports.remove(correlationId);
-			}
-			if (originalReport == null) {
-				report.setStubStrategy(getDefaultStubStrategy());
-				report.setLinkMethod(getDefaultLinkMethod());
-			} else {
-				report.setStubStrategy(originalReport.getStubStrategy());
-				report.setLinkMethod(originalReport.getLinkMethod());
-				report.setOriginalReport(originalReport);
-			}
-			report.init();
-			reportsInProgress.add(0, report);
-			reportsInProgressByCorrelationId.put(correlationId, report);
-			numberOfReportsInProgress++;
 		} else {
 			log.warn("No report in progress for correlationId and checkpoint not a startpoint, ignored checkpoint "
 					+ Report.getCheckpointLogDescription(name, checkpointType, null, correlationId));
@@ -460,6 +533,40 @@ public class TestTool {
 		return report;
 	}
 
+	/**
+	 * Initialize a report created by {@link #createReport(String, String, int)} and add it to the ordered view of
+	 * reports in progress. Should only be called for the report that has been added to
+	 * reportsInProgressByCorrelationId, while holding the lock on the report.
+	 */
+	private void registerReportInProgress(Report report) {
+		String correlationId = report.getCorrelationId();
+		long memoryUsage = reportsInProgressEstimatedMemoryUsage.get();
+		if (maxReportsInProgressMemoryUsage > -1 && memoryUsage >= maxReportsInProgressMemoryUsage) {
+			numberOfRefusedReports.incrementAndGet();
+			log.debug("Maximum memory usage of reports in progress reached, ignore checkpoints of new report for '"
+					+ correlationId + "'");
+			report.setCaptureRefused(true);
+		} else if (reportsInProgressMemoryBudget > -1 && memoryUsage >= reportsInProgressMemoryBudget) {
+			numberOfDegradedReports.incrementAndGet();
+			log.debug("Memory budget of reports in progress reached, don't capture messages of new report for '"
+					+ correlationId + "'");
+			report.setMessagesDropped(true);
+		}
+		Report originalReport = originalReports.remove(correlationId);
+		if (originalReport == null) {
+			report.setStubStrategy(getDefaultStubStrategy());
+			report.setLinkMethod(getDefaultLinkMethod());
+		} else {
+			report.setStubStrategy(originalReport.getStubStrategy());
+			report.setLinkMethod(originalReport.getLinkMethod());
+			report.setOriginalReport(originalReport);
+		}
+		report.init();
+		report.setReportInProgressSequenceNumber(reportsInProgressSequenceNumber.incrementAndGet());
+		reportsInProgress.put(report.getReportInProgressSequenceNumber(), report);
+		numberOfReportsInProgress.incrementAndGet();
+	}
+
 	@SuppressWarnings("unchecked")
 	@SneakyThrows
 	protected static <T> T execute(StubableCode stubableCode, StubableCodeThrowsException stubableCodeThrowsException,
@@ -474,6 +581,18 @@ public class TestTool {
 	}
 
 	protected void closeReportIfFinished(Report report) {
+		if (closeIfFinished(report)) {
+			storeClosedReport(report);
+		}
+	}
+
+	/**
+	 * Close the report when finished. A report that needs to be stored should be stored with
+	 * {@link #storeClosedReport(Report)} after releasing the lock on the report.
+	 *
+	 * @return true when the report has been closed and needs to be stored
+	 */
+	private boolean closeIfFinished(Report report) {
 		synchronized(report) {
 			if (!report.isClosed()) {
 				if (report.mainThreadFinished()) {
@@ -495,18 +614,52 @@ public class TestTool {
 					if (!report.isClosed() && report.streamingMessageListenersFinished()) {
 						report.setClosed(true);
 						log.debug("Report is finished for '" + report.getCorrelationId() + "'");
-						synchronized(reportsInProgress) {
-							reportsInProgress.remove(report);
-							reportsInProgressByCorrelationId.remove(report.getCorrelationId());
-							numberOfReportsInProgress--;
-						}
-						if (report.isReportFilterMatching()) {
-							debugStorage.storeWithoutException(report);
+						// Remove while holding the lock on the report, see comment on report.isClosed() in checkpoint()
+						reportsInProgressByCorrelationId.remove(report.getCorrelationId(), report);
+						if (report.isReportFilterMatching() && !report.isCaptureRefused()) {
+							return true;
+						} else {
+							removeReportInProgress(report);
 						}
 					}
 				}
 			}
 		}
+		return false;
+	}
+
+	/**
+	 * Store a report closed by {@link #closeIfFinished(Report)}. Should be called without holding the lock on the
+	 * report as the debug storage can block (e.g. {@link AsyncLogStorage} with a full queue) and other threads might
+	 * need the lock on the report in the mean time.
+	 */
+	private void storeClosedReport(Report report) {
+		if (debugStorage instanceof AsyncLogStorage asyncLogStorage) {
+			// Keep the report visible as in progress until it has been stored
+			asyncLogStorage.storeWithoutException(report, this::removeReportInProgress);
+		} else {
+			removeReportInProgress(report);
+			debugStorage.storeWithoutException(report);
+		}
+	}
+
+	private void removeReportInProgress(Report report) {
+		if (reportsInProgress.remove(report.getReportInProgressSequenceNumber(), report)) {
+			numberOfReportsInProgress.decrementAndGet();
+			releaseReportsInProgressEstimatedMemoryUsage(report);
+		}
+	}
+
+	protected void addReportsInProgressEstimatedMemoryUsage(long estimatedMemoryUsage) {
+		reportsInProgressEstimatedMemoryUsage.addAndGet(estimatedMemoryUsage);
+	}
+
+	private void releaseReportsInProgressEstimatedMemoryUsage(Report report) {
+		// Lock on report to not miss a checkpoint that is being added by another thread (a report removed by
+		// removeReportInProgress(int) will not be closed)
+		synchronized(report) {
+			reportsInProgressEstimatedMemoryUsage.addAndGet(-report.removedFromReportsInProgress());
+		}
 	}
 
 	private void randomSleep() {
@@ -518,31 +671,27 @@ public class TestTool {
 	}
 
 	public boolean warnReportsInProgress() {
-		synchronized(reportsInProgress) {
-			for (Report report : reportsInProgress) {
-				if (!messageCapturerWaitingForClose(report)
-						&& report.getStartTime() + (5 * 60 * 1000) < System.currentTimeMillis()) {
-					return true;
-				}
+		for (Report report : reportsInProgress.values()) {
+			if (!messageCapturerWaitingForClose(report)
+					&& report.getStartTime() + (5 * 60 * 1000) < System.currentTimeMillis()) {
+				return true;
 			}
 		}
 		return false;
 	}
 
 	public boolean warnMessageCapturerWaitingForClose() {
-		synchronized(reportsInProgress) {
-			for (Report report : reportsInProgress) {
-				if (messageCapturerWaitingForClose(report)
-						&& report.getEndTime() + (30 * 1000) < System.currentTimeMillis()) {
-					return true;
-				}
+		for (Report report : reportsInProgress.values()) {
+			if (messageCapturerWaitingForClose(report)
+					&& report.getEndTime() + (30 * 1000) < System.currentTimeMillis()) {
+				return true;
 			}
 		}
 		return false;
 	}
 
 	private boolean messageCapturerWaitingForClose(Report report) {
-		synchronized(reportsInProgress) {
+		synchronized(report) {
 			return report.threadsFinished() && !report.streamingMessageListenersFinished();
 		}
 	}
@@ -964,17 +1113,19 @@ public class TestTool {
 		}
 		if (closeMessageCapturers) {
 			if (report == null) {
-				synchronized(reportsInProgress) {
-					report = (Report)reportsInProgressByCorrelationId.get(correlationId);
-				}
+				report = reportsInProgressByCorrelationId.get(correlationId);
 			}
 			if (report != null) {
+				boolean storeReport = false;
 				synchronized(report) {
 					if (!report.isClosed()) {
 						report.closeMessageCapturers();
-						closeReportIfFinished(report);
+						storeReport = closeIfFinished(report);
 					}
 				}
+				if (storeReport) {
+					storeClosedReport(report);
+				}
 			}
 		}
 	}
@@ -995,18 +1146,19 @@ public class TestTool {
 	 *                      thread name)
 	 */
 	public void close(String correlationId, String threadName) {
-		Report report;
-		synchronized(reportsInProgress) {
-			report = (Report)reportsInProgressByCorrelationId.get(correlationId);
-		}
+		Report report = reportsInProgressByCorrelationId.get(correlationId);
 		if (report != null) {
+			boolean storeReport;
 			synchronized(report) {
 				if (threadName == null) {
 					report.closeThreads(false);
 				} else {
 					report.closeThread(threadName, true);
 				}
-				closeReportIfFinished(report);
+				storeReport = closeIfFinished(report);
+			}
+			if (storeReport) {
+				storeClosedReport(report);
 			}
 		}
 	}
@@ -1034,13 +1186,9 @@ public class TestTool {
 	 */
 	public final void close(long threadsTime, long messageCapturersTime, boolean waitForMainThreadToFinish,
 			boolean logThreadInfoBeforeClose, long logThreadInfoMinReportAge, long logThreadInfoMaxReportAge) {
-		// Lock reportsInProgress as less as possible, synchronize on each report individually
-		Set<Report> reports = new HashSet<Report>();
-		synchronized(reportsInProgress) {
-			for (Report report : reportsInProgress) {
-				reports.add(report);
-			}
-		}
+		// Take a snapshot of the reports in progress (the weakly consistent iterator of the concurrent map doesn't block
+		// other threads), synchronize on each report individually
+		Set<Report> reports = new HashSet<Report>(reportsInProgress.values());
 		for (Report report : reports) {
 			synchronized (report) {
 				boolean closeThreads = false;
@@ -1129,9 +1277,7 @@ public class TestTool {
 		} else {
 			boolean reportGeneratorEnabled = isReportGeneratorEnabled();
 			if (reportGeneratorEnabled) {
-				synchronized(originalReports) {
-					originalReports.put(correlationId, report);
-				}
+				originalReports.put(correlationId, report);
 			}
 			try {
 				if (rerunner != null) {
@@ -1142,10 +1288,7 @@ public class TestTool {
 			} finally {
 				if (reportGeneratorEnabled) {
 					// Verify that originalReport has been removed from originalReports by checkpoint()
-					Report originalReport;
-					synchronized(originalReports) {
-						originalReport = (Report)originalReports.remove(correlationId);
-					}
+					Report originalReport = originalReports.remove(correlationId);
 					if (errorMessage == null && originalReport != null) {
 						errorMessage = "Rerun didn't trigger any checkpoint or new report didn't get correlationId '"
 								+ correlationId + "'";
@@ -1168,9 +1311,9 @@ public class TestTool {
      */
 	public Checkpoint getOriginalEndpointOrAbortpointForCurrentLevel(String correlationId) {
 		Checkpoint result = null;
-		synchronized(reportsInProgress) {
-			Report report = (Report)reportsInProgressByCorrelationId.get(correlationId);
-			if (report != null) {
+		Report report = reportsInProgressByCorrelationId.get(correlationId);
+		if (report != null) {
+			synchronized(report) {
 				result = report.getOriginalEndpointOrAbortpointForCurrentLevel();
 			}
 		}
@@ -1178,9 +1321,7 @@ public class TestTool {
 	}
 	// TODO vorige methode niet meer nodig?! hier nog documentern dat je met geturnde report voorzicht moet zijn omdat het nog in progress is? 
 	public Report getReportInProgress(String correlationId) {
-		synchronized(reportsInProgress) {
-			return (Report)reportsInProgressByCorrelationId.get(correlationId);
-		}
+		return reportsInProgressByCorrelationId.get(correlationId);
 	}
 
 	/**
@@ -1224,13 +1365,13 @@ public class TestTool {
 			LogStorage storage = new MemoryLogStorage();
 			String storageName = String.format("InProgress_%d", inProgressStorageNameSeq.addAndGet(1));
 			storage.setName(storageName);
-			synchronized(reportsInProgress) {
-				for (Report report : reportsInProgress) {
-					try {
-						storage.storeWithoutException(report.clone());
-					} catch (CloneNotSupportedException e) {
-						log.error("Could not clone report in progress", e);
-					}
+			// Latest report first, the index of the report in this storage is the index used by
+			// getReportInProgress(int) and removeReportInProgress(int)
+			for (Report report : reportsInProgress.values()) {
+				try {
+					storage.storeWithoutException(report.clone());
+				} catch (CloneNotSupportedException e) {
+					log.error("Could not clone report in progress", e);
 				}
 			}
 			return storage;
@@ -1248,27 +1389,50 @@ public class TestTool {
 
 	public Report removeReportInProgress(int index) {
 		Report report = null;
-		synchronized(reportsInProgress) {
-			if (index > -1 && index < reportsInProgress.size()) {
-				report = reportsInProgress.remove(index);
-				numberOfReportsInProgress--;
+		if (index > -1) {
+			Iterator<Report> iterator = reportsInProgress.values().iterator();
+			for (int i = 0; i < index && iterator.hasNext(); i++) {
+				iterator.next();
+			}
+			if (iterator.hasNext()) {
+				report = iterator.next();
+				if (reportsInProgress.remove(report.getReportInProgressSequenceNumber(), report)) {
+					numberOfReportsInProgress.decrementAndGet();
+					releaseReportsInProgressEstimatedMemoryUsage(report);
+				} else {
+					// Closed by another thread in the mean time
+					report = null;
+				}
 			}
 		}
 		return report;
 	}
 
 	public long getNumberOfReportsInProgress() {
-		return numberOfReportsInProgress;
+		return numberOfReportsInProgress.get();
 	}
 
 	public long getReportsInProgressEstimatedMemoryUsage() {
-		long reportsInProgressEstimatedMemoryUsage = 0;
-		synchronized(reportsInProgress) {
-			for (Report report : reportsInProgress) {
-				reportsInProgressEstimatedMemoryUsage += report.getEstimatedMemoryUsage();
-			}
-		}
-		return reportsInProgressEstimatedMemoryUsage;
+		return reportsInProgressEstimatedMemoryUsage.get();
+	}
+
+	/**
+	 * @return whether new reports are created without messages or not created at all because
+	 *         {@link #setReportsInProgressMemoryBudget(long)} or {@link #setMaxReportsInProgressMemoryUsage(long)} has
+	 *         been reached
+	 */
+	public boolean isReportsInProgressMemoryBudgetReached() {
+		long memoryUsage = reportsInProgressEstimatedMemoryUsage.get();
+		return (reportsInProgressMemoryBudget > -1 && memoryUsage >= reportsInProgressMemoryBudget)
+				|| (maxReportsInProgressMemoryUsage > -1 && memoryUsage >= maxReportsInProgressMemoryUsage);
+	}
+
+	public long getNumberOfDegradedReports() {
+		return numberOfDegradedReports.get();
+	}
+
+	public long getNumberOfRefusedReports() {
+		return numberOfRefusedReports.get();
 	}
 
 	public static String getName() {
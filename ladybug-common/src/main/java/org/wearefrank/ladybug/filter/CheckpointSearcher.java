@@ -1,5 +1,5 @@
 /*
-   Copyright 2020, 2022, 2025 WeAreFrank!, 2018 Nationale-Nederlanden
+   Copyright 2020, 2022, 2025-2026 WeAreFrank!, 2018 Nationale-Nederlanden
 
    Licensed under the Apache License, Version 2.0 (the "License");
    you may not use this file except in compliance with the License.
@@ -17,7 +17,7 @@ package org.wearefrank.ladybug.filter;
 
 import org.wearefrank.ladybug.Checkpoint;
 import org.wearefrank.ladybug.Report;
-import org.wearefrank.ladybug.util.SearchUtil;
+import org.wearefrank.ladybug.util.SearchPredicate;
 
 /**
  * @author Jaco de Groot
@@ -25,6 +25,7 @@ import org.wearefrank.ladybug.util.SearchUtil;
 public class CheckpointSearcher implements CheckpointMatcher {
 	private int type = -1;
 	private String nameSearch;
+	private SearchPredicate nameSearchPredicate = SearchPredicate.compile(null);
 
 	public void setType(int type) {
 		this.type = type;
@@ -32,13 +33,14 @@ public class CheckpointSearcher implements CheckpointMatcher {
 
 	public void setNameSearch(String nameSearch) {
 		this.nameSearch = nameSearch;
+		nameSearchPredicate = SearchPredicate.compile(nameSearch);
 	}
 	
 	public boolean match(Report report, Checkpoint checkpoint) {
 		if (type != -1 && type != checkpoint.getType()) {
 			return false;
 		} else {
-			return SearchUtil.matches(checkpoint.getName(), nameSearch);
+			return nameSearchPredicate.matches(checkpoint.getName());
 		}
 	}
 
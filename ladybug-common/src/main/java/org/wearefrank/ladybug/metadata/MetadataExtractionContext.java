@@ -0,0 +1,100 @@
+/*
+   Copyright 2026 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.wearefrank.ladybug.metadata;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import net.sf.saxon.om.NodeInfo;
+import net.sf.saxon.trans.XPathException;
+import org.wearefrank.ladybug.Checkpoint;
+import org.wearefrank.ladybug.Report;
+import org.wearefrank.ladybug.util.XmlUtil;
+
+/**
+ * Context for the extraction of all metadata of a report (e.g. when a storage stores a report). While the context is
+ * open (for the current thread) every checkpoint message is parsed at most once and the parsed XML tree is shared by
+ * all {@link XpathMetadataFieldExtractor}s. Close the context (use try-with-resources) to drop the parsed XML trees:
+ * 
+ * <pre>
+ * try (MetadataExtractionContext context = MetadataExtractionContext.open(report)) {
+ *     for (String metadataName : metadataNames) {
+ *         metadataExtractor.getMetadata(report, metadataName, ...);
+ *     }
+ * }
+ * </pre>
+ * 
+ * @author Jaco de Groot
+ */
+public class MetadataExtractionContext implements AutoCloseable {
+	private static final ThreadLocal<MetadataExtractionContext> currentContext = new ThreadLocal<MetadataExtractionContext>();
+	private static final Object NOT_XML = new Object();
+	private final Report report;
+	private final MetadataExtractionContext previousContext;
+	private final Map<Checkpoint, Object> xmlTrees = new IdentityHashMap<Checkpoint, Object>();
+
+	private MetadataExtractionContext(Report report, MetadataExtractionContext previousContext) {
+		this.report = report;
+		this.previousContext = previousContext;
+	}
+
+	public static MetadataExtractionContext open(Report report) {
+		MetadataExtractionContext context = new MetadataExtractionContext(report, currentContext.get());
+		currentContext.set(context);
+		return context;
+	}
+
+	/**
+	 * @param report  the report to extract metadata from
+	 * @return        the context opened by the current thread for the report or null
+	 */
+	public static MetadataExtractionContext get(Report report) {
+		MetadataExtractionContext context = currentContext.get();
+		if (context != null && context.report == report) {
+			return context;
+		}
+		return null;
+	}
+
+	/**
+	 * @param checkpoint  checkpoint of the report of this context
+	 * @param message     message of the checkpoint
+	 * @return            the parsed message or null when the message isn't XML
+	 */
+	public NodeInfo getXmlTree(Checkpoint checkpoint, String message) {
+		Object xmlTree = xmlTrees.get(checkpoint);
+		if (xmlTree == null) {
+			try {
+				xmlTree = XmlUtil.buildXmlTree(message);
+			} catch (XPathException e) {
+				xmlTree = NOT_XML;
+			}
+			xmlTrees.put(checkpoint, xmlTree);
+		}
+		return xmlTree == NOT_XML ? null : (NodeInfo)xmlTree;
+	}
+
+	@Override
+	public void close() {
+		xmlTrees.clear();
+		if (previousContext == null) {
+			currentContext.remove();
+		} else {
+			currentContext.set(previousContext);
+		}
+	}
+
+}
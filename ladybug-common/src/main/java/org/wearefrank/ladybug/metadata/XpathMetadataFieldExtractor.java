@@ -1,5 +1,5 @@
 /*
-   Copyright 2020-2025 WeAreFrank!, 2018 Nationale-Nederlanden
+   Copyright 2020-2026 WeAreFrank!, 2018 Nationale-Nederlanden
 
    Licensed under the Apache License, Version 2.0 (the "License");
    you may not use this file except in compliance with the License.
@@ -27,6 +27,8 @@ import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import lombok.SneakyThrows;
+import net.sf.saxon.om.NodeInfo;
 import org.wearefrank.ladybug.Checkpoint;
 import org.wearefrank.ladybug.MetadataFieldExtractor;
 import org.wearefrank.ladybug.Report;
@@ -39,6 +41,8 @@ public class XpathMetadataFieldExtractor extends DefaultValueMetadataFieldExtrac
 	private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 	protected String xpath;
 	protected XPathExpression xpathExpression;
+	// XPathExpression isn't thread-safe, metadata can be extracted by multiple threads at the same time
+	private ThreadLocal<XPathExpression> threadXpathExpression;
 	protected String extractFrom = "first";
 	private MetadataFieldExtractor delegate = null;
 
@@ -46,11 +50,19 @@ public class XpathMetadataFieldExtractor extends DefaultValueMetadataFieldExtrac
 		this.xpath = xpath;
 		if (xpath == null) {
 			xpathExpression = null;
+			threadXpathExpression = null;
 		} else {
 			xpathExpression = XmlUtil.createXPathExpression(xpath);
+			threadXpathExpression = ThreadLocal.withInitial(() -> createXPathExpression(xpath));
 		}
 	}
 
+	@SneakyThrows(XPathExpressionException.class)
+	private static XPathExpression createXPathExpression(String xpath) {
+		// Already validated by setXpath()
+		return XmlUtil.createXPathExpression(xpath);
+	}
+
 	public void setExtractFrom(String extractFrom) {
 		this.extractFrom = extractFrom;
 	}
@@ -81,10 +93,11 @@ public class XpathMetadataFieldExtractor extends DefaultValueMetadataFieldExtrac
 		}
 		Iterator iterator = extractFromList.iterator();
 		while (StringUtils.isBlank(value) && iterator.hasNext()) {
-			String message = ((Checkpoint)iterator.next()).getMessage();
+			Checkpoint checkpoint = (Checkpoint)iterator.next();
+			String message = checkpoint.getMessage();
 			if (message != null) {
 				try { 
-					value = xpathExpression.evaluate(XmlUtil.createXmlSourceFromString(message));
+					value = evaluate(report, checkpoint, message);
 					if(StringUtils.isBlank(value) && (delegate != null)) {
 						value = (String) delegate.extractMetadata(report);
 					}
@@ -102,4 +115,25 @@ public class XpathMetadataFieldExtractor extends DefaultValueMetadataFieldExtrac
 		return value;
 	}
 
+	private String evaluate(Report report, Checkpoint checkpoint, String message) throws XPathExpressionException {
+		MetadataExtractionContext context = MetadataExtractionContext.get(report);
+		if (context == null) {
+			return getXPathExpression().evaluate(XmlUtil.createXmlSourceFromString(message));
+		} else {
+			NodeInfo xmlTree = context.getXmlTree(checkpoint, message);
+			if (xmlTree == null) {
+				throw new XPathExpressionException("Message is not well-formed XML");
+			}
+			return getXPathExpression().evaluate(xmlTree);
+		}
+	}
+
+	private XPathExpression getXPathExpression() {
+		if (threadXpathExpression == null) {
+			// Field xpathExpression set by subclass
+			return xpathExpression;
+		}
+		return threadXpathExpression.get();
+	}
+
 }
@@ -0,0 +1,30 @@
+/*
+   Copyright 2026 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.wearefrank.ladybug.storage;
+
+/**
+ * Thrown by {@link Storage#getMetadataPage(int, String, String, boolean, java.util.List, java.util.List, int)} when
+ * the cursor is malformed or wasn't created by the storage (see {@link MetadataPage}).
+ *
+ * @author Jaco de Groot
+ */
+public class InvalidCursorException extends StorageException {
+
+	public InvalidCursorException(String cursor, Throwable cause) {
+		super("Invalid cursor: " + cursor, cause);
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
-   Copyright 2020, 2022, 2024, 2025 WeAreFrank!, 2018 Nationale-Nederlanden
+   Copyright 2020, 2022, 2024-2026 WeAreFrank!, 2018 Nationale-Nederlanden
 
    Licensed under the Apache License, Version 2.0 (the "License");
    you may not use this file except in compliance with the License.
@@ -15,6 +15,8 @@
 */
 package org.wearefrank.ladybug.storage;
 
+import java.util.List;
+
 import org.wearefrank.ladybug.Config;
 import org.wearefrank.ladybug.MetadataExtractor;
 import org.wearefrank.ladybug.Report;
@@ -34,6 +36,18 @@ public interface LogStorage extends Storage {
 
 	public void storeWithoutException(Report report);
 
+	/**
+	 * Store a batch of reports. Storages that can store a batch of reports more efficiently than storing them one by one
+	 * (e.g. in one database transaction) can override this method.
+	 * 
+	 * @param reports the reports to store
+	 */
+	default void storeWithoutException(List<Report> reports) {
+		for (Report report : reports) {
+			storeWithoutException(report);
+		}
+	}
+
 	/**
 	 * Get warnings and errors that need user attention like file system (almost) full or exceptions while storing
 	 * reports.
@@ -0,0 +1,239 @@
+/*
+   Copyright 2026 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.wearefrank.ladybug.storage;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+
+import lombok.Getter;
+
+/**
+ * Page of metadata records returned by {@link Storage#getMetadataPage(int, String, String, boolean, List, List, int)}.
+ * The next page can be requested with the cursor of this page. The cursor is opaque to the caller, it contains the
+ * sort value and storageId of the last record of the page so the next page will start after this record even when
+ * records have been added or deleted in the meantime (keyset pagination). Records with the same sort value are ordered
+ * on their storageId, also when storageId isn't one of the requested metadata names.
+ *
+ * A cursor is only valid for the storage, sort, direction and metadata value type of the request that returned it.
+ * {@link #getPage(Storage, int, String, String, boolean, List, List, int)} puts the values converted to the metadata
+ * value type in the cursor, storages with their own implementation should use the same representation or a
+ * representation that only their own implementation can encounter.
+ *
+ * @author Jaco de Groot
+ */
+public class MetadataPage {
+	private @Getter List<List<Object>> records;
+	private @Getter String nextCursor;
+
+	public MetadataPage(List<List<Object>> records, String nextCursor) {
+		this.records = records;
+		this.nextCursor = nextCursor;
+	}
+
+	/**
+	 * Get a page of metadata records using {@link Storage#getMetadata(int, List, List, int)}. Used by storages that
+	 * don't have a more efficient implementation (e.g. storages that keep their metadata in memory). Records with the
+	 * same sort value are ordered on the storageId (which is requested from the storage when it isn't one of the
+	 * metadata names).
+	 */
+	public static MetadataPage getPage(Storage storage, int pageSize, String cursor, String sortMetadataName,
+			boolean descending, List<String> metadataNames, List<String> searchValues, int metadataValueType)
+			throws StorageException {
+		return getPage(storage, pageSize, cursor, sortMetadataName, descending, metadataNames, searchValues,
+				metadataValueType, "storageId");
+	}
+
+	/**
+	 * Same as {@link #getPage(Storage, int, String, String, boolean, List, List, int)} for storages that use another
+	 * metadata name for the storageId
+	 */
+	public static MetadataPage getPage(Storage storage, int pageSize, String cursor, String sortMetadataName,
+			boolean descending, List<String> metadataNames, List<String> searchValues, int metadataValueType,
+			String storageIdMetadataName) throws StorageException {
+		List<String> names = new ArrayList<String>(metadataNames);
+		List<String> values = null;
+		if (searchValues != null) {
+			values = new ArrayList<String>(searchValues);
+		}
+		int storageIdIndex = addHiddenMetadataName(names, values, storageIdMetadataName);
+		int sortIndex = storageIdIndex;
+		if (sortMetadataName != null) {
+			sortIndex = addHiddenMetadataName(names, values, sortMetadataName);
+		}
+		List<List<Object>> metadata = storage.getMetadata(-1, names, values, metadataValueType);
+		List<SortKey> sortKeys = new ArrayList<SortKey>(metadata.size());
+		for (List<Object> record : metadata) {
+			sortKeys.add(new SortKey(record, record.get(sortIndex), record.get(storageIdIndex)));
+		}
+		Comparator<SortKey> comparator = SortKey::compareTo;
+		if (descending) {
+			comparator = comparator.reversed();
+		}
+		sortKeys.sort(comparator);
+		int start = 0;
+		if (cursor != null) {
+			String[] cursorValues = decodeCursor(cursor);
+			SortKey cursorKey = new SortKey(null, cursorValues[1], cursorValues[0]);
+			while (start < sortKeys.size() && comparator.compare(sortKeys.get(start), cursorKey) <= 0) {
+				start++;
+			}
+		}
+		int end = sortKeys.size();
+		if (pageSize > -1 && start + pageSize < end) {
+			end = start + pageSize;
+		}
+		List<List<Object>> records = new ArrayList<List<Object>>(end - start);
+		for (int i = start; i < end; i++) {
+			List<Object> record = sortKeys.get(i).record;
+			if (names.size() > metadataNames.size()) {
+				record = record.subList(0, metadataNames.size());
+			}
+			records.add(record);
+		}
+		String nextCursor = null;
+		if (end < sortKeys.size() && end > start) {
+			List<Object> lastRecord = sortKeys.get(end - 1).record;
+			nextCursor = encodeCursor(lastRecord.get(storageIdIndex), lastRecord.get(sortIndex));
+		}
+		return new MetadataPage(records, nextCursor);
+	}
+
+	/**
+	 * Add a metadata name (with search value null) when it isn't one of the metadata names yet. Metadata names added
+	 * are removed from the records of the page.
+	 *
+	 * @return the index of the metadata name
+	 */
+	private static int addHiddenMetadataName(List<String> names, List<String> values, String metadataName) {
+		int index = names.indexOf(metadataName);
+		if (index == -1) {
+			names.add(metadataName);
+			if (values != null) {
+				values.add(null);
+			}
+			index = names.size() - 1;
+		}
+		return index;
+	}
+
+	public static String encodeCursor(Object storageId, Object sortValue) {
+		String cursor = String.valueOf(storageId);
+		if (sortValue != null) {
+			cursor = cursor + "\n" + sortValue;
+		}
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * @return storageId and sort value (null when the sort value was null) of the last record of the previous page
+	 * @throws InvalidCursorException when the cursor cannot be decoded
+	 */
+	public static String[] decodeCursor(String cursor) throws StorageException {
+		String decoded;
+		try {
+			decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+		} catch(IllegalArgumentException e) {
+			throw new InvalidCursorException(cursor, e);
+		}
+		int i = decoded.indexOf('\n');
+		if (i == -1) {
+			return new String[] {decoded, null};
+		} else {
+			return new String[] {decoded.substring(0, i), decoded.substring(i + 1)};
+		}
+	}
+
+	/**
+	 * Compare two sort values the same way as {@link #getPage(Storage, int, String, String, boolean, List, List, int)}
+	 * does (see {@link SortKey}). Can be used by storages that implement their own pagination to be consistent with it.
+	 *
+	 * @return a negative integer, zero, or a positive integer as sortValue1 is less than, equal to, or greater than
+	 *         sortValue2
+	 */
+	public static int compareSortValues(Object sortValue1, Object sortValue2) {
+		return SortKey.compare(SortKey.toComparable(sortValue1), SortKey.toComparable(sortValue2));
+	}
+
+	/**
+	 * Sort key of a record. Numbers (also numbers as String, as cursor values and metadata of value type String are
+	 * Strings) are compared numerically, other values by their String representation. Null values come first.
+	 */
+	private static class SortKey implements Comparable<SortKey> {
+		private final List<Object> record;
+		private final Comparable sortValue;
+		private final Comparable storageId;
+
+		SortKey(List<Object> record, Object sortValue, Object storageId) {
+			this.record = record;
+			this.sortValue = toComparable(sortValue);
+			this.storageId = toComparable(storageId);
+		}
+
+		@Override
+		public int compareTo(SortKey sortKey) {
+			int result = compare(sortValue, sortKey.sortValue);
+			if (result == 0) {
+				result = compare(storageId, sortKey.storageId);
+			}
+			return result;
+		}
+
+		private static Comparable toComparable(Object value) {
+			if (value == null) {
+				return null;
+			}
+			if (value instanceof Integer || value instanceof Long) {
+				return ((Number)value).longValue();
+			}
+			String string = value.toString();
+			if (isLong(string)) {
+				return Long.valueOf(string);
+			}
+			return string;
+		}
+
+		private static boolean isLong(String string) {
+			int start = string.startsWith("-") ? 1 : 0;
+			if (string.length() <= start || string.length() - start > 18) {
+				return false;
+			}
+			for (int i = start; i < string.length(); i++) {
+				if (!Character.isDigit(string.charAt(i))) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		@SuppressWarnings("unchecked")
+		private static int compare(Comparable value1, Comparable value2) {
+			if (value1 == null) {
+				return value2 == null ? 0 : -1;
+			} else if (value2 == null) {
+				return 1;
+			} else if (value1.getClass() != value2.getClass()) {
+				// Numbers before other values
+				return value1 instanceof Long ? -1 : 1;
+			} else {
+				return value1.compareTo(value2);
+			}
+		}
+	}
+
+}
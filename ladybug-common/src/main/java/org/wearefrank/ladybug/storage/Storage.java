@@ -1,5 +1,5 @@
 /*
-   Copyright 2020-2022, 2024-2025 WeAreFrank!, 2018 Nationale-Nederlanden
+   Copyright 2020-2022, 2024-2026 WeAreFrank!, 2018 Nationale-Nederlanden
 
    Licensed under the Apache License, Version 2.0 (the "License");
    you may not use this file except in compliance with the License.
@@ -15,7 +15,10 @@
 */
 package org.wearefrank.ladybug.storage;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.wearefrank.ladybug.Report;
 import org.wearefrank.ladybug.util.SearchUtil;
@@ -42,6 +45,26 @@ public interface Storage {
 	 */
 	public Report getReport(Integer storageId) throws StorageException;
 
+	/**
+	 * Get the reports with the specified ids. Storages can override this method to get the reports more efficiently
+	 * than calling {@link #getReport(Integer)} for every id (e.g. with fewer database queries).
+	 * 
+	 * @param storageIds ...
+	 * @throws StorageException ...
+	 * @return the reports per storageId in the order of the specified ids, reports that could not be found are not
+	 *         present
+	 */
+	default Map<Integer, Report> getReports(Collection<Integer> storageIds) throws StorageException {
+		Map<Integer, Report> reports = new LinkedHashMap<Integer, Report>();
+		for (Integer storageId : storageIds) {
+			Report report = getReport(storageId);
+			if (report != null) {
+				reports.put(storageId, report);
+			}
+		}
+		return reports;
+	}
+
 	public int getSize() throws StorageException;
 
 	public List<Integer> getStorageIds() throws StorageException;
@@ -60,6 +83,29 @@ public interface Storage {
 	public List<List<Object>> getMetadata(int maxNumberOfRecords, List<String> metadataNames,
 			List<String> searchValues, int metadataValueType) throws StorageException;
 
+	/**
+	 * Get a page of metadata records. Unlike {@link #getMetadata(int, List, List, int)} subsequent pages can be
+	 * requested without fetching the previous pages again by passing the cursor of the previous page.
+	 * 
+	 * @param pageSize  the maximum number of records to return (-1 for no limit)
+	 * @param cursor  the cursor of the previous page (see {@link MetadataPage#getNextCursor()}) or null for the first
+	 *                page
+	 * @param sortMetadataName  the metadata name to sort on or null to sort on the first metadata name, records with
+	 *                          the same sort value are sorted on the first metadata name (the storageId)
+	 * @param descending  whether to sort descending (latest first when sorting on storageId)
+	 * @param metadataNames  the metadata names to return, the first metadata name should be the storageId (or the
+	 *                       equivalent of it in the storage)
+	 * @param searchValues see {@link SearchUtil}
+	 * @param metadataValueType ...
+	 * @throws StorageException ...
+	 * @return ...
+	 */
+	default MetadataPage getMetadataPage(int pageSize, String cursor, String sortMetadataName, boolean descending,
+			List<String> metadataNames, List<String> searchValues, int metadataValueType) throws StorageException {
+		return MetadataPage.getPage(this, pageSize, cursor, sortMetadataName, descending, metadataNames, searchValues,
+				metadataValueType);
+	}
+
 	public void clear() throws StorageException;
 
 	public void close();
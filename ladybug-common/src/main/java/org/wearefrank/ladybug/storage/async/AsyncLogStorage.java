@@ -0,0 +1,345 @@
+/*
+   Copyright 2026 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.wearefrank.ladybug.storage.async;
+
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import lombok.Setter;
+import org.wearefrank.ladybug.Report;
+import org.wearefrank.ladybug.TestTool;
+import org.wearefrank.ladybug.storage.LogStorage;
+import org.wearefrank.ladybug.storage.MetadataPage;
+import org.wearefrank.ladybug.storage.StorageException;
+
+/**
+ * Log storage that stores reports asynchronously in its destination log storage. Reports are put on a bounded queue and
+ * stored in batches by one or more writer threads so the thread that closes a report isn't delayed by the destination
+ * storage. When the queue is full the {@link OverflowPolicy} determines whether the calling thread will block until
+ * space becomes available, the oldest report in the queue is dropped or the new report is dropped. The number of
+ * dropped reports is counted and shown to the user by {@link #getWarningsAndErrors()}. On {@link #close()} the reports
+ * in the queue are stored before the destination storage is closed.
+ *
+ * {@link TestTool} will keep a report visible as in progress until it has been stored (or dropped) by this storage.
+ *
+ * @author Jaco de Groot
+ */
+public class AsyncLogStorage implements LogStorage {
+	private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+	private @Setter @Getter String name;
+	private @Setter @Getter LogStorage destination;
+	private @Setter @Getter int queueSize = 1000;
+	private @Setter @Getter int batchSize = 100;
+	private @Setter @Getter int writerThreads = 1;
+	private @Setter @Getter OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+	private @Setter @Getter long closeTimeout = 60 * 1000;
+	private BlockingQueue<QueuedReport> queue;
+	private List<Thread> threads = new ArrayList<Thread>();
+	private volatile boolean closed = false;
+	private AtomicLong blockedCount = new AtomicLong(0);
+	private AtomicLong droppedOldestCount = new AtomicLong(0);
+	private AtomicLong droppedNewestCount = new AtomicLong(0);
+	private AtomicLong storedCount = new AtomicLong(0);
+
+	public enum OverflowPolicy {
+		/** Block the calling thread until space becomes available in the queue */
+		BLOCK,
+		/** Drop the oldest report in the queue to make space for the new report */
+		DROP_OLDEST,
+		/** Drop the new report */
+		DROP_NEWEST
+	}
+
+	private static class QueuedReport {
+		Report report;
+		Consumer<Report> listener;
+
+		QueuedReport(Report report, Consumer<Report> listener) {
+			this.report = report;
+			this.listener = listener;
+		}
+	}
+
+	@PostConstruct
+	public synchronized void init() throws StorageException {
+		if (destination == null) {
+			throw new StorageException("No destination storage configured for " + name);
+		}
+		if (queue == null) {
+			queue = new ArrayBlockingQueue<QueuedReport>(Math.max(1, queueSize));
+			for (int i = 0; i < Math.max(1, writerThreads); i++) {
+				Thread thread = new Thread(this::write, "Ladybug-" + name + "-" + i);
+				thread.setDaemon(true);
+				threads.add(thread);
+				thread.start();
+			}
+		}
+	}
+
+	@Override
+	public void storeWithoutException(Report report) {
+		storeWithoutException(report, null);
+	}
+
+	/**
+	 * Store a report asynchronously and notify the listener when the report has been stored in the destination storage
+	 * or has been dropped (because of the overflow policy).
+	 *
+	 * @param report   the report to store
+	 * @param listener the listener to notify, can be null
+	 */
+	public void storeWithoutException(Report report, Consumer<Report> listener) {
+		QueuedReport queuedReport = new QueuedReport(report, listener);
+		if (closed || queue == null) {
+			// Closed or not initialized, store synchronously
+			store(queuedReport);
+			return;
+		}
+		if (queue.offer(queuedReport)) {
+			storeIfClosedInTheMeantime(queuedReport);
+		} else {
+			switch (overflowPolicy) {
+				case DROP_NEWEST:
+					droppedNewestCount.incrementAndGet();
+					notifyListener(queuedReport);
+					break;
+				case DROP_OLDEST:
+					while (!queue.offer(queuedReport)) {
+						QueuedReport oldestReport = queue.poll();
+						if (oldestReport != null) {
+							droppedOldestCount.incrementAndGet();
+							notifyListener(oldestReport);
+						}
+					}
+					storeIfClosedInTheMeantime(queuedReport);
+					break;
+				default:
+					blockedCount.incrementAndGet();
+					try {
+						queue.put(queuedReport);
+						storeIfClosedInTheMeantime(queuedReport);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						store(queuedReport);
+					}
+			}
+		}
+	}
+
+	/**
+	 * When close() has been called after the closed check in storeWithoutException() the writer threads might already
+	 * have finished and the queue might already have been drained by close(). Store the report synchronously when it is
+	 * still in the queue (when it isn't in the queue anymore it has already been taken by a writer thread or close()).
+	 */
+	private void storeIfClosedInTheMeantime(QueuedReport queuedReport) {
+		if (closed && queue.remove(queuedReport)) {
+			store(queuedReport);
+		}
+	}
+
+	private void write() {
+		List<QueuedReport> batch = new ArrayList<QueuedReport>();
+		while (true) {
+			try {
+				QueuedReport queuedReport = queue.poll(1, TimeUnit.SECONDS);
+				if (queuedReport != null) {
+					batch.add(queuedReport);
+					queue.drainTo(batch, Math.max(1, batchSize) - 1);
+					store(batch);
+					batch.clear();
+				} else if (closed) {
+					return;
+				}
+			} catch (InterruptedException e) {
+				// Store the reports that are still in the queue before returning
+				queue.drainTo(batch);
+				store(batch);
+				return;
+			} catch (Throwable t) {
+				// Keep the writer thread alive (listeners have already been notified by store())
+				log.error("Unexpected exception storing reports", t);
+				batch.clear();
+			}
+		}
+	}
+
+	private void store(QueuedReport queuedReport) {
+		List<QueuedReport> batch = new ArrayList<QueuedReport>();
+		batch.add(queuedReport);
+		store(batch);
+	}
+
+	private void store(List<QueuedReport> batch) {
+		if (batch.size() > 0) {
+			List<Report> reports = new ArrayList<Report>();
+			for (QueuedReport queuedReport : batch) {
+				reports.add(queuedReport.report);
+			}
+			try {
+				destination.storeWithoutException(reports);
+				storedCount.addAndGet(reports.size());
+			} finally {
+				for (QueuedReport queuedReport : batch) {
+					notifyListener(queuedReport);
+				}
+			}
+		}
+	}
+
+	private void notifyListener(QueuedReport queuedReport) {
+		if (queuedReport.listener != null) {
+			try {
+				queuedReport.listener.accept(queuedReport.report);
+			} catch (Throwable t) {
+				log.error("Unexpected exception notifying listener", t);
+			}
+		}
+	}
+
+	public int getQueueLength() {
+		return queue == null ? 0 : queue.size();
+	}
+
+	public long getBlockedCount() {
+		return blockedCount.get();
+	}
+
+	public long getDroppedOldestCount() {
+		return droppedOldestCount.get();
+	}
+
+	public long getDroppedNewestCount() {
+		return droppedNewestCount.get();
+	}
+
+	public long getStoredCount() {
+		return storedCount.get();
+	}
+
+	@Override
+	public Report getReport(Integer storageId) throws StorageException {
+		return destination.getReport(storageId);
+	}
+
+	@Override
+	public Map<Integer, Report> getReports(Collection<Integer> storageIds) throws StorageException {
+		return destination.getReports(storageIds);
+	}
+
+	@Override
+	public int getSize() throws StorageException {
+		return destination.getSize();
+	}
+
+	@Override
+	public List<Integer> getStorageIds() throws StorageException {
+		return destination.getStorageIds();
+	}
+
+	@Override
+	public List<List<Object>> getMetadata(int maxNumberOfRecords, List<String> metadataNames,
+			List<String> searchValues, int metadataValueType) throws StorageException {
+		return destination.getMetadata(maxNumberOfRecords, metadataNames, searchValues, metadataValueType);
+	}
+
+	@Override
+	public MetadataPage getMetadataPage(int pageSize, String cursor, String sortMetadataName, boolean descending,
+			List<String> metadataNames, List<String> searchValues, int metadataValueType) throws StorageException {
+		return destination.getMetadataPage(pageSize, cursor, sortMetadataName, descending, metadataNames, searchValues,
+				metadataValueType);
+	}
+
+	@Override
+	public void clear() throws StorageException {
+		destination.clear();
+	}
+
+	/**
+	 * Store the reports in the queue (wait at most closeTimeout milliseconds for the writer threads to finish) and close
+	 * the destination storage.
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		long end = System.currentTimeMillis() + closeTimeout;
+		for (Thread thread : threads) {
+			try {
+				long timeout = end - System.currentTimeMillis();
+				if (timeout > 0) {
+					thread.join(timeout);
+				}
+				if (thread.isAlive()) {
+					log.warn("Writer thread " + thread.getName() + " didn't finish within " + closeTimeout + " ms");
+					thread.interrupt();
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				thread.interrupt();
+			}
+		}
+		if (queue != null) {
+			// Store reports that have been added to the queue after the writer threads have finished
+			List<QueuedReport> batch = new ArrayList<QueuedReport>();
+			queue.drainTo(batch);
+			store(batch);
+		}
+		destination.close();
+	}
+
+	@Override
+	public int getFilterType(String column) {
+		return destination.getFilterType(column);
+	}
+
+	@Override
+	public List getFilterValues(String column) throws StorageException {
+		return destination.getFilterValues(column);
+	}
+
+	@Override
+	public String getUserHelp(String column) {
+		return destination.getUserHelp(column);
+	}
+
+	@Override
+	public String getWarningsAndErrors() {
+		String warningsAndErrors = destination.getWarningsAndErrors();
+		long dropped = droppedOldestCount.get() + droppedNewestCount.get();
+		if (dropped > 0) {
+			String message = "Dropped " + dropped + " report(s) because the queue of " + name + " was full (oldest: "
+					+ droppedOldestCount.get() + ", newest: " + droppedNewestCount.get() + ")";
+			if (warningsAndErrors == null) {
+				warningsAndErrors = message;
+			} else {
+				warningsAndErrors = warningsAndErrors + ". " + message;
+			}
+		}
+		return warningsAndErrors;
+	}
+}
@@ -1,5 +1,5 @@
 /*
-   Copyright 2024-2025 WeAreFrank!
+   Copyright 2024-2026 WeAreFrank!
 
    Licensed under the Apache License, Version 2.0 (the "License");
    you may not use this file except in compliance with the License.
@@ -28,6 +28,7 @@ import org.springframework.jdbc.core.PreparedStatementSetter;
 
 import org.wearefrank.ladybug.MetadataExtractor;
 import org.wearefrank.ladybug.Report;
+import org.wearefrank.ladybug.metadata.MetadataExtractionContext;
 import org.wearefrank.ladybug.storage.CrudStorage;
 import org.wearefrank.ladybug.storage.StorageException;
 import org.wearefrank.ladybug.util.Export;
@@ -45,7 +46,7 @@ public class DatabaseCrudStorage extends DatabaseStorage implements CrudStorage
 
 	@Override
 	public void update(Report report) throws StorageException {
-		byte[] reportBytes = Export.getReportBytes(report);
+		byte[] reportBytes = Export.getReportBytes(report, getReportFormat());
 		String reportXml = report.toXml();
 		long storageSize = reportBytes.length;
 		if (isStoreReportXml()) {
@@ -76,18 +77,20 @@ public class DatabaseCrudStorage extends DatabaseStorage implements CrudStorage
 			@Override
 			public void setValues(PreparedStatement ps) throws SQLException {
 				int i = 1;
-				for (String column : getMetadataNames()) {
-					if (!column.equals(getStorageIdColumn())) {
-						if (isInteger(column)) {
-							ps.setInt(i, (Integer) metadataExtractor.getMetadata(report, column, MetadataExtractor.VALUE_TYPE_OBJECT));
-						} else if (isLong(column)) {
-							ps.setLong(i, (Long) metadataExtractor.getMetadata(report, column, MetadataExtractor.VALUE_TYPE_OBJECT));
-						} else if (isTimestamp(column)) {
-							ps.setTimestamp(i, new Timestamp((Long) metadataExtractor.getMetadata(report, column, MetadataExtractor.VALUE_TYPE_OBJECT)));
-						} else {
-							ps.setString(i, (String) metadataExtractor.getMetadata(report, column, MetadataExtractor.VALUE_TYPE_STRING));
+				try (MetadataExtractionContext context = MetadataExtractionContext.open(report)) {
+					for (String column : getMetadataNames()) {
+						if (!column.equals(getStorageIdColumn())) {
+							if (isInteger(column)) {
+								ps.setInt(i, (Integer) metadataExtractor.getMetadata(report, column, MetadataExtractor.VALUE_TYPE_OBJECT));
+							} else if (isLong(column)) {
+								ps.setLong(i, (Long) metadataExtractor.getMetadata(report, column, MetadataExtractor.VALUE_TYPE_OBJECT));
+							} else if (isTimestamp(column)) {
+								ps.setTimestamp(i, new Timestamp((Long) metadataExtractor.getMetadata(report, column, MetadataExtractor.VALUE_TYPE_OBJECT)));
+							} else {
+								ps.setString(i, (String) metadataExtractor.getMetadata(report, column, MetadataExtractor.VALUE_TYPE_STRING));
+							}
+							i++;
 						}
-						i++;
 					}
 				}
 				ps.setBytes(i, reportBytes);
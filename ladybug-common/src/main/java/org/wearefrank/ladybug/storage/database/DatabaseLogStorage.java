@@ -1,5 +1,5 @@
 /*
-   Copyright 2024, 2025 WeAreFrank!
+   Copyright 2024-2026 WeAreFrank!
 
    Licensed under the Apache License, Version 2.0 (the "License");
    you may not use this file except in compliance with the License.
@@ -16,6 +16,7 @@
 package org.wearefrank.ladybug.storage.database;
 
 import java.lang.invoke.MethodHandles;
+import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -40,6 +41,19 @@ public class DatabaseLogStorage extends DatabaseStorage implements LogStorage {
 		}
 	}
 
+	@Override
+	public void storeWithoutException(List<Report> reports) {
+		try {
+			store(reports);
+		} catch(Throwable throwable) {
+			lastExceptionMessage = throwable.getMessage();
+			// When StorageException is should already be logged
+			if (!(throwable instanceof StorageException)) {
+				log.error("Caught unexpected throwable storing reports", throwable);
+			}
+		}
+	}
+
 	@Override
 	public String getWarningsAndErrors() {
 		return lastExceptionMessage;
@@ -1,5 +1,5 @@
 /*
-   Copyright 2022-2025 WeAreFrank!
+   Copyright 2022-2026 WeAreFrank!
 
    Licensed under the Apache License, Version 2.0 (the "License");
    you may not use this file except in compliance with the License.
@@ -19,15 +19,28 @@ import java.io.ByteArrayInputStream;
 import java.io.StringReader;
 import java.lang.invoke.MethodHandles;
 import java.math.BigDecimal;
+import java.sql.Connection;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Savepoint;
 import java.sql.Timestamp;
 import java.sql.Types;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.GregorianCalendar;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import javax.sql.DataSource;
 
@@ -36,8 +49,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.transaction.annotation.Propagation;
@@ -53,11 +68,16 @@ import org.wearefrank.ladybug.Config;
 import org.wearefrank.ladybug.MetadataExtractor;
 import org.wearefrank.ladybug.MetadataFieldExtractor;
 import org.wearefrank.ladybug.Report;
+import org.wearefrank.ladybug.metadata.MetadataExtractionContext;
+import org.wearefrank.ladybug.storage.InvalidCursorException;
+import org.wearefrank.ladybug.storage.MetadataPage;
 import org.wearefrank.ladybug.storage.Storage;
 import org.wearefrank.ladybug.storage.StorageException;
 import org.wearefrank.ladybug.storage.database.DbmsSupport.SortOrder;
 import org.wearefrank.ladybug.util.Export;
 import org.wearefrank.ladybug.util.Import;
+import org.wearefrank.ladybug.util.ReportFormat;
+import org.wearefrank.ladybug.util.SearchPredicate;
 import org.wearefrank.ladybug.util.SearchUtil;
 
 /**
@@ -86,6 +106,8 @@ import org.wearefrank.ladybug.util.SearchUtil;
 // @Dependent disabled for Quarkus for now because of the use of JdbcTemplate
 public class DatabaseStorage implements Storage {
 	private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+	// Oracle doesn't allow more than 1000 expressions in an in clause
+	protected static final int GET_REPORTS_CHUNK_SIZE = 500;
 	protected @Setter @Getter String name;
 	protected @Setter String table;
 	protected @Setter @Inject @Resource(name="metadataNames") List<String> metadataNames; // Used as column names in this storage
@@ -95,10 +117,17 @@ public class DatabaseStorage implements Storage {
 	protected @Setter Boolean storeReportXml;
 	protected @Setter Long maxStorageSize;
 	protected @Setter Long maxStorageDays;
+	protected @Setter Long deleteReportsInterval;
+	protected @Setter Boolean deleteReportsOnStore;
+	protected @Setter ReportFormat reportFormat;
 	protected @Setter @Getter @Inject @Autowired JdbcTemplate ladybugJdbcTemplate;
 	protected @Setter @Getter @Inject @Autowired DbmsSupport dbmsSupport;
 	protected @Setter @Getter @Inject @Autowired MetadataExtractor metadataExtractor;
 	protected String lastExceptionMessage;
+	private volatile String insertQuery;
+	private volatile boolean batchGeneratedKeysUnsupported = false;
+	private ExecutorService decodeExecutorService;
+	private ScheduledExecutorService deleteReportsExecutorService;
 
 	// Return defaults in get methods to make is possible for overriding class to return different default values when
 	// set method hasn't been called (by checking for null value)
@@ -175,6 +204,35 @@ public class DatabaseStorage implements Storage {
 		}
 	}
 
+	/**
+	 * Interval in milliseconds at which a thread of this storage deletes reports exceeding maxStorageSize and
+	 * maxStorageDays. Set to -1 to disable (reports are then deleted after every store unless deleteReportsOnStore is
+	 * set to false, e.g. when {@link DeleteReportsTask} is scheduled externally).
+	 */
+	public long getDeleteReportsInterval() {
+		if (deleteReportsInterval == null) {
+			return 60 * 1000;
+		} else {
+			return deleteReportsInterval;
+		}
+	}
+
+	public boolean isDeleteReportsOnStore() {
+		if (deleteReportsOnStore == null) {
+			return getDeleteReportsInterval() <= 0;
+		} else {
+			return deleteReportsOnStore;
+		}
+	}
+
+	public ReportFormat getReportFormat() {
+		if (reportFormat == null) {
+			return ReportFormat.SERIALIZED;
+		} else {
+			return reportFormat;
+		}
+	}
+
 	@PostConstruct
 	public void init() throws StorageException {
 		log.debug("DatabaseStorage uses metadata names {}", metadataNames);
@@ -182,16 +240,171 @@ public class DatabaseStorage implements Storage {
 			throw new StorageException("List metadataNames " + metadataNames
 					+ " should at least contain storageId column name '" + getStorageIdColumn() + "'");
 		}
+		if (getDeleteReportsInterval() > 0 && (getMaxStorageSize() > -1 || getMaxStorageDays() > -1)) {
+			startDeleteReportsThread();
+		}
+	}
+
+	private synchronized void startDeleteReportsThread() {
+		if (deleteReportsExecutorService == null) {
+			deleteReportsExecutorService = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "Ladybug-" + getName() + "-deleteReports");
+				thread.setDaemon(true);
+				return thread;
+			});
+			deleteReportsExecutorService.scheduleWithFixedDelay(() -> {
+				try {
+					deleteReports();
+				} catch(Throwable throwable) {
+					log.error("Caught unexpected throwable deleting reports", throwable);
+				}
+			}, getDeleteReportsInterval(), getDeleteReportsInterval(), TimeUnit.MILLISECONDS);
+		}
 	}
 
 	public void store(Report report) throws StorageException {
-		byte[] reportBytes = Export.getReportBytes(report);
+		byte[] reportBytes = Export.getReportBytes(report, getReportFormat());
 		String reportXml = report.toXml();
+		setStorageSize(report, reportBytes, reportXml);
+		insertReport(report, reportBytes, reportXml);
+		if (isDeleteReportsOnStore()) {
+			deleteReports();
+		}
+	}
+
+	private void insertReport(Report report, byte[] reportBytes, String reportXml) {
+		String query = getInsertQuery();
+		log.debug("Store report query: " + query);
+		KeyHolder keyHolder = new GeneratedKeyHolder();
+		ladybugJdbcTemplate.update(connection -> {
+			PreparedStatement ps = prepareInsertStatement(connection, query);
+			setInsertValues(ps, report, reportBytes, reportXml);
+			return ps;
+		}, keyHolder);
+		report.setStorageId(keyHolder.getKey().intValue());
+	}
+
+	/**
+	 * Store a batch of reports with one JDBC batch (in the same transaction). When the JDBC driver doesn't return the
+	 * generated keys for all reports in the batch the reports are inserted one by one instead. Reports exceeding
+	 * maxStorageSize and
+	 * maxStorageDays are deleted once per batch instead of once per report when deleteReportsOnStore is true (by
+	 * default they are deleted periodically instead, see {@link #getDeleteReportsInterval()}).
+	 *
+	 * @param reports the reports to store
+	 * @throws StorageException ...
+	 */
+	public void store(List<Report> reports) throws StorageException {
+		if (reports.size() == 1) {
+			store(reports.get(0));
+		} else if (reports.size() > 1) {
+			List<byte[]> reportsBytes = new ArrayList<byte[]>();
+			List<String> reportsXml = new ArrayList<String>();
+			for (Report report : reports) {
+				byte[] reportBytes = Export.getReportBytes(report, getReportFormat());
+				String reportXml = report.toXml();
+				setStorageSize(report, reportBytes, reportXml);
+				reportsBytes.add(reportBytes);
+				reportsXml.add(reportXml);
+			}
+			List<Integer> storageIds = null;
+			if (!batchGeneratedKeysUnsupported) {
+				storageIds = insertBatch(reports, reportsBytes, reportsXml);
+			}
+			if (storageIds == null) {
+				for (int i = 0; i < reports.size(); i++) {
+					insertReport(reports.get(i), reportsBytes.get(i), reportsXml.get(i));
+				}
+			} else {
+				for (int i = 0; i < reports.size(); i++) {
+					reports.get(i).setStorageId(storageIds.get(i));
+				}
+			}
+			if (isDeleteReportsOnStore()) {
+				deleteReports();
+			}
+		}
+	}
+
+	/**
+	 * Insert the reports with one JDBC batch. Not all JDBC drivers return the generated keys for all rows of a batch, in
+	 * which case the batch is rolled back (to a savepoint when a transaction is active, otherwise auto-commit is disabled
+	 * during the batch), null is returned and batches will not be used anymore.
+	 *
+	 * @return the generated storageIds or null when the batch has been rolled back
+	 */
+	private List<Integer> insertBatch(List<Report> reports, List<byte[]> reportsBytes, List<String> reportsXml) {
+		String query = getInsertQuery();
+		log.debug("Store " + reports.size() + " reports batch query: " + query);
+		List<Integer> storageIds = ladybugJdbcTemplate.execute((ConnectionCallback<List<Integer>>)connection -> {
+			boolean autoCommit = connection.getAutoCommit();
+			Savepoint savepoint = null;
+			if (autoCommit) {
+				connection.setAutoCommit(false);
+			} else {
+				savepoint = connection.setSavepoint();
+			}
+			List<Integer> generatedKeys = new ArrayList<Integer>();
+			boolean commit = false;
+			try (PreparedStatement ps = prepareInsertStatement(connection, query)) {
+				for (int i = 0; i < reports.size(); i++) {
+					setInsertValues(ps, reports.get(i), reportsBytes.get(i), reportsXml.get(i));
+					ps.addBatch();
+				}
+				ps.executeBatch();
+				try (ResultSet resultSet = ps.getGeneratedKeys()) {
+					while (resultSet.next()) {
+						generatedKeys.add(resultSet.getInt(1));
+					}
+				}
+				commit = generatedKeys.size() == reports.size();
+			} finally {
+				if (autoCommit) {
+					try {
+						if (commit) {
+							connection.commit();
+						} else {
+							connection.rollback();
+						}
+					} finally {
+						connection.setAutoCommit(true);
+					}
+				} else if (!commit) {
+					connection.rollback(savepoint);
+				}
+			}
+			if (!commit) {
+				log.warn("Expected " + reports.size() + " generated keys for batch insert but got "
+						+ generatedKeys.size() + ", reports will be inserted one by one");
+				return null;
+			}
+			return generatedKeys;
+		});
+		if (storageIds == null) {
+			batchGeneratedKeysUnsupported = true;
+		}
+		return storageIds;
+	}
+
+	private void setStorageSize(Report report, byte[] reportBytes, String reportXml) {
 		long storageSize = reportBytes.length;
 		if (isStoreReportXml()) {
 			storageSize = storageSize + reportXml.length();
 		}
 		report.setStorageSize(storageSize);
+	}
+
+	protected String getInsertQuery() {
+		// Metadata names and settings don't change after initialization so the query only needs to be build once
+		String insertQuery = this.insertQuery;
+		if (insertQuery == null) {
+			insertQuery = buildInsertQuery();
+			this.insertQuery = insertQuery;
+		}
+		return insertQuery;
+	}
+
+	private String buildInsertQuery() {
 		StringBuilder query = new StringBuilder("insert into " + getTable() + " (");
 		for (String column : getMetadataNames()) {
 			// Column storageId is expected to be an auto increment column
@@ -226,17 +439,23 @@ public class DatabaseStorage implements Storage {
 			query.append(", " + dbmsSupport.autoIncrementInsertValue("SEQ_" + getTable()));
 		}
 		query.append(")");
-		log.debug("Store report query: " + query.toString());
-		KeyHolder keyHolder = new GeneratedKeyHolder();
-		ladybugJdbcTemplate.update(connection -> {
-			// Using Statement.RETURN_GENERATED_KEYS instead of new String[] { getStorageIdColumn().toLowerCase() }
-			// doesn't work for Oracle. It will result in: org.springframework.dao.DataRetrievalFailureException:
-			// The generated key type is not supported. Unable to cast [oracle.sql.ROWID] to [java.lang.Number].
-			PreparedStatement ps = connection.prepareStatement(query.toString(),
-					// Use lowercase for PostgreSQL to avoid:
-					// org.postgresql.util.PSQLException: ERROR: column "storageId" does not exist
-					new String[] { getStorageIdColumn().toLowerCase() });
-			int i = 1;
+		return query.toString();
+	}
+
+	private PreparedStatement prepareInsertStatement(Connection connection, String query) throws SQLException {
+		// Using Statement.RETURN_GENERATED_KEYS instead of new String[] { getStorageIdColumn().toLowerCase() }
+		// doesn't work for Oracle. It will result in: org.springframework.dao.DataRetrievalFailureException:
+		// The generated key type is not supported. Unable to cast [oracle.sql.ROWID] to [java.lang.Number].
+		return connection.prepareStatement(query,
+				// Use lowercase for PostgreSQL to avoid:
+				// org.postgresql.util.PSQLException: ERROR: column "storageId" does not exist
+				new String[] { getStorageIdColumn().toLowerCase() });
+	}
+
+	private void setInsertValues(PreparedStatement ps, Report report, byte[] reportBytes, String reportXml)
+			throws SQLException {
+		int i = 1;
+		try (MetadataExtractionContext context = MetadataExtractionContext.open(report)) {
 			for (String column : getMetadataNames()) {
 				if (!column.equals(getStorageIdColumn())) {
 					if (isInteger(column)) {
@@ -251,22 +470,32 @@ public class DatabaseStorage implements Storage {
 					i++;
 				}
 			}
-			ps.setBytes(i, reportBytes);
-			i++;
-			if (isStoreReportXml()) {
-				ps.setClob(i, new StringReader(reportXml));
-			}
-			return ps;
-		}, keyHolder);
-		report.setStorageId(keyHolder.getKey().intValue());
+		}
+		ps.setBytes(i, reportBytes);
+		i++;
+		if (isStoreReportXml()) {
+			ps.setClob(i, new StringReader(reportXml));
+		}
+	}
+
+	/**
+	 * Delete reports exceeding maxStorageSize and maxStorageDays. Called after every store unless deleteReportsOnStore
+	 * is false.
+	 *
+	 * @see DeleteReportsTask
+	 * @throws StorageException ...
+	 */
+	public void deleteReports() throws StorageException {
 		if (getMaxStorageSize() > -1) {
 			String averageQuery = "select avg(storageSize) from " + getTable();
-			int averageStorageSize = ladybugJdbcTemplate.queryForObject(averageQuery, Integer.class);
+			Integer averageStorageSize = ladybugJdbcTemplate.queryForObject(averageQuery, Integer.class);
 			log.debug("Get average storage size query (returned " + averageStorageSize + "): " + averageQuery);
-			int maxNrOfReports = (int)(getMaxStorageSize() / averageStorageSize);
-			String deleteQuery = "delete from " + getTable() + " where " + getStorageIdColumn()
-					+ " <= ((select max(" + getStorageIdColumn() + ") from " + getTable() + ") - ?)";
-			delete(deleteQuery, maxNrOfReports);
+			if (averageStorageSize != null && averageStorageSize > 0) {
+				int maxNrOfReports = (int)(getMaxStorageSize() / averageStorageSize);
+				String deleteQuery = "delete from " + getTable() + " where " + getStorageIdColumn()
+						+ " <= ((select max(" + getStorageIdColumn() + ") from " + getTable() + ") - ?)";
+				delete(deleteQuery, maxNrOfReports);
+			}
 		}
 		if (getMaxStorageDays() > -1) {
 			String deleteQuery = "delete from " + getTable() + " where " + getEndTimeColum()
@@ -291,6 +520,41 @@ public class DatabaseStorage implements Storage {
 		return report;
 	}
 
+	/**
+	 * Get the reports with select queries with an in clause for a maximum of {@link #GET_REPORTS_CHUNK_SIZE} ids per
+	 * query (e.g. select storageId, report from ... where storageId in (?, ?, ...)) and decode them in parallel.
+	 */
+	@Override
+	public Map<Integer, Report> getReports(Collection<Integer> storageIds) throws StorageException {
+		List<Integer> uniqueStorageIds = new ArrayList<Integer>(new LinkedHashSet<Integer>(storageIds));
+		Map<Integer, byte[]> reportsBytes = new HashMap<Integer, byte[]>();
+		for (int i = 0; i < uniqueStorageIds.size(); i = i + GET_REPORTS_CHUNK_SIZE) {
+			List<Integer> chunk = uniqueStorageIds.subList(i,
+					Math.min(i + GET_REPORTS_CHUNK_SIZE, uniqueStorageIds.size()));
+			String query = "select " + getStorageIdColumn() + ", report from " + getTable() + " where "
+					+ getStorageIdColumn() + " in (" + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")";
+			log.debug("Get reports query (with " + chunk.size() + " storage id's): " + query);
+			int[] argTypes = new int[chunk.size()];
+			Arrays.fill(argTypes, Types.INTEGER);
+			try {
+				ladybugJdbcTemplate.query(query, chunk.toArray(), argTypes,
+						(RowCallbackHandler)resultSet -> reportsBytes.put(resultSet.getInt(1), resultSet.getBytes(2)));
+			} catch(DataAccessException e) {
+				throw new StorageException("Could not read reports", e);
+			}
+		}
+		Map<Integer, Report> decodedReports = Import.getReports(reportsBytes, getDecodeExecutorService(), log);
+		Map<Integer, Report> reports = new LinkedHashMap<Integer, Report>();
+		for (Integer storageId : uniqueStorageIds) {
+			Report report = decodedReports.get(storageId);
+			if (report != null) {
+				report.setStorage(this);
+				reports.put(storageId, report);
+			}
+		}
+		return reports;
+	}
+
 	// StorageException is allowed by Storage.getReport(), hence no need to handle it in the lambda expression that will
 	// call this method
 	@SneakyThrows
@@ -351,6 +615,104 @@ public class DatabaseStorage implements Storage {
 	@Override
 	public List<List<Object>> getMetadata(int maxNumberOfRecords, List<String> metadataNames, List<String> searchValues,
 			int metadataValueType) throws StorageException {
+		List<String> regexSearchValues = new ArrayList<String>();
+		List<List<Object>> metadata = getMetadata(maxNumberOfRecords, metadataNames, searchValues, metadataValueType,
+				null, null, SortOrder.DESC, regexSearchValues, null);
+		if (searchValues != null) {
+			removeRegexMismatches(metadata, regexSearchValues);
+		}
+		return metadata;
+	}
+
+	/**
+	 * Keyset pagination when sorted on the storageId column (e.g. select ... where storageId < ? order by storageId
+	 * desc) or on the endTime column (e.g. select ... where (endTime < ? or (endTime = ? and storageId < ?)) order by
+	 * endTime desc, storageId desc), otherwise see {@link MetadataPage#getPage(Storage, int, String, String, boolean,
+	 * List, List, int)}. The cursor contains the values of the last record as stored in the database (not converted to
+	 * the metadata value type).
+	 */
+	@Override
+	public MetadataPage getMetadataPage(int pageSize, String cursor, String sortMetadataName, boolean descending,
+			List<String> metadataNames, List<String> searchValues, int metadataValueType) throws StorageException {
+		String sortColumn = sortMetadataName == null ? getStorageIdColumn() : sortMetadataName;
+		if (pageSize < 1 || !isKeysetSortColumn(sortColumn)) {
+			return MetadataPage.getPage(this, pageSize, cursor, sortMetadataName, descending, metadataNames,
+					searchValues, metadataValueType, getStorageIdColumn());
+		}
+		List<String> names = new ArrayList<String>(metadataNames);
+		List<String> values = searchValues == null ? null : new ArrayList<String>(searchValues);
+		// Records with the same sort value are ordered on the storageId column, also when it hasn't been requested
+		int storageIdIndex = addHiddenColumn(names, values, getStorageIdColumn());
+		int sortIndex = addHiddenColumn(names, values, sortColumn);
+		Keyset keyset = null;
+		if (cursor != null) {
+			keyset = getKeyset(cursor, sortColumn);
+		}
+		List<String> regexSearchValues = new ArrayList<String>();
+		Object[] lastRecord = new Object[names.size()];
+		List<List<Object>> metadata = getMetadata(pageSize, names, values, metadataValueType, sortColumn, keyset,
+				descending ? SortOrder.DESC : SortOrder.ASC, regexSearchValues, lastRecord);
+		String nextCursor = null;
+		if (metadata.size() == pageSize) {
+			// Based on the last record before records are removed by regex search values
+			nextCursor = MetadataPage.encodeCursor(lastRecord[storageIdIndex], lastRecord[sortIndex]);
+		}
+		if (values != null) {
+			removeRegexMismatches(metadata, regexSearchValues);
+		}
+		if (names.size() > metadataNames.size()) {
+			for (int i = 0; i < metadata.size(); i++) {
+				metadata.set(i, new ArrayList<Object>(metadata.get(i).subList(0, metadataNames.size())));
+			}
+		}
+		return new MetadataPage(metadata, nextCursor);
+	}
+
+	private static int addHiddenColumn(List<String> names, List<String> values, String column) {
+		int index = names.indexOf(column);
+		if (index == -1) {
+			names.add(column);
+			if (values != null) {
+				values.add(null);
+			}
+			index = names.size() - 1;
+		}
+		return index;
+	}
+
+	private boolean isKeysetSortColumn(String sortColumn) {
+		// Column names are case insensitive (endTime metadata name and ENDTIME column)
+		return sortColumn.equals(getStorageIdColumn()) || (sortColumn.equalsIgnoreCase(getEndTimeColum())
+				&& getMetadataNames().contains(sortColumn) && (isTimestamp(sortColumn) || isLong(sortColumn)));
+	}
+
+	private Keyset getKeyset(String cursor, String sortColumn) throws StorageException {
+		String[] cursorValues = MetadataPage.decodeCursor(cursor);
+		try {
+			Integer storageId = Integer.valueOf(cursorValues[0]);
+			if (sortColumn.equals(getStorageIdColumn())) {
+				return new Keyset(null, storageId);
+			}
+			long sortValue = Long.parseLong(cursorValues[1]);
+			if (isTimestamp(sortColumn)) {
+				return new Keyset(new Timestamp(sortValue), storageId);
+			}
+			return new Keyset(BigDecimal.valueOf(sortValue), storageId);
+		} catch(NumberFormatException e) {
+			throw new InvalidCursorException(cursor, e);
+		}
+	}
+
+	/**
+	 * @param sortColumn        column to sort on (records with the same value are sorted on the storageId column) or
+	 *                          null to sort on the first metadata name
+	 * @param keyset            only select records after this keyset or null to select records from the start
+	 * @param lastRecord        array to put the values of the last record in (as read from the database, before
+	 *                          conversion to the metadata value type) or null when not needed
+	 */
+	private List<List<Object>> getMetadata(int maxNumberOfRecords, List<String> metadataNames,
+			List<String> searchValues, int metadataValueType, String sortColumn, Keyset keyset, SortOrder sortOrder,
+			List<String> regexSearchValues, Object[] lastRecord) throws StorageException {
 		// Prevent SQL injection (searchValues are passed as parameters to the SQL statement)
 		for (String metadataName : metadataNames) {
 			if (!getMetadataNames().contains(metadataName)) {
@@ -358,7 +720,6 @@ public class DatabaseStorage implements Storage {
 			}
 		}
 		List<String> rangeSearchValues = new ArrayList<String>();
-		List<String> regexSearchValues = new ArrayList<String>();
 		if (searchValues != null) {
 			for (int i = 0; i < searchValues.size(); i++) {
 				String searchValue = searchValues.get(i);
@@ -385,7 +746,13 @@ public class DatabaseStorage implements Storage {
 		StringBuilder query = new StringBuilder();
 		List<Object> args = new ArrayList<Object>();
 		List<Integer> argTypes = new ArrayList<Integer>();
-		buildMetadataQuery(maxNumberOfRecords, metadataNames, searchValues, rangeSearchValues, query, args, argTypes);
+		if (sortColumn == null && keyset == null && sortOrder == SortOrder.DESC) {
+			buildMetadataQuery(maxNumberOfRecords, metadataNames, searchValues, rangeSearchValues, query, args,
+					argTypes);
+		} else {
+			buildMetadataQuery(maxNumberOfRecords, metadataNames, searchValues, rangeSearchValues, sortColumn, keyset,
+					sortOrder, query, args, argTypes);
+		}
 		if (log.isDebugEnabled()) {
 			log.debug("Get metadata query (with arguments: " + args + "): " + query.toString());
 		}
@@ -407,6 +774,9 @@ public class DatabaseStorage implements Storage {
 								} else {
 									value = rs.getString(i + 1);
 								}
+								if (lastRecord != null) {
+									lastRecord[i] = value;
+								}
 								row.add(metadataExtractor.fromObjectToMetadataValueType(metadataNames.get(i), value,
 										metadataValueType));
 							}
@@ -417,21 +787,43 @@ public class DatabaseStorage implements Storage {
 			throw new StorageException("Could not read metadata", e);
 		}
 		postProcessMetadataResult(metadata, maxNumberOfRecords, metadataNames, searchValues, metadataValueType);
-		if (searchValues != null) {
-			for (int i = 0; i < metadata.size(); i++) {
-				if (!SearchUtil.matches((List<Object>)metadata.get(i), regexSearchValues)) {
-					metadata.remove(i);
-					i--;
-				}
+		return metadata;
+	}
+
+	private void removeRegexMismatches(List<List<Object>> metadata, List<String> regexSearchValues)
+			throws StorageException {
+		List<SearchPredicate> regexSearchPredicates = SearchUtil.compileAndValidate(regexSearchValues);
+		for (int i = 0; i < metadata.size(); i++) {
+			if (!SearchUtil.matchesPredicates((List<Object>)metadata.get(i), regexSearchPredicates)) {
+				metadata.remove(i);
+				i--;
 			}
 		}
-		return metadata;
 	}
 
 	protected void buildMetadataQuery(int maxNumberOfRecords, List<String> metadataNames, List<String> searchValues,
 			List<String> rangeSearchValues, StringBuilder query, List<Object> args, List<Integer> argTypes)
 			throws StorageException {
-		SortOrder sortOrder = SortOrder.DESC;
+		buildMetadataQuery(maxNumberOfRecords, metadataNames, searchValues, rangeSearchValues, null, null,
+				SortOrder.DESC, query, args, argTypes);
+	}
+
+	/**
+	 * @param sortColumn  column to sort on (records with the same value are sorted on the storageId column) or null
+	 *                    to sort on the first metadata name
+	 * @param keyset      only select records after this keyset (in the specified sort order) or null to select records
+	 *                    from the start
+	 */
+	protected void buildMetadataQuery(int maxNumberOfRecords, List<String> metadataNames, List<String> searchValues,
+			List<String> rangeSearchValues, String sortColumn, Keyset keyset, SortOrder sortOrder, StringBuilder query,
+			List<Object> args, List<Integer> argTypes) throws StorageException {
+		List<String> orderByColumns = new ArrayList<String>();
+		if (sortColumn == null || sortColumn.equals(getStorageIdColumn())) {
+			orderByColumns.add(sortColumn == null ? metadataNames.get(0) : sortColumn);
+		} else {
+			orderByColumns.add(sortColumn);
+			orderByColumns.add(getStorageIdColumn());
+		}
 		query.append("select");
 		query.append(dbmsSupport.provideLimitAfterFirstKeyword(maxNumberOfRecords, args, argTypes));
 		query.append(dbmsSupport.provideFirstRowsHintAfterFirstKeyword(maxNumberOfRecords));
@@ -449,7 +841,7 @@ public class DatabaseStorage implements Storage {
 			}
 		}
 		String provideOrderWithRowNumber =
-				dbmsSupport.provideOrderWithRowNumber(maxNumberOfRecords, metadataNames.get(0), sortOrder);
+				dbmsSupport.provideOrderWithRowNumber(maxNumberOfRecords, orderByColumns, sortOrder);
 		if (StringUtils.isNotEmpty(provideOrderWithRowNumber)) {
 			if (addComma) {
 				query.append(",");
@@ -487,6 +879,23 @@ public class DatabaseStorage implements Storage {
 				}
 			}
 		}
+		if (keyset != null) {
+			String operator = sortOrder == SortOrder.DESC ? "<" : ">";
+			if (orderByColumns.size() == 1) {
+				addNumberExpression(query, args, argTypes, getStorageIdColumn(), operator,
+						keyset.getStorageId().toString());
+			} else {
+				addExpression(query, "(" + sortColumn + " " + operator + " ? or (" + sortColumn + " = ? and "
+						+ getStorageIdColumn() + " " + operator + " ?))");
+				int sortValueType = keyset.getSortValue() instanceof Timestamp ? Types.TIMESTAMP : Types.DECIMAL;
+				args.add(keyset.getSortValue());
+				argTypes.add(sortValueType);
+				args.add(keyset.getSortValue());
+				argTypes.add(sortValueType);
+				args.add(keyset.getStorageId());
+				argTypes.add(Types.INTEGER);
+			}
+		}
 		if (searchValues != null) {
 			for (int i = 0; i < searchValues.size(); i++) {
 				String searchValue = searchValues.get(i);
@@ -509,7 +918,7 @@ public class DatabaseStorage implements Storage {
 			query.deleteCharAt(query.length() - 1);
 		}
 		query.append(dbmsSupport.provideLimitWithRowNumber(maxNumberOfRecords, args, argTypes));
-		query.append(dbmsSupport.provideOrder(maxNumberOfRecords, metadataNames.get(0), sortOrder));
+		query.append(dbmsSupport.provideOrder(maxNumberOfRecords, orderByColumns, sortOrder));
 		query.append(dbmsSupport.provideLimit(maxNumberOfRecords, args, argTypes));
 	}
 
@@ -520,8 +929,27 @@ public class DatabaseStorage implements Storage {
 			List<String> metadataNames, List<String> searchValues, int metadataValueType) {
 	}
 
+	private synchronized ExecutorService getDecodeExecutorService() {
+		if (decodeExecutorService == null) {
+			decodeExecutorService = Import.createDecodeExecutorService(getName());
+		}
+		return decodeExecutorService;
+	}
+
+	/**
+	 * Shut down the threads used to decode reports (they will be created again when needed) and the thread deleting
+	 * reports periodically
+	 */
 	@Override
-	public void close() {
+	public synchronized void close() {
+		if (decodeExecutorService != null) {
+			decodeExecutorService.shutdown();
+			decodeExecutorService = null;
+		}
+		if (deleteReportsExecutorService != null) {
+			deleteReportsExecutorService.shutdownNow();
+			deleteReportsExecutorService = null;
+		}
 	}
 
 	private void addLikeOrEqualsExpression(StringBuilder query, List<Object> args, List<Integer> argTypes,
@@ -691,4 +1119,18 @@ public class DatabaseStorage implements Storage {
 		return userHelp + SearchUtil.getUserHelpRegex() + SearchUtil.getUserHelpNullAndEmpty();
 	}
 
+	/**
+	 * Sort value and storageId of the last record of the previous page
+	 */
+	protected static class Keyset {
+		// Timestamp or BigDecimal, null when sorted on the storageId column
+		private final @Getter Object sortValue;
+		private final @Getter Integer storageId;
+
+		Keyset(Object sortValue, Integer storageId) {
+			this.sortValue = sortValue;
+			this.storageId = storageId;
+		}
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
-   Copyright 2022, 2024-2025 WeAreFrank!
+   Copyright 2022, 2024-2026 WeAreFrank!
 
    Licensed under the Apache License, Version 2.0 (the "License");
    you may not use this file except in compliance with the License.
@@ -68,7 +68,7 @@ public class DbmsSupport {
 		if (limit > -1 && "Microsoft SQL Server".equals(commonDatabaseName)) {
 			args.add(limit);
 			argTypes.add(Types.INTEGER);
-			return " top(" + limit + ")";
+			return " top(?)";
 		}
 		return "";
 	}
@@ -82,8 +82,12 @@ public class DbmsSupport {
 	}
 
 	public String provideOrderWithRowNumber(int limit, String orderByColumn, SortOrder sortOrder) {
+		return provideOrderWithRowNumber(limit, List.of(orderByColumn), sortOrder);
+	}
+
+	public String provideOrderWithRowNumber(int limit, List<String> orderByColumns, SortOrder sortOrder) {
 		if (limit > -1 && "Oracle".equals(commonDatabaseName)) {
-			return " row_number() over (order by "+ orderByColumn + " " + sortOrder + ") as rn";
+			return " row_number() over (order by "+ getOrderByColumns(orderByColumns, sortOrder) + ") as rn";
 		}
 		return "";
 	}
@@ -92,18 +96,34 @@ public class DbmsSupport {
 		if (limit > -1 && "Oracle".equals(commonDatabaseName)) {
 			args.add(limit);
 			argTypes.add(Types.INTEGER);
-			return ") where rn <= ?";
+			// Without order by the rows of the outer query can be returned in any order
+			return ") where rn <= ? order by rn";
 		}
 		return "";
 	}
 
 	public String provideOrder(int limit, String orderByColumn, SortOrder sortOrder) {
+		return provideOrder(limit, List.of(orderByColumn), sortOrder);
+	}
+
+	public String provideOrder(int limit, List<String> orderByColumns, SortOrder sortOrder) {
 		if (!"Oracle".equals(commonDatabaseName) || limit < 0) {
-			return " order by " + orderByColumn + " " + sortOrder;
+			return " order by " + getOrderByColumns(orderByColumns, sortOrder);
 		}
 		return "";
 	}
 
+	private static String getOrderByColumns(List<String> orderByColumns, SortOrder sortOrder) {
+		StringBuilder result = new StringBuilder();
+		for (String orderByColumn : orderByColumns) {
+			if (result.length() > 0) {
+				result.append(", ");
+			}
+			result.append(orderByColumn + " " + sortOrder);
+		}
+		return result.toString();
+	}
+
 	public String provideLimit(int limit, List<Object> args, List<Integer> argTypes) {
 		if (limit > -1 && !"Oracle".equals(commonDatabaseName)
 				&& !"Microsoft SQL Server".equals(commonDatabaseName)) {
@@ -0,0 +1,48 @@
+/*
+   Copyright 2026 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.wearefrank.ladybug.storage.database;
+
+import java.lang.invoke.MethodHandles;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import lombok.Setter;
+
+/**
+ * Task that can be scheduled (e.g. by Spring) to delete reports exceeding maxStorageSize and maxStorageDays of a
+ * {@link DatabaseStorage} periodically. Only needed when the scheduler of the application should be used instead of
+ * the thread of the storage itself (set deleteReportsInterval to -1 and deleteReportsOnStore to false on the storage).
+ * Inject the storage bean (the transactional proxy) so the delete queries are executed in their own transaction.
+ * 
+ * &lt;task:scheduled ref="deleteReportsTask" method="deleteReports" fixed-delay="#{60 * 1000}" /&gt;
+ * 
+ * @see DatabaseStorage#deleteReports()
+ * @author Jaco de Groot
+ */
+public class DeleteReportsTask {
+	private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+	private @Setter DatabaseStorage storage;
+
+	public void deleteReports() {
+		try {
+			storage.deleteReports();
+		} catch(Throwable throwable) {
+			log.error("Caught unexpected throwable deleting reports", throwable);
+		}
+	}
+
+}
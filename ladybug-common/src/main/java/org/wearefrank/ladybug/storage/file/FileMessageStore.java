@@ -0,0 +1,247 @@
+/*
+   Copyright 2026 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.wearefrank.ladybug.storage.file;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandles;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.Setter;
+import org.wearefrank.ladybug.MessageStore;
+import org.wearefrank.ladybug.storage.StorageException;
+import org.wearefrank.ladybug.util.Export;
+
+/**
+ * {@link MessageStore} that writes every message to a GZIP compressed file in a subdirectory of the configured
+ * directory. The name of the file is the SHA-256 hash of the message so identical messages (within a report and across
+ * reports, e.g. stub messages) are written to disk only once. The number of times a message has been stored is counted
+ * and the file is deleted when the message has been released as many times.
+ *
+ * Every instance writes to its own instance directory in the configured directory, hence more than one instance (in
+ * the same or in another JVM) can be configured with the same directory. The instance directory is locked while the
+ * instance is in use and deleted on {@link #close()}. Keys are only referenced by checkpoints in memory (storages that
+ * write reports to file or database store the message itself), hence instance directories left behind by a previous
+ * run that didn't close the instance (e.g. a JVM crash) are deleted on {@link #init()}.
+ *
+ * @author Jaco de Groot
+ */
+public class FileMessageStore implements MessageStore {
+	private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+	private static final String INSTANCE_DIRECTORY_PREFIX = "instance-";
+	private static final String LOCK_FILE = "instance.lock";
+	private static final String FILE_EXTENSION = ".gz";
+	private static final String TEMP_FILE_EXTENSION = ".tmp";
+	private @Setter @Getter String directory;
+	private @Setter @Getter int minMessageLength = 100000;
+	private File root;
+	private FileChannel lockChannel;
+	private FileLock lock;
+	private Map<String, Integer> referenceCounts = new HashMap<String, Integer>();
+
+	@PostConstruct
+	public void init() throws StorageException {
+		File parent = new File(directory);
+		if (!parent.isDirectory() && !parent.mkdirs() && !parent.isDirectory()) {
+			Export.logAndThrow(log, "Could not create directory '" + parent.getAbsolutePath() + "'");
+		}
+		deleteUnlockedInstanceDirectories(parent);
+		try {
+			root = Files.createTempDirectory(parent.toPath(), INSTANCE_DIRECTORY_PREFIX).toFile();
+			lockChannel = FileChannel.open(new File(root, LOCK_FILE).toPath(), StandardOpenOption.CREATE,
+					StandardOpenOption.WRITE);
+			lock = lockChannel.lock();
+		} catch (IOException e) {
+			Export.logAndThrow(log, e, "IOException creating instance directory in '" + parent.getAbsolutePath() + "'");
+		}
+	}
+
+	/**
+	 * Delete the instance directory including all message files
+	 */
+	@PreDestroy
+	public synchronized void close() {
+		if (root != null) {
+			synchronized (referenceCounts) {
+				referenceCounts.clear();
+			}
+			try {
+				lock.release();
+				lockChannel.close();
+			} catch (IOException e) {
+				log.warn("IOException releasing lock on instance directory '" + root.getAbsolutePath() + "'", e);
+			}
+			deleteInstanceDirectory(root);
+			root = null;
+		}
+	}
+
+	@Override
+	public String store(String message) throws StorageException {
+		if (root == null) {
+			Export.logAndThrow(log, "Message store not initialized or already closed");
+		}
+		byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+		String key = null;
+		try {
+			key = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+		} catch (NoSuchAlgorithmException e) {
+			Export.logAndThrow(log, e, "Could not calculate hash of message");
+		}
+		File file = getFile(key);
+		// Increase the reference count before checking whether the file exists, release() will only delete the file
+		// (while holding the lock on referenceCounts) when the count drops to zero
+		synchronized (referenceCounts) {
+			referenceCounts.merge(key, 1, Integer::sum);
+		}
+		if (!file.exists()) {
+			File subdirectory = file.getParentFile();
+			File tempFile = null;
+			try {
+				if (!subdirectory.isDirectory() && !subdirectory.mkdirs() && !subdirectory.isDirectory()) {
+					Export.logAndThrow(log, "Could not create directory '" + subdirectory.getAbsolutePath() + "'");
+				}
+				// Write to a temporary file first so other threads will never read an incomplete file
+				tempFile = File.createTempFile(key, TEMP_FILE_EXTENSION, subdirectory);
+				try (OutputStream outputStream = new GZIPOutputStream(new FileOutputStream(tempFile))) {
+					outputStream.write(bytes);
+				}
+				Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+			} catch (FileAlreadyExistsException e) {
+				// Same message stored by another thread in the mean time
+				tempFile.delete();
+			} catch (IOException e) {
+				if (tempFile != null) {
+					tempFile.delete();
+				}
+				release(key);
+				Export.logAndThrow(log, e, "IOException writing message to file '" + file.getAbsolutePath() + "'");
+			} catch (StorageException e) {
+				release(key);
+				throw e;
+			}
+		}
+		return key;
+	}
+
+	@Override
+	public String getMessage(String key) throws StorageException {
+		File file = getFile(key);
+		try (InputStream inputStream = new GZIPInputStream(new FileInputStream(file))) {
+			return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			Export.logAndThrow(log, e, "IOException reading message from file '" + file.getAbsolutePath() + "'");
+			return null;
+		}
+	}
+
+	@Override
+	public void release(String key) {
+		synchronized (referenceCounts) {
+			Integer referenceCount = referenceCounts.get(key);
+			if (referenceCount != null) {
+				if (referenceCount > 1) {
+					referenceCounts.put(key, referenceCount - 1);
+				} else {
+					referenceCounts.remove(key);
+					File file = getFile(key);
+					if (file.exists() && !file.delete()) {
+						log.warn("Could not delete message file '" + file.getAbsolutePath() + "'");
+					}
+				}
+			}
+		}
+	}
+
+	private File getFile(String key) {
+		return new File(root, key.substring(0, 2) + File.separator + key + FILE_EXTENSION);
+	}
+
+	private static void deleteUnlockedInstanceDirectories(File parent) {
+		File[] instanceDirectories = parent.listFiles(file -> file.isDirectory()
+				&& file.getName().startsWith(INSTANCE_DIRECTORY_PREFIX));
+		if (instanceDirectories != null) {
+			for (File instanceDirectory : instanceDirectories) {
+				File lockFile = new File(instanceDirectory, LOCK_FILE);
+				if (lockFile.exists()) {
+					boolean unlocked = false;
+					try (FileChannel channel = FileChannel.open(lockFile.toPath(), StandardOpenOption.WRITE)) {
+						FileLock fileLock = channel.tryLock();
+						if (fileLock != null) {
+							unlocked = true;
+							fileLock.release();
+						}
+					} catch (OverlappingFileLockException e) {
+						// Locked by another instance in this JVM
+					} catch (IOException e) {
+						log.debug("Could not lock instance directory '" + instanceDirectory.getAbsolutePath() + "'", e);
+					}
+					if (unlocked) {
+						log.debug("Delete instance directory of previous run '" + instanceDirectory.getAbsolutePath()
+								+ "'");
+						deleteInstanceDirectory(instanceDirectory);
+					}
+				}
+			}
+		}
+	}
+
+	private static void deleteInstanceDirectory(File instanceDirectory) {
+		File[] subdirectories = instanceDirectory.listFiles(file -> file.isDirectory()
+				&& file.getName().matches("[0-9a-f]{2}"));
+		if (subdirectories != null) {
+			for (File subdirectory : subdirectories) {
+				File[] files = subdirectory.listFiles(file -> file.getName().endsWith(FILE_EXTENSION)
+						|| file.getName().endsWith(TEMP_FILE_EXTENSION));
+				if (files != null) {
+					for (File file : files) {
+						file.delete();
+					}
+				}
+				subdirectory.delete();
+			}
+		}
+		new File(instanceDirectory, LOCK_FILE).delete();
+		if (!instanceDirectory.delete()) {
+			log.warn("Could not delete instance directory '" + instanceDirectory.getAbsolutePath() + "'");
+		}
+	}
+
+}
@@ -0,0 +1,490 @@
+/*
+   Copyright 2026 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.wearefrank.ladybug.storage.file;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import org.wearefrank.ladybug.MetadataExtractor;
+import org.wearefrank.ladybug.storage.InvalidCursorException;
+import org.wearefrank.ladybug.storage.MetadataPage;
+import org.wearefrank.ladybug.storage.StorageException;
+import org.wearefrank.ladybug.util.SearchPredicate;
+
+/**
+ * Columnar copy of the metadata cache of {@link Reader}. Every metadata name available in all metadata records is
+ * stored in a column: Integer values (e.g. storageId and numberOfCheckpoints) in an int[], Long values (e.g. endTime and
+ * estimatedMemoryUsage) in a long[] and String values (e.g. name, correlationId and status) dictionary encoded in an
+ * int[] with a code per distinct value. Other metadata names (e.g. metadata that still needs to be extracted from the
+ * report) are not indexed, in which case {@link Reader} will fall back to the metadata records.
+ *
+ * The index is immutable. It is built again by {@link Reader} when the metadata files have been changed. Rows are in
+ * the same order as the metadata records (latest report first). For {@link #getMetadataPage(int, String, String,
+ * boolean, List, List, int, MetadataExtractor)} the rows are sorted once per sort metadata name (the order is kept
+ * until the index is built again).
+ *
+ * @author Jaco de Groot
+ */
+public class MetadataIndex {
+	private final int size;
+	private final Map<String, Column> columns = new HashMap<String, Column>();
+	private final Map<String, int[]> sortedRows = new ConcurrentHashMap<String, int[]>();
+
+	private MetadataIndex(int size) {
+		this.size = size;
+	}
+
+	/**
+	 * @param metadata  the metadata records (a Map per report)
+	 * @return          a columnar index of the metadata records
+	 */
+	protected static MetadataIndex build(List metadata) {
+		MetadataIndex metadataIndex = new MetadataIndex(metadata.size());
+		if (metadata.size() > 0) {
+			List<String> metadataNames = new ArrayList<String>();
+			Map firstMetadataRecord = (Map)metadata.get(0);
+			synchronized (firstMetadataRecord) {
+				metadataNames.addAll(firstMetadataRecord.keySet());
+			}
+			for (String metadataName : metadataNames) {
+				Column column = buildColumn(metadata, metadataName);
+				if (column != null) {
+					metadataIndex.columns.put(metadataName, column);
+				}
+			}
+		}
+		return metadataIndex;
+	}
+
+	private static Column buildColumn(List metadata, String metadataName) {
+		Object[] values = new Object[metadata.size()];
+		boolean integers = true;
+		boolean longs = true;
+		boolean strings = true;
+		for (int i = 0; i < values.length; i++) {
+			Map metadataRecord = (Map)metadata.get(i);
+			synchronized (metadataRecord) {
+				if (!metadataRecord.containsKey(metadataName)) {
+					return null;
+				}
+				values[i] = metadataRecord.get(metadataName);
+			}
+			integers = integers && values[i] instanceof Integer;
+			longs = longs && values[i] instanceof Long;
+			strings = strings && (values[i] == null || values[i] instanceof String);
+			if (!integers && !longs && !strings) {
+				return null;
+			}
+		}
+		if (integers) {
+			int[] ints = new int[values.length];
+			for (int i = 0; i < values.length; i++) {
+				ints[i] = (Integer)values[i];
+			}
+			return new IntColumn(ints);
+		} else if (longs) {
+			long[] longValues = new long[values.length];
+			for (int i = 0; i < values.length; i++) {
+				longValues[i] = (Long)values[i];
+			}
+			return new LongColumn(longValues);
+		} else {
+			int[] codes = new int[values.length];
+			List<String> dictionary = new ArrayList<String>();
+			Map<String, Integer> dictionaryCodes = new HashMap<String, Integer>();
+			for (int i = 0; i < values.length; i++) {
+				if (values[i] == null) {
+					codes[i] = DictionaryColumn.NULL_CODE;
+				} else {
+					String value = (String)values[i];
+					Integer code = dictionaryCodes.get(value);
+					if (code == null) {
+						code = dictionary.size();
+						dictionary.add(value);
+						dictionaryCodes.put(value, code);
+					}
+					codes[i] = code;
+				}
+			}
+			return new DictionaryColumn(codes, dictionary.toArray(new String[dictionary.size()]));
+		}
+	}
+
+	protected int size() {
+		return size;
+	}
+
+	protected boolean isIndexed(List metadataNames) {
+		for (Object metadataName : metadataNames) {
+			if (!columns.containsKey(metadataName)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Same as {@link Reader#getMetadata(int, List, List, int, long, String)} for metadata names that are all indexed
+	 * (see {@link #isIndexed(List)}). Search predicates are evaluated once per distinct value for String columns and
+	 * per row on the primitive values for Integer and Long columns (unless the metadata extractor converts them to
+	 * something else than their decimal representation). Only the rows in the result are converted to metadata
+	 * records.
+	 */
+	protected List getMetadata(int maxNumberOfRecords, List metadataNames, List<SearchPredicate> searchPredicates,
+			int metadataValueType, MetadataExtractor metadataExtractor) {
+		int numberOfRows = size;
+		if (maxNumberOfRecords != -1 && maxNumberOfRecords < numberOfRows) {
+			numberOfRows = maxNumberOfRecords;
+		}
+		List<RowMatcher> rowMatchers = getRowMatchers(metadataNames, searchPredicates, metadataValueType,
+				metadataExtractor);
+		Column[] resultColumns = getColumns(metadataNames);
+		List result = new ArrayList();
+		for (int row = 0; row < numberOfRows; row++) {
+			if (matches(rowMatchers, row)) {
+				result.add(getRecord(row, metadataNames, resultColumns, metadataValueType, metadataExtractor));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Same as {@link MetadataPage#getPage(org.wearefrank.ladybug.storage.Storage, int, String, String, boolean, List,
+	 * List, int)} for metadata names (including the sort metadata name and storageId) that are all indexed (see
+	 * {@link #isIndexed(List)}). The first row after the cursor is found with a binary search on the sorted rows and
+	 * only the rows of the page (and the row needed to determine whether there is a next page) are matched against
+	 * the search predicates. Like the cursor of {@link MetadataPage#getPage(org.wearefrank.ladybug.storage.Storage, int,
+	 * String, String, boolean, List, List, int)} the cursor contains the values converted to the metadata value type so
+	 * the same cursor can be used for both (e.g. when the metadata names are not indexed anymore after the index has
+	 * been built again).
+	 */
+	protected MetadataPage getMetadataPage(int pageSize, String cursor, String sortMetadataName, boolean descending,
+			List metadataNames, List<SearchPredicate> searchPredicates, int metadataValueType,
+			MetadataExtractor metadataExtractor) throws StorageException {
+		if (pageSize == 0) {
+			return new MetadataPage(new ArrayList<List<Object>>(), null);
+		}
+		// Records with the same sort value are ordered on the storageId (also when it isn't one of the metadata names)
+		String tieBreakerMetadataName = "storageId";
+		if (sortMetadataName == null) {
+			sortMetadataName = tieBreakerMetadataName;
+		}
+		Column sortColumn = columns.get(sortMetadataName);
+		Column tieBreakerColumn = columns.get(tieBreakerMetadataName);
+		int[] rows = getSortedRows(sortMetadataName, tieBreakerMetadataName);
+		int position = descending ? rows.length - 1 : 0;
+		if (cursor != null) {
+			String[] cursorValues = MetadataPage.decodeCursor(cursor);
+			Object cursorStorageId = toIndexValue(tieBreakerMetadataName, cursorValues[0], cursor, metadataValueType,
+					metadataExtractor);
+			Object cursorSortValue = toIndexValue(sortMetadataName, cursorValues[1], cursor, metadataValueType,
+					metadataExtractor);
+			// Find the number of rows before the cursor (ascending: rows lower than or equal to the cursor, descending:
+			// rows lower than the cursor)
+			int low = 0;
+			int high = rows.length;
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				int result = MetadataPage.compareSortValues(sortColumn.getValue(rows[middle]), cursorSortValue);
+				if (result == 0) {
+					result = MetadataPage.compareSortValues(tieBreakerColumn.getValue(rows[middle]), cursorStorageId);
+				}
+				if (result < 0 || (result == 0 && !descending)) {
+					low = middle + 1;
+				} else {
+					high = middle;
+				}
+			}
+			position = descending ? low - 1 : low;
+		}
+		List<RowMatcher> rowMatchers = getRowMatchers(metadataNames, searchPredicates, metadataValueType,
+				metadataExtractor);
+		Column[] resultColumns = getColumns(metadataNames);
+		List<List<Object>> records = new ArrayList<List<Object>>();
+		String nextCursor = null;
+		int lastRow = -1;
+		for (int i = position; i >= 0 && i < rows.length; i = descending ? i - 1 : i + 1) {
+			int row = rows[i];
+			if (matches(rowMatchers, row)) {
+				if (records.size() == pageSize) {
+					// At least one more record available
+					nextCursor = MetadataPage.encodeCursor(
+							metadataExtractor.fromObjectToMetadataValueType(tieBreakerMetadataName,
+									tieBreakerColumn.getValue(lastRow), metadataValueType),
+							metadataExtractor.fromObjectToMetadataValueType(sortMetadataName,
+									sortColumn.getValue(lastRow), metadataValueType));
+					break;
+				}
+				records.add(getRecord(row, metadataNames, resultColumns, metadataValueType, metadataExtractor));
+				lastRow = row;
+			}
+		}
+		return new MetadataPage(records, nextCursor);
+	}
+
+	/**
+	 * Convert a value of a cursor (converted to the metadata value type when the cursor was created) back to the
+	 * value as stored in the index
+	 */
+	private static Object toIndexValue(String metadataName, String cursorValue, String cursor, int metadataValueType,
+			MetadataExtractor metadataExtractor) throws InvalidCursorException {
+		if (cursorValue == null) {
+			return null;
+		}
+		try {
+			if (metadataValueType == MetadataExtractor.VALUE_TYPE_GUI) {
+				return metadataExtractor.fromGUIToObject(metadataName, cursorValue);
+			} else {
+				return metadataExtractor.fromStringtoObject(metadataName, cursorValue);
+			}
+		} catch(RuntimeException e) {
+			// E.g. NumberFormatException or DateTimeParseException
+			throw new InvalidCursorException(cursor, e);
+		}
+	}
+
+	/**
+	 * @return row numbers in ascending order of the sort column (null first) and the tie breaker column
+	 */
+	private int[] getSortedRows(String sortMetadataName, String tieBreakerMetadataName) {
+		String key = sortMetadataName + "\n" + tieBreakerMetadataName;
+		int[] rows = sortedRows.get(key);
+		if (rows == null) {
+			Column sortColumn = columns.get(sortMetadataName);
+			Column tieBreakerColumn = columns.get(tieBreakerMetadataName);
+			Comparator<Integer> comparator = (row1, row2) -> {
+				int result = sortColumn.compare(row1, row2);
+				if (result == 0) {
+					result = tieBreakerColumn.compare(row1, row2);
+				}
+				return result;
+			};
+			rows = IntStream.range(0, size).boxed().sorted(comparator).mapToInt(Integer::intValue).toArray();
+			// Another thread might have sorted the rows in the meantime which will give the same result
+			sortedRows.put(key, rows);
+		}
+		return rows;
+	}
+
+	private List<RowMatcher> getRowMatchers(List metadataNames, List<SearchPredicate> searchPredicates,
+			int metadataValueType, MetadataExtractor metadataExtractor) {
+		List<RowMatcher> rowMatchers = new ArrayList<RowMatcher>();
+		if (searchPredicates != null) {
+			for (int i = 0; i < searchPredicates.size(); i++) {
+				SearchPredicate searchPredicate = searchPredicates.get(i);
+				if (!searchPredicate.isMatchAll()) {
+					String metadataName = (String)metadataNames.get(i);
+					RowMatcher rowMatcher = columns.get(metadataName).getRowMatcher(metadataName, searchPredicate,
+							metadataValueType, metadataExtractor);
+					if (rowMatcher instanceof DictionaryRowMatcher) {
+						// Cheapest first
+						rowMatchers.add(0, rowMatcher);
+					} else {
+						rowMatchers.add(rowMatcher);
+					}
+				}
+			}
+		}
+		return rowMatchers;
+	}
+
+	private static boolean matches(List<RowMatcher> rowMatchers, int row) {
+		for (int i = 0; i < rowMatchers.size(); i++) {
+			if (!rowMatchers.get(i).matches(row)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private Column[] getColumns(List metadataNames) {
+		Column[] result = new Column[metadataNames.size()];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = columns.get(metadataNames.get(i));
+		}
+		return result;
+	}
+
+	private static List<Object> getRecord(int row, List metadataNames, Column[] resultColumns, int metadataValueType,
+			MetadataExtractor metadataExtractor) {
+		List<Object> record = new ArrayList<Object>(resultColumns.length);
+		for (int i = 0; i < resultColumns.length; i++) {
+			record.add(metadataExtractor.fromObjectToMetadataValueType((String)metadataNames.get(i),
+					resultColumns[i].getValue(row), metadataValueType));
+		}
+		return record;
+	}
+
+	/**
+	 * @return whether the metadata extractor converts a value of an Integer or Long column to its decimal representation
+	 *         (or doesn't convert it) so search predicates can be evaluated on the primitive values
+	 */
+	private static boolean isDecimal(String metadataName, Object value, int metadataValueType,
+			MetadataExtractor metadataExtractor) {
+		Object convertedValue = metadataExtractor.fromObjectToMetadataValueType(metadataName, value, metadataValueType);
+		return value.equals(convertedValue) || value.toString().equals(convertedValue);
+	}
+
+	private interface RowMatcher {
+		boolean matches(int row);
+	}
+
+	private static class DictionaryRowMatcher implements RowMatcher {
+		private final int[] codes;
+		private final boolean[] codeMatches;
+		private final boolean nullMatches;
+
+		DictionaryRowMatcher(int[] codes, boolean[] codeMatches, boolean nullMatches) {
+			this.codes = codes;
+			this.codeMatches = codeMatches;
+			this.nullMatches = nullMatches;
+		}
+
+		@Override
+		public boolean matches(int row) {
+			int code = codes[row];
+			return code == DictionaryColumn.NULL_CODE ? nullMatches : codeMatches[code];
+		}
+	}
+
+	private interface Column {
+		Object getValue(int row);
+		RowMatcher getRowMatcher(String metadataName, SearchPredicate searchPredicate, int metadataValueType,
+				MetadataExtractor metadataExtractor);
+		// Same order as MetadataPage.compareSortValues()
+		int compare(int row1, int row2);
+	}
+
+	private static class IntColumn implements Column {
+		private final int[] values;
+
+		IntColumn(int[] values) {
+			this.values = values;
+		}
+
+		@Override
+		public Object getValue(int row) {
+			return values[row];
+		}
+
+		@Override
+		public RowMatcher getRowMatcher(String metadataName, SearchPredicate searchPredicate, int metadataValueType,
+				MetadataExtractor metadataExtractor) {
+			if (values.length == 0 || isDecimal(metadataName, values[0], metadataValueType, metadataExtractor)) {
+				return row -> searchPredicate.matches(values[row]);
+			}
+			return row -> searchPredicate.matches(
+					metadataExtractor.fromObjectToMetadataValueType(metadataName, values[row], metadataValueType));
+		}
+
+		@Override
+		public int compare(int row1, int row2) {
+			return Integer.compare(values[row1], values[row2]);
+		}
+	}
+
+	private static class LongColumn implements Column {
+		private final long[] values;
+
+		LongColumn(long[] values) {
+			this.values = values;
+		}
+
+		@Override
+		public Object getValue(int row) {
+			return values[row];
+		}
+
+		@Override
+		public RowMatcher getRowMatcher(String metadataName, SearchPredicate searchPredicate, int metadataValueType,
+				MetadataExtractor metadataExtractor) {
+			if (values.length == 0 || isDecimal(metadataName, values[0], metadataValueType, metadataExtractor)) {
+				return row -> searchPredicate.matches(values[row]);
+			}
+			return row -> searchPredicate.matches(
+					metadataExtractor.fromObjectToMetadataValueType(metadataName, values[row], metadataValueType));
+		}
+
+		@Override
+		public int compare(int row1, int row2) {
+			return Long.compare(values[row1], values[row2]);
+		}
+	}
+
+	private static class DictionaryColumn implements Column {
+		static final int NULL_CODE = -1;
+		private final int[] codes;
+		private final String[] dictionary;
+		// Rank of every code in the sort order of the dictionary values, calculated when needed (calculating it more than
+		// once in different threads will give the same result)
+		private volatile int[] ranks;
+
+		DictionaryColumn(int[] codes, String[] dictionary) {
+			this.codes = codes;
+			this.dictionary = dictionary;
+		}
+
+		@Override
+		public Object getValue(int row) {
+			int code = codes[row];
+			return code == NULL_CODE ? null : dictionary[code];
+		}
+
+		@Override
+		public RowMatcher getRowMatcher(String metadataName, SearchPredicate searchPredicate, int metadataValueType,
+				MetadataExtractor metadataExtractor) {
+			boolean[] codeMatches = new boolean[dictionary.length];
+			for (int i = 0; i < dictionary.length; i++) {
+				codeMatches[i] = searchPredicate.matches(
+						metadataExtractor.fromObjectToMetadataValueType(metadataName, dictionary[i], metadataValueType));
+			}
+			boolean nullMatches = searchPredicate.matches(
+					metadataExtractor.fromObjectToMetadataValueType(metadataName, null, metadataValueType));
+			return new DictionaryRowMatcher(codes, codeMatches, nullMatches);
+		}
+
+		@Override
+		public int compare(int row1, int row2) {
+			int[] ranks = this.ranks;
+			if (ranks == null) {
+				ranks = new int[dictionary.length];
+				int[] sortedCodes = IntStream.range(0, dictionary.length).boxed()
+						.sorted((code1, code2) -> MetadataPage.compareSortValues(dictionary[code1], dictionary[code2]))
+						.mapToInt(Integer::intValue).toArray();
+				for (int i = 0; i < sortedCodes.length; i++) {
+					// Same rank for values that are equal as sort value (e.g. 1 and 01)
+					if (i > 0 && MetadataPage.compareSortValues(dictionary[sortedCodes[i - 1]],
+							dictionary[sortedCodes[i]]) == 0) {
+						ranks[sortedCodes[i]] = ranks[sortedCodes[i - 1]];
+					} else {
+						ranks[sortedCodes[i]] = i;
+					}
+				}
+				this.ranks = ranks;
+			}
+			// Null first
+			int code1 = codes[row1];
+			int code2 = codes[row2];
+			return Integer.compare(code1 == NULL_CODE ? -1 : ranks[code1], code2 == NULL_CODE ? -1 : ranks[code2]);
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
-   Copyright 2020-2025 WeAreFrank!, 2018-2019 Nationale-Nederlanden
+   Copyright 2020-2026 WeAreFrank!, 2018-2019 Nationale-Nederlanden
 
    Licensed under the Apache License, Version 2.0 (the "License");
    you may not use this file except in compliance with the License.
@@ -22,20 +22,32 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.LineNumberReader;
 import java.lang.invoke.MethodHandles;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.wearefrank.ladybug.MetadataExtractor;
 import org.wearefrank.ladybug.Report;
+import org.wearefrank.ladybug.storage.MetadataPage;
 import org.wearefrank.ladybug.storage.StorageException;
 import org.wearefrank.ladybug.util.CSVReader;
 import org.wearefrank.ladybug.util.Import;
+import org.wearefrank.ladybug.util.SearchPredicate;
 import org.wearefrank.ladybug.util.SearchUtil;
 
 /**
@@ -52,7 +64,14 @@ public class Reader {
 	private long metadataFileLastModifiedByOthers = Long.MIN_VALUE;
 	private List metadataCacheReadOnly = new ArrayList();
 	private List metadataCacheReadOnlyPerFile = new ArrayList();
+	private MetadataIndex metadataIndex = MetadataIndex.build(metadataCacheReadOnly);
 	private MetadataExtractor metadataExtractor;
+	private ReportIndex reportIndex;
+	private ExecutorService decodeExecutorService;
+	private int numberOfRecords = 0;
+	// Key used to mark a metadata record as tombstone (a record with storageSize 0 without report data that marks the
+	// report with the same storageId as deleted, see Writer.storeTombstone())
+	private static final String TOMBSTONE = "tombstone";
 	private static final List METADATA_NAMES_STORAGE_ID = new ArrayList();
 	static {
 		METADATA_NAMES_STORAGE_ID.add("storageId");
@@ -74,11 +93,57 @@ public class Reader {
 		this.metadataExtractor = metadataExtractor;
 	}
 
+	protected void setReportIndex(ReportIndex reportIndex) {
+		this.reportIndex = reportIndex;
+	}
+
 	protected void init() {
 		reportsFile = new File(reportsFilename);
 		metadataFile = new File(metadataFilename);
 	}
 
+	/**
+	 * Read the index files and rebuild the index files that are missing or inconsistent with the reports files
+	 *
+	 * @param synchronizeRotate ...
+	 * @throws StorageException ...
+	 */
+	protected void initReportIndex(String synchronizeRotate) throws StorageException {
+		synchronized(synchronizeRotate) {
+			for (int i = maximumBackupIndex; i >= 0; i--) {
+				File file = getMetadataFile(i);
+				if (file.exists()) {
+					if (!reportIndex.read(i, getReportsFile(i).length())) {
+						log.debug("Rebuild index file '" + reportIndex.getIndexFile(i).getAbsolutePath() + "'");
+						List<ReportLocation> reportLocations = new ArrayList<ReportLocation>();
+						getMetadataOrReportLocationFromFile(null, file, null, null, null, reportLocations);
+						reportIndex.write(i, reportLocations);
+					}
+				} else if (reportIndex.getIndexFile(i).exists()) {
+					if (!reportIndex.getIndexFile(i).delete()) {
+						log.warn("Could not delete index file '" + reportIndex.getIndexFile(i).getAbsolutePath() + "'");
+					}
+				}
+			}
+		}
+	}
+
+	private File getMetadataFile(int fileIndex) {
+		if (fileIndex == 0) {
+			return metadataFile;
+		} else {
+			return new File(metadataFilename + "." + fileIndex);
+		}
+	}
+
+	private File getReportsFile(int fileIndex) {
+		if (fileIndex == 0) {
+			return reportsFile;
+		} else {
+			return new File(reportsFilename + "." + fileIndex);
+		}
+	}
+
 	protected List<Integer> getStorageIds(long metadataFileModifiedCounter, String synchronizeRotate)
 			throws StorageException {
 		List<Integer> result = new ArrayList<Integer>();
@@ -95,42 +160,95 @@ public class Reader {
 	protected List getMetadata(int maxNumberOfRecords, List metadataNames, List searchValues, int metadataValueType,
 			long metadataFileModifiedCounter, String synchronizeRotate) throws StorageException {
 		List metadataReadOnly;
+		MetadataIndex metadataIndexReadOnly;
 		synchronized(metadataCacheReadOnly) {
-			synchronized(synchronizeRotate) {
-				// Check whether metadata file was changed by the Writer class. In case the metadata file was edited by
-				// hand it should also be detected. The last modified time of a file isn't sufficient to detect changes
-				// as it isn't updated until the file output stream is closed (at least with WSAD on Windows XP) and
-				// files can be changed more than once within a millisecond (testClearStorage() failed from time to time
-				// in CI/CD when metadataFileLastModifiedByWriter was used instead of metadataFileModifiedCounter).
-				if (metadataFileModifiedCounter != this.metadataFileModifiedCounter
-						|| metadataFile.lastModified() != this.metadataFileLastModifiedByOthers) {
-					this.metadataFileModifiedCounter = metadataFileModifiedCounter;
-					metadataFileLastModifiedByOthers = metadataFile.lastModified();
-					List newMetadataCacheReadOnly = new ArrayList();
-					for (int i = maximumBackupIndex; i >= 0; i--) {
-						File file;
-						if (i == 0) {
-							file = metadataFile;
-						} else {
-							file = new File(metadataFilename + "." + i);
-						}
-						if (file.exists()) {
-							while (metadataCacheReadOnlyPerFile.size() <= i) {
-								metadataCacheReadOnlyPerFile.add(0, new ArrayList());
-							}
-							List oldMetadataCurrentFile = (List)metadataCacheReadOnlyPerFile.get(i);
-							List metadataCurrentFile = new ArrayList();
-							getMetadataOrReportLocationFromFile(metadataExtractor, file, oldMetadataCurrentFile,
-										metadataCurrentFile, null);
-							newMetadataCacheReadOnly.addAll(0, metadataCurrentFile);
-							metadataCacheReadOnlyPerFile.set(i, metadataCurrentFile);
+			updateMetadataCache(metadataFileModifiedCounter, synchronizeRotate);
+			metadataReadOnly = metadataCacheReadOnly;
+			metadataIndexReadOnly = metadataIndex;
+		}
+		List<SearchPredicate> searchPredicates = SearchUtil.compileAndValidate(searchValues);
+		if (metadataIndexReadOnly.isIndexed(metadataNames)) {
+			// All metadata available in the index, no need to extract metadata from reports
+			return metadataIndexReadOnly.getMetadata(maxNumberOfRecords, metadataNames, searchPredicates,
+					metadataValueType, metadataExtractor);
+		}
+		return getMetadata(metadataReadOnly, maxNumberOfRecords, metadataNames, searchValues, searchPredicates,
+				metadataValueType, synchronizeRotate);
+	}
+
+	/**
+	 * Use the metadata index when all metadata names (including the sort metadata name and storageId) are indexed,
+	 * otherwise see {@link MetadataPage#getPage(org.wearefrank.ladybug.storage.Storage, int, String, String, boolean,
+	 * List, List, int)}. Both use the same cursor representation as the index can be built again between two pages
+	 * with other metadata names being indexed (e.g. metadata extracted from the reports in the meantime).
+	 */
+	protected MetadataPage getMetadataPage(int pageSize, String cursor, String sortMetadataName, boolean descending,
+			List metadataNames, List searchValues, int metadataValueType, long metadataFileModifiedCounter,
+			String synchronizeRotate, org.wearefrank.ladybug.storage.Storage storage) throws StorageException {
+		MetadataIndex metadataIndexReadOnly;
+		synchronized(metadataCacheReadOnly) {
+			updateMetadataCache(metadataFileModifiedCounter, synchronizeRotate);
+			metadataIndexReadOnly = metadataIndex;
+		}
+		List names = new ArrayList(metadataNames);
+		names.add("storageId");
+		if (sortMetadataName != null) {
+			names.add(sortMetadataName);
+		}
+		if (metadataIndexReadOnly.isIndexed(names)) {
+			return metadataIndexReadOnly.getMetadataPage(pageSize, cursor, sortMetadataName, descending, metadataNames,
+					SearchUtil.compileAndValidate(searchValues), metadataValueType, metadataExtractor);
+		}
+		return MetadataPage.getPage(storage, pageSize, cursor, sortMetadataName, descending, metadataNames,
+				searchValues, metadataValueType);
+	}
+
+	/**
+	 * Read the metadata files again when they have been changed. Should be called while holding the lock on
+	 * metadataCacheReadOnly.
+	 */
+	private void updateMetadataCache(long metadataFileModifiedCounter, String synchronizeRotate)
+			throws StorageException {
+		synchronized(synchronizeRotate) {
+			// Check whether metadata file was changed by the Writer class. In case the metadata file was edited by
+			// hand it should also be detected. The last modified time of a file isn't sufficient to detect changes
+			// as it isn't updated until the file output stream is closed (at least with WSAD on Windows XP) and
+			// files can be changed more than once within a millisecond (testClearStorage() failed from time to time
+			// in CI/CD when metadataFileLastModifiedByWriter was used instead of metadataFileModifiedCounter).
+			if (metadataFileModifiedCounter != this.metadataFileModifiedCounter
+					|| metadataFile.lastModified() != this.metadataFileLastModifiedByOthers) {
+				this.metadataFileModifiedCounter = metadataFileModifiedCounter;
+				metadataFileLastModifiedByOthers = metadataFile.lastModified();
+				List newMetadataCacheReadOnly = new ArrayList();
+				for (int i = maximumBackupIndex; i >= 0; i--) {
+					File file;
+					if (i == 0) {
+						file = metadataFile;
+					} else {
+						file = new File(metadataFilename + "." + i);
+					}
+					if (file.exists()) {
+						while (metadataCacheReadOnlyPerFile.size() <= i) {
+							metadataCacheReadOnlyPerFile.add(0, new ArrayList());
 						}
+						List oldMetadataCurrentFile = (List)metadataCacheReadOnlyPerFile.get(i);
+						List metadataCurrentFile = new ArrayList();
+						getMetadataOrReportLocationFromFile(metadataExtractor, file, oldMetadataCurrentFile,
+									metadataCurrentFile, null, null);
+						newMetadataCacheReadOnly.addAll(0, metadataCurrentFile);
+						metadataCacheReadOnlyPerFile.set(i, metadataCurrentFile);
 					}
-					metadataCacheReadOnly = newMetadataCacheReadOnly;
 				}
+				numberOfRecords = newMetadataCacheReadOnly.size();
+				metadataCacheReadOnly = removeOldVersionsAndTombstones(newMetadataCacheReadOnly);
+				metadataIndex = MetadataIndex.build(metadataCacheReadOnly);
 			}
-			metadataReadOnly = metadataCacheReadOnly;
 		}
+	}
+
+	private List getMetadata(List metadataReadOnly, int maxNumberOfRecords, List metadataNames, List searchValues,
+			List<SearchPredicate> searchPredicates, int metadataValueType, String synchronizeRotate)
+			throws StorageException {
 		List result = new ArrayList();
 		for (int i = 0; i < metadataReadOnly.size() && (maxNumberOfRecords == -1 || i < maxNumberOfRecords); i++) {
 			Map metadataRecord = (Map)metadataReadOnly.get(i);
@@ -142,6 +260,7 @@ public class Reader {
 			if (searchValues != null) {
 				List partialValues = new ArrayList();
 				List partialSearchValues = new ArrayList();
+				List<SearchPredicate> partialSearchPredicates = new ArrayList<SearchPredicate>();
 				for (int j = 0; j < searchValues.size(); j++) {
 					String searchValue = (String)searchValues.get(j);
 					if (searchValue != null) {
@@ -153,11 +272,12 @@ public class Reader {
 												metadataRecord.get(metadataName), metadataValueType)
 										);
 								partialSearchValues.add(searchValue);
+								partialSearchPredicates.add(searchPredicates.get(j));
 							}
 						}
 					}
 				}
-				if (!SearchUtil.matches(partialValues, partialSearchValues)) {
+				if (!SearchUtil.matchesPredicates(partialValues, partialSearchPredicates)) {
 					exclude = true;
 					if (log.isTraceEnabled()) {
 						log.trace("Exclude report based on search values (" + partialSearchValues + ") and already available metadata (" + partialValues + ")");
@@ -204,7 +324,7 @@ public class Reader {
 					}
 					resultRecord.add(metadataExtractor.fromObjectToMetadataValueType(metadataName, metadataValue, metadataValueType));
 				}
-				if (resultRecord != null && SearchUtil.matches(resultRecord, searchValues)) {
+				if (resultRecord != null && SearchUtil.matchesPredicates(resultRecord, searchPredicates)) {
 					result.add(resultRecord);
 				}
 			}
@@ -212,6 +332,57 @@ public class Reader {
 		return result;
 	}
 
+	/**
+	 * When a report has been updated or deleted in append-only mode (see {@link TestStorage#setAppendOnly(boolean)}) the
+	 * metadata will contain more than one record for the same storageId. Only keep the latest version and remove
+	 * tombstones. The result is ordered by storageId (latest first) like it would be without updates and deletes.
+	 */
+	private List removeOldVersionsAndTombstones(List metadata) {
+		Set<Integer> storageIds = new HashSet<Integer>();
+		List result = new ArrayList();
+		boolean appended = false;
+		for (int i = 0; i < metadata.size(); i++) {
+			Map metadataRecord = (Map)metadata.get(i);
+			Integer storageId;
+			boolean tombstone;
+			synchronized (metadataRecord) {
+				storageId = (Integer)metadataRecord.get("storageId");
+				tombstone = metadataRecord.containsKey(TOMBSTONE);
+			}
+			if (storageIds.add(storageId)) {
+				if (tombstone) {
+					appended = true;
+				} else {
+					result.add(metadataRecord);
+				}
+			} else {
+				appended = true;
+			}
+		}
+		if (appended) {
+			result.sort((record1, record2) -> {
+				Integer storageId1;
+				Integer storageId2;
+				synchronized (record1) {
+					storageId1 = (Integer)((Map)record1).get("storageId");
+				}
+				synchronized (record2) {
+					storageId2 = (Integer)((Map)record2).get("storageId");
+				}
+				return storageId2.compareTo(storageId1);
+			});
+		}
+		return result;
+	}
+
+	/**
+	 * Number of metadata records (including old versions and tombstones) in the metadata files the last time the
+	 * metadata was read from file.
+	 */
+	protected int getNumberOfRecords() {
+		return numberOfRecords;
+	}
+
 	private Report getReportWithoutException(Integer storageId, String synchronizeRotate) {
 		Report report = null;
 		try {
@@ -226,47 +397,155 @@ public class Reader {
 
 	protected byte[] getReportBytes(Integer storageId, String synchronizeRotate) throws StorageException {
 		byte[] reportBytes = null;
-		ReportLocation reportLocation = null;
-		int foundInIndex = -1;
 		synchronized(synchronizeRotate) {
-			for (int i = maximumBackupIndex; i >= 0 && foundInIndex == -1; i--) {
-				File file;
-				if (i == 0) {
-					file = metadataFile;
-				} else {
-					file = new File(metadataFilename + "." + i);
+			ReportLocation reportLocation = reportIndex.get(storageId);
+			if (reportLocation != null) {
+				File file = getReportsFile(reportLocation.fileIndex);
+				if (file.exists() && reportLocation.offset + reportLocation.size <= file.length()) {
+					reportBytes = readReportBytes(storageId, file, reportLocation);
 				}
-				if (file.exists()) {
-					reportLocation = getMetadataOrReportLocationFromFile(null, file, null, null, storageId);
-					if (reportLocation != null) {
-						foundInIndex = i;
-						i = -1;
+			}
+			if (reportBytes == null) {
+				// Not found in index (e.g. metadata file edited by hand), locate report by reading the metadata files
+				// (search all files as the latest version of a report or a tombstone could be in a more recent file)
+				int foundInIndex = -1;
+				for (int i = maximumBackupIndex; i >= 0; i--) {
+					File file = getMetadataFile(i);
+					if (file.exists()) {
+						ReportLocation location = getMetadataOrReportLocationFromFile(null, file, null, null, storageId,
+								null);
+						if (location != null) {
+							reportLocation = location;
+							foundInIndex = i;
+						}
 					}
 				}
+				if (foundInIndex != -1 && reportLocation.size > 0) {
+					reportBytes = readReportBytes(storageId, getReportsFile(foundInIndex), reportLocation);
+				}
 			}
-			if (foundInIndex != -1 ) {
-				File file;
-				if (foundInIndex == 0) {
-					file = reportsFile;
+		}
+		return reportBytes;	
+	}
+
+	private byte[] readReportBytes(Integer storageId, File file, ReportLocation reportLocation)
+			throws StorageException {
+		byte[] reportBytes = null;
+		try (FileChannel fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			reportBytes = readReportBytes(storageId, file, fileChannel, reportLocation);
+		} catch(IOException e) {
+			Import.logAndThrow(log, e, "IOException reading report " + storageId + " from file " + file.getAbsolutePath());
+		}
+		return reportBytes;
+	}
+
+	private byte[] readReportBytes(Integer storageId, File file, FileChannel fileChannel, ReportLocation reportLocation)
+			throws IOException, StorageException {
+		byte[] reportBytes = new byte[reportLocation.size];
+		ByteBuffer byteBuffer = ByteBuffer.wrap(reportBytes);
+		long position = reportLocation.offset;
+		while (byteBuffer.hasRemaining()) {
+			int read = fileChannel.read(byteBuffer, position);
+			if (read == -1) {
+				Import.logAndThrow(log, "Unexpected end of file reading report " + storageId + " from file "
+						+ file.getAbsolutePath());
+			}
+			position = position + read;
+		}
+		return reportBytes;
+	}
+
+	/**
+	 * Get more than one report. The reports are read in the order in which they are stored in the reports files (for
+	 * sequential reads and to open every reports file only once) and decoded in parallel.
+	 *
+	 * @return the reports per storageId in the order of the specified ids, reports that could not be found are not
+	 *         present
+	 */
+	protected Map<Integer, Report> getReports(Collection<Integer> storageIds, String synchronizeRotate)
+			throws StorageException {
+		List<Integer> uniqueStorageIds = new ArrayList<Integer>(new LinkedHashSet<Integer>(storageIds));
+		Map<Integer, byte[]> reportsBytes = new HashMap<Integer, byte[]>();
+		synchronized(synchronizeRotate) {
+			List<ReportLocation> reportLocations = new ArrayList<ReportLocation>();
+			for (Integer storageId : uniqueStorageIds) {
+				ReportLocation reportLocation = reportIndex.get(storageId);
+				if (reportLocation == null) {
+					// Not found in index, let getReportBytes() locate the report by reading the metadata files
+					byte[] reportBytes = getReportBytes(storageId, synchronizeRotate);
+					if (reportBytes != null) {
+						reportsBytes.put(storageId, reportBytes);
+					}
 				} else {
-					file = new File(reportsFilename + "." + foundInIndex);
+					reportLocations.add(reportLocation);
+				}
+			}
+			reportLocations.sort(Comparator.comparingInt((ReportLocation reportLocation) -> reportLocation.fileIndex)
+					.thenComparingLong(reportLocation -> reportLocation.offset));
+			int fileIndex = -1;
+			File file = null;
+			FileChannel fileChannel = null;
+			try {
+				for (ReportLocation reportLocation : reportLocations) {
+					if (reportLocation.fileIndex != fileIndex) {
+						if (fileChannel != null) {
+							fileChannel.close();
+							fileChannel = null;
+						}
+						fileIndex = reportLocation.fileIndex;
+						file = getReportsFile(fileIndex);
+						if (file.exists()) {
+							fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+						}
+					}
+					byte[] reportBytes;
+					if (fileChannel != null && reportLocation.offset + reportLocation.size <= fileChannel.size()) {
+						reportBytes = readReportBytes(reportLocation.storageId, file, fileChannel, reportLocation);
+					} else {
+						reportBytes = getReportBytes(reportLocation.storageId, synchronizeRotate);
+					}
+					if (reportBytes != null) {
+						reportsBytes.put(reportLocation.storageId, reportBytes);
+					}
 				}
-				FileInputStream fileInputStream = null;
-				try {
-					fileInputStream = new FileInputStream(file);
-					fileInputStream.skip(reportLocation.offset);
-					reportBytes = new byte[reportLocation.size.intValue()];
-					fileInputStream.read(reportBytes, 0, reportBytes.length);
-				} catch(IOException e) {
-					Import.logAndThrow(log, e, "IOException reading report " + storageId + " from file " + file.getAbsolutePath());
-				} finally {
-					if (fileInputStream != null) {
-						Import.closeInputStream(fileInputStream, "closing file input stream after reading report " + storageId + " from file " + file.getAbsolutePath(), log);
+			} catch(IOException e) {
+				Import.logAndThrow(log, e, "IOException reading reports from file " + file.getAbsolutePath());
+			} finally {
+				if (fileChannel != null) {
+					try {
+						fileChannel.close();
+					} catch(IOException e) {
+						log.warn("IOException closing file " + file.getAbsolutePath(), e);
 					}
 				}
 			}
 		}
-		return reportBytes;	
+		Map<Integer, Report> decodedReports = Import.getReports(reportsBytes, getDecodeExecutorService(), log);
+		Map<Integer, Report> reports = new LinkedHashMap<Integer, Report>();
+		for (Integer storageId : uniqueStorageIds) {
+			Report report = decodedReports.get(storageId);
+			if (report != null) {
+				reports.put(storageId, report);
+			}
+		}
+		return reports;
+	}
+
+	private synchronized ExecutorService getDecodeExecutorService() {
+		if (decodeExecutorService == null) {
+			decodeExecutorService = Import.createDecodeExecutorService(reportsFile.getName());
+		}
+		return decodeExecutorService;
+	}
+
+	/**
+	 * Shut down the threads used to decode reports (they will be created again when needed)
+	 */
+	protected synchronized void close() {
+		if (decodeExecutorService != null) {
+			decodeExecutorService.shutdown();
+			decodeExecutorService = null;
+		}
 	}
 
 	protected Report getReport(Integer storageId, String synchronizeRotate) throws StorageException {
@@ -290,12 +569,15 @@ public class Reader {
 	 * retrieve this metadata not present in the file the records from the old
 	 * metadata are copied to the new metadata for reports already present in
 	 * the old metadata. Metadata for reports not already present in the old
-	 * metadata is read from the metadata file.
+	 * metadata is read from the metadata file. When reportLocations is not null the locations of all reports in the file
+	 * are added to it. When the location of a report is requested the location of the latest version of the report in
+	 * the file is returned (a location with size 0 when the report has been deleted).
 	 */
 	private ReportLocation getMetadataOrReportLocationFromFile(
 			MetadataExtractor metadataExtractor, File metadataFile,
-			List oldMetadata, List metadata, Integer storageIdOfReportToLocate
+			List oldMetadata, List metadata, Integer storageIdOfReportToLocate, List<ReportLocation> reportLocations
 			) throws StorageException {
+		ReportLocation locatedReport = null;
 		CSVReader csvReader = null;
 		FileInputStream fileInputStream = null;
 		InputStreamReader inputStreamReader = null;
@@ -335,15 +617,32 @@ public class Reader {
 							storageId = null;
 						}
 						if (storageId != null) {
-							if (storageIdOfReportToLocate != null) {
+							if (reportLocations != null) {
+								ReportLocation reportLocation = new ReportLocation();
+								reportLocation.storageId = storageId;
+								reportLocation.offset = offset;
+								reportLocation.size = storageSize;
+								reportLocations.add(reportLocation);
+								offset = offset + storageSize.intValue();
+							} else if (storageIdOfReportToLocate != null) {
 								if (storageIdOfReportToLocate.equals(storageId)) {
-									ReportLocation reportLocation = new ReportLocation();
-									reportLocation.offset = offset;
-									reportLocation.size = storageSize;
-									return reportLocation;
-								} else {
-									offset = offset + storageSize.intValue();
+									// Continue searching for a more recent version
+									locatedReport = new ReportLocation();
+									locatedReport.storageId = storageId;
+									locatedReport.offset = offset;
+									locatedReport.size = storageSize;
+								}
+								offset = offset + storageSize.intValue();
+							} else if (storageSize.intValue() == 0) {
+								// Tombstone (no need to reuse old metadata)
+								if (oldMetadataIndex > -1
+										&& storageId.equals(((Map)oldMetadata.get(oldMetadataIndex)).get("storageId"))) {
+									oldMetadataIndex--;
 								}
+								Map tombstoneRecord = new HashMap();
+								tombstoneRecord.put("storageId", storageId);
+								tombstoneRecord.put(TOMBSTONE, Boolean.TRUE);
+								metadata.add(0, tombstoneRecord);
 							} else {
 								Map oldMetadataRecord = null;
 								if (oldMetadataIndex > -1) {
@@ -402,17 +701,20 @@ public class Reader {
 				Import.closeInputStream(fileInputStream, "closing file input stream after reading metadata from file '" + metadataFile.getAbsolutePath() + "'", log);
 			}
 		}
-		return null;
+		return locatedReport;
 	}
 
 	protected void clear() throws StorageException {
 		metadataCacheReadOnly.clear();
 		metadataCacheReadOnlyPerFile.clear();
+		metadataIndex = MetadataIndex.build(metadataCacheReadOnly);
 	}
 
-	class ReportLocation {
+	static class ReportLocation {
+		protected int storageId;
+		protected int fileIndex;
 		protected long offset = 0;
-		protected Integer size;
+		protected int size;
 	}
 
 }
@@ -0,0 +1,227 @@
+/*
+   Copyright 2026 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.wearefrank.ladybug.storage.file;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.wearefrank.ladybug.storage.StorageException;
+import org.wearefrank.ladybug.storage.file.Reader.ReportLocation;
+import org.wearefrank.ladybug.util.Export;
+
+/**
+ * Index from storageId to the location of a report (file index, offset and size) shared by {@link Reader} and
+ * {@link Writer}. For every reports file an index file is written (reports filename + .idx, rotated together with the
+ * reports and metadata files) containing a fixed length record (storageId, offset and size) per report. The index
+ * files are read at startup and rebuilt from the metadata files when missing or inconsistent with the reports file.
+ *
+ * The file index of a report is derived from the number of rotations since the report was indexed so rotating files
+ * doesn't need to update the entries in memory.
+ *
+ * @author Jaco de Groot
+ */
+public class ReportIndex {
+	private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+	private static final int RECORD_LENGTH = 4 + 8 + 4;
+	private String indexFilename;
+	private int maximumBackupIndex;
+	private Map<Integer, Entry> entries = new ConcurrentHashMap<Integer, Entry>();
+	private volatile long rotations = 0;
+	private File indexFile;
+	private DataOutputStream indexOutputStream;
+
+	private static class Entry {
+		long rotations;
+		long offset;
+		int size;
+
+		Entry(long rotations, long offset, int size) {
+			this.rotations = rotations;
+			this.offset = offset;
+			this.size = size;
+		}
+	}
+
+	protected void setReportsFilename(String reportsFilename) {
+		this.indexFilename = reportsFilename + ".idx";
+	}
+
+	protected String getIndexFilename() {
+		return indexFilename;
+	}
+
+	protected void setMaximumBackupIndex(int maximumBackupIndex) {
+		this.maximumBackupIndex = maximumBackupIndex;
+	}
+
+	protected File getIndexFile(int fileIndex) {
+		if (fileIndex == 0) {
+			return new File(indexFilename);
+		} else {
+			return new File(indexFilename + "." + fileIndex);
+		}
+	}
+
+	protected ReportLocation get(Integer storageId) {
+		Entry entry = entries.get(storageId);
+		if (entry != null) {
+			long fileIndex = rotations - entry.rotations;
+			if (fileIndex <= maximumBackupIndex) {
+				ReportLocation reportLocation = new ReportLocation();
+				reportLocation.storageId = storageId;
+				reportLocation.fileIndex = (int)fileIndex;
+				reportLocation.offset = entry.offset;
+				reportLocation.size = entry.size;
+				return reportLocation;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Read the index file for the specified file index.
+	 *
+	 * @param fileIndex          index of the (rotated) reports file
+	 * @param reportsFileLength  length of the reports file used to check that the index file is complete
+	 * @return                   false when the index file doesn't exist or is inconsistent with the reports file
+	 */
+	protected boolean read(int fileIndex, long reportsFileLength) {
+		File file = getIndexFile(fileIndex);
+		if (!file.exists() || file.length() % RECORD_LENGTH != 0) {
+			return false;
+		}
+		// The last record for a storageId wins (a report can be followed by a new version or a tombstone)
+		Map<Integer, Entry> fileEntries = new HashMap<Integer, Entry>();
+		long end = 0;
+		try (DataInputStream inputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			for (long i = file.length() / RECORD_LENGTH; i > 0; i--) {
+				int storageId = inputStream.readInt();
+				long offset = inputStream.readLong();
+				int size = inputStream.readInt();
+				if (offset != end) {
+					return false;
+				}
+				end = offset + size;
+				fileEntries.put(storageId, new Entry(rotations - fileIndex, offset, size));
+			}
+		} catch(IOException e) {
+			log.warn("IOException reading index file '" + file.getAbsolutePath() + "', index will be rebuilt", e);
+			return false;
+		}
+		if (end != reportsFileLength) {
+			return false;
+		}
+		for (Map.Entry<Integer, Entry> fileEntry : fileEntries.entrySet()) {
+			put(fileEntry.getKey(), fileEntry.getValue());
+		}
+		return true;
+	}
+
+	/**
+	 * Rebuild the index file for the specified file index.
+	 *
+	 * @param fileIndex        index of the (rotated) reports file
+	 * @param reportLocations  the locations of all reports in the reports file
+	 * @throws StorageException ...
+	 */
+	protected void write(int fileIndex, List<ReportLocation> reportLocations) throws StorageException {
+		File file = getIndexFile(fileIndex);
+		try (DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+			for (ReportLocation reportLocation : reportLocations) {
+				outputStream.writeInt(reportLocation.storageId);
+				outputStream.writeLong(reportLocation.offset);
+				outputStream.writeInt(reportLocation.size);
+			}
+		} catch(IOException e) {
+			Export.logAndThrow(log, e, "IOException writing index file '" + file.getAbsolutePath() + "'");
+		}
+		for (ReportLocation reportLocation : reportLocations) {
+			put(reportLocation.storageId, new Entry(rotations - fileIndex, reportLocation.offset, reportLocation.size));
+		}
+	}
+
+	protected void open(boolean append) throws StorageException {
+		indexFile = getIndexFile(0);
+		try {
+			// Buffer one record so a record is written to file at once on flush
+			indexOutputStream = new DataOutputStream(
+					new BufferedOutputStream(new FileOutputStream(indexFile, append), RECORD_LENGTH));
+		} catch(IOException e) {
+			Export.logAndThrow(log, e, "IOException opening index file '" + indexFile.getAbsolutePath() + "'");
+		}
+	}
+
+	protected void add(Integer storageId, long offset, int size) throws StorageException {
+		try {
+			indexOutputStream.writeInt(storageId);
+			indexOutputStream.writeLong(offset);
+			indexOutputStream.writeInt(size);
+			indexOutputStream.flush();
+		} catch(IOException e) {
+			Export.logAndThrow(log, e, "IOException writing index to file '" + indexFile.getAbsolutePath() + "'");
+		}
+		put(storageId, new Entry(rotations, offset, size));
+	}
+
+	private void put(Integer storageId, Entry entry) {
+		if (entry.size == 0) {
+			// Tombstone (see Writer.storeTombstone())
+			entries.remove(storageId);
+		} else {
+			entries.put(storageId, entry);
+		}
+	}
+
+	protected void close() {
+		if (indexOutputStream != null) {
+			Export.closeOutputStream(indexOutputStream, "closing index file '" + indexFile.getAbsolutePath() + "'", log);
+			indexOutputStream = null;
+		}
+	}
+
+	/**
+	 * Should be called (while holding the rotate lock) after the index files have been rotated.
+	 */
+	protected void rotate() {
+		rotations++;
+		Iterator<Entry> iterator = entries.values().iterator();
+		while (iterator.hasNext()) {
+			if (rotations - iterator.next().rotations > maximumBackupIndex) {
+				iterator.remove();
+			}
+		}
+	}
+
+	protected void clear() {
+		entries.clear();
+	}
+
+}
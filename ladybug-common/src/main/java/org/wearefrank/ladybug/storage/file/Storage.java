@@ -1,5 +1,5 @@
 /*
-   Copyright 2020-2022, 2024-2025 WeAreFrank!, 2018 Nationale-Nederlanden
+   Copyright 2020-2022, 2024-2026 WeAreFrank!, 2018 Nationale-Nederlanden
 
    Licensed under the Apache License, Version 2.0 (the "License");
    you may not use this file except in compliance with the License.
@@ -15,7 +15,9 @@
 */
 package org.wearefrank.ladybug.storage.file;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
 
@@ -24,7 +26,9 @@ import jakarta.annotation.Resource;
 import jakarta.inject.Inject;
 import org.wearefrank.ladybug.MetadataExtractor;
 import org.wearefrank.ladybug.Report;
+import org.wearefrank.ladybug.storage.MetadataPage;
 import org.wearefrank.ladybug.storage.StorageException;
+import org.wearefrank.ladybug.util.ReportFormat;
 import org.wearefrank.ladybug.util.SearchUtil;
 import org.wearefrank.ladybug.storage.LogStorage;
 
@@ -47,6 +51,7 @@ public class Storage implements LogStorage {
 		reader.setMaximumBackupIndex(DEFAULT_MAXIMUM_BACKUP_INDEX);
 		writer.setMaximumFileSize(DEFAULT_MAXIMUM_FILE_SIZE);
 		writer.setMaximumBackupIndex(DEFAULT_MAXIMUM_BACKUP_INDEX);
+		reader.setReportIndex(writer.getReportIndex());
 	}
 
 	@Override
@@ -82,6 +87,20 @@ public class Storage implements LogStorage {
 		writer.setFreeSpaceMinimum(freeSpaceMinimum);
 	}
 
+	/**
+	 * Set the format in which reports are written to file (default {@link ReportFormat#SERIALIZED}). Reports already
+	 * written in another format can still be read.
+	 *
+	 * @param reportFormat ...
+	 */
+	public void setReportFormat(ReportFormat reportFormat) {
+		writer.setReportFormat(reportFormat);
+	}
+
+	public ReportFormat getReportFormat() {
+		return writer.getReportFormat();
+	}
+
 	@Inject
 	@Autowired
 	public void setMetadataExtractor(MetadataExtractor metadataExtractor) {
@@ -123,6 +142,7 @@ public class Storage implements LogStorage {
 	@PostConstruct
 	public void init() throws StorageException {
 		reader.init();
+		reader.initReportIndex(writer.getSynchronizeRotate());
 		writer.init(reader.getStorageIds(writer.getMetadataModifiedCounter(), writer.getSynchronizeRotate()));
 	}
 
@@ -154,6 +174,13 @@ public class Storage implements LogStorage {
 				metadataValueType, writer.getMetadataModifiedCounter(), writer.getSynchronizeRotate());
 	}
 
+	@Override
+	public MetadataPage getMetadataPage(int pageSize, String cursor, String sortMetadataName, boolean descending,
+			List<String> metadataNames, List<String> searchValues, int metadataValueType) throws StorageException {
+		return reader.getMetadataPage(pageSize, cursor, sortMetadataName, descending, metadataNames, searchValues,
+				metadataValueType, writer.getMetadataModifiedCounter(), writer.getSynchronizeRotate(), this);
+	}
+
 	@Override
 	public Report getReport(Integer storageId) throws StorageException {
 		Report report = reader.getReport(storageId, writer.getSynchronizeRotate());
@@ -161,6 +188,15 @@ public class Storage implements LogStorage {
 		return report;
 	}
 
+	@Override
+	public Map<Integer, Report> getReports(Collection<Integer> storageIds) throws StorageException {
+		Map<Integer, Report> reports = reader.getReports(storageIds, writer.getSynchronizeRotate());
+		for (Report report : reports.values()) {
+			report.setStorage(this);
+		}
+		return reports;
+	}
+
 	@Override
 	public void clear() throws StorageException {
 		writer.clear();
@@ -170,6 +206,7 @@ public class Storage implements LogStorage {
 	@Override
 	public void close() {
 		writer.close();
+		reader.close();
 	}
 
 	@Override
@@ -1,5 +1,5 @@
 /*
-   Copyright 2020-2025 WeAreFrank!, 2018 Nationale-Nederlanden
+   Copyright 2020-2026 WeAreFrank!, 2018 Nationale-Nederlanden
 
    Licensed under the Apache License, Version 2.0 (the "License");
    you may not use this file except in compliance with the License.
@@ -15,11 +15,20 @@
 */
 package org.wearefrank.ladybug.storage.file;
 
+import java.lang.invoke.MethodHandles;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Iterator;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import jakarta.annotation.PostConstruct;
@@ -27,7 +36,9 @@ import jakarta.annotation.Resource;
 import jakarta.inject.Inject;
 import org.wearefrank.ladybug.MetadataExtractor;
 import org.wearefrank.ladybug.Report;
+import org.wearefrank.ladybug.storage.MetadataPage;
 import org.wearefrank.ladybug.storage.StorageException;
+import org.wearefrank.ladybug.util.ReportFormat;
 import org.wearefrank.ladybug.util.SearchUtil;
 import org.wearefrank.ladybug.storage.CrudStorage;
 
@@ -36,10 +47,23 @@ import org.wearefrank.ladybug.storage.CrudStorage;
  */
 public class TestStorage implements CrudStorage {
 //TODO TestStorage -> CrudStorage?
+	private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 	private String name;
 	private Reader reader[] = new Reader[2];
 	private Writer writer[] = new Writer[2];
-	private short active;
+	private volatile short active;
+	private boolean appendOnly = false;
+	private double compactionThreshold = 0.5;
+	private final Object synchronizeUpdate = new Object();
+	// Prevent rewrites to the inactive files while compact() is writing to them (always lock before synchronizeUpdate)
+	private final Object synchronizeCompact = new Object();
+	// StorageIds of reports stored, updated or deleted while compact() is running (null when compact() isn't running)
+	private Set<Integer> changedDuringCompaction;
+	private int numberOfRecords;
+	private int numberOfGarbageRecords;
+	private AtomicBoolean compactionRunning = new AtomicBoolean(false);
+	// Prevent reads from the active files while rewrite() is clearing them and switching to the other files
+	private final ReadWriteLock rewriteLock = new ReentrantReadWriteLock();
 
 // TODO als je public weg laat, krijg je deze bij Download all in run pane en volgens mail van Peter bij openen van een rapport (zie ook constructor Storage):
 //	java.lang.IllegalAccessException: Class sun.reflect.misc.Trampoline can not access a member of class nl.nn.testtool.storage.file.TestStorage with modifiers ""
@@ -51,6 +75,8 @@ public class TestStorage implements CrudStorage {
 		reader[1] = new Reader();
 		writer[0] = new Writer();
 		writer[1] = new Writer();
+		reader[0].setReportIndex(writer[0].getReportIndex());
+		reader[1].setReportIndex(writer[1].getReportIndex());
 	}
 
 	@Override
@@ -126,10 +152,51 @@ public class TestStorage implements CrudStorage {
 		}
 	}
 
+	/**
+	 * When true an update will append a new version of the report and a delete will append a tombstone instead of
+	 * rewriting all other reports. The files are compacted in the background when the ratio between the number of
+	 * garbage records (old versions and tombstones) and the total number of records exceeds the
+	 * {@link #setCompactionThreshold(double) compaction threshold}.
+	 * 
+	 * @param appendOnly ...
+	 */
+	public void setAppendOnly(boolean appendOnly) {
+		this.appendOnly = appendOnly;
+	}
+
+	public boolean isAppendOnly() {
+		return appendOnly;
+	}
+
+	/**
+	 * Set the format in which reports are written to file (default {@link ReportFormat#SERIALIZED}). Reports already
+	 * written in another format can still be read.
+	 *
+	 * @param reportFormat ...
+	 */
+	public void setReportFormat(ReportFormat reportFormat) {
+		writer[0].setReportFormat(reportFormat);
+		writer[1].setReportFormat(reportFormat);
+	}
+
+	public ReportFormat getReportFormat() {
+		return writer[0].getReportFormat();
+	}
+
+	public void setCompactionThreshold(double compactionThreshold) {
+		this.compactionThreshold = compactionThreshold;
+	}
+
+	public double getCompactionThreshold() {
+		return compactionThreshold;
+	}
+
 	@PostConstruct
 	public void init() throws StorageException {
 		reader[0].init();
 		reader[1].init();
+		reader[0].initReportIndex(writer[0].getSynchronizeRotate());
+		reader[1].initReportIndex(writer[1].getSynchronizeRotate());
 		writer[0].init(reader[0].getStorageIds(writer[0].getMetadataModifiedCounter(),
 				writer[0].getSynchronizeRotate()));
 		writer[1].init(reader[1].getStorageIds(writer[1].getMetadataModifiedCounter(),
@@ -143,12 +210,20 @@ public class TestStorage implements CrudStorage {
 		} else {
 			active = 0;
 		}
+		numberOfRecords = reader[active].getNumberOfRecords();
+		numberOfGarbageRecords = numberOfRecords - Math.max(size0, size1);
 	}
 
 	@Override
 	public void store(Report report) throws StorageException {
 		report.setStorage(this);
-		writer[active].store(report, false);
+		synchronized(synchronizeUpdate) {
+			writer[active].store(report, false);
+			numberOfRecords++;
+			if (changedDuringCompaction != null) {
+				changedDuringCompaction.add(report.getStorageId());
+			}
+		}
 	}
 
 	@Override
@@ -159,86 +234,289 @@ public class TestStorage implements CrudStorage {
 
 	@Override
 	public List<Integer> getStorageIds() throws StorageException {
-		return reader[active].getStorageIds(writer[active].getMetadataModifiedCounter(),
-				writer[active].getSynchronizeRotate());
+		rewriteLock.readLock().lock();
+		try {
+			return reader[active].getStorageIds(writer[active].getMetadataModifiedCounter(),
+					writer[active].getSynchronizeRotate());
+		} finally {
+			rewriteLock.readLock().unlock();
+		}
 	}
 
 	@Override
 	public void update(Report report) throws StorageException {
-		update(report, false);
+		if (appendOnly) {
+			synchronized(synchronizeUpdate) {
+				writer[active].store(report, true);
+				numberOfRecords++;
+				numberOfGarbageRecords++;
+				if (changedDuringCompaction != null) {
+					changedDuringCompaction.add(report.getStorageId());
+				}
+			}
+			compactWhenNeeded();
+		} else {
+			synchronized(synchronizeCompact) {
+				synchronized(synchronizeUpdate) {
+					rewrite(report, false);
+				}
+			}
+		}
 	}
 
 	@Override
 	public void delete(Report report) throws StorageException {
-		update(report, true);
+		if (appendOnly) {
+			synchronized(synchronizeUpdate) {
+				writer[active].storeTombstone(report.getStorageId());
+				numberOfRecords++;
+				// The tombstone and the deleted report
+				numberOfGarbageRecords = numberOfGarbageRecords + 2;
+				if (changedDuringCompaction != null) {
+					changedDuringCompaction.add(report.getStorageId());
+				}
+			}
+			compactWhenNeeded();
+		} else {
+			synchronized(synchronizeCompact) {
+				synchronized(synchronizeUpdate) {
+					rewrite(report, true);
+				}
+			}
+		}
+	}
+
+	private void compactWhenNeeded() {
+		boolean compact;
+		synchronized(synchronizeUpdate) {
+			compact = numberOfGarbageRecords > compactionThreshold * numberOfRecords;
+		}
+		if (compact && compactionRunning.compareAndSet(false, true)) {
+			Thread thread = new Thread(() -> {
+				try {
+					compact();
+				} catch(Throwable throwable) {
+					log.error("Caught unexpected throwable compacting " + name, throwable);
+				} finally {
+					compactionRunning.set(false);
+				}
+			}, "Ladybug-" + name + "-compaction");
+			thread.setDaemon(true);
+			thread.start();
+		}
+	}
+
+	/**
+	 * Rewrite the latest version of all reports (without old versions and tombstones) to the inactive files and make them
+	 * active. Reports are copied without blocking other threads. Only the reports stored, updated or deleted while
+	 * copying are copied again while blocking updates, just before the inactive files are made active.
+	 * 
+	 * @throws StorageException ...
+	 */
+	public void compact() throws StorageException {
+		synchronized(synchronizeCompact) {
+			short source;
+			short destination;
+			List metadata;
+			synchronized(synchronizeUpdate) {
+				source = active;
+				destination = getInactive();
+				metadata = getMetadataForRewrite(source, destination);
+				changedDuringCompaction = new HashSet<Integer>();
+			}
+			try {
+				copyReports(metadata, source, destination, null, false);
+				synchronized(synchronizeUpdate) {
+					if (!changedDuringCompaction.isEmpty()) {
+						copyChangedReports(source, destination);
+					}
+					switchActive(source, destination);
+				}
+			} finally {
+				synchronized(synchronizeUpdate) {
+					changedDuringCompaction = null;
+				}
+			}
+		}
 	}
 
-	private void update(Report report, boolean delete) throws StorageException {
+	/**
+	 * Rewrite all reports from the active files to the inactive files (replacing or skipping the specified report) and
+	 * make the inactive files active.
+	 */
+	private void rewrite(Report report, boolean delete) throws StorageException {
 		short source = active;
-		short destination;
-		if (source == 0) {
-			destination = 1;
+		short destination = getInactive();
+		List metadata = getMetadataForRewrite(source, destination);
+		copyReports(metadata, source, destination, report, delete);
+		switchActive(source, destination);
+	}
+
+	private short getInactive() {
+		if (active == 0) {
+			return 1;
 		} else {
-			destination = 0;
+			return 0;
+		}
+	}
+
+	/**
+	 * Get the metadata of all reports at once instead of searching the metadata for every report
+	 */
+	private List getMetadataForRewrite(short source, short destination) throws StorageException {
+		List<String> persistentMetadata = writer[destination].getPersistentMetadata();
+		if (!persistentMetadata.contains("storageId")) {
+			throw new StorageException("Persistent metadata " + persistentMetadata
+					+ " should contain storageId to be able to rewrite the reports of " + name);
 		}
-		List storageIds = reader[source].getStorageIds(writer[source].getMetadataModifiedCounter(),
-				writer[source].getSynchronizeRotate());
-		Collections.sort(storageIds);
-		Iterator iterator = storageIds.iterator();
-		while (iterator.hasNext()) {
-			Integer storageId = (Integer)iterator.next();
-			if (storageId.equals(report.getStorageId())) {
+		return reader[source].getMetadata(-1, persistentMetadata, null, MetadataExtractor.VALUE_TYPE_STRING,
+				writer[source].getMetadataModifiedCounter(), writer[source].getSynchronizeRotate());
+	}
+
+	private void copyReports(List metadata, short source, short destination, Report report, boolean delete)
+			throws StorageException {
+		List<String> persistentMetadata = writer[destination].getPersistentMetadata();
+		int storageIdIndex = persistentMetadata.indexOf("storageId");
+		// Metadata is ordered latest report first
+		for (int i = metadata.size() - 1; i >= 0; i--) {
+			List<String> metadataRecord = (List<String>)metadata.get(i);
+			Integer storageId = Integer.valueOf(metadataRecord.get(storageIdIndex));
+			if (report != null && storageId.equals(report.getStorageId())) {
 				if (!delete) {
 					writer[destination].store(report, true);
 				}
 			} else {
-				byte[] reportBytes = reader[source].getReportBytes(storageId, writer[source].getSynchronizeRotate());
-				List persistentMetadata = writer[destination].getPersistentMetadata();
-				List<String> searchValues = new ArrayList<>();
-				searchValues.add("(" + storageId + ")"); // TODO een getMetadata maken die op exacte waarden kan zoeken zodat je er geen reg. expr. van hoeft te maken?
-				for (int i = 1; i < persistentMetadata.size(); i++) {
-					searchValues.add(null); // TODO is dit nodig?
-				}
-// TODO als je maxNumberOfRecords op 1 zet krijg je geen resultaat, klopt dat wel?
-				List metadata = reader[source].getMetadata(-1,
-						persistentMetadata, searchValues ,
-						MetadataExtractor.VALUE_TYPE_STRING,
-						writer[source].getMetadataModifiedCounter(),
-						writer[source].getSynchronizeRotate());
-				writer[destination].store(report.getName(), reportBytes, (List)metadata.get(0));
+				copyReport(metadataRecord, storageId, source, destination);
+			}
+		}
+	}
+
+	private void copyReport(List<String> metadataRecord, Integer storageId, short source, short destination)
+			throws StorageException {
+		int nameIndex = writer[destination].getPersistentMetadata().indexOf("name");
+		byte[] reportBytes = reader[source].getReportBytes(storageId, writer[source].getSynchronizeRotate());
+		String reportName = nameIndex == -1 ? storageId.toString() : metadataRecord.get(nameIndex);
+		writer[destination].store(reportName, reportBytes, metadataRecord);
+	}
+
+	/**
+	 * Copy the latest version of the reports stored or updated while compact() was copying (superseding the version
+	 * copied before) and store a tombstone for the reports deleted in the meantime
+	 */
+	private void copyChangedReports(short source, short destination) throws StorageException {
+		int storageIdIndex = writer[destination].getPersistentMetadata().indexOf("storageId");
+		Map<Integer, List<String>> metadataRecords = new HashMap<Integer, List<String>>();
+		for (Object metadataRecord : getMetadataForRewrite(source, destination)) {
+			Integer storageId = Integer.valueOf(((List<String>)metadataRecord).get(storageIdIndex));
+			if (changedDuringCompaction.contains(storageId)) {
+				metadataRecords.put(storageId, (List<String>)metadataRecord);
+			}
+		}
+		for (Integer storageId : changedDuringCompaction) {
+			List<String> metadataRecord = metadataRecords.get(storageId);
+			if (metadataRecord != null) {
+				copyReport(metadataRecord, storageId, source, destination);
+			} else {
+				writer[destination].storeTombstone(storageId);
 			}
 		}
+	}
+
+	private void switchActive(short source, short destination) throws StorageException {
 		writer[destination].latestStorageId = writer[source].latestStorageId;
-		writer[source].clear();
-		reader[source].clear();
-		active = destination;
+		// Other threads can read the source files until now (writes are blocked by synchronizeUpdate so they don't
+		// change anymore). Wait for reads in progress to finish before clearing them
+		rewriteLock.writeLock().lock();
+		try {
+			writer[source].clear();
+			reader[source].clear();
+			active = destination;
+		} finally {
+			rewriteLock.writeLock().unlock();
+		}
+		int numberOfReports = reader[destination].getStorageIds(writer[destination].getMetadataModifiedCounter(),
+				writer[destination].getSynchronizeRotate()).size();
+		numberOfRecords = reader[destination].getNumberOfRecords();
+		numberOfGarbageRecords = numberOfRecords - numberOfReports;
 	}
 
 	@Override
 	public List getMetadata(int maxNumberOfRecords, List metadataNames,
 			List searchValues, int metadataValueType) throws StorageException {
-		return reader[active].getMetadata(maxNumberOfRecords, metadataNames, searchValues,
-				metadataValueType, writer[active].getMetadataModifiedCounter(), writer[active].getSynchronizeRotate());
+		rewriteLock.readLock().lock();
+		try {
+			return reader[active].getMetadata(maxNumberOfRecords, metadataNames, searchValues, metadataValueType,
+					writer[active].getMetadataModifiedCounter(), writer[active].getSynchronizeRotate());
+		} finally {
+			rewriteLock.readLock().unlock();
+		}
+	}
+
+	@Override
+	public MetadataPage getMetadataPage(int pageSize, String cursor, String sortMetadataName, boolean descending,
+			List<String> metadataNames, List<String> searchValues, int metadataValueType) throws StorageException {
+		rewriteLock.readLock().lock();
+		try {
+			return reader[active].getMetadataPage(pageSize, cursor, sortMetadataName, descending, metadataNames,
+					searchValues, metadataValueType, writer[active].getMetadataModifiedCounter(),
+					writer[active].getSynchronizeRotate(), this);
+		} finally {
+			rewriteLock.readLock().unlock();
+		}
 	}
 
 	@Override
 	public Report getReport(Integer storageId) throws StorageException {
-		Report report = reader[active].getReport(storageId, writer[active].getSynchronizeRotate());
+		Report report;
+		rewriteLock.readLock().lock();
+		try {
+			report = reader[active].getReport(storageId, writer[active].getSynchronizeRotate());
+		} finally {
+			rewriteLock.readLock().unlock();
+		}
 		if (report != null) {
 			report.setStorage(this);
 		}
 		return report;
 	}
 
+	@Override
+	public Map<Integer, Report> getReports(Collection<Integer> storageIds) throws StorageException {
+		Map<Integer, Report> reports;
+		rewriteLock.readLock().lock();
+		try {
+			reports = reader[active].getReports(storageIds, writer[active].getSynchronizeRotate());
+		} finally {
+			rewriteLock.readLock().unlock();
+		}
+		for (Report report : reports.values()) {
+			report.setStorage(this);
+		}
+		return reports;
+	}
+
 	@Override
 	public void clear() throws StorageException {
-		writer[active].clear();
+		synchronized(synchronizeCompact) {
+			synchronized(synchronizeUpdate) {
+				rewriteLock.writeLock().lock();
+				try {
+					writer[active].clear();
+				} finally {
+					rewriteLock.writeLock().unlock();
+				}
+				numberOfRecords = 0;
+				numberOfGarbageRecords = 0;
+			}
+		}
 	}
 
 	@Override
 	public void close() {
 		writer[0].close();
 		writer[1].close();
+		reader[0].close();
+		reader[1].close();
 	}
 
 	@Override
@@ -1,5 +1,5 @@
 /*
-   Copyright 2020-2025 WeAreFrank!, 2018 Nationale-Nederlanden
+   Copyright 2020-2026 WeAreFrank!, 2018 Nationale-Nederlanden
 
    Licensed under the Apache License, Version 2.0 (the "License");
    you may not use this file except in compliance with the License.
@@ -35,10 +35,12 @@ import org.slf4j.LoggerFactory;
 
 import org.wearefrank.ladybug.MetadataExtractor;
 import org.wearefrank.ladybug.Report;
+import org.wearefrank.ladybug.metadata.MetadataExtractionContext;
 import org.wearefrank.ladybug.storage.StorageException;
 import org.wearefrank.ladybug.util.EscapeUtil;
 import org.wearefrank.ladybug.util.Export;
 import org.wearefrank.ladybug.util.Import;
+import org.wearefrank.ladybug.util.ReportFormat;
 
 /**
  * @author Jaco de Groot
@@ -60,6 +62,8 @@ public class Writer {
 	private List<String> persistentMetadata;
 	private String metadataHeader;
 	private MetadataExtractor metadataExtractor;
+	private ReportFormat reportFormat = ReportFormat.SERIALIZED;
+	private ReportIndex reportIndex = new ReportIndex();
 	// TODO private maken en via een methode doen?
 	protected int latestStorageId = 1;
 	private long reportsFileLength;
@@ -69,6 +73,7 @@ public class Writer {
 
 	protected void setReportsFilename(String reportsFilename) {
 		this.reportsFilename = reportsFilename;
+		reportIndex.setReportsFilename(reportsFilename);
 	}
 
 	protected void setMetadataFilename(String metadataFilename) {
@@ -81,6 +86,11 @@ public class Writer {
 
 	protected void setMaximumBackupIndex(int maximumBackupIndex) {
 		this.maximumBackupIndex = maximumBackupIndex;
+		reportIndex.setMaximumBackupIndex(maximumBackupIndex);
+	}
+
+	protected ReportIndex getReportIndex() {
+		return reportIndex;
 	}
 
 	protected void setFreeSpaceMinimum(long freeSpaceMinimum) {
@@ -104,6 +114,14 @@ public class Writer {
 		this.metadataExtractor = metadataExtractor;
 	}
 
+	protected void setReportFormat(ReportFormat reportFormat) {
+		this.reportFormat = reportFormat;
+	}
+
+	protected ReportFormat getReportFormat() {
+		return reportFormat;
+	}
+
 	protected void init(List storageIds) {
 		reportsFile = new File(reportsFilename);
 		metadataFile = new File(metadataFilename);
@@ -119,7 +137,7 @@ public class Writer {
 	}
 
 	protected void store(Report report, boolean preserveStorageId) throws StorageException {
-		byte[] reportBytes = Export.getReportBytes(report);
+		byte[] reportBytes = Export.getReportBytes(report, reportFormat);
 		// Synchronize to keep order of storage id's in storage in incremental order
 		synchronized(synchronizeStore) {
 			if (!preserveStorageId) {
@@ -128,16 +146,28 @@ public class Writer {
 			}
 			report.setStorageSize(new Long(reportBytes.length));
 			List metadataValues = new ArrayList();
-			for (int i = 0; i < persistentMetadata.size(); i++) {
-				String metadataName = persistentMetadata.get(i);
-				metadataValues.add(metadataExtractor.getMetadata(report,
-						metadataName, MetadataExtractor.VALUE_TYPE_STRING));
+			try (MetadataExtractionContext context = MetadataExtractionContext.open(report)) {
+				for (int i = 0; i < persistentMetadata.size(); i++) {
+					String metadataName = persistentMetadata.get(i);
+					metadataValues.add(metadataExtractor.getMetadata(report,
+							metadataName, MetadataExtractor.VALUE_TYPE_STRING));
+				}
 			}
-			store(report.getName(), reportBytes, metadataValues);
+			store(report.getStorageId(), report.getName(), reportBytes, metadataValues);
 		}
 	}
 
 	protected void store(String reportName, byte[] reportBytes, List<String> metadataValues) throws StorageException {
+		Integer storageId = null;
+		int storageIdIndex = persistentMetadata.indexOf("storageId");
+		if (storageIdIndex != -1) {
+			storageId = Integer.valueOf(metadataValues.get(storageIdIndex));
+		}
+		store(storageId, reportName, reportBytes, metadataValues);
+	}
+
+	private void store(Integer storageId, String reportName, byte[] reportBytes, List<String> metadataValues)
+			throws StorageException {
 		synchronized(synchronizeStore) {
 			try {
 				if (reportsFileOutputStream == null) {
@@ -184,7 +214,7 @@ public class Writer {
 //							metadataName, MetadataExtractor.VALUE_TYPE_STRING));
 //				}
 				checkFreeSpace(reportName, reportBytes.length);
-				writeReportAndMetadata(reportBytes, EscapeUtil.escapeCsv(metadataValues));
+				writeReportAndMetadata(storageId, reportBytes, EscapeUtil.escapeCsv(metadataValues));
 			} catch(Throwable throwable) {
 				StorageException storageException;
 				if (throwable instanceof StorageException) {
@@ -202,6 +232,27 @@ public class Writer {
 		}
 	}
 
+	/**
+	 * Store a tombstone for the report with the specified storageId. A tombstone is a metadata record with storageSize 0
+	 * (without report data) that marks previous versions of the report as deleted.
+	 *
+	 * @param storageId the storageId of the report to mark as deleted
+	 * @throws StorageException ...
+	 */
+	protected void storeTombstone(Integer storageId) throws StorageException {
+		List<String> metadataValues = new ArrayList<String>();
+		for (String metadataName : persistentMetadata) {
+			if ("storageId".equals(metadataName)) {
+				metadataValues.add(storageId.toString());
+			} else if ("storageSize".equals(metadataName)) {
+				metadataValues.add("0");
+			} else {
+				metadataValues.add("");
+			}
+		}
+		store(storageId, "tombstone", new byte[0], metadataValues);
+	}
+
 	protected void storeWithoutException(Report report, boolean preserveStorageId) {
 		try {
 			store(report, preserveStorageId);
@@ -236,7 +287,12 @@ public class Writer {
 					if (metadataFile.exists()) {
 						deleteFile(metadataFile);
 					}
+					File indexFile = reportIndex.getIndexFile(i);
+					if (indexFile.exists()) {
+						deleteFile(indexFile);
+					}
 				}
+				reportIndex.clear();
 			}
 
 			openFiles(false);
@@ -296,6 +352,7 @@ public class Writer {
 		} catch(UnsupportedEncodingException e) {
 			Export.logAndThrow(log, e, "UnsupportedEncodingException opening metadata output stream");
 		}
+		reportIndex.open(append);
 	}
 
 	private void writeMetadataHeader() throws StorageException {
@@ -308,7 +365,9 @@ public class Writer {
 		metadataFileModifiedCounter++;
 	}
 
-	private void writeReportAndMetadata(byte[] reportBytes, String metadataCsvRecord) throws StorageException {
+	private void writeReportAndMetadata(Integer storageId, byte[] reportBytes, String metadataCsvRecord)
+			throws StorageException {
+		long offset = reportsFileLength;
 		try {
 			reportsFileOutputStream.write(reportBytes);
 			reportsFileOutputStream.flush();
@@ -323,6 +382,9 @@ public class Writer {
 		} catch(IOException e) {
 			Export.logAndThrow(log, e, "IOException writing metadata to file '" + metadataFile.getAbsolutePath() + "'");
 		}
+		if (storageId != null) {
+			reportIndex.add(storageId, offset, reportBytes.length);
+		}
 		metadataFileModifiedCounter++;
 	}
 
@@ -339,6 +401,7 @@ public class Writer {
 			Export.closeOutputStream(metadataFileOutputStream, "closing metadata file output stream '" + metadataFile.getAbsolutePath() + "'", log);
 			metadataFileOutputStream = null;
 		}
+		reportIndex.close();
 	}
 
 	private void rotateFiles() throws StorageException {
@@ -346,7 +409,9 @@ public class Writer {
 			for (int i = maximumBackupIndex; i >= 0; i--) {
 				rotateFile(reportsFilename, i);
 				rotateFile(metadataFilename, i);
+				rotateFile(reportIndex.getIndexFilename(), i);
 			}
+			reportIndex.rotate();
 		}
 	}
 
@@ -1,5 +1,5 @@
 /*
-   Copyright 2024, 2025 WeAreFrank!
+   Copyright 2024-2026 WeAreFrank!
 
    Licensed under the Apache License, Version 2.0 (the "License");
    you may not use this file except in compliance with the License.
@@ -25,13 +25,13 @@ import org.wearefrank.ladybug.storage.StorageException;
 public class MemoryCrudStorage extends MemoryStorage implements CrudStorage {
 
 	@Override
-	public void update(Report report) throws StorageException {
+	public synchronized void update(Report report) throws StorageException {
 		reports.put(report.getStorageId(), report);
 		metadata.remove(report.getStorageId());
 	}
 
 	@Override
-	public void delete(Report report) throws StorageException {
+	public synchronized void delete(Report report) throws StorageException {
 		reports.remove(report.getStorageId());
 		storageIds.remove(report.getStorageId());
 		metadata.remove(report.getStorageId());
@@ -1,5 +1,5 @@
 /*
-   Copyright 2024-2025 WeAreFrank!
+   Copyright 2024-2026 WeAreFrank!
 
    Licensed under the Apache License, Version 2.0 (the "License");
    you may not use this file except in compliance with the License.
@@ -21,17 +21,42 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import jakarta.enterprise.context.Dependent;
+import lombok.Getter;
+import lombok.Setter;
 import org.wearefrank.ladybug.Report;
 import org.wearefrank.ladybug.storage.LogStorage;
 import org.wearefrank.ladybug.storage.StorageException;
 
 /**
+ * Log storage keeping reports in memory. Use maxNumberOfReports and/or maxEstimatedMemoryUsage to limit the number of
+ * reports and the total estimated memory usage of the reports (see {@link Report#getEstimatedMemoryUsage()}) in which
+ * case the oldest reports are evicted when a new report is stored. The last stored report is never evicted. Both
+ * default to -1 (unlimited).
+ *
  * @author Jaco de Groot
  */
 @Dependent
 public class MemoryLogStorage extends MemoryStorage implements LogStorage {
 	private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 	private String lastExceptionMessage;
+	private @Setter @Getter int maxNumberOfReports = -1;
+	private @Setter @Getter long maxEstimatedMemoryUsage = -1;
+	private long estimatedMemoryUsage;
+	private long evictedCount;
+
+	@Override
+	public synchronized void store(Report report) throws StorageException {
+		super.store(report);
+		estimatedMemoryUsage += report.getEstimatedMemoryUsage();
+		while (storageIds.size() > 1 && ((maxNumberOfReports > -1 && storageIds.size() > maxNumberOfReports)
+				|| (maxEstimatedMemoryUsage > -1 && estimatedMemoryUsage > maxEstimatedMemoryUsage))) {
+			Integer storageId = storageIds.remove(0);
+			Report evicted = reports.remove(storageId);
+			metadata.remove(storageId);
+			estimatedMemoryUsage -= evicted.getEstimatedMemoryUsage();
+			evictedCount++;
+		}
+	}
 
 	@Override
 	public void storeWithoutException(Report report) {
@@ -51,4 +76,29 @@ public class MemoryLogStorage extends MemoryStorage implements LogStorage {
 		return lastExceptionMessage;
 	}
 
+	@Override
+	public synchronized void clear() throws StorageException {
+		super.clear();
+		estimatedMemoryUsage = 0;
+	}
+
+	/**
+	 * Get the sum of the estimated memory usage of the reports in this storage.
+	 *
+	 * @return the estimated memory usage in bytes
+	 */
+	public synchronized long getEstimatedMemoryUsage() {
+		return estimatedMemoryUsage;
+	}
+
+	/**
+	 * Get the number of reports that have been evicted to stay within maxNumberOfReports and maxEstimatedMemoryUsage
+	 * since this storage was created.
+	 *
+	 * @return the number of evicted reports
+	 */
+	public synchronized long getEvictedCount() {
+		return evictedCount;
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
-   Copyright 2020-2025 WeAreFrank!, 2018 Nationale-Nederlanden
+   Copyright 2020-2026 WeAreFrank!, 2018 Nationale-Nederlanden
 
    Licensed under the Apache License, Version 2.0 (the "License");
    you may not use this file except in compliance with the License.
@@ -15,11 +15,16 @@
 */
 package org.wearefrank.ladybug.storage.memory;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.springframework.beans.factory.annotation.Autowired;
 
@@ -30,9 +35,20 @@ import org.wearefrank.ladybug.MetadataExtractor;
 import org.wearefrank.ladybug.Report;
 import org.wearefrank.ladybug.storage.Storage;
 import org.wearefrank.ladybug.storage.StorageException;
+import org.wearefrank.ladybug.util.SearchPredicate;
 import org.wearefrank.ladybug.util.SearchUtil;
 
 /**
+ * Storage ids are kept in order of storage (oldest first) in a list backed by a {@link LinkedHashSet} so child classes
+ * can remove the oldest report (storageIds.remove(0)) and any other report (storageIds.remove(storageId)) in constant
+ * time. Iterate the list instead of calling get(index) as the latter needs to walk the list. New storage ids are taken
+ * from a counter instead of calculating the highest storage id in use.
+ *
+ * Methods changing the storage are synchronized. Reads don't block them: reports and metadata are kept in concurrent
+ * maps and {@link #getMetadata(int, List, List, int)} only holds the lock while taking a snapshot of the storage ids,
+ * cloning reports and extracting metadata is done without holding the lock. Child classes changing storageIds should
+ * do so while holding the lock.
+ *
  * @author Jaco de Groot
  */
 public class MemoryStorage implements Storage {
@@ -42,6 +58,7 @@ public class MemoryStorage implements Storage {
 	protected Map<Integer, Map<Integer, Map<String, Object>>> metadata;
 	protected @Setter @Getter Integer initialStorageId = 0;
 	protected @Setter @Inject @Autowired MetadataExtractor metadataExtractor;
+	private AtomicInteger lastStorageId;
 
 	public MemoryStorage() {
 		// Initialize variables in the constructor for places where MemoryStorage is used without being initialized by
@@ -50,9 +67,10 @@ public class MemoryStorage implements Storage {
 	}
 
 	protected void reset() {
-		reports = new HashMap<Integer, Report>();
-		storageIds = new ArrayList<Integer>();
-		metadata = new HashMap<Integer, Map<Integer, Map<String, Object>>>();
+		reports = new ConcurrentHashMap<Integer, Report>();
+		storageIds = new StorageIdList();
+		metadata = new ConcurrentHashMap<Integer, Map<Integer, Map<String, Object>>>();
+		lastStorageId = new AtomicInteger(Integer.MIN_VALUE);
 	}
 
 	public synchronized void store(Report report) throws StorageException {
@@ -63,8 +81,11 @@ public class MemoryStorage implements Storage {
 	}
 
 	@Override
-	public synchronized Report getReport(Integer storageId) throws StorageException {
-		Report report = reports.get(storageId);
+	public Report getReport(Integer storageId) throws StorageException {
+		return cloneReport(storageId, reports.get(storageId));
+	}
+
+	private Report cloneReport(Integer storageId, Report report) throws StorageException {
 		if (report != null) {
 			try {
 				report = report.clone();
@@ -79,7 +100,7 @@ public class MemoryStorage implements Storage {
 
 	@Override
 	public int getSize() throws StorageException {
-		return storageIds.size();
+		return reports.size();
 	}
 
 	@Override
@@ -88,35 +109,45 @@ public class MemoryStorage implements Storage {
 	}
 
 	@Override
-	public synchronized List<List<Object>> getMetadata(int maxNumberOfRecords, List<String> metadataNames,
+	public List<List<Object>> getMetadata(int maxNumberOfRecords, List<String> metadataNames,
 			List<String> searchValues, int metadataValueType) throws StorageException {
 		List<List<Object>> result = new ArrayList<List<Object>>();
-		for (int i = 0; i < storageIds.size() && (maxNumberOfRecords == -1 || i < maxNumberOfRecords); i++) {
-			Map<Integer, Map<String, Object>> metadataRecordPerType = metadata.get(storageIds.get(i));
-			if (metadataRecordPerType == null) {
-				metadataRecordPerType = new HashMap<Integer, Map<String, Object>>();
-				metadata.put(storageIds.get(i), metadataRecordPerType);
-			}
-			Map<String, Object> metadataRecord = metadataRecordPerType.get(metadataValueType);
-			if (metadataRecord == null) {
-				metadataRecord = new HashMap<String, Object>();
-				metadataRecordPerType.put(metadataValueType, metadataRecord);
+		List<SearchPredicate> searchPredicates = SearchUtil.compileAndValidate(searchValues);
+		Iterator<Integer> storageIdsIterator = getStorageIds().iterator();
+		for (int i = 0; storageIdsIterator.hasNext() && (maxNumberOfRecords == -1 || i < maxNumberOfRecords); i++) {
+			Integer storageId = storageIdsIterator.next();
+			Report storedReport = reports.get(storageId);
+			if (storedReport == null) {
+				// Deleted or evicted after the snapshot of the storage ids was taken
+				continue;
 			}
+			Map<String, Object> metadataRecord = metadata
+					.computeIfAbsent(storageId, key -> new ConcurrentHashMap<Integer, Map<String, Object>>())
+					// Synchronized HashMap instead of ConcurrentHashMap as metadata values can be null
+					.computeIfAbsent(metadataValueType, key -> Collections.synchronizedMap(new HashMap<String, Object>()));
+			Report report = null;
 			List<Object> resultRecord = new ArrayList<Object>();
 			Iterator<String> metadataNamesIterator = metadataNames.iterator();
 			while (metadataNamesIterator.hasNext()) {
 				String metadataName = (String)metadataNamesIterator.next();
 				Object metadataValue;
-				if (!metadataRecord.keySet().contains(metadataName)) {
-					Report report = getReport((Integer)storageIds.get(i));
+				if (!metadataRecord.containsKey(metadataName)) {
+					if (report == null) {
+						report = cloneReport(storageId, storedReport);
+					}
 					metadataValue = metadataExtractor.getMetadata(report, metadataName, metadataValueType);
-					metadataRecord.put(metadataName, metadataValue);
+					// Don't cache metadata of a report that has been updated, deleted or evicted in the meantime
+					if (reports.get(storageId) == storedReport) {
+						metadataRecord.put(metadataName, metadataValue);
+					} else {
+						metadata.remove(storageId);
+					}
 				} else {
 					metadataValue = metadataRecord.get(metadataName);
 				}
 				resultRecord.add(metadataValue);
 			}
-			if (SearchUtil.matches(resultRecord, searchValues)) {
+			if (SearchUtil.matchesPredicates(resultRecord, searchPredicates)) {
 				result.add(resultRecord);
 			}
 		}
@@ -124,10 +155,11 @@ public class MemoryStorage implements Storage {
 	}
 
 	@Override
-	public void clear() throws StorageException {
+	public synchronized void clear() throws StorageException {
 		reports.clear();
 		storageIds.clear();
 		metadata.clear();
+		lastStorageId.set(Integer.MIN_VALUE);
 	}
 
 	@Override
@@ -150,13 +182,85 @@ public class MemoryStorage implements Storage {
 	}
 
 	protected int getNewStorageId() throws StorageException {
-		int newStorageId = getInitialStorageId();
-		for (Integer storageId : getStorageIds()) {
-			if (storageId >= newStorageId) {
-				newStorageId = storageId + 1;
+		int initialStorageId = getInitialStorageId();
+		return lastStorageId.updateAndGet(storageId -> storageId < initialStorageId ? initialStorageId : storageId + 1);
+	}
+
+	/**
+	 * Make sure storage ids returned by {@link #getNewStorageId()} are higher than the specified storage id (e.g. of a
+	 * report that has been read from disk).
+	 */
+	protected void updateLastStorageId(int storageId) {
+		lastStorageId.accumulateAndGet(storageId, Math::max);
+	}
+
+	/**
+	 * List of unique storage ids in insertion order with constant time add(), contains(), remove(Object) and
+	 * remove(0)
+	 */
+	private static class StorageIdList extends AbstractList<Integer> {
+		private LinkedHashSet<Integer> storageIds = new LinkedHashSet<Integer>();
+
+		@Override
+		public Integer get(int index) {
+			if (index < 0 || index >= storageIds.size()) {
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + storageIds.size());
+			}
+			Iterator<Integer> iterator = storageIds.iterator();
+			for (int i = 0; i < index; i++) {
+				iterator.next();
+			}
+			return iterator.next();
+		}
+
+		@Override
+		public int size() {
+			return storageIds.size();
+		}
+
+		@Override
+		public boolean add(Integer storageId) {
+			storageIds.add(storageId);
+			modCount++;
+			return true;
+		}
+
+		@Override
+		public void add(int index, Integer storageId) {
+			if (index != storageIds.size()) {
+				throw new UnsupportedOperationException("Storage ids can only be added at the end of the list");
 			}
+			add(storageId);
+		}
+
+		@Override
+		public Integer remove(int index) {
+			Integer storageId = get(index);
+			remove(storageId);
+			return storageId;
+		}
+
+		@Override
+		public boolean remove(Object storageId) {
+			modCount++;
+			return storageIds.remove(storageId);
+		}
+
+		@Override
+		public boolean contains(Object storageId) {
+			return storageIds.contains(storageId);
+		}
+
+		@Override
+		public Iterator<Integer> iterator() {
+			return storageIds.iterator();
+		}
+
+		@Override
+		public void clear() {
+			modCount++;
+			storageIds.clear();
 		}
-		return newStorageId;
 	}
 
 }
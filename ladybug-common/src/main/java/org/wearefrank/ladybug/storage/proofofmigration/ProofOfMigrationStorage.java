@@ -19,7 +19,10 @@ import java.lang.invoke.MethodHandles;
 import java.sql.Types;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -31,6 +34,7 @@ import org.wearefrank.ladybug.Checkpoint;
 import org.wearefrank.ladybug.CheckpointType;
 import org.wearefrank.ladybug.Report;
 import org.wearefrank.ladybug.TestTool;
+import org.wearefrank.ladybug.storage.MetadataPage;
 import org.wearefrank.ladybug.storage.StorageException;
 import org.wearefrank.ladybug.storage.database.DatabaseLogStorage;
 
@@ -139,6 +143,14 @@ public class ProofOfMigrationStorage extends DatabaseLogStorage {
 		return showErrorsOnly;
 	}
 
+	@Override
+	public MetadataPage getMetadataPage(int pageSize, String cursor, String sortMetadataName, boolean descending,
+			List<String> metadataNames, List<String> searchValues, int metadataValueType) throws StorageException {
+		// Keyset pagination on storageId isn't possible with the metadata query of this storage (see below)
+		return MetadataPage.getPage(this, pageSize, cursor, sortMetadataName, descending, metadataNames, searchValues,
+				metadataValueType);
+	}
+
 	@Override
 	protected void buildMetadataQuery(int maxNumberOfRecords, List<String> metadataNames, List<String> searchValues,
 			List<String> rangeSearchValues, StringBuilder query, List<Object> args, List<Integer> argTypes)
@@ -191,6 +203,19 @@ public class ProofOfMigrationStorage extends DatabaseLogStorage {
 		query.append(" " + GROUP_BY.replace("i.", "") + ") as DUMMY");
 	}
 
+	@Override
+	public Map<Integer, Report> getReports(Collection<Integer> storageIds) throws StorageException {
+		// The reports of this storage are composed by getReport()
+		Map<Integer, Report> reports = new LinkedHashMap<Integer, Report>();
+		for (Integer storageId : storageIds) {
+			Report report = getReport(storageId);
+			if (report != null) {
+				reports.put(storageId, report);
+			}
+		}
+		return reports;
+	}
+
 	@Override
 	public Report getReport(Integer storageId) throws StorageException {
 		String query =
@@ -1,5 +1,5 @@
 /*
-   Copyright 2022-2025 WeAreFrank!
+   Copyright 2022-2026 WeAreFrank!
 
    Licensed under the Apache License, Version 2.0 (the "License");
    you may not use this file except in compliance with the License.
@@ -16,7 +16,9 @@
 package org.wearefrank.ladybug.storage.proxy;
 
 import java.lang.invoke.MethodHandles;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -27,6 +29,7 @@ import lombok.Setter;
 import org.wearefrank.ladybug.Report;
 import org.wearefrank.ladybug.storage.CrudStorage;
 import org.wearefrank.ladybug.storage.LogStorage;
+import org.wearefrank.ladybug.storage.MetadataPage;
 import org.wearefrank.ladybug.storage.Storage;
 import org.wearefrank.ladybug.storage.StorageException;
 
@@ -79,6 +82,11 @@ public class ProxyStorage implements CrudStorage, LogStorage {
 		((LogStorage)destination).storeWithoutException(report);
 	}
 
+	@Override
+	public void storeWithoutException(List<Report> reports) {
+		((LogStorage)destination).storeWithoutException(reports);
+	}
+
 	@Override
 	public int getSize() throws StorageException {
 		return destination.getSize();
@@ -95,11 +103,24 @@ public class ProxyStorage implements CrudStorage, LogStorage {
 		return destination.getMetadata(maxNumberOfRecords, metadataNames, searchValues, metadataValueType);
 	}
 
+	@Override
+	public synchronized MetadataPage getMetadataPage(int pageSize, String cursor, String sortMetadataName,
+			boolean descending, List<String> metadataNames, List<String> searchValues, int metadataValueType)
+			throws StorageException {
+		return destination.getMetadataPage(pageSize, cursor, sortMetadataName, descending, metadataNames, searchValues,
+				metadataValueType);
+	}
+
 	@Override
 	public synchronized Report getReport(Integer storageId) throws StorageException {
 		return destination.getReport(storageId);
 	}
 
+	@Override
+	public synchronized Map<Integer, Report> getReports(Collection<Integer> storageIds) throws StorageException {
+		return destination.getReports(storageIds);
+	}
+
 	@Override
 	public void clear() throws StorageException {
 		destination.clear();
@@ -24,9 +24,21 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.lang.invoke.MethodHandles;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import javax.xml.parsers.ParserConfigurationException;
 
@@ -52,13 +64,34 @@ import org.wearefrank.ladybug.StubType;
 import org.wearefrank.ladybug.util.XmlUtil;
 
 /**
- * Store reports in xml format on the file system.
+ * Store reports in xml format on the file system. Reports are cached in memory per file and only the files that have
+ * been added, changed or removed are read again (see {@link #getReports()}). Human editable report xml files without a
+ * storage id get a negative storage id derived from their path relative to the reports folder, hence it will only change
+ * when the file is moved or renamed.
  */
 public class XmlStorage extends MemoryCrudStorage {
 	private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 	public static final String FILE_EXTENSION = ".report.xml";
 	private @Setter @Getter String reportsFolder;
-	private List<Long> lastModifieds = new ArrayList<>();
+	private @Setter @Getter boolean useWatchService = true;
+	private WatchService watchService;
+	private Map<WatchKey, Path> watchKeys = new HashMap<WatchKey, Path>();
+	private Map<Path, WatchKey> watchedPaths = new HashMap<Path, WatchKey>();
+	private boolean fullScanNeeded = true;
+	private Set<File> changedFiles = new LinkedHashSet<File>();
+	private Map<String, CachedFile> cachedFiles = new LinkedHashMap<String, CachedFile>();
+	private Map<String, Integer> humanEditableStorageIds = new HashMap<String, Integer>();
+
+	private static class CachedFile {
+		long lastModified;
+		long length;
+		Integer storageId;
+
+		CachedFile(long lastModified, long length) {
+			this.lastModified = lastModified;
+			this.length = length;
+		}
+	}
 
 	@Override
 	public Integer getInitialStorageId() {
@@ -83,8 +116,10 @@ public class XmlStorage extends MemoryCrudStorage {
 	}
 
 	@Override
-	public void store(Report report) throws StorageException {
+	public synchronized void store(Report report) throws StorageException {
 		report.setStorage(this);
+		// Read the reports folder first to not hand out a storage id of a report that hasn't been read yet
+		getReports();
 		report.setStorageId(getNewStorageId());
 		String name = report.getName().replaceAll("[<>:\"\\/\\\\\\|\\?\\*]", "_");
 		report.setName(name);
@@ -123,9 +158,11 @@ public class XmlStorage extends MemoryCrudStorage {
 			throw new StorageException("Could not delete report xml file for report with storage id "
 					+ report.getStorageId() + ": " + file);
 		}
+		fileChanged(file);
 		// Delete all parent folders which are empty.
 		file = file.getParentFile();
 		while (file.delete()) {
+			fileChanged(file);
 			file = file.getParentFile();
 		}
 	}
@@ -197,58 +234,245 @@ public class XmlStorage extends MemoryCrudStorage {
 		} catch (Exception e) {
 			throw new StorageException("Could not write report [" + report.getCorrelationId() + "] to [" + file.getPath() + "].", e);
 		}
+		fileChanged(file);
 	}
 
+	/**
+	 * Get the reports in the reports folder. Instead of reading all report xml files every time something has changed in
+	 * the reports folder only the files that have been added, changed or removed since the previous call are read. A
+	 * {@link WatchService} is used to find out which files have changed. When the WatchService isn't available (or
+	 * events have been lost) the reports folder is walked and the last modified and length of every file is compared
+	 * with the cached values.
+	 *
+	 * @return the reports in the reports folder
+	 * @throws StorageException ...
+	 */
 	protected synchronized Map<Integer, Report> getReports() throws StorageException {
-		List<Long> lastModifiedsLatest = new ArrayList<Long>();
-		readReports(new File(reportsFolder), null, storageIds, lastModifiedsLatest, this);
-		if (lastModifieds == null || !lastModifieds.equals(lastModifiedsLatest)) {
-			log.debug("Read reports from reports folder: " + reportsFolder);
-			super.reset();
-			lastModifieds = new ArrayList<Long>();
-			readReports(new File(reportsFolder), reports, storageIds, lastModifieds, this);
+		File folder = new File(reportsFolder);
+		if (useWatchService && watchService == null && folder.isDirectory()) {
+			startWatchService();
+		}
+		if (watchService != null) {
+			processWatchEvents();
+		}
+		if (watchService == null || fullScanNeeded) {
+			log.debug("Scan reports folder: " + reportsFolder);
+			Set<String> paths = new HashSet<String>();
+			scan(folder, paths);
+			Iterator<Map.Entry<String, CachedFile>> iterator = cachedFiles.entrySet().iterator();
+			while (iterator.hasNext()) {
+				Map.Entry<String, CachedFile> entry = iterator.next();
+				if (!paths.contains(entry.getKey())) {
+					iterator.remove();
+					removeCachedFile(entry.getKey(), entry.getValue(), true);
+				}
+			}
+			fullScanNeeded = false;
+			changedFiles.clear();
 		} else {
-			log.debug("Use cached reports");
+			for (File file : changedFiles) {
+				if (file.isDirectory()) {
+					// New folder (or folder moved into the reports folder)
+					scan(file, null);
+				} else {
+					refresh(file);
+					if (!file.exists()) {
+						// Removed folder (or folder moved out of the reports folder)
+						String prefix = file.getAbsolutePath() + File.separator;
+						Iterator<Map.Entry<String, CachedFile>> iterator = cachedFiles.entrySet().iterator();
+						while (iterator.hasNext()) {
+							Map.Entry<String, CachedFile> entry = iterator.next();
+							if (entry.getKey().startsWith(prefix)) {
+								iterator.remove();
+								removeCachedFile(entry.getKey(), entry.getValue(), true);
+							}
+						}
+					}
+				}
+			}
+			changedFiles.clear();
 		}
 		return reports;
 	}
 
-	private static void readReports(File dir, Map<Integer, Report> reports, List<Integer> storageIds,
-			List<Long> lastModifieds, Storage storage) {
+	private void scan(File dir, Set<String> paths) {
 		if (dir.isDirectory()) {
-			for (File file : dir.listFiles()) {
-				if (file.isDirectory()) {
-					readReports(file, reports, storageIds, lastModifieds, storage);
-				}
-				if (file.isFile() && file.getName().endsWith(XmlStorage.FILE_EXTENSION)) {
-					if (lastModifieds != null) {
-						lastModifieds.add(file.lastModified());
-					}
-					if (reports != null) {
-						try {
-							Report report = readReportFromFile(file, storage);
-							if (report.getStorageId() == null) {
-								// Can be null for human editable report xml file, prevent npe's in code using getStorageId()
-								int newStorageId = 0;
-								for (Integer storageId : storageIds) {
-									if (storageId < newStorageId) {
-										newStorageId = storageId;
-									}
-								}
-								newStorageId--;
-								report.setStorageId(newStorageId);
-							}
-							reports.put(report.getStorageId(), report);
-							storageIds.add(report.getStorageId());
-						} catch (StorageException exception) {
-							log.warn("Exception while reading report [" + file.getPath() + "] during build from directory.");
+			register(dir);
+			File[] files = dir.listFiles();
+			if (files != null) {
+				for (File file : files) {
+					if (file.isDirectory()) {
+						scan(file, paths);
+					} else if (isReportFile(file)) {
+						if (paths != null) {
+							paths.add(file.getAbsolutePath());
 						}
+						refresh(file);
 					}
 				}
 			}
 		}
 	}
 
+	/**
+	 * Read the report from the specified file when it has been added or changed and remove the report when the file has
+	 * been removed.
+	 */
+	private void refresh(File file) {
+		String path = file.getAbsolutePath();
+		CachedFile cachedFile = cachedFiles.get(path);
+		if (!isReportFile(file) || !file.isFile()) {
+			if (cachedFile != null) {
+				cachedFiles.remove(path);
+				removeCachedFile(path, cachedFile, true);
+			}
+			return;
+		}
+		long lastModified = file.lastModified();
+		long length = file.length();
+		if (cachedFile != null && cachedFile.lastModified == lastModified && cachedFile.length == length) {
+			return;
+		}
+		if (cachedFile != null) {
+			removeCachedFile(path, cachedFile, false);
+		}
+		cachedFile = new CachedFile(lastModified, length);
+		cachedFiles.put(path, cachedFile);
+		try {
+			Report report = readReportFromFile(file, this);
+			if (report == null) {
+				// Removed in the meantime
+				return;
+			}
+			if (report.getStorageId() == null) {
+				// Can be null for human editable report xml file, prevent npe's in code using getStorageId(). Use the
+				// same storage id for the same file on every (re)read
+				Integer storageId = humanEditableStorageIds.get(path);
+				if (storageId == null) {
+					storageId = getHumanEditableStorageId(file);
+					humanEditableStorageIds.put(path, storageId);
+				}
+				report.setStorageId(storageId);
+			}
+			reports.put(report.getStorageId(), report);
+			storageIds.add(report.getStorageId());
+			cachedFile.storageId = report.getStorageId();
+			updateLastStorageId(report.getStorageId());
+		} catch (StorageException exception) {
+			log.warn("Exception while reading report [" + file.getPath() + "] during build from directory.");
+		}
+	}
+
+	/**
+	 * Derive a negative storage id from the path of the file relative to the reports folder so the storage id of a
+	 * human editable report xml file is the same after a restart and on other instances using the same reports folder.
+	 * In the unlikely case the storage id is already used by another file the next free storage id is used, which is
+	 * only stable as long as the other file isn't removed.
+	 */
+	private Integer getHumanEditableStorageId(File file) {
+		String relativePath = new File(reportsFolder).getAbsoluteFile().toPath()
+				.relativize(file.getAbsoluteFile().toPath()).toString().replace(File.separatorChar, '/');
+		// String.hashCode() is specified by the JLS so it will be the same for every JVM
+		int storageId = -1 - (relativePath.hashCode() & Integer.MAX_VALUE);
+		while (reports.containsKey(storageId)) {
+			if (storageId == Integer.MIN_VALUE) {
+				storageId = -1;
+			} else {
+				storageId--;
+			}
+		}
+		return storageId;
+	}
+
+	private void removeCachedFile(String path, CachedFile cachedFile, boolean removed) {
+		if (cachedFile.storageId != null) {
+			reports.remove(cachedFile.storageId);
+			storageIds.remove(cachedFile.storageId);
+			metadata.remove(cachedFile.storageId);
+		}
+		if (removed) {
+			humanEditableStorageIds.remove(path);
+		}
+	}
+
+	private static boolean isReportFile(File file) {
+		return file.getName().endsWith(XmlStorage.FILE_EXTENSION);
+	}
+
+	private void startWatchService() {
+		try {
+			watchService = FileSystems.getDefault().newWatchService();
+			fullScanNeeded = true;
+		} catch (IOException | UnsupportedOperationException e) {
+			log.debug("WatchService not available, fall back to polling reports folder: " + reportsFolder, e);
+			useWatchService = false;
+		}
+	}
+
+	private void register(File dir) {
+		if (watchService != null) {
+			Path path = dir.toPath();
+			if (!watchedPaths.containsKey(path)) {
+				try {
+					WatchKey watchKey = path.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+							StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+					watchKeys.put(watchKey, path);
+					watchedPaths.put(path, watchKey);
+				} catch (IOException e) {
+					log.debug("Could not watch folder " + path + ", fall back to polling reports folder", e);
+					stopWatchService();
+					useWatchService = false;
+				}
+			}
+		}
+	}
+
+	private void processWatchEvents() {
+		WatchKey watchKey;
+		while (watchService != null && (watchKey = watchService.poll()) != null) {
+			Path dir = watchKeys.get(watchKey);
+			for (WatchEvent<?> event : watchKey.pollEvents()) {
+				if (event.kind() == StandardWatchEventKinds.OVERFLOW || dir == null) {
+					fullScanNeeded = true;
+				} else {
+					changedFiles.add(dir.resolve((Path)event.context()).toFile());
+				}
+			}
+			if (!watchKey.reset()) {
+				Path path = watchKeys.remove(watchKey);
+				if (path != null) {
+					watchedPaths.remove(path, watchKey);
+				}
+			}
+		}
+	}
+
+	private void stopWatchService() {
+		if (watchService != null) {
+			try {
+				watchService.close();
+			} catch (IOException e) {
+				log.debug("Could not close WatchService", e);
+			}
+			watchService = null;
+			watchKeys.clear();
+			watchedPaths.clear();
+		}
+	}
+
+	private synchronized void fileChanged(File file) {
+		if (watchService != null) {
+			// Don't depend on the WatchService to pick up changes made by this storage (events are delivered
+			// asynchronously)
+			changedFiles.add(file);
+		}
+	}
+
+	@Override
+	public synchronized void close() {
+		stopWatchService();
+	}
+
 	/**
 	 * Reads the report from the given file.
 	 *
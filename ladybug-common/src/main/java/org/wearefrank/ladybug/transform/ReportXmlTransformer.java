@@ -21,10 +21,18 @@ import java.io.PrintWriter;
 import java.io.StringReader;
 import java.io.StringWriter;
 import java.io.UnsupportedEncodingException;
+import java.io.Writer;
 import java.lang.invoke.MethodHandles;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import javax.xml.transform.ErrorListener;
-import javax.xml.transform.Transformer;
+import javax.xml.transform.Templates;
 import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerException;
 import javax.xml.transform.TransformerFactory;
@@ -46,10 +54,23 @@ import org.wearefrank.ladybug.util.XmlUtil;
 public class ReportXmlTransformer {
 	private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 	private @Setter @Inject @Autowired String xsltResource;
-	private String xslt;
-	private Transformer transformer;
-	private String createTransformerError;
-	private Exception createTransformerException;
+	public static final int MAX_TEMPLATES_CACHE_SIZE = 100;
+	// Compiled XSLT per SHA-256 hash of the XSLT so a report with a report specific transformation doesn't need to
+	// compile the same XSLT again every time its XML is calculated
+	private static final Map<String, Templates> templatesCache = Collections.synchronizedMap(
+			new LinkedHashMap<String, Templates>(16, 0.75f, true) {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, Templates> eldest) {
+					return size() > MAX_TEMPLATES_CACHE_SIZE;
+				}
+			});
+	private volatile String xslt;
+	// Templates is thread-safe, a Transformer isn't hence a new Transformer is created for every transformation
+	private volatile @Getter Templates templates;
+	private volatile String createTransformerError;
+	private volatile Exception createTransformerException;
 
 	@PostConstruct
 	public void init() {
@@ -83,18 +104,40 @@ public class ReportXmlTransformer {
 
 	public void setXslt(String xslt) {
 		this.xslt = xslt;
+		String key = getTemplatesCacheKey(xslt);
+		Templates cachedTemplates = templatesCache.get(key);
+		if (cachedTemplates != null) {
+			templates = cachedTemplates;
+			createTransformerError = null;
+			createTransformerException = null;
+			return;
+		}
 		TransformerFactory transformerFactory = XmlUtil.getTransformerFactory();
 		TransformerFactoryErrorListener transformerFactoryErrorListener = new TransformerFactoryErrorListener();
 		transformerFactory.setErrorListener(transformerFactoryErrorListener);
 		try {
-			transformer = transformerFactory.newTransformer(new StreamSource(new StringReader(xslt)));
+			templates = transformerFactory.newTemplates(new StreamSource(new StringReader(xslt)));
+			templatesCache.put(key, templates);
+			createTransformerError = null;
+			createTransformerException = null;
 		} catch (TransformerConfigurationException e) {
+			templates = null;
 			createTransformerError = "Could not create transformer: " + e.getMessageAndLocation() + " " + transformerFactoryErrorListener.getErrorMessages();
 			createTransformerException = e;
 			log.debug(createTransformerError, createTransformerException);
 		}
 	}
 
+	private static String getTemplatesCacheKey(String xslt) {
+		try {
+			return HexFormat.of().formatHex(
+					MessageDigest.getInstance("SHA-256").digest(xslt.getBytes(StandardCharsets.UTF_8)));
+		} catch (NoSuchAlgorithmException e) {
+			// Every Java platform is required to support SHA-256
+			return xslt;
+		}
+	}
+
 	public void restoreDefaultXslt() {
 		createTransformerError = null;
 		createTransformerException = null;
@@ -118,44 +161,60 @@ public class ReportXmlTransformer {
 
 	public String transform(String xml) {
 		StringWriter stringWriter = new StringWriter();
+		transform(xml, stringWriter);
+		return stringWriter.toString();
+	}
+
+	/**
+	 * Write the result of the transformation to a writer instead of returning it as a String
+	 * 
+	 * @param xml     the xml to transform
+	 * @param writer  the writer to write the result (or error message) to
+	 * @throws IOException  when thrown by writer
+	 */
+	public void transform(String xml, Writer writer) throws IOException {
+		PrintWriter printWriter = new PrintWriter(writer);
+		Templates templates = this.templates;
+		String createTransformerError = this.createTransformerError;
 		if (createTransformerError != null) {
-			printException(createTransformerError, createTransformerException, stringWriter);
-			stringWriter.write("\n");
-			printFirstXmlCharacters(xml, stringWriter);
+			printException(createTransformerError, createTransformerException, printWriter);
+			printWriter.write("\n");
+			printFirstXmlCharacters(xml, printWriter);
 		} else {
 			StreamSource streamSource = new StreamSource(new StringReader(xml));
-			StreamResult streamResult = new StreamResult(stringWriter);
+			StreamResult streamResult = new StreamResult(writer);
 			try {
-				transformer.transform(streamSource, streamResult);
+				templates.newTransformer().transform(streamSource, streamResult);
 			} catch (TransformerException e) {
 				String message = "Could not transform report xml";
 				log.debug(message, e);
-				printException(message, e, stringWriter);
-				stringWriter.write("\n");
-				printFirstXmlCharacters(xml, stringWriter);
+				printException(message, e, printWriter);
+				printWriter.write("\n");
+				printFirstXmlCharacters(xml, printWriter);
 			}
 		}
-		return stringWriter.toString();
+		printWriter.flush();
+		if (printWriter.checkError()) {
+			throw new IOException("Could not write transformed report xml");
+		}
 	}
 
-	private void printException(String message, Exception e, StringWriter stringWriter) {
-		stringWriter.write(message);
+	private void printException(String message, Exception e, PrintWriter printWriter) {
+		printWriter.write(message);
 		if (e != null) {
-			stringWriter.write(": " + e.getMessage());
-			stringWriter.write("\n\n");
-			stringWriter.write("Stacktrace:\n");
-			PrintWriter printWriter = new PrintWriter(stringWriter);
+			printWriter.write(": " + e.getMessage());
+			printWriter.write("\n\n");
+			printWriter.write("Stacktrace:\n");
 			e.printStackTrace(printWriter);
-			printWriter.close();
 		}
 	}
 
-	private void printFirstXmlCharacters(String xml, StringWriter stringWriter) {
+	private void printFirstXmlCharacters(String xml, PrintWriter printWriter) {
 		int i = 10000;
 		if (xml.length() < i) {
 			i = xml.length();
 		}
-		stringWriter.write("First " + i + " characters of xml to transform:\n" + xml.substring(0, i));
+		printWriter.write("First " + i + " characters of xml to transform:\n" + xml.substring(0, i));
 	}
 
 }
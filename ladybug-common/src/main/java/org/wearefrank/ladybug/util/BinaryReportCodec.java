@@ -0,0 +1,493 @@
+/*
+   Copyright 2026 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.wearefrank.ladybug.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.wearefrank.ladybug.Checkpoint;
+import org.wearefrank.ladybug.MessageEncoderImpl;
+import org.wearefrank.ladybug.Report;
+
+/**
+ * Compact binary format for reports as an alternative for Java serialization (see {@link Export#getReportBytes(Report)})
+ * and {@link java.beans.XMLEncoder} (see {@link Export#getReportBytesPortable(Report)}). All fields are written in a
+ * fixed order with strings and messages prefixed with their length. Messages are written as UTF-8 or, for Base64
+ * encoded binary messages, as the raw bytes. Messages larger than {@link #COMPRESSION_THRESHOLD} bytes can be compressed
+ * with Deflate per message (only used when it makes the message smaller).
+ *
+ * The bytes start with {@link #FORMAT_MARKER} followed by a version byte which makes it possible to distinguish them from
+ * the GZIP based formats (starting with 0x1f 0x8b) and to change the format in a later version.
+ *
+ * @author Jaco de Groot
+ */
+public class BinaryReportCodec {
+	public static final byte[] FORMAT_MARKER = {'L', 'B', 'R'};
+	public static final int VERSION = 1;
+	public static final int COMPRESSION_THRESHOLD = 1024;
+	private static final int NULL = -1;
+	// Maximum compression ratio of Deflate, used to reject corrupt decompressed lengths before allocating them
+	private static final int MAX_DEFLATE_RATIO = 1032;
+	private static final byte MESSAGE_NULL = 0;
+	private static final byte MESSAGE_UTF8 = 1;
+	private static final byte MESSAGE_UTF8_DEFLATE = 2;
+	private static final byte MESSAGE_BYTES = 3;
+	private static final byte MESSAGE_BYTES_DEFLATE = 4;
+	private static final byte VALUE_NULL = 0;
+	private static final byte VALUE_STRING = 1;
+	private static final byte VALUE_INTEGER = 2;
+	private static final byte VALUE_LONG = 3;
+	private static final byte VALUE_BOOLEAN = 4;
+	private static final byte VALUE_DOUBLE = 5;
+	private static final byte VALUE_SERIALIZED = 6;
+	private static final int FLAG_WAITING_FOR_STREAM = 1;
+	private static final int FLAG_NO_CLOSE_RECEIVED_FOR_STREAM = 2;
+	private static final int FLAG_STUBBED = 4;
+	private static final byte MAP_HASH = 0;
+	private static final byte MAP_LINKED = 1;
+
+	public static byte[] encode(Report report, boolean compressMessages) throws IOException {
+		ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(byteArrayOutputStream);
+		out.write(FORMAT_MARKER);
+		out.writeByte(VERSION);
+		out.writeLong(report.getStartTime());
+		out.writeLong(report.getEndTime());
+		writeString(out, report.getCorrelationId());
+		writeString(out, report.getName());
+		writeString(out, report.getDescription());
+		writeString(out, report.getPath());
+		writeString(out, report.getStubStrategy());
+		writeString(out, report.getLinkMethod());
+		writeString(out, report.getTransformation());
+		writeString(out, report.getHost());
+		writeString(out, report.getApplication());
+		Map<String, String> variables = report.getVariables();
+		if (variables == null) {
+			out.writeInt(NULL);
+		} else {
+			out.writeInt(variables.size());
+			writeMapType(out, variables);
+			for (Map.Entry<String, String> entry : variables.entrySet()) {
+				writeString(out, entry.getKey());
+				writeString(out, entry.getValue());
+			}
+		}
+		List<Checkpoint> checkpoints = report.getCheckpoints();
+		out.writeInt(checkpoints.size());
+		Deflater deflater = compressMessages ? new Deflater(Deflater.BEST_SPEED) : null;
+		try {
+			for (Checkpoint checkpoint : checkpoints) {
+				writeString(out, checkpoint.getThreadName());
+				writeString(out, checkpoint.getSourceClassName());
+				writeString(out, checkpoint.getMessageClassName());
+				writeString(out, checkpoint.getName());
+				writeString(out, checkpoint.getEncoding());
+				writeString(out, checkpoint.getStreaming());
+				writeString(out, checkpoint.getStubNotFound());
+				out.writeInt(checkpoint.getType());
+				out.writeInt(checkpoint.getLevel());
+				out.writeInt(checkpoint.getStub());
+				out.writeInt(checkpoint.getPreTruncatedMessageLength());
+				int flags = 0;
+				if (checkpoint.isWaitingForStream()) flags |= FLAG_WAITING_FOR_STREAM;
+				if (checkpoint.isNoCloseReceivedForStream()) flags |= FLAG_NO_CLOSE_RECEIVED_FOR_STREAM;
+				if (checkpoint.isStubbed()) flags |= FLAG_STUBBED;
+				out.writeByte(flags);
+				writeMessage(out, checkpoint.getMessage(), checkpoint.getEncoding(), deflater);
+				writeMessageContext(out, checkpoint.getMessageContext());
+			}
+		} finally {
+			if (deflater != null) {
+				deflater.end();
+			}
+		}
+		out.flush();
+		return byteArrayOutputStream.toByteArray();
+	}
+
+	/**
+	 * Decode a report from bytes created by {@link #encode(Report, boolean)}. The storage id and storage size are not part
+	 * of the bytes and need to be set by the caller.
+	 *
+	 * @param inputStream the bytes starting with the format marker
+	 * @return the decoded report
+	 * @throws IOException when the bytes are not in the expected format
+	 */
+	public static Report decode(InputStream inputStream) throws IOException {
+		DataInputStream in = new DataInputStream(inputStream);
+		byte[] formatMarker = new byte[FORMAT_MARKER.length];
+		in.readFully(formatMarker);
+		if (!Arrays.equals(FORMAT_MARKER, formatMarker)) {
+			throw new IOException("Format marker not found");
+		}
+		int version = in.readUnsignedByte();
+		if (version != VERSION) {
+			throw new IOException("Unsupported version " + version + " (supported version is " + VERSION + ")");
+		}
+		Report report = new Report();
+		report.setStartTime(in.readLong());
+		report.setEndTime(in.readLong());
+		report.setCorrelationId(readString(in));
+		report.setName(readString(in));
+		report.setDescription(readString(in));
+		report.setPath(readString(in));
+		report.setStubStrategy(readString(in));
+		report.setLinkMethod(readString(in));
+		report.setTransformation(readString(in));
+		report.setHost(readString(in));
+		report.setApplication(readString(in));
+		int size = readLength(in);
+		if (size != NULL) {
+			Map<String, String> variables = readMapType(in);
+			for (int i = 0; i < size; i++) {
+				variables.put(readString(in), readString(in));
+			}
+			report.setVariables(variables);
+		}
+		size = readNonNullLength(in);
+		// Don't trust the size for the initial capacity (a corrupt size would allocate a huge array)
+		List<Checkpoint> checkpoints = new ArrayList<Checkpoint>(Math.min(size, 1024));
+		Inflater inflater = new Inflater();
+		try {
+			for (int i = 0; i < size; i++) {
+				Checkpoint checkpoint = new Checkpoint();
+				checkpoint.setThreadName(readString(in));
+				checkpoint.setSourceClassName(readString(in));
+				checkpoint.setMessageClassName(readString(in));
+				checkpoint.setName(readString(in));
+				checkpoint.setEncoding(readString(in));
+				checkpoint.setStreaming(readString(in));
+				checkpoint.setStubNotFound(readString(in));
+				checkpoint.setType(in.readInt());
+				checkpoint.setLevel(in.readInt());
+				checkpoint.setStub(in.readInt());
+				checkpoint.setPreTruncatedMessageLength(in.readInt());
+				int flags = in.readUnsignedByte();
+				checkpoint.setWaitingForStream((flags & FLAG_WAITING_FOR_STREAM) != 0);
+				checkpoint.setNoCloseReceivedForStream((flags & FLAG_NO_CLOSE_RECEIVED_FOR_STREAM) != 0);
+				checkpoint.setStubbed((flags & FLAG_STUBBED) != 0);
+				// Set message before report to prevent the message from being truncated and transformed again
+				checkpoint.setMessage(readMessage(in, inflater));
+				checkpoint.setMessageContext(readMessageContext(in));
+				checkpoint.setReport(report);
+				checkpoints.add(checkpoint);
+			}
+		} finally {
+			inflater.end();
+		}
+		report.setCheckpoints(checkpoints);
+		return report;
+	}
+
+	/**
+	 * Check whether the input stream starts with the {@link #FORMAT_MARKER}. The input stream needs to support mark and
+	 * reset and will be reset to the position it had before calling this method.
+	 *
+	 * @param inputStream input stream that supports mark and reset
+	 * @return true when the input stream starts with the format marker
+	 * @throws IOException ...
+	 */
+	public static boolean hasFormatMarker(InputStream inputStream) throws IOException {
+		inputStream.mark(FORMAT_MARKER.length);
+		try {
+			for (int i = 0; i < FORMAT_MARKER.length; i++) {
+				if (inputStream.read() != FORMAT_MARKER[i]) {
+					return false;
+				}
+			}
+			return true;
+		} finally {
+			inputStream.reset();
+		}
+	}
+
+	private static void writeString(DataOutputStream out, String string) throws IOException {
+		if (string == null) {
+			out.writeInt(NULL);
+		} else {
+			writeBytes(out, string.getBytes(StandardCharsets.UTF_8));
+		}
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		byte[] bytes = readBytes(in);
+		return bytes == null ? null : new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static byte[] readBytes(DataInputStream in) throws IOException {
+		int length = readLength(in);
+		if (length == NULL) {
+			return null;
+		}
+		// Read in chunks instead of allocating length bytes up front so a corrupt length in truncated bytes results in
+		// an EOFException instead of an OutOfMemoryError
+		byte[] bytes = in.readNBytes(length);
+		if (bytes.length != length) {
+			throw new EOFException("Expected " + length + " bytes but got " + bytes.length);
+		}
+		return bytes;
+	}
+
+	private static byte[] readNonNullBytes(DataInputStream in) throws IOException {
+		byte[] bytes = readBytes(in);
+		if (bytes == null) {
+			throw new IOException("Unexpected null value");
+		}
+		return bytes;
+	}
+
+	/**
+	 * Read a length or size which can be {@link #NULL}. Other negative values are only found in corrupt bytes.
+	 */
+	private static int readLength(DataInputStream in) throws IOException {
+		int length = in.readInt();
+		if (length < 0 && length != NULL) {
+			throw new IOException("Invalid length " + length);
+		}
+		return length;
+	}
+
+	private static int readNonNullLength(DataInputStream in) throws IOException {
+		int length = in.readInt();
+		if (length < 0) {
+			throw new IOException("Invalid length " + length);
+		}
+		return length;
+	}
+
+	/**
+	 * Write whether a map should be read as a HashMap or (for all other types of maps, which are likely to have a
+	 * meaningful order) as a LinkedHashMap
+	 */
+	private static void writeMapType(DataOutputStream out, Map<?, ?> map) throws IOException {
+		out.writeByte(map.getClass() == HashMap.class ? MAP_HASH : MAP_LINKED);
+	}
+
+	private static <V> Map<String, V> readMapType(DataInputStream in) throws IOException {
+		if (in.readByte() == MAP_HASH) {
+			return new HashMap<String, V>();
+		} else {
+			return new LinkedHashMap<String, V>();
+		}
+	}
+
+	private static void writeMessage(DataOutputStream out, String message, String encoding, Deflater deflater)
+			throws IOException {
+		if (message == null) {
+			out.writeByte(MESSAGE_NULL);
+			return;
+		}
+		byte[] bytes = null;
+		boolean raw = false;
+		if (MessageEncoderImpl.BASE64_ENCODER.equals(encoding)) {
+			// Only store the raw bytes when encoding them again will give the same message (e.g. the message could be
+			// truncated)
+			try {
+				bytes = Base64.getDecoder().decode(message);
+				raw = message.equals(Base64.getEncoder().encodeToString(bytes));
+			} catch (IllegalArgumentException e) {
+				raw = false;
+			}
+		}
+		if (!raw) {
+			bytes = message.getBytes(StandardCharsets.UTF_8);
+		}
+		if (deflater != null && bytes.length > COMPRESSION_THRESHOLD) {
+			byte[] compressed = deflate(bytes, deflater);
+			if (compressed != null) {
+				out.writeByte(raw ? MESSAGE_BYTES_DEFLATE : MESSAGE_UTF8_DEFLATE);
+				out.writeInt(bytes.length);
+				writeBytes(out, compressed);
+				return;
+			}
+		}
+		out.writeByte(raw ? MESSAGE_BYTES : MESSAGE_UTF8);
+		writeBytes(out, bytes);
+	}
+
+	private static String readMessage(DataInputStream in, Inflater inflater) throws IOException {
+		byte type = in.readByte();
+		byte[] bytes;
+		switch (type) {
+			case MESSAGE_NULL:
+				return null;
+			case MESSAGE_UTF8:
+				return new String(readNonNullBytes(in), StandardCharsets.UTF_8);
+			case MESSAGE_UTF8_DEFLATE:
+				bytes = inflate(in, inflater);
+				return new String(bytes, StandardCharsets.UTF_8);
+			case MESSAGE_BYTES:
+				return Base64.getEncoder().encodeToString(readNonNullBytes(in));
+			case MESSAGE_BYTES_DEFLATE:
+				bytes = inflate(in, inflater);
+				return Base64.getEncoder().encodeToString(bytes);
+			default:
+				throw new IOException("Unknown message type " + type);
+		}
+	}
+
+	/**
+	 * @return the compressed bytes or null when compressing doesn't make the bytes smaller
+	 */
+	private static byte[] deflate(byte[] bytes, Deflater deflater) {
+		deflater.reset();
+		deflater.setInput(bytes);
+		deflater.finish();
+		byte[] buffer = new byte[bytes.length];
+		int length = 0;
+		while (!deflater.finished() && length < buffer.length) {
+			length += deflater.deflate(buffer, length, buffer.length - length);
+		}
+		if (!deflater.finished()) {
+			return null;
+		}
+		return Arrays.copyOf(buffer, length);
+	}
+
+	private static byte[] inflate(DataInputStream in, Inflater inflater) throws IOException {
+		int length = readNonNullLength(in);
+		byte[] compressed = readNonNullBytes(in);
+		if (length > (long)compressed.length * MAX_DEFLATE_RATIO) {
+			throw new IOException("Invalid length " + length + " for " + compressed.length + " compressed bytes");
+		}
+		byte[] bytes = new byte[length];
+		inflater.reset();
+		inflater.setInput(compressed);
+		try {
+			int offset = 0;
+			while (offset < length && !inflater.finished()) {
+				int inflated = inflater.inflate(bytes, offset, length - offset);
+				if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+					break;
+				}
+				offset += inflated;
+			}
+			if (offset != length) {
+				throw new IOException("Expected " + length + " bytes after decompressing message but got " + offset);
+			}
+		} catch (DataFormatException e) {
+			throw new IOException("Could not decompress message", e);
+		}
+		return bytes;
+	}
+
+	private static void writeMessageContext(DataOutputStream out, Map<String, Object> messageContext)
+			throws IOException {
+		if (messageContext == null) {
+			out.writeInt(NULL);
+			return;
+		}
+		out.writeInt(messageContext.size());
+		writeMapType(out, messageContext);
+		for (Map.Entry<String, Object> entry : messageContext.entrySet()) {
+			writeString(out, entry.getKey());
+			Object value = entry.getValue();
+			if (value == null) {
+				out.writeByte(VALUE_NULL);
+			} else if (value instanceof String) {
+				out.writeByte(VALUE_STRING);
+				writeString(out, (String)value);
+			} else if (value instanceof Integer) {
+				out.writeByte(VALUE_INTEGER);
+				out.writeInt((Integer)value);
+			} else if (value instanceof Long) {
+				out.writeByte(VALUE_LONG);
+				out.writeLong((Long)value);
+			} else if (value instanceof Boolean) {
+				out.writeByte(VALUE_BOOLEAN);
+				out.writeBoolean((Boolean)value);
+			} else if (value instanceof Double) {
+				out.writeByte(VALUE_DOUBLE);
+				out.writeDouble((Double)value);
+			} else {
+				// Other types are rare, use Java serialization like for the report as a whole in the serialized format
+				out.writeByte(VALUE_SERIALIZED);
+				ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+				try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(byteArrayOutputStream)) {
+					objectOutputStream.writeObject(value);
+				}
+				writeBytes(out, byteArrayOutputStream.toByteArray());
+			}
+		}
+	}
+
+	private static Map<String, Object> readMessageContext(DataInputStream in) throws IOException {
+		int size = readLength(in);
+		if (size == NULL) {
+			return null;
+		}
+		Map<String, Object> messageContext = readMapType(in);
+		for (int i = 0; i < size; i++) {
+			String key = readString(in);
+			byte type = in.readByte();
+			switch (type) {
+				case VALUE_NULL:
+					messageContext.put(key, null);
+					break;
+				case VALUE_STRING:
+					messageContext.put(key, readString(in));
+					break;
+				case VALUE_INTEGER:
+					messageContext.put(key, in.readInt());
+					break;
+				case VALUE_LONG:
+					messageContext.put(key, in.readLong());
+					break;
+				case VALUE_BOOLEAN:
+					messageContext.put(key, in.readBoolean());
+					break;
+				case VALUE_DOUBLE:
+					messageContext.put(key, in.readDouble());
+					break;
+				case VALUE_SERIALIZED:
+					try (ReportInputStream objectInputStream = new ReportInputStream(
+							new ByteArrayInputStream(readNonNullBytes(in)))) {
+						messageContext.put(key, objectInputStream.readObject());
+					} catch (ClassNotFoundException e) {
+						throw new IOException("Could not read message context value for key " + key, e);
+					}
+					break;
+				default:
+					throw new IOException("Unknown message context value type " + type);
+			}
+		}
+		return messageContext;
+	}
+
+}
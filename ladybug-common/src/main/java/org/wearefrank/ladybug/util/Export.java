@@ -1,5 +1,5 @@
 /*
-   Copyright 2020-2022, 2024, 2025, 2026 WeAreFrank!, 2018 Nationale-Nederlanden
+   Copyright 2020-2022, 2024-2026 WeAreFrank!, 2018 Nationale-Nederlanden
 
    Licensed under the Apache License, Version 2.0 (the "License");
    you may not use this file except in compliance with the License.
@@ -28,8 +28,8 @@ import java.lang.invoke.MethodHandles;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
@@ -49,6 +49,7 @@ import org.wearefrank.ladybug.storage.StorageException;
 
 public class Export {
 	private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+	private static final int GET_REPORTS_CHUNK_SIZE = 100;
 
 	public static ExportResult export(Storage storage) {
 		return export(storage, null);
@@ -125,36 +126,51 @@ public class Export {
 				zipOutputStream = new ZipOutputStream(fileOutputStream);
 				Set duplicateCheck = new HashSet();
 				int numActualReports = 0;
-				Iterator iterator = storageIds.iterator();
-				while (iterator.hasNext()) {
+				for (int i = 0; i < storageIds.size(); i = i + GET_REPORTS_CHUNK_SIZE) {
+					// Get the reports in chunks to get them efficiently without holding all reports in memory
+					List chunk = storageIds.subList(i, Math.min(i + GET_REPORTS_CHUNK_SIZE, storageIds.size()));
+					Map<Integer, Report> reports;
 					try {
-						report = storage.getReport((Integer) iterator.next());
-						log.debug("Retrieved report for storage id {}", report.getStorageId());
-						if (report == null)
-							continue;
-						if (globalXsltSetter != null) globalXsltSetter.accept(report);
-						if (forMultipleOmitIfXmlEmpty && report.toXml().length() == 0)
-							continue;
-						++numActualReports;
+						reports = storage.getReports(chunk);
 					} catch (Exception e) {
-						exportResult.setErrorMessage(e.toString());
-						continue;
-					}
-					// TODO bij storage al afvangen dat er geen dubbele namen voor kunnen komen?
-					int duplicateNumber = 1;
-					String zipEntryName = getZipEntryName(report, duplicateNumber);
-					while (duplicateCheck.contains(zipEntryName)) {
-						duplicateNumber++;
-						zipEntryName = getZipEntryName(report, duplicateNumber);
-					}
-					duplicateCheck.add(zipEntryName);
-					if (exportReport) {
-						writeReport(report, zipEntryName, zipOutputStream);
+						// Get the reports of this chunk one by one so only the reports that cannot be read are skipped
+						log.warn("Could not get reports " + chunk + ", will get them one by one", e);
+						reports = null;
 					}
-					if (exportReportXml) {
-						String reportXml = report.toXml();
-						zipEntryName = zipEntryName.substring(0, zipEntryName.length() - 4) + getFileExtension(reportXml);
-						writeReportXml(reportXml, zipEntryName, zipOutputStream);
+					for (Object storageId : chunk) {
+						try {
+							if (reports == null) {
+								report = storage.getReport((Integer)storageId);
+							} else {
+								report = reports.get(storageId);
+							}
+							if (report == null)
+								continue;
+							log.debug("Retrieved report for storage id {}", report.getStorageId());
+							if (globalXsltSetter != null) globalXsltSetter.accept(report);
+							if (forMultipleOmitIfXmlEmpty && report.toXml().length() == 0)
+								continue;
+							++numActualReports;
+						} catch (Exception e) {
+							exportResult.setErrorMessage(e.toString());
+							continue;
+						}
+						// TODO bij storage al afvangen dat er geen dubbele namen voor kunnen komen?
+						int duplicateNumber = 1;
+						String zipEntryName = getZipEntryName(report, duplicateNumber);
+						while (duplicateCheck.contains(zipEntryName)) {
+							duplicateNumber++;
+							zipEntryName = getZipEntryName(report, duplicateNumber);
+						}
+						duplicateCheck.add(zipEntryName);
+						if (exportReport) {
+							writeReport(report, zipEntryName, zipOutputStream);
+						}
+						if (exportReportXml) {
+							String reportXml = report.toXml();
+							zipEntryName = zipEntryName.substring(0, zipEntryName.length() - 4) + getFileExtension(reportXml);
+							writeReportXml(reportXml, zipEntryName, zipOutputStream);
+						}
 					}
 				}
 				exportResult.setSuggestedFilename(outputFileNameExtender.apply(exportResult.getSuggestedFilename(), numActualReports));
@@ -317,6 +333,26 @@ public class Export {
 	}
 
 	public static byte[] getReportBytes(Report report) throws StorageException {
+		return getReportBytes(report, ReportFormat.SERIALIZED);
+	}
+
+	/**
+	 * Get the bytes of the report in the specified format. The bytes can be converted back to a report with
+	 * {@link Import#getReport(java.io.InputStream, Integer, Long, Logger)} for every format.
+	 *
+	 * @param report       the report to convert
+	 * @param reportFormat the format to use
+	 * @return the bytes of the report
+	 * @throws StorageException ...
+	 */
+	public static byte[] getReportBytes(Report report, ReportFormat reportFormat) throws StorageException {
+		if (reportFormat == ReportFormat.BINARY || reportFormat == ReportFormat.BINARY_DEFLATE) {
+			try {
+				return BinaryReportCodec.encode(report, reportFormat == ReportFormat.BINARY_DEFLATE);
+			} catch(IOException e) {
+				logAndThrow(log, e, "IOException storing report");
+			}
+		}
 		ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
 		GZIPOutputStream gzipOutputStream = null;
 		ObjectOutputStream objectOutputStream = null;
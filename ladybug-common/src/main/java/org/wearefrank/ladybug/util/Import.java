@@ -1,5 +1,5 @@
 /*
-   Copyright 2020-2022, 2025 WeAreFrank!, 2018 Nationale-Nederlanden
+   Copyright 2020-2022, 2025, 2026 WeAreFrank!, 2018 Nationale-Nederlanden
 
    Licensed under the Apache License, Version 2.0 (the "License");
    you may not use this file except in compliance with the License.
@@ -15,11 +15,22 @@
 */
 package org.wearefrank.ladybug.util;
 
+import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
@@ -31,6 +42,8 @@ import org.wearefrank.ladybug.storage.StorageException;
 import org.wearefrank.ladybug.xmldecoder.XMLDecoder;
 
 public class Import {
+	private static final int DECODE_THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+	private static final long DECODE_THREADS_KEEP_ALIVE_SECONDS = 60;
 
 	public static String importZip(InputStream inputStream, CrudStorage storage, Logger log) {
 		String errorMessage = null;
@@ -101,6 +114,16 @@ public class Import {
 		Report report = null;
 		ImportResult importResult = new ImportResult();
 		try {
+			if (!inputStream.markSupported()) {
+				inputStream = new BufferedInputStream(inputStream);
+			}
+			if (BinaryReportCodec.hasFormatMarker(inputStream)) {
+				report = BinaryReportCodec.decode(inputStream);
+				if (log != null) log.debug("Decoded binary report: " + report.getName());
+				importResult.oldStorageId = report.getStorageId();
+				storage.store(report);
+				return importResult;
+			}
 			gzipInputStream = new GZIPInputStream(inputStream);
 			xmlDecoder = new XMLDecoder(gzipInputStream);
 			version = (String)xmlDecoder.readObject();
@@ -134,7 +157,7 @@ public class Import {
 				closeInputStream(gzipInputStream, "closing gzip input stream after ttr import", log);
 			}
 			if (inputStream != null) {
-				closeInputStream(gzipInputStream, "closing input stream after ttr import", log);
+				closeInputStream(inputStream, "closing input stream after ttr import", log);
 			}
 		}
 		return importResult;
@@ -145,6 +168,15 @@ public class Import {
 		GZIPInputStream gzipInputStream = null;
 		ReportInputStream reportInputStream = null;
 		try {
+			if (!inputStream.markSupported()) {
+				inputStream = new BufferedInputStream(inputStream);
+			}
+			if (BinaryReportCodec.hasFormatMarker(inputStream)) {
+				report = BinaryReportCodec.decode(inputStream);
+				report.setStorageId(storageId);
+				report.setStorageSize(storageSize);
+				return report;
+			}
 			gzipInputStream = new GZIPInputStream(inputStream);
 			reportInputStream = new ReportInputStream(gzipInputStream);
 			report = (Report)reportInputStream.readObject();
@@ -165,6 +197,87 @@ public class Import {
 		return report;
 	}
 
+	/**
+	 * Decode the bytes of more than one report in parallel (on the executor service of the caller, see
+	 * {@link #createDecodeExecutorService(String)}) using {@link #getReport(InputStream, Integer, Long, Logger)}.
+	 *
+	 * @param reportsBytes     the bytes per storageId
+	 * @param executorService  the executor service to decode the reports on or null to decode them in the calling
+	 *                         thread (reports rejected by the executor service, e.g. because it has been shut down,
+	 *                         are decoded in the calling thread too)
+	 * @param log              ...
+	 * @return                 the reports per storageId in the same order as reportsBytes
+	 * @throws StorageException when one of the reports could not be decoded
+	 */
+	public static Map<Integer, Report> getReports(Map<Integer, byte[]> reportsBytes, ExecutorService executorService,
+			Logger log) throws StorageException {
+		Map<Integer, Report> reports = new LinkedHashMap<Integer, Report>();
+		if (reportsBytes.size() < 2 || executorService == null) {
+			for (Map.Entry<Integer, byte[]> entry : reportsBytes.entrySet()) {
+				reports.put(entry.getKey(), getReport(entry.getKey(), entry.getValue(), log));
+			}
+			return reports;
+		}
+		Map<Integer, Future<Report>> futures = new LinkedHashMap<Integer, Future<Report>>();
+		try {
+			for (Map.Entry<Integer, byte[]> entry : reportsBytes.entrySet()) {
+				futures.put(entry.getKey(), executorService.submit(() -> getReport(entry.getKey(), entry.getValue(), log)));
+			}
+		} catch (RejectedExecutionException e) {
+			// Executor service has been shut down (storage closed), decode the reports not submitted in this thread
+			log.debug("Decode executor service rejected report, decode remaining reports in calling thread");
+		}
+		try {
+			for (Map.Entry<Integer, byte[]> entry : reportsBytes.entrySet()) {
+				Future<Report> future = futures.get(entry.getKey());
+				if (future == null) {
+					reports.put(entry.getKey(), getReport(entry.getKey(), entry.getValue(), log));
+					continue;
+				}
+				try {
+					reports.put(entry.getKey(), future.get());
+				} catch (ExecutionException e) {
+					if (e.getCause() instanceof StorageException) {
+						throw (StorageException)e.getCause();
+					}
+					logAndThrow(log, e, "Exception reading report " + entry.getKey() + " from bytes");
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			logAndThrow(log, e, "Interrupted reading reports from bytes");
+		} finally {
+			for (Future<Report> future : futures.values()) {
+				future.cancel(false);
+			}
+		}
+		return reports;
+	}
+
+	private static Report getReport(Integer storageId, byte[] reportBytes, Logger log) throws StorageException {
+		return getReport(new ByteArrayInputStream(reportBytes), storageId, (long)reportBytes.length, log);
+	}
+
+	/**
+	 * Create an executor service for {@link #getReports(Map, ExecutorService, Logger)}. The caller (e.g. a storage)
+	 * owns the executor service and should shut it down when closed. Threads are started when needed and stopped when
+	 * idle for a minute.
+	 *
+	 * @param name  name to use in the names of the threads
+	 * @return      a new executor service with a fixed maximum number of threads
+	 */
+	public static ExecutorService createDecodeExecutorService(String name) {
+		AtomicInteger threadNumber = new AtomicInteger();
+		ThreadPoolExecutor executorService = new ThreadPoolExecutor(DECODE_THREADS, DECODE_THREADS,
+				DECODE_THREADS_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), runnable -> {
+					Thread thread = new Thread(runnable, "Ladybug-" + name + "-decode-" + threadNumber.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				});
+		executorService.allowCoreThreadTimeOut(true);
+		return executorService;
+	}
+
 	public static void closeInputStream(InputStream inputStream, String action, Logger log) {
 		try {
 			inputStream.close();
@@ -0,0 +1,33 @@
+/*
+   Copyright 2026 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.wearefrank.ladybug.util;
+
+/**
+ * Format used by a storage to convert a report to bytes (see {@link Export#getReportBytes(org.wearefrank.ladybug.Report,
+ * ReportFormat)}). Reports are always read with {@link Import#getReport(java.io.InputStream, Integer, Long,
+ * org.slf4j.Logger)} which will detect the format that was used so the format of a storage can be changed without
+ * losing the reports that have already been stored.
+ *
+ * @author Jaco de Groot
+ */
+public enum ReportFormat {
+	/** Java serialization (ObjectOutputStream) compressed with GZIP */
+	SERIALIZED,
+	/** {@link BinaryReportCodec} without compression */
+	BINARY,
+	/** {@link BinaryReportCodec} with Deflate compression of large messages */
+	BINARY_DEFLATE
+}
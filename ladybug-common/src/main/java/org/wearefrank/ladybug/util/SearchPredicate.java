@@ -0,0 +1,302 @@
+/*
+   Copyright 2026 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.wearefrank.ladybug.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringTokenizer;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Search value (see {@link SearchUtil#getUserHelp()}) compiled once to match it against many values (e.g. the
+ * metadata of all reports in a storage) without interpreting the search value again for every value.
+ * 
+ * @author Jaco de Groot
+ */
+public class SearchPredicate {
+	private static final SearchPredicate MATCH_ALL = new SearchPredicate(Type.ALL);
+	private static final SearchPredicate MATCH_NULL = new SearchPredicate(Type.NULL);
+	private static final SearchPredicate MATCH_EMPTY = new SearchPredicate(Type.EMPTY);
+
+	private static final int MAX_DECIMAL_TOKEN_LENGTH = 18;
+
+	private enum Type { ALL, REGEX, NULL, EMPTY, CONTAINS, WILDCARD }
+
+	private final Type type;
+	private Pattern pattern;
+	private PatternSyntaxException patternSyntaxException;
+	private boolean caseInsensitive;
+	private boolean startsWithWildcard;
+	private boolean endsWithWildcard;
+	private String[] tokens;
+	// Number that the decimal representation of a value must contain, start with or end with when the search value
+	// consists of one token of digits (-1 otherwise), see matches(long)
+	private long decimalToken = -1;
+	private boolean digitsOnly;
+
+	private SearchPredicate(Type type) {
+		this.type = type;
+	}
+
+	/**
+	 * @param query  search value, null or empty string will match every value
+	 * @return       the compiled search value
+	 */
+	public static SearchPredicate compile(String query) {
+		if (query == null || "".equals(query)) {
+			return MATCH_ALL;
+		}
+		if (query.startsWith("(") && query.endsWith(")")) {
+			// Regex search
+			SearchPredicate searchPredicate = new SearchPredicate(Type.REGEX);
+			try {
+				searchPredicate.pattern = Pattern.compile(query);
+			} catch (PatternSyntaxException e) {
+				// Throw it on match like String.matches() did before search values were compiled. Storages inform the
+				// user about it before matching (see getErrorMessage())
+				searchPredicate.patternSyntaxException = e;
+			}
+			return searchPredicate;
+		}
+		if (query.equals("null")) {
+			// Special value search
+			return MATCH_NULL;
+		}
+		// Wildcard search
+		boolean caseInsensitive = true;
+		if (query.startsWith("[[") && query.endsWith("]]")) {
+			query = query.substring(2, query.length() - 2);
+			caseInsensitive = false;
+		} else if (query.startsWith("[") && query.endsWith("]")) {
+			query = query.substring(1, query.length() - 1);
+		} else if (!(query.startsWith("*") || query.endsWith("*"))){
+			query = "*" + query + "*";
+		}
+		if (query.equals("")) {
+			return MATCH_EMPTY;
+		}
+		if (caseInsensitive) {
+			query = query.toLowerCase();
+		}
+		List<String> tokens = new ArrayList<String>();
+		StringTokenizer stringTokenizer = new StringTokenizer(query, "*");
+		while (stringTokenizer.hasMoreTokens()) {
+			tokens.add(stringTokenizer.nextToken());
+		}
+		boolean startsWithWildcard = query.startsWith("*");
+		boolean endsWithWildcard = query.endsWith("*");
+		SearchPredicate searchPredicate;
+		if (startsWithWildcard && endsWithWildcard && tokens.size() <= 1) {
+			searchPredicate = new SearchPredicate(Type.CONTAINS);
+		} else {
+			searchPredicate = new SearchPredicate(Type.WILDCARD);
+		}
+		searchPredicate.caseInsensitive = caseInsensitive;
+		searchPredicate.startsWithWildcard = startsWithWildcard;
+		searchPredicate.endsWithWildcard = endsWithWildcard;
+		searchPredicate.tokens = tokens.toArray(new String[tokens.size()]);
+		searchPredicate.digitsOnly = true;
+		for (String token : tokens) {
+			for (int i = 0; i < token.length(); i++) {
+				if (token.charAt(i) < '0' || token.charAt(i) > '9') {
+					searchPredicate.digitsOnly = false;
+				}
+			}
+		}
+		if (searchPredicate.digitsOnly && tokens.size() == 1 && tokens.get(0).length() <= MAX_DECIMAL_TOKEN_LENGTH) {
+			searchPredicate.decimalToken = Long.parseLong(tokens.get(0));
+		}
+		return searchPredicate;
+	}
+
+	/**
+	 * @return  true when every value will match (e.g. the search value was null or an empty string)
+	 */
+	public boolean isMatchAll() {
+		return type == Type.ALL;
+	}
+
+	/**
+	 * @return  a message for the user about an invalid search value (e.g. a regular expression with a syntax error) or
+	 *          null when the search value is valid
+	 */
+	public String getErrorMessage() {
+		if (patternSyntaxException != null) {
+			return "Invalid regular expression search value '" + patternSyntaxException.getPattern() + "': "
+					+ patternSyntaxException.getDescription();
+		}
+		return null;
+	}
+
+	public boolean matches(Object value) {
+		switch (type) {
+			case ALL:
+				return true;
+			case REGEX:
+				if (patternSyntaxException != null) {
+					throw patternSyntaxException;
+				}
+				return pattern.matcher(value == null ? "" : value.toString()).matches();
+			case NULL:
+				return value == null;
+			case EMPTY:
+				return value != null && value.toString().equals("");
+			default:
+				String valueAsString = value == null ? "" : value.toString();
+				if (caseInsensitive) {
+					valueAsString = valueAsString.toLowerCase();
+				}
+				if (type == Type.CONTAINS) {
+					return tokens.length == 0 || valueAsString.contains(tokens[0]);
+				}
+				return matchesWildcards(valueAsString);
+		}
+	}
+
+	/**
+	 * Same as {@link #matches(Object)} for an Integer or Long value (which will be matched against its decimal
+	 * representation) without boxing the value. Exact and contains searches for a number are evaluated on the value
+	 * itself, search values with other characters than digits (apart from the wildcards) will never match a positive
+	 * value.
+	 * 
+	 * @param value  the value to match
+	 * @return       whether the value matches
+	 */
+	public boolean matches(long value) {
+		switch (type) {
+			case ALL:
+				return true;
+			case NULL:
+			case EMPTY:
+				return false;
+			case CONTAINS:
+				if (value >= 0) {
+					if (tokens.length == 0) {
+						return true;
+					} else if (!digitsOnly) {
+						return false;
+					} else if (decimalToken != -1) {
+						return containsDecimal(value, decimalToken, tokens[0].length());
+					}
+				}
+				return matches(Long.toString(value));
+			case WILDCARD:
+				if (value >= 0) {
+					if (!digitsOnly) {
+						return false;
+					} else if (decimalToken != -1 && !startsWithWildcard) {
+						// Same as matchesWildcards() for one token
+						return startsWithDecimal(value, decimalToken, tokens[0].length());
+					} else if (decimalToken != -1 && !endsWithWildcard) {
+						return endsWithDecimal(value, decimalToken, tokens[0].length());
+					}
+				}
+				return matches(Long.toString(value));
+			default:
+				return matches(Long.toString(value));
+		}
+	}
+
+	/**
+	 * @return  whether the decimal representation of value (a positive number) starts with the decimal representation
+	 *          of token padded with leading zeros to the specified length
+	 */
+	private static boolean startsWithDecimal(long value, long token, int tokenLength) {
+		if (value == 0) {
+			return tokenLength == 1 && token == 0;
+		}
+		long tokenPower = getPowerOfTen(tokenLength);
+		if (token < tokenPower / 10) {
+			// Leading zeros
+			return false;
+		}
+		long shiftedValue = value;
+		while (shiftedValue >= tokenPower) {
+			shiftedValue = shiftedValue / 10;
+		}
+		return shiftedValue == token;
+	}
+
+	/**
+	 * @return  whether the decimal representation of value (a positive number) ends with the decimal representation of
+	 *          token padded with leading zeros to the specified length
+	 */
+	private static boolean endsWithDecimal(long value, long token, int tokenLength) {
+		if (value == 0) {
+			return tokenLength == 1 && token == 0;
+		}
+		long tokenPower = getPowerOfTen(tokenLength);
+		return value >= tokenPower / 10 && value % tokenPower == token;
+	}
+
+	/**
+	 * @return  whether the decimal representation of value (a positive number) contains the decimal representation of
+	 *          token padded with leading zeros to the specified length
+	 */
+	private static boolean containsDecimal(long value, long token, int tokenLength) {
+		if (value == 0) {
+			return tokenLength == 1 && token == 0;
+		}
+		long tokenPower = getPowerOfTen(tokenLength);
+		// Compare the last tokenLength digits and shift value one digit to the right for as long as at least
+		// tokenLength digits are left
+		long minimum = tokenPower / 10;
+		for (long shiftedValue = value; shiftedValue >= minimum; shiftedValue = shiftedValue / 10) {
+			if (shiftedValue % tokenPower == token) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static long getPowerOfTen(int exponent) {
+		long power = 1;
+		for (int i = 0; i < exponent; i++) {
+			power = power * 10;
+		}
+		return power;
+	}
+
+	private boolean matchesWildcards(String valueAsString) {
+		boolean queryStartsWithWildcard = startsWithWildcard;
+		int j = 0;
+		for (int i = 0; i < tokens.length; i++) {
+			String token = tokens[i];
+			if (!queryStartsWithWildcard) {
+				if (!valueAsString.startsWith(token)) {
+					return false;
+				}
+				queryStartsWithWildcard = true;
+			} else if (!endsWithWildcard && i == tokens.length - 1) {
+				if (!valueAsString.substring(j).endsWith(token)) {
+					return false;
+				}
+			} else if (token.length() != 0) {
+				if (j + token.length() > valueAsString.length()) {
+					return false;
+				}
+				j = valueAsString.indexOf(token, j);
+				if (j == -1) {
+					return false;
+				}
+				j = j + token.length();
+			}
+		}
+		return true;
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
-   Copyright 2020, 2022-2023, 2025 WeAreFrank!, 2018 Nationale-Nederlanden
+   Copyright 2020, 2022-2023, 2025-2026 WeAreFrank!, 2018 Nationale-Nederlanden
 
    Licensed under the Apache License, Version 2.0 (the "License");
    you may not use this file except in compliance with the License.
@@ -15,8 +15,10 @@
 */
 package org.wearefrank.ladybug.util;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.StringTokenizer;
+
+import org.wearefrank.ladybug.storage.StorageException;
 
 /**
  * @author Jaco de Groot
@@ -24,11 +26,51 @@ import java.util.StringTokenizer;
 public class SearchUtil {
 
 	public static boolean matches(List<Object> values, List<String> searchValues) {
-		if (searchValues != null) {
+		return matchesPredicates(values, compile(searchValues));
+	}
+
+	/**
+	 * Compile search values once to match them against the values of many records with
+	 * {@link #matchesPredicates(List, List)}
+	 * 
+	 * @param searchValues  search values (may contain null) or null
+	 * @return              compiled search values or null when searchValues is null
+	 */
+	public static List<SearchPredicate> compile(List<String> searchValues) {
+		if (searchValues == null) {
+			return null;
+		}
+		List<SearchPredicate> searchPredicates = new ArrayList<SearchPredicate>(searchValues.size());
+		for (String searchValue : searchValues) {
+			searchPredicates.add(SearchPredicate.compile(searchValue));
+		}
+		return searchPredicates;
+	}
+
+	/**
+	 * Same as {@link #compile(List)} but throw an exception with a message for the user when a search value isn't valid
+	 * (instead of throwing a runtime exception on match)
+	 * 
+	 * @param searchValues  search values (may contain null) or null
+	 * @return              compiled search values or null when searchValues is null
+	 * @throws StorageException when a search value isn't valid (see {@link SearchPredicate#getErrorMessage()})
+	 */
+	public static List<SearchPredicate> compileAndValidate(List<String> searchValues) throws StorageException {
+		List<SearchPredicate> searchPredicates = compile(searchValues);
+		if (searchPredicates != null) {
+			for (SearchPredicate searchPredicate : searchPredicates) {
+				if (searchPredicate.getErrorMessage() != null) {
+					throw new StorageException(searchPredicate.getErrorMessage());
+				}
+			}
+		}
+		return searchPredicates;
+	}
+
+	public static boolean matchesPredicates(List<Object> values, List<SearchPredicate> searchPredicates) {
+		if (searchPredicates != null) {
 			for (int i = 0; i < values.size(); i++) {
-				Object value = values.get(i);
-				String searchValue = (String)searchValues.get(i);
-				if (!matches(value, searchValue)) {
+				if (!searchPredicates.get(i).matches(values.get(i))) {
 					return false;
 				}
 			}
@@ -57,79 +99,7 @@ public class SearchUtil {
 	}
 
 	public static boolean matches(Object value, String query) {
-		if (query != null && !"".equals(query)) {
-			if (query.startsWith("(") && query.endsWith(")")) {
-				// Regex search
-				if (value == null) {
-					value = "";
-				}
-				// TODO Catch PatternSyntaxException and/or inform the user about it?
-				if (!value.toString().matches(query)) {
-					return false;
-				}
-			} else {
-				if (query.equals("null")) {
-					// Special value search
-					if (value != null) {
-						return false;
-					}
-				} else {
-					// Wildcard search
-					boolean caseInsensitive = true;
-					if (query.startsWith("[[") && query.endsWith("]]")) {
-						query = query.substring(2, query.length() - 2);
-						caseInsensitive = false;
-					} else if (query.startsWith("[") && query.endsWith("]")) {
-						query = query.substring(1, query.length() - 1);
-					} else if (!(query.startsWith("*") || query.endsWith("*"))){
-						query = "*" + query + "*";
-					}
-					String valueAsString;
-					if (value == null) {
-						valueAsString = "";
-					} else {
-						valueAsString = value.toString();
-					}
-					if (query.equals("")) {
-						if (value == null || !valueAsString.equals("")) {
-							return false;
-						}
-					} else {
-						if (caseInsensitive) {
-							query = query.toLowerCase();
-							valueAsString = valueAsString.toLowerCase();
-						}
-						boolean queryStartsWithWildcard = query.startsWith("*");
-						boolean queryEndsWithWildcard = query.endsWith("*");
-						int j = 0;
-						StringTokenizer stringTokenizer = new StringTokenizer(query, "*");
-						while (stringTokenizer.hasMoreTokens()) {
-							String token = stringTokenizer.nextToken();
-							if (!queryStartsWithWildcard) {
-								if (!valueAsString.startsWith(token)) {
-									return false;
-								}
-								queryStartsWithWildcard = true;
-							} else if (!queryEndsWithWildcard && !stringTokenizer.hasMoreTokens()) {
-								if (!valueAsString.substring(j).endsWith(token)) {
-									return false;
-								}
-							} else if (token.length() != 0) {
-								if (j + token.length() > valueAsString.length()) {
-									return false;
-								}
-								j = valueAsString.indexOf(token, j);
-								if (j == -1) {
-									return false;
-								}
-								j = j + token.length();
-							}
-						}
-					}
-				}
-			}
-		}
-		return true;
+		return SearchPredicate.compile(query).matches(value);
 	}
 
 }
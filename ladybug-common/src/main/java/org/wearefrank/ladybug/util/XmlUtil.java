@@ -1,5 +1,5 @@
 /*
-   Copyright 2020-2022, 2024, 2025 WeAreFrank!, 2018 Nationale-Nederlanden
+   Copyright 2020-2022, 2024-2026 WeAreFrank!, 2018 Nationale-Nederlanden
 
    Licensed under the Apache License, Version 2.0 (the "License");
    you may not use this file except in compliance with the License.
@@ -26,6 +26,7 @@ import java.io.OutputStream;
 import java.io.PrintStream;
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.io.Writer;
 
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
@@ -47,6 +48,8 @@ import org.xml.sax.helpers.DefaultHandler;
 
 import lombok.SneakyThrows;
 import net.sf.saxon.Configuration;
+import net.sf.saxon.om.NodeInfo;
+import net.sf.saxon.trans.XPathException;
 import net.sf.saxon.xpath.XPathEvaluator;
 import org.wearefrank.ladybug.storage.StorageException;
 
@@ -68,6 +71,18 @@ public class XmlUtil {
 		return new StreamSource(stringReader);
 	}
 
+	/**
+	 * Parse xml into a tree that can be passed to {@link XPathExpression#evaluate(Object)} of expressions created with
+	 * {@link #createXPathExpression(String)} multiple times without parsing the xml again
+	 * 
+	 * @param xml  the xml to parse
+	 * @return     the root node of the tree
+	 * @throws XPathException when the xml cannot be parsed
+	 */
+	public static NodeInfo buildXmlTree(String xml) throws XPathException {
+		return xpathEvaluator.getConfiguration().buildDocumentTree(createXmlSourceFromString(xml)).getRootNode();
+	}
+
 	public static boolean isXml(String xml) {
 		InputSource inputSource = new InputSource(new StringReader(xml));
 		SAXParserFactory factory = new org.apache.xerces.jaxp.SAXParserFactoryImpl();
@@ -117,19 +132,27 @@ public class XmlUtil {
 		return DocumentBuilderFactory.newInstance();
 	}
 
-	@SneakyThrows
 	public static String nodeToString(Node node) {
 		if (node.getNodeType() == Node.CDATA_SECTION_NODE || node.getNodeType() == Node.TEXT_NODE) {
 			return node.getNodeValue();
 		} else {
-			Transformer transformer = getTransformerFactory().newTransformer();
-			transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
 			StringWriter stringWriter = new StringWriter();
-			transformer.transform(new DOMSource(node), new StreamResult(stringWriter));
+			nodeToWriter(node, stringWriter);
 			return stringWriter.toString();
 		}
 	}
 
+	@SneakyThrows
+	public static void nodeToWriter(Node node, Writer writer) {
+		if (node.getNodeType() == Node.CDATA_SECTION_NODE || node.getNodeType() == Node.TEXT_NODE) {
+			writer.write(node.getNodeValue());
+		} else {
+			Transformer transformer = getTransformerFactory().newTransformer();
+			transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+			transformer.transform(new DOMSource(node), new StreamResult(writer));
+		}
+	}
+
 	public static Node stringToNode(String string) throws SAXException, IOException, ParserConfigurationException {
 		return getDocumentBuilderFactory().newDocumentBuilder()
 				.parse(new ByteArrayInputStream(string.getBytes())).getDocumentElement();
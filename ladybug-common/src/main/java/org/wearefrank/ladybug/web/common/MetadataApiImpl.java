@@ -17,10 +17,13 @@ package org.wearefrank.ladybug.web.common;
 
 import jakarta.inject.Inject;
 import lombok.Setter;
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.wearefrank.ladybug.MetadataExtractor;
 import org.wearefrank.ladybug.TestTool;
+import org.wearefrank.ladybug.storage.InvalidCursorException;
+import org.wearefrank.ladybug.storage.MetadataPage;
 import org.wearefrank.ladybug.storage.Storage;
 import org.wearefrank.ladybug.storage.StorageException;
 
@@ -40,6 +43,65 @@ public class MetadataApiImpl {
 															   int limit,
 															   List<String> filterHeaders,
 															   List<String> filterParams) throws HttpNotFoundException, HttpInternalServerErrorException {
+		List<String> searchValues = getSearchValues(metadataNames, filterHeaders, filterParams);
+		// Get storage, search for metadata, and return the results.
+		Storage storage = getStorage(storageName);
+		List<List<Object>> records = null;
+		try {
+			records = storage.getMetadata(limit, metadataNames, searchValues, MetadataExtractor.VALUE_TYPE_GUI);
+			if (records == null) {
+				throw new HttpInternalServerErrorException(String.format("Got null pointer from asking records from storage [%s]", storageName));
+			}
+		} catch(Exception e) {
+			throw new HttpInternalServerErrorException(e);
+		}
+		return toMetadataItems(storageName, metadataNames, records);
+	}
+
+	/**
+	 * Same as {@link #getMetadataList(String, List, int, List, List)} for one page of records. The next page can be
+	 * requested with the nextCursor of the result.
+	 *
+	 * @return map with the metadata (list of records) and nextCursor (null when there are no more records)
+	 */
+	public Map<String, Object> getMetadataPage(String storageName,
+											   List<String> metadataNames,
+											   int pageSize,
+											   String cursor,
+											   String sort,
+											   String direction,
+											   List<String> filterHeaders,
+											   List<String> filterParams) throws HttpBadRequestException, HttpNotFoundException, HttpInternalServerErrorException {
+		boolean descending;
+		if ("desc".equalsIgnoreCase(direction)) {
+			descending = true;
+		} else if ("asc".equalsIgnoreCase(direction)) {
+			descending = false;
+		} else {
+			throw new HttpBadRequestException(String.format("Invalid direction [%s], should be asc or desc", direction));
+		}
+		if (StringUtils.isNotEmpty(sort) && !metadataNames.contains(sort)) {
+			throw new HttpBadRequestException(String.format("Sort [%s] should be one of the metadata names %s", sort, metadataNames));
+		}
+		List<String> searchValues = getSearchValues(metadataNames, filterHeaders, filterParams);
+		Storage storage = getStorage(storageName);
+		MetadataPage page;
+		try {
+			page = storage.getMetadataPage(pageSize, StringUtils.isEmpty(cursor) ? null : cursor,
+					StringUtils.isEmpty(sort) ? null : sort, descending, metadataNames, searchValues,
+					MetadataExtractor.VALUE_TYPE_GUI);
+		} catch(InvalidCursorException e) {
+			throw new HttpBadRequestException(e.getMessage());
+		} catch(Exception e) {
+			throw new HttpInternalServerErrorException(e);
+		}
+		Map<String, Object> result = new LinkedHashMap<>();
+		result.put("metadata", toMetadataItems(storageName, metadataNames, page.getRecords()));
+		result.put("nextCursor", page.getNextCursor());
+		return result;
+	}
+
+	private List<String> getSearchValues(List<String> metadataNames, List<String> filterHeaders, List<String> filterParams) {
 		List<String> searchValues = new ArrayList<>();
 		for (String field : metadataNames) {
 			boolean changed = false;
@@ -53,20 +115,19 @@ public class MetadataApiImpl {
 				searchValues.add(null);
 			}
 		}
-		// Get storage, search for metadata, and return the results.
+		return searchValues;
+	}
+
+	private Storage getStorage(String storageName) throws HttpNotFoundException {
 		Storage storage = testTool.getStorage(storageName);
 		if (storage == null) {
 			throw new HttpNotFoundException(String.format("Storage [%s] not found", storageName));
 		}
-		List<List<Object>> records = null;
-		try {
-			records = storage.getMetadata(limit, metadataNames, searchValues, MetadataExtractor.VALUE_TYPE_GUI);
-			if (records == null) {
-				throw new HttpInternalServerErrorException(String.format("Got null pointer from asking records from storage [%s]", storageName));
-			}
-		} catch(Exception e) {
-			throw new HttpInternalServerErrorException(e);
-		}
+		return storage;
+	}
+
+	private List<LinkedHashMap<String, String>> toMetadataItems(String storageName, List<String> metadataNames,
+			List<List<Object>> records) throws HttpInternalServerErrorException {
 		List<LinkedHashMap<String, String>> metadata = new ArrayList<>();
 		for (List<Object> record : records) {
 			if (record.size() <= 0) {
@@ -47,10 +47,11 @@ import org.wearefrank.ladybug.web.common.shownreport.ShownReportBuilder;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Serializable;
+import java.io.Writer;
 import java.lang.invoke.MethodHandles;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Comparator;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -110,14 +111,39 @@ public class ReportApiImpl {
 	public Map<String, Object> getReport(String storageName,
 										 int storageId,
 										 boolean globalTransformer) throws HttpNotFoundException {
-		return getReportImpl(storageName, storageId, globalTransformer, (report) -> report);
+		return getReport(storageName, storageId, globalTransformer, true);
 	}
 
-	private <T> Map<String, Object> getReportImpl(
-			String storageName,
-			int storageId,
-			boolean globalTransformation,
-			Function<Report, T> reportPreparation) throws HttpNotFoundException {
+	/**
+	 * @param storageName       ...
+	 * @param storageId         ...
+	 * @param globalTransformer ...
+	 * @param includeXml        when false the report xml is not added to the result (use
+	 *                          {@link #getReportWithTransformer(String, int, boolean)} to stream the report xml
+	 *                          instead)
+	 * @return ...
+	 * @throws HttpNotFoundException ...
+	 */
+	public Map<String, Object> getReport(String storageName,
+										 int storageId,
+										 boolean globalTransformer,
+										 boolean includeXml) throws HttpNotFoundException {
+		return getReportImpl(storageName, storageId, globalTransformer, (report) -> report, includeXml);
+	}
+
+	/**
+	 * Get a report with the (global) report xml transformer set, to be used to stream the report xml to a client with
+	 * {@link Report#writeXml(Writer)} without building and caching the complete report xml in memory.
+	 *
+	 * @param storageName          ...
+	 * @param storageId            ...
+	 * @param globalTransformation True if reportXmlTransformer should be set for the report.
+	 * @return ...
+	 * @throws HttpNotFoundException ...
+	 */
+	public Report getReportWithTransformer(String storageName,
+										   int storageId,
+										   boolean globalTransformation) throws HttpNotFoundException {
 		Storage storage = testTool.getStorage(storageName);
 		Report report = null;
 		try {
@@ -128,14 +154,63 @@ public class ReportApiImpl {
 		if (report == null)
 			throw new HttpNotFoundException("Could not find report with id [" + storageId + "]");
 
+		setGlobalReportXmlTransformer(report, globalTransformation);
+		return report;
+	}
+
+	private void setGlobalReportXmlTransformer(Report report, boolean globalTransformation) {
 		if (globalTransformation) {
 			if (reportXmlTransformer != null)
 				report.setGlobalReportXmlTransformer(reportXmlTransformer);
 		}
+	}
+
+	private <T> Map<String, Object> getReportImpl(
+			String storageName,
+			int storageId,
+			boolean globalTransformation,
+			Function<Report, T> reportPreparation) throws HttpNotFoundException {
+		return getReportImpl(storageName, storageId, globalTransformation, reportPreparation, true);
+	}
 
+	private <T> Map<String, Object> getReportImpl(
+			String storageName,
+			int storageId,
+			boolean globalTransformation,
+			Function<Report, T> reportPreparation,
+			boolean includeXml) throws HttpNotFoundException {
+		Report report = getReportWithTransformer(storageName, storageId, globalTransformation);
+		return getReportEntry(report, reportPreparation, includeXml);
+	}
+
+	private <T> Map<String, Object> getReportEntry(
+			Report report,
+			Function<Report, T> reportPreparation,
+			boolean includeXml) {
 		HashMap<String, Object> map = new HashMap<>(1);
 		map.put("report", reportPreparation.apply(report));
-		map.put("xml", report.toXml());
+		if (includeXml) {
+			map.put("xml", report.toXml());
+		}
+		return map;
+	}
+
+	private <T> Map<Integer, Map<String, Object>> getReportsImpl(
+			String storageName,
+			List<Integer> storageIds,
+			boolean globalTransformation,
+			Function<Report, T> reportPreparation) throws HttpNotFoundException, StorageException {
+		Storage storage = testTool.getStorage(storageName);
+		Map<Integer, Report> reports = getReports(storage, storageIds);
+		Map<Integer, Map<String, Object>> map = new HashMap<>();
+		for (int storageId : storageIds) {
+			Report report = reports.get(storageId);
+			if (report == null)
+				throw new HttpNotFoundException("Could not find report with id [" + storageId + "]");
+
+			setGlobalReportXmlTransformer(report, globalTransformation);
+			map.put(storageId, getReportEntry(report, reportPreparation, true));
+		}
 		return map;
 	}
 
@@ -188,14 +263,7 @@ public class ReportApiImpl {
 														List<Integer> storageIds,
 														boolean globalTransformer) throws HttpNotFoundException {
 		try {
-			Storage storage = testTool.getStorage(storageName);
-			Map<Integer, Map<String, Object>> map = new HashMap<>();
-
-			for (int storageId : storageIds) {
-				Map<String, Object> reportEntry = getReportImpl(storageName, storageId, globalTransformer, (aReport) -> aReport);
-				map.put(storageId, reportEntry);
-			}
-			return map;
+			return getReportsImpl(storageName, storageIds, globalTransformer, (aReport) -> aReport);
 		} catch (Exception e) {
 			throw new HttpNotFoundException("Exception while getting report [" + storageIds + "] from storage [" + storageName + "] - detailed error message - " + e + Arrays.toString(e.getStackTrace()), e);
 		}
@@ -204,22 +272,14 @@ public class ReportApiImpl {
 	public Map<Integer, Map<String, Object>> getReportsForView(
 			String storageName, String viewName, List<Integer> storageIds, boolean globalTransformer) throws HttpNotFoundException {
 		try {
-			Map<Integer, Map<String, Object>> map = new HashMap<>();
 			if (viewName == null || StringUtils.isBlank(viewName)) {
-				for (int storageId : storageIds) {
-					Map<String, Object> shownReportEntry = getReportImpl(
-							storageName, storageId, globalTransformer, (aReport) -> shownReportBuilder.transform(aReport));
-					map.put(storageId, shownReportEntry);
-				}
+				return getReportsImpl(
+						storageName, storageIds, globalTransformer, (aReport) -> shownReportBuilder.transform(aReport));
 			} else {
 				View view = views.getViewByName(viewName);
-				for (int storageId : storageIds) {
-					Map<String, Object> shownReportEntry = getReportImpl(
-							storageName, storageId, globalTransformer, (aReport) -> shownReportBuilder.transform(aReport, view));
-					map.put(storageId, shownReportEntry);
-				}
+				return getReportsImpl(
+						storageName, storageIds, globalTransformer, (aReport) -> shownReportBuilder.transform(aReport, view));
 			}
-			return map;
 		} catch (Exception e) {
 			throw new HttpNotFoundException("Exception while getting report [" + storageIds + "] from storage [" + storageName + "] - detailed error message - " + e + Arrays.toString(e.getStackTrace()), e);
 		}
@@ -232,10 +292,11 @@ public class ReportApiImpl {
 			log.warn(msg);
 			throw new HttpNotImplementedException(msg);
 		}
+		Map<Integer, Report> reports = getReportsOrNull(storage, storageIds);
 		List<String> errorMessages = new ArrayList<>();
 		for (int storageId : storageIds) {
 			try {
-				Report report = getReport(storage, storageId);
+				Report report = getReport(storage, reports, storageId);
 				if (report == null)
 					throw new HttpNotFoundException("Could not find report with storage id [" + storageId + "]");
 				((CrudStorage) storage).delete(report);
@@ -265,16 +326,18 @@ public class ReportApiImpl {
 	public List<Report> getLatestReports(String storageName, int number) throws HttpBadRequestException, HttpInternalServerErrorException {
 		try {
 			Storage storage = testTool.getStorage(storageName);
-			List<List<Object>> metadata = storage.getMetadata(-1, Arrays.asList("storageId", "endTime"),
-					Arrays.asList(null, null), MetadataExtractor.VALUE_TYPE_OBJECT);
-			int amount = Math.min(metadata.size(), number);
+			List<List<Object>> metadata = new ArrayList<>();
+			if (number > 0) {
+				metadata = storage.getMetadataPage(number, null, "endTime", true, Arrays.asList("storageId", "endTime"),
+						Arrays.asList(null, null), MetadataExtractor.VALUE_TYPE_OBJECT).getRecords();
+			}
+			int amount = metadata.size();
 			if (amount < 1)
 				throw new HttpBadRequestException("Either the number of reports requested [" + number + "] and/or the size of reports available [" + metadata.size() + "] is 0");
 
-			metadata.sort(Comparator.comparingLong(o -> (Long) o.get(1)));
 			ArrayList<Report> reports = new ArrayList<>(amount);
-			for (int i = 1; i <= amount; i++) {
-				reports.add(getReport(storage, (Integer) metadata.get(metadata.size() - i).get(0)));
+			for (List<Object> record : metadata) {
+				reports.add(getReport(storage, (Integer) record.get(0)));
 			}
 			return reports;
 		} catch (StorageException e) {
@@ -362,10 +425,12 @@ public class ReportApiImpl {
 		ArrayList<Report> reports = new ArrayList<>();
 		for (String src : sources.keySet()) {
 			Storage srcStorage = testTool.getStorage(src);
-
+			Map<Integer, Report> srcReports = getReportsOrNull(srcStorage, sources.get(src));
 			for (int storageId : sources.get(src)) {
 				try {
-					Report report = getReport(srcStorage, storageId);
+					Report report = getReport(srcStorage, srcReports, storageId);
+					if (report == null)
+						throw new HttpNotFoundException("Could not find report with storage id [" + storageId + "]");
 					((CrudStorage) target).store(report);
 					reports.add(report);
 				} catch (Exception exception) {
@@ -578,6 +643,43 @@ public class ReportApiImpl {
 		return report;
 	}
 
+	/**
+	 * Get reports from storage with {@link Storage#getReports(Collection)} and set the TestTool on them.
+	 *
+	 * @param storage    Storage to get the reports from.
+	 * @param storageIds Storage ids of the reports.
+	 * @return Reports per storage id, reports that could not be found are not present.
+	 * @throws StorageException ...
+	 */
+	public Map<Integer, Report> getReports(Storage storage, Collection<Integer> storageIds) throws StorageException {
+		Map<Integer, Report> reports = storage.getReports(storageIds);
+		for (Report report : reports.values()) {
+			report.setTestTool(testTool);
+		}
+		return reports;
+	}
+
+	/**
+	 * Get reports with {@link #getReports(Storage, Collection)} or return null when they cannot be retrieved at once
+	 * (e.g. because one of them cannot be read). In the latter case use {@link #getReport(Storage, Map, Integer)} to
+	 * get them one by one so an error can be reported per report.
+	 */
+	private Map<Integer, Report> getReportsOrNull(Storage storage, Collection<Integer> storageIds) {
+		try {
+			return getReports(storage, storageIds);
+		} catch (Exception e) {
+			log.warn("Could not get reports " + storageIds + " from storage [" + storage.getName() + "], will get them one by one", e);
+			return null;
+		}
+	}
+
+	private Report getReport(Storage storage, Map<Integer, Report> reports, Integer storageId) throws StorageException {
+		if (reports == null) {
+			return getReport(storage, storageId);
+		}
+		return reports.get(storageId);
+	}
+
 	public String getWarningsAndErrors(String storageName) {
 		Storage rawStorage = testTool.getStorage(storageName);
 		if (! (rawStorage instanceof LogStorage)) {
@@ -591,18 +693,24 @@ public class ReportApiImpl {
 		log.debug("Enter ReportApiImpl.processCustomReportAction() for storage name [{}] and report ids [{}]",
 				storageName, reportIds.stream().map(i -> i.toString()).collect(Collectors.joining(", ")));
 		Storage storage = testTool.getStorage(storageName);
+		Map<Integer, Report> reportsById = getReportsOrNull(storage, reportIds);
 		List<Report> reports = new ArrayList<>();
+		List<String> errorMessages = new ArrayList<>();
 		for (int storageId : reportIds) {
+			Report report;
 			try {
-				Report report = getReport(storage, storageId);
-				if (report == null)
-					throw new HttpNotFoundException("Could not find report with storage id [" + storageId + "]");
-				reports.add(report);
+				report = getReport(storage, reportsById, storageId);
 			} catch (StorageException e) {
-				log.error("Caught storage exception: {}, {}", e.getMessage(), e.getStackTrace());
-				e.printStackTrace();
-				throw new HttpInternalServerErrorException(e);
+				log.error("Caught storage exception getting report with storage id [{}]", storageId, e);
+				errorMessages.add("Could not get report with storageId [" + storageId + "] - detailed error message - " + e + Arrays.toString(e.getStackTrace()));
+				continue;
 			}
+			if (report == null)
+				throw new HttpNotFoundException("Could not find report with storage id [" + storageId + "]");
+			reports.add(report);
+		}
+		if (!errorMessages.isEmpty()) {
+			throw new HttpInternalServerErrorException(errorMessages.stream().collect(Collectors.joining("\n")));
 		}
 		if (customReportAction == null) {
 			log.error("No handler available for custom report action. Throwing exception");
@@ -28,6 +28,8 @@ import org.wearefrank.ladybug.TestTool;
 import org.wearefrank.ladybug.filter.View;
 import org.wearefrank.ladybug.filter.Views;
 import org.wearefrank.ladybug.storage.CrudStorage;
+import org.wearefrank.ladybug.storage.StorageException;
+import org.wearefrank.ladybug.storage.memory.MemoryLogStorage;
 import org.wearefrank.ladybug.transform.ReportXmlTransformer;
 
 import java.util.Arrays;
@@ -71,6 +73,9 @@ public class TestToolApiImpl implements InitializingBean {
 		result.setEstMemory(testTool.getReportsInProgressEstimatedMemoryUsage());
 		result.setRegexFilter(testTool.getRegexFilter());
 		result.setReportsInProgress(testTool.getNumberOfReportsInProgress());
+		result.setMemoryBudgetReached(testTool.isReportsInProgressMemoryBudgetReached());
+		result.setDegradedReports(testTool.getNumberOfDegradedReports());
+		result.setRefusedReports(testTool.getNumberOfRefusedReports());
 		result.setStubStrategies(testTool.getStubStrategies());
 		result.setTransformation("");
 		String transformation = reportXmlTransformer.getXslt();
@@ -80,6 +85,16 @@ public class TestToolApiImpl implements InitializingBean {
 			result.setTransformation(transformation);
 		}
 		result.setUiTestMode(uiTestMode);
+		if (testTool.getDebugStorage() instanceof MemoryLogStorage) {
+			MemoryLogStorage memoryLogStorage = (MemoryLogStorage)testTool.getDebugStorage();
+			try {
+				result.setDebugStorageReports(memoryLogStorage.getSize());
+			} catch (StorageException e) {
+				log.warn("Could not get size of debug storage", e);
+			}
+			result.setDebugStorageEstMemory(memoryLogStorage.getEstimatedMemoryUsage());
+			result.setDebugStorageEvictedReports(memoryLogStorage.getEvictedCount());
+		}
 		return result;
 	}
 
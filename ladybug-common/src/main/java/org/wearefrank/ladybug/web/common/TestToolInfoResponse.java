@@ -30,8 +30,17 @@ public class TestToolInfoResponse {
 	private @Getter @Setter long estMemory;
 	private @Getter @Setter String regexFilter;
 	private @Getter @Setter long reportsInProgress;
+	// New reports are created without messages (degraded) or not at all (refused) when the memory budget or the
+	// maximum memory usage of reports in progress has been reached
+	private @Getter @Setter boolean memoryBudgetReached;
+	private @Getter @Setter long degradedReports;
+	private @Getter @Setter long refusedReports;
 	private @Getter @Setter List<String> stubStrategies;
 	private @Getter @Setter String transformation;
 	private @Getter @Setter UI_TEST_MODE uiTestMode;
 	private @Getter @Setter List<String> roles;
+	// Only set when the debug storage is a MemoryLogStorage
+	private @Getter @Setter Integer debugStorageReports;
+	private @Getter @Setter Long debugStorageEstMemory;
+	private @Getter @Setter Long debugStorageEvictedReports;
 }
@@ -1,9 +1,13 @@
 package org.wearefrank.ladybug.metadata;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.Test;
 
@@ -76,6 +80,50 @@ public class XpathMetadataFieldExtractorTest {
 		assertEquals("My second value", instance.extractMetadata(report));
 	}
 
+	@Test
+	public void whenExtractionContextOpenThenSameResults() throws Exception {
+		Report report = getReport();
+		report.getCheckpoints().get(0).setMessage("Not xml");
+		XpathMetadataFieldExtractor first = new XpathMetadataFieldExtractor();
+		first.setExtractFrom("all");
+		first.setXpath("/one/two");
+		XpathMetadataFieldExtractor last = new XpathMetadataFieldExtractor();
+		last.setExtractFrom("last");
+		last.setXpath("name(/one/*)");
+		try (MetadataExtractionContext context = MetadataExtractionContext.open(report)) {
+			assertEquals("My second value", first.extractMetadata(report));
+			assertEquals("two", last.extractMetadata(report));
+			assertNull(MetadataExtractionContext.get(getReport()));
+		}
+		assertNull(MetadataExtractionContext.get(report));
+		assertEquals("My second value", first.extractMetadata(report));
+	}
+
+	@Test
+	public void whenExtractedConcurrentlyThenCorrectValues() throws Exception {
+		XpathMetadataFieldExtractor instance = new XpathMetadataFieldExtractor();
+		instance.setExtractFrom("last");
+		instance.setXpath("/one/two");
+		ExecutorService executorService = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<Object>> futures = new ArrayList<>();
+			for (int i = 0; i < 500; i++) {
+				Report report = getReport();
+				report.getCheckpoints().get(1).setMessage("<one><two>Value " + i + "</two></one>");
+				futures.add(executorService.submit(() -> {
+					try (MetadataExtractionContext context = MetadataExtractionContext.open(report)) {
+						return instance.extractMetadata(report);
+					}
+				}));
+			}
+			for (int i = 0; i < futures.size(); i++) {
+				assertEquals("Value " + i, futures.get(i).get());
+			}
+		} finally {
+			executorService.shutdown();
+		}
+	}
+
 	private Report getReport() {
 		TestTool testTool = new TestTool();
 		Report report = new Report();
@@ -0,0 +1,140 @@
+/*
+   Copyright 2026 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.wearefrank.ladybug.test;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import org.wearefrank.ladybug.Checkpoint;
+import org.wearefrank.ladybug.CheckpointType;
+import org.wearefrank.ladybug.MessageEncoderImpl;
+import org.wearefrank.ladybug.Report;
+import org.wearefrank.ladybug.util.Export;
+import org.wearefrank.ladybug.util.Import;
+import org.wearefrank.ladybug.util.ReportFormat;
+import org.wearefrank.ladybug.xmldecoder.XMLDecoder;
+
+/**
+ * Compare the number of bytes per report and the encode and decode throughput of the available {@link ReportFormat}s
+ * and the XMLEncoder format used for .ttr files. Run the main method with the number of reports to encode and decode
+ * per round as an optional argument.
+ *
+ * @author Jaco de Groot
+ */
+public class ReportCodecSpeedTester {
+	public final static int NR_TEST_REPEATS = 5;
+
+	public static void main(String[] args) throws Exception {
+		int numberOfReports = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+		List<Report> reports = new ArrayList<Report>();
+		Random random = new Random(1);
+		for (int i = 0; i < numberOfReports; i++) {
+			reports.add(createReport(i, random));
+		}
+		for (int i = 0; i < NR_TEST_REPEATS; i++) {
+			System.out.println("Round " + (i + 1) + " of " + NR_TEST_REPEATS);
+			for (ReportFormat reportFormat : ReportFormat.values()) {
+				test(reportFormat.toString(), reports, reportFormat);
+			}
+			test("XMLENCODER", reports, null);
+		}
+	}
+
+	private static void test(String name, List<Report> reports, ReportFormat reportFormat) throws Exception {
+		List<byte[]> reportsBytes = new ArrayList<byte[]>();
+		long bytes = 0;
+		long start = System.nanoTime();
+		for (Report report : reports) {
+			byte[] reportBytes;
+			if (reportFormat == null) {
+				reportBytes = Export.getReportBytesPortable(report);
+			} else {
+				reportBytes = Export.getReportBytes(report, reportFormat);
+			}
+			bytes += reportBytes.length;
+			reportsBytes.add(reportBytes);
+		}
+		long encodeDuration = System.nanoTime() - start;
+		start = System.nanoTime();
+		for (byte[] reportBytes : reportsBytes) {
+			if (reportFormat == null) {
+				XMLDecoder xmlDecoder = new XMLDecoder(new GZIPInputStream(new ByteArrayInputStream(reportBytes)));
+				xmlDecoder.readObject();
+				xmlDecoder.readObject();
+				xmlDecoder.close();
+			} else {
+				Import.getReport(new ByteArrayInputStream(reportBytes), 0, (long)reportBytes.length, null);
+			}
+		}
+		long decodeDuration = System.nanoTime() - start;
+		System.out.println(String.format("%-15s %10d bytes/report %12.0f encodes/s %12.0f decodes/s", name,
+				bytes / reports.size(), reports.size() / (encodeDuration / 1e9),
+				reports.size() / (decodeDuration / 1e9)));
+	}
+
+	private static Report createReport(int i, Random random) {
+		Report report = new Report();
+		report.setStartTime(System.currentTimeMillis());
+		report.setEndTime(report.getStartTime() + random.nextInt(1000));
+		report.setCorrelationId("correlation-id-" + i);
+		report.setName("Report " + i);
+		List<Checkpoint> checkpoints = new ArrayList<Checkpoint>();
+		int level = 0;
+		for (int j = 0; j < 10; j++) {
+			int type;
+			if (j == 0) {
+				type = CheckpointType.STARTPOINT.toInt();
+			} else if (j == 9) {
+				type = CheckpointType.ENDPOINT.toInt();
+			} else {
+				type = CheckpointType.INFOPOINT.toInt();
+			}
+			Checkpoint checkpoint = new Checkpoint(report, "main", ReportCodecSpeedTester.class.getName(),
+					"Checkpoint " + j, type, level);
+			if (j == 0) {
+				level++;
+			} else if (j == 8) {
+				level--;
+			}
+			if (j == 5) {
+				byte[] message = new byte[random.nextInt(10000)];
+				random.nextBytes(message);
+				checkpoint.setEncoding(MessageEncoderImpl.BASE64_ENCODER);
+				// Bypass Checkpoint.setMessage() which will truncate and transform the message
+				checkpoint.setReport(null);
+				checkpoint.setMessage(Base64.getEncoder().encodeToString(message));
+				checkpoint.setReport(report);
+			} else {
+				StringBuilder message = new StringBuilder("<message>");
+				for (int k = random.nextInt(200); k > 0; k--) {
+					message.append("<element id=\"" + k + "\">value " + random.nextInt() + "</element>");
+				}
+				message.append("</message>");
+				checkpoint.setReport(null);
+				checkpoint.setMessage(message.toString());
+				checkpoint.setReport(report);
+			}
+			checkpoints.add(checkpoint);
+		}
+		report.setCheckpoints(checkpoints);
+		return report;
+	}
+
+}
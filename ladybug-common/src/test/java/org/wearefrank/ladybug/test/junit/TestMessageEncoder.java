@@ -1,5 +1,5 @@
 /*
-   Copyright 2021, 2025 WeAreFrank!
+   Copyright 2021, 2025-2026 WeAreFrank!
 
    Licensed under the Apache License, Version 2.0 (the "License");
    you may not use this file except in compliance with the License.
@@ -19,7 +19,10 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.Date;
 
 import javax.xml.parsers.ParserConfigurationException;
@@ -31,6 +34,7 @@ import org.w3c.dom.Node;
 import org.xml.sax.SAXException;
 
 import org.wearefrank.ladybug.Checkpoint;
+import org.wearefrank.ladybug.MessageEncoder.ToStringResult;
 import org.wearefrank.ladybug.MessageEncoderImpl;
 import org.wearefrank.ladybug.Report;
 import org.wearefrank.ladybug.TestTool;
@@ -90,4 +94,97 @@ public class TestMessageEncoder {
 		assertEquals("test", node.getNodeName());
 	}
 
+	@Test
+	public void testClassEncodersCache() {
+		MessageEncoderImpl messageEncoder = new MessageEncoderImpl();
+		Object notABean = new Object() {
+			@Override
+			public String toString() {
+				return "Not a bean";
+			}
+		};
+		for (int i = 0; i < 3; i++) {
+			ToStringResult toStringResult = messageEncoder.toString(notABean, null);
+			assertEquals("Not a bean", toStringResult.getString());
+			assertEquals(MessageEncoderImpl.TO_STRING_ENCODER, toStringResult.getEncoding());
+		}
+		assertEquals(1, messageEncoder.getClassEncodersCacheMisses());
+		assertEquals(2, messageEncoder.getClassEncodersCacheHits());
+		messageEncoder.addEncoder(Number.class, number -> new ToStringResult("Number " + number, "Custom"));
+		ToStringResult toStringResult = messageEncoder.toString(10, null);
+		assertEquals("Number 10", toStringResult.getString());
+		assertEquals("Custom", toStringResult.getEncoding());
+		assertEquals(Integer.class.getTypeName(), toStringResult.getMessageClassName());
+		assertEquals("Number 10.5", messageEncoder.toString(10.5, null).getString());
+		assertEquals("Not a bean", messageEncoder.toString(notABean, null).getString());
+		assertEquals(4, messageEncoder.getClassEncodersCacheMisses());
+	}
+
+	@Test
+	public void testClassEncodersCacheDependingOnPropertyValue() {
+		MessageEncoderImpl messageEncoder = new MessageEncoderImpl();
+		Bean bean = new Bean();
+		bean.setValue(new Object() {
+			@Override
+			public String toString() {
+				return "Not a bean";
+			}
+		});
+		assertEquals(MessageEncoderImpl.TO_STRING_ENCODER, messageEncoder.toString(bean, null).getEncoding());
+		// XMLEncoder failing for one object of a class must not prevent XMLEncoder from being used for other objects
+		// of the same class
+		bean.setValue("value");
+		ToStringResult toStringResult = messageEncoder.toString(bean, null);
+		assertEquals(MessageEncoderImpl.XML_ENCODER, toStringResult.getEncoding());
+		assertTrue(toStringResult.getString().contains("<string>value</string>"));
+		assertEquals(1, messageEncoder.getClassEncodersCacheMisses());
+		assertEquals(1, messageEncoder.getClassEncodersCacheHits());
+	}
+
+	public static class Bean {
+		private Object value;
+
+		public void setValue(Object value) {
+			this.value = value;
+		}
+
+		public Object getValue() {
+			return value;
+		}
+	}
+
+	@Test
+	public void testToStringWithMaxLength() throws SAXException, IOException, ParserConfigurationException {
+		MessageEncoderImpl messageEncoder = new MessageEncoderImpl();
+		String string = "Ladybug \u20ac ".repeat(5000);
+		byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+		ToStringResult toStringResult = messageEncoder.toString(bytes, null, 100);
+		assertEquals(string.substring(0, 100), toStringResult.getString());
+		assertEquals(MessageEncoderImpl.UTF8_ENCODER, toStringResult.getEncoding());
+		assertEquals(string.length(), toStringResult.getPreTruncatedLength());
+		toStringResult = messageEncoder.toString(bytes, null, -1);
+		assertEquals(string, toStringResult.getString());
+		assertEquals(-1, toStringResult.getPreTruncatedLength());
+		// Invalid UTF-8 at the end of the message
+		byte[] invalidBytes = Arrays.copyOf(bytes, bytes.length + 1);
+		invalidBytes[bytes.length] = (byte)0xff;
+		String base64 = Base64.getEncoder().encodeToString(invalidBytes);
+		toStringResult = messageEncoder.toString(invalidBytes, null, 10);
+		assertEquals(base64.substring(0, 10), toStringResult.getString());
+		assertEquals(MessageEncoderImpl.BASE64_ENCODER, toStringResult.getEncoding());
+		assertEquals(base64.length(), toStringResult.getPreTruncatedLength());
+		// Maximum length within the last (padded) group of four Base64 characters
+		invalidBytes = new byte[] {(byte)0xff, (byte)0xfe, (byte)0xfd, (byte)0xfc};
+		base64 = Base64.getEncoder().encodeToString(invalidBytes);
+		toStringResult = messageEncoder.toString(invalidBytes, null, 7);
+		assertEquals(base64.substring(0, 7), toStringResult.getString());
+		assertTrue(toStringResult.getString().endsWith("="));
+		assertEquals(8, toStringResult.getPreTruncatedLength());
+		Node node = XmlUtil.stringToNode("<test>" + "<element/>".repeat(1000) + "</test>");
+		String xml = XmlUtil.nodeToString(node);
+		toStringResult = messageEncoder.toString(node, null, 20);
+		assertEquals(xml.substring(0, 20), toStringResult.getString());
+		assertEquals(xml.length(), toStringResult.getPreTruncatedLength());
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
-   Copyright 2021-2023, 2025 WeAreFrank!
+   Copyright 2021-2023, 2025-2026 WeAreFrank!
 
    Licensed under the Apache License, Version 2.0 (the "License");
    you may not use this file except in compliance with the License.
@@ -16,6 +16,7 @@
 package org.wearefrank.ladybug.test.junit.createreport;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThrows;
@@ -24,22 +25,34 @@ import static org.junit.Assert.fail;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.OutputStream;
 import java.io.Reader;
 import java.io.StringReader;
 import java.io.StringWriter;
 import java.io.Writer;
 import java.lang.invoke.MethodHandles;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.apache.xerces.dom.DocumentImpl;
 import org.junit.Assert;
@@ -52,14 +65,25 @@ import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.core.read.ListAppender;
 import lombok.SneakyThrows;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
 import org.wearefrank.ladybug.Checkpoint;
+import org.wearefrank.ladybug.CheckpointType;
 import org.wearefrank.ladybug.CloseReportsTask;
 import org.wearefrank.ladybug.MessageCapturerImpl;
 import org.wearefrank.ladybug.MessageEncoder;
 import org.wearefrank.ladybug.MessageEncoderImpl;
+import org.wearefrank.ladybug.MetadataExtractor;
 import org.wearefrank.ladybug.Report;
 import org.wearefrank.ladybug.storage.Storage;
 import org.wearefrank.ladybug.storage.StorageException;
+import org.wearefrank.ladybug.storage.file.FileMessageStore;
+import org.wearefrank.ladybug.storage.memory.MemoryLogStorage;
 import org.wearefrank.ladybug.test.junit.ReportRelatedTestCase;
 
 /**
@@ -105,6 +129,23 @@ public class TestCreateReport extends ReportRelatedTestCase {
 		assertTrue(reportXml.contains("CorrelationId="));
 	}
 
+	@Test
+	public void testWriteXml() throws StorageException, IOException {
+		String correlationId = getCorrelationId();
+		testTool.startpoint(correlationId, this.getClass().getTypeName(), reportName, "<?xml version=\"1.0\"?><start/>");
+		testTool.infopoint(correlationId, this.getClass().getTypeName(), "info", "<not xml");
+		testTool.infopoint(correlationId, this.getClass().getTypeName(), "null", null);
+		testTool.endpoint(correlationId, this.getClass().getTypeName(), reportName, "endmessage");
+		Report report = findAndGetReport(testTool, testTool.getDebugStorage(), correlationId);
+		StringWriter writer = new StringWriter();
+		report.writeXml(writer);
+		assertEquals(report.toXml(), writer.toString());
+		// Write cached XML
+		writer = new StringWriter();
+		report.writeXml(writer);
+		assertEquals(report.toXml(), writer.toString());
+	}
+
 	@Test
 	public void testSingleStartAndEndPointPlainMessageWithStubableCode() throws StorageException, IOException {
 		String correlationId = getCorrelationId();
@@ -456,6 +497,90 @@ public class TestCreateReport extends ReportRelatedTestCase {
 		testTool.close(correlationId);
 	}
 
+	/**
+	 * Stress test for the registry of reports in progress in TestTool. Every thread creates and closes reports for its
+	 * own correlationIds while another thread reads the reports in progress. The reports are stored in a memory storage
+	 * to check that every report has been closed once with all of its checkpoints.
+	 * 
+	 * @throws Throwable ...
+	 */
+	@Test
+	public void testConcurrencyDistinctCorrelationIds() throws Throwable {
+		int nrOfThreads = 16;
+		int nrOfReportsPerThread = 500;
+		MetadataExtractor metadataExtractor = new MetadataExtractor();
+		metadataExtractor.init();
+		MemoryLogStorage memoryLogStorage = new MemoryLogStorage();
+		memoryLogStorage.setName("MemoryLogStorage");
+		memoryLogStorage.setMetadataExtractor(metadataExtractor);
+		testTool.setDebugStorage(memoryLogStorage);
+		String correlationIdPrefix = getCorrelationId();
+		Set<String> expectedCorrelationIds = new HashSet<String>();
+		List<Thread> threads = new ArrayList<Thread>();
+		List<Throwable> throwables = new ArrayList<Throwable>();
+		for (int i = 0; i < nrOfThreads; i++) {
+			String threadCorrelationIdPrefix = correlationIdPrefix + "-" + i + "-";
+			for (int j = 0; j < nrOfReportsPerThread; j++) {
+				expectedCorrelationIds.add(threadCorrelationIdPrefix + j);
+			}
+			threads.add(new Thread(() -> {
+				try {
+					for (int j = 0; j < nrOfReportsPerThread; j++) {
+						String correlationId = threadCorrelationIdPrefix + j;
+						testTool.startpoint(correlationId, null, reportName, "startmessage1");
+						testTool.startpoint(correlationId, null, "level2", "startmessage2");
+						testTool.endpoint(correlationId, null, "level2", "endmessage2");
+						testTool.endpoint(correlationId, null, reportName, "endmessage1");
+					}
+				} catch (Throwable t) {
+					synchronized(throwables) {
+						throwables.add(t);
+					}
+				}
+			}, "Thread-" + i));
+		}
+		AtomicBoolean running = new AtomicBoolean(true);
+		Thread readerThread = new Thread(() -> {
+			try {
+				while (running.get()) {
+					assertTrue(testTool.getNumberOfReportsInProgress() >= 0);
+					assertTrue(testTool.getReportsInProgressEstimatedMemoryUsage() >= 0);
+					testTool.warnReportsInProgress();
+				}
+			} catch (Throwable t) {
+				synchronized(throwables) {
+					throwables.add(t);
+				}
+			}
+		}, "ReaderThread");
+		long start = System.currentTimeMillis();
+		readerThread.start();
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		long duration = System.currentTimeMillis() - start;
+		running.set(false);
+		readerThread.join();
+		for (Throwable throwable : throwables) {
+			throw new Exception(throwable);
+		}
+		assertEquals("Reports should not be in progress", 0, testTool.getNumberOfReportsInProgress());
+		log.debug(name.getMethodName() + ": " + (nrOfThreads * nrOfReportsPerThread) + " reports in " + duration + " ms");
+		// Every report closed and stored once (no lost or duplicate correlationIds) with all of its checkpoints
+		List<List<Object>> metadata = memoryLogStorage.getMetadata(-1,
+				Arrays.asList("correlationId", "numberOfCheckpoints"), null, MetadataExtractor.VALUE_TYPE_OBJECT);
+		assertEquals(nrOfThreads * nrOfReportsPerThread, metadata.size());
+		Set<String> correlationIds = new HashSet<String>();
+		for (List<Object> record : metadata) {
+			correlationIds.add((String)record.get(0));
+			assertEquals(4, record.get(1));
+		}
+		assertEquals(expectedCorrelationIds, correlationIds);
+	}
+
 	/**
 	 * ArrayIndexOutOfBoundsException will occur when synchronization isn't done properly in TestTool.checkpoint(). E.g.
 	 * disable report.isClosed() check in TestTool.checkpoint() to make this test throw an exception and fail. In
@@ -724,6 +849,46 @@ public class TestCreateReport extends ReportRelatedTestCase {
 		// assertEquals("class java.lang.IndexOutOfBoundsException: Index: 5, Size: 4", secondException);
 	}
 
+	@Test
+	public void testCheckpointsOfReportInProgressWithThreads() throws StorageException, IOException {
+		String correlationId = getCorrelationId();
+		String parentThreadName = Thread.currentThread().getName();
+		String childThreadName1 = "child-1";
+		String childThreadName2 = "child-2";
+		try {
+			testTool.startpoint(correlationId, null, reportName, "startmessage");
+			Report report = testTool.getReportInProgress(correlationId);
+			testTool.threadCreatepoint(correlationId, childThreadName1);
+			testTool.threadCreatepoint(correlationId, childThreadName2);
+			assertCheckpointNames(report, reportName, "Waiting for thread 'child-1' to start...",
+					"Waiting for thread 'child-2' to start...");
+			testTool.infopoint(correlationId, null, "info", "infomessage");
+			Thread.currentThread().setName(childThreadName2);
+			testTool.threadStartpoint(correlationId, null, "start2", "message2");
+			assertCheckpointNames(report, reportName, "Waiting for thread 'child-1' to start...", "start2", "info");
+			Thread.currentThread().setName(childThreadName1);
+			testTool.threadStartpoint(correlationId, null, "start1", "message1");
+			testTool.threadEndpoint(correlationId, null, "start1", "message1");
+			Thread.currentThread().setName(childThreadName2);
+			testTool.threadEndpoint(correlationId, null, "start2", "message2");
+			assertCheckpointNames(report, reportName, "start1", "start1", "start2", "start2", "info");
+			Thread.currentThread().setName(parentThreadName);
+			testTool.endpoint(correlationId, null, reportName, "endmessage");
+			assertEquals(0, testTool.getNumberOfReportsInProgress());
+			assertCheckpointNames(report, reportName, "start1", "start1", "start2", "start2", "info", reportName);
+		} finally {
+			Thread.currentThread().setName(parentThreadName);
+		}
+	}
+
+	private static void assertCheckpointNames(Report report, String... expectedNames) {
+		List<String> names = new ArrayList<String>();
+		for (Checkpoint checkpoint : report.getCheckpoints()) {
+			names.add(checkpoint.getName());
+		}
+		assertEquals(List.of(expectedNames), names);
+	}
+
 	@Test
 	public void testCloseMessageCapturers() throws IOException, StorageException {
 		testCloseMessageCapturers(true, false, false);
@@ -870,6 +1035,147 @@ public class TestCreateReport extends ReportRelatedTestCase {
 				+ correlationId + ") (next checkpoints for this report will be ignored without any logging)");
 	}
 
+	@Test
+	public void testReportsInProgressMemoryBudget() throws StorageException {
+		testTool.setReportsInProgressMemoryBudget(1);
+		String correlationId1 = getCorrelationId();
+		String correlationId2 = getCorrelationId();
+		String correlationId3 = getCorrelationId();
+		testTool.startpoint(correlationId1, null, reportName, "startmessage");
+		assertEquals(24, testTool.getReportsInProgressEstimatedMemoryUsage());
+		assertTrue(testTool.isReportsInProgressMemoryBudgetReached());
+		// Budget reached, new report is created without messages
+		String message = testTool.startpoint(correlationId2, null, reportName, "startmessage");
+		assertEquals("startmessage", message);
+		testTool.endpoint(correlationId2, null, reportName, "endmessage");
+		assertEquals(1, testTool.getNumberOfDegradedReports());
+		// Maximum reached, new report is not created
+		testTool.setMaxReportsInProgressMemoryUsage(24);
+		testTool.startpoint(correlationId3, null, reportName, "startmessage");
+		testTool.endpoint(correlationId3, null, reportName, "endmessage");
+		assertEquals(1, testTool.getNumberOfRefusedReports());
+		testTool.endpoint(correlationId1, null, reportName, "endmessage");
+		assertEquals(0, testTool.getReportsInProgressEstimatedMemoryUsage());
+		assertFalse(testTool.isReportsInProgressMemoryBudgetReached());
+		Storage storage = testTool.getDebugStorage();
+		Report report = findAndGetReport(testTool, storage, correlationId1);
+		assertEquals("startmessage", report.getCheckpoints().get(0).getMessage());
+		report = findAndGetReport(testTool, storage, correlationId2);
+		assertEquals(2, report.getCheckpoints().size());
+		assertEquals(Report.MESSAGE_DROPPED, report.getCheckpoints().get(0).getMessage());
+		assertEquals(Report.MESSAGE_DROPPED, report.getCheckpoints().get(1).getMessage());
+		assertNull(findAndGetReport(testTool, storage, correlationId3, false));
+	}
+
+	@Test
+	public void testLargeStreams() throws IOException, StorageException {
+		int maxMessageLength = 20000;
+		testTool.setMaxMessageLength(maxMessageLength);
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; builder.length() < 30000; i++) {
+			builder.append("line " + i + "\n");
+		}
+		String string = builder.toString();
+		String correlationId = getCorrelationId();
+		testTool.startpoint(correlationId, null, reportName, "startmessage");
+		// Write a single character and strings and arrays that span multiple chunks of the capture buffer
+		Writer writer = testTool.outputpoint(correlationId, null, "writer", (Writer)new StringWriter());
+		writer.write(string.charAt(0));
+		writer.write(string, 1, 10000);
+		writer.write(string.substring(10001));
+		writer.close();
+		byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+		OutputStream outputStream = testTool.outputpoint(correlationId, null, "outputstream",
+				(OutputStream)new ByteArrayOutputStream());
+		outputStream.write(bytes[0]);
+		outputStream.write(bytes, 1, bytes.length - 1);
+		outputStream.close();
+		testTool.endpoint(correlationId, null, reportName, "endmessage");
+		Report report = findAndGetReport(testTool, testTool.getDebugStorage(), correlationId);
+		for (int i = 1; i < 3; i++) {
+			Checkpoint checkpoint = report.getCheckpoints().get(i);
+			assertEquals(string.substring(0, maxMessageLength), checkpoint.getMessage());
+			assertEquals(string.length(), checkpoint.getPreTruncatedMessageLength());
+		}
+	}
+
+	@Test
+	public void testMessageStore() throws IOException, StorageException, ClassNotFoundException {
+		File directory = Files.createTempDirectory("ladybug-message-store").toFile();
+		FileMessageStore messageStore = new FileMessageStore();
+		messageStore.setDirectory(directory.getAbsolutePath());
+		messageStore.setMinMessageLength(10);
+		messageStore.init();
+		testTool.setMessageStore(messageStore);
+		try {
+			String largeMessage = "<message>" + "large ".repeat(1000) + "</message>";
+			String correlationId = getCorrelationId();
+			testTool.startpoint(correlationId, null, reportName, "small");
+			testTool.inputpoint(correlationId, null, "first", largeMessage);
+			testTool.outputpoint(correlationId, null, "second", largeMessage);
+			// Identical messages are stored only once (count while the report is in progress, the file will be deleted
+			// when the checkpoints aren't referenced anymore)
+			assertEquals(1, getMessageStoreFiles(directory).size());
+			// Serialization writes the message itself without modifying the checkpoint
+			Checkpoint checkpoint = testTool.getReportInProgress(0).getCheckpoints().get(1);
+			assertEquals(0L, checkpoint.getEstimatedMemoryUsage());
+			ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+			try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(byteArrayOutputStream)) {
+				objectOutputStream.writeObject(checkpoint);
+			}
+			assertEquals(0L, checkpoint.getEstimatedMemoryUsage());
+			try (ObjectInputStream objectInputStream = new ObjectInputStream(
+					new ByteArrayInputStream(byteArrayOutputStream.toByteArray()))) {
+				Checkpoint deserializedCheckpoint = (Checkpoint)objectInputStream.readObject();
+				assertEquals(largeMessage, deserializedCheckpoint.getMessage());
+				assertEquals("first", deserializedCheckpoint.getName());
+			}
+			testTool.endpoint(correlationId, null, reportName, "small");
+			Report report = findAndGetReport(testTool, testTool.getDebugStorage(), correlationId);
+			assertEquals("small", report.getCheckpoints().get(0).getMessage());
+			assertEquals(largeMessage, report.getCheckpoints().get(1).getMessage());
+			assertEquals(largeMessage, report.getCheckpoints().get(2).getMessage());
+		} finally {
+			// Don't close the message store as the report in the memory storage still references the message store
+			testTool.setMessageStore(null);
+		}
+	}
+
+	@Test
+	public void testFileMessageStore() throws IOException, StorageException {
+		File directory = Files.createTempDirectory("ladybug-message-store").toFile();
+		FileMessageStore messageStore1 = new FileMessageStore();
+		messageStore1.setDirectory(directory.getAbsolutePath());
+		messageStore1.init();
+		String key = messageStore1.store("message");
+		assertEquals(key, messageStore1.store("message"));
+		assertEquals(1, getMessageStoreFiles(directory).size());
+		// Another instance with the same directory doesn't delete the files of the first instance
+		FileMessageStore messageStore2 = new FileMessageStore();
+		messageStore2.setDirectory(directory.getAbsolutePath());
+		messageStore2.init();
+		messageStore2.store("message");
+		assertEquals(2, getMessageStoreFiles(directory).size());
+		assertEquals("message", messageStore1.getMessage(key));
+		// File is deleted when the message has been released as many times as it has been stored
+		messageStore1.release(key);
+		assertEquals("message", messageStore1.getMessage(key));
+		messageStore1.release(key);
+		assertEquals(1, getMessageStoreFiles(directory).size());
+		assertEquals(2, directory.list().length);
+		messageStore1.close();
+		assertEquals(1, directory.list().length);
+		assertEquals("message", messageStore2.getMessage(key));
+		messageStore2.close();
+		assertEquals(0, directory.list().length);
+	}
+
+	private static List<Path> getMessageStoreFiles(File directory) throws IOException {
+		try (Stream<Path> stream = Files.walk(directory.toPath())) {
+			return stream.filter(path -> path.toString().endsWith(".gz")).collect(Collectors.toList());
+		}
+	}
+
 	@Test
 	public void testStreamsWithReaderAndInputStream() throws IOException, StorageException {
 		testTool.setHost("MyHost");
@@ -1095,6 +1401,67 @@ public class TestCreateReport extends ReportRelatedTestCase {
 		assertReport(correlationId);
 	}
 
+	@Test
+	public void testOpenTelemetrySpans() throws StorageException {
+		List<SpanData> endedSpans = Collections.synchronizedList(new ArrayList<SpanData>());
+		SpanExporter spanExporter = new SpanExporter() {
+			@Override
+			public CompletableResultCode export(Collection<SpanData> spans) {
+				endedSpans.addAll(spans);
+				return CompletableResultCode.ofSuccess();
+			}
+
+			@Override
+			public CompletableResultCode flush() {
+				return CompletableResultCode.ofSuccess();
+			}
+
+			@Override
+			public CompletableResultCode shutdown() {
+				return CompletableResultCode.ofSuccess();
+			}
+		};
+		SdkTracerProvider tracerProvider = SdkTracerProvider.builder()
+				.addSpanProcessor(SimpleSpanProcessor.create(spanExporter)).build();
+		Tracer tracer = testTool.getOpenTelemetryTracer();
+		try {
+			testTool.setOpenTelemetryTracer(tracerProvider.get(getClass().getName()));
+			String correlationId = getCorrelationId();
+			testTool.startpoint(correlationId, "sourceClassName", reportName, "startmessage");
+			testTool.infopoint(correlationId, "sourceClassName", "info", "infomessage");
+			List<String> endedSpansDuringEndpoint = new ArrayList<String>();
+			testTool.endpoint(correlationId, "sourceClassName", reportName, () -> {
+				for (SpanData spanData : endedSpans) {
+					endedSpansDuringEndpoint.add(spanData.getName());
+				}
+				return "endmessage";
+			}, new HashSet<String>());
+			findAndGetReport(testTool, testTool.getDebugStorage(), correlationId);
+			// Spans of the endpoint and startpoint are ended after the code of the endpoint has been executed
+			assertEquals(Arrays.asList("checkpoint - info"), endedSpansDuringEndpoint);
+			assertEquals(3, endedSpans.size());
+			SpanData infoSpan = endedSpans.get(0);
+			SpanData endSpan = endedSpans.get(1);
+			SpanData startSpan = endedSpans.get(2);
+			assertEquals("checkpoint - info", infoSpan.getName());
+			assertEquals("checkpoint - " + reportName, endSpan.getName());
+			assertEquals("checkpoint - " + reportName, startSpan.getName());
+			assertFalse(startSpan.getParentSpanContext().isValid());
+			assertEquals(startSpan.getSpanId(), infoSpan.getParentSpanId());
+			assertEquals(startSpan.getSpanId(), endSpan.getParentSpanId());
+			assertEquals(startSpan.getTraceId(), endSpan.getTraceId());
+			for (SpanData spanData : endedSpans) {
+				assertTrue(spanData.hasEnded());
+				assertEquals(correlationId, spanData.getAttributes().get(AttributeKey.stringKey("correlationId")));
+			}
+			assertEquals(Long.valueOf(CheckpointType.STARTPOINT.toInt()),
+					startSpan.getAttributes().get(AttributeKey.longKey("checkpointType")));
+		} finally {
+			testTool.setOpenTelemetryTracer(tracer);
+			tracerProvider.close();
+		}
+	}
+
 	private void testReaderMessage(Reader readerMessage) throws IOException {
 		readerMessage.read();
 		readerMessage.read(new char[4]);
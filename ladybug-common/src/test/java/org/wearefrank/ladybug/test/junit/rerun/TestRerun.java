@@ -1,5 +1,5 @@
 /*
-   Copyright 2021, 2023-2025 WeAreFrank!
+   Copyright 2021, 2023-2026 WeAreFrank!
 
    Licensed under the Apache License, Version 2.0 (the "License");
    you may not use this file except in compliance with the License.
@@ -17,6 +17,7 @@ package org.wearefrank.ladybug.test.junit.rerun;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 
 import java.io.IOException;
 
@@ -27,6 +28,8 @@ import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
 
 import lombok.SneakyThrows;
+import org.wearefrank.ladybug.Checkpoint;
+import org.wearefrank.ladybug.LinkMethodType;
 import org.wearefrank.ladybug.Report;
 import org.wearefrank.ladybug.Rerunner;
 import org.wearefrank.ladybug.SecurityContext;
@@ -92,6 +95,35 @@ public class TestRerun extends ReportRelatedTestCase {
 		Assert.assertEquals("RerunningHost", rerunReport.getHost());
 	}
 
+	@Test
+	public void testLinkCheckpoints() throws StorageException {
+		String correlationId = ReportRelatedTestCase.getCorrelationId();
+		testTool.startpoint(correlationId, null, reportName, "start");
+		testTool.infopoint(correlationId, null, "x", "x");
+		for (int j = 0; j < 2; j++) {
+			testTool.startpoint(correlationId, null, "y", "start y");
+			testTool.infopoint(correlationId, null, "x", "x");
+			testTool.infopoint(correlationId, null, "x", "x");
+			testTool.endpoint(correlationId, null, "y", "end y");
+		}
+		testTool.infopoint(correlationId, null, "x", "x");
+		testTool.endpoint(correlationId, null, reportName, "end");
+		Storage storage = testTool.getDebugStorage();
+		Report original = ReportRelatedTestCase.findAndGetReport(testTool, storage, correlationId);
+		Report counterpart = storage.getReport(original.getStorageId());
+		assertEquals(12, original.getCheckpoints().size());
+		for (int j = 0; j < original.getCheckpoints().size(); j++) {
+			Checkpoint checkpoint = original.getCheckpoints().get(j);
+			Checkpoint counterpartCheckpoint = counterpart.getCheckpoints().get(j);
+			assertSame(checkpoint, original.getCheckpoint(checkpoint.getPath()));
+			assertSame(checkpoint, original.getCheckpoint(counterpartCheckpoint.getPath()));
+			assertSame(checkpoint, original.getCheckpoint(counterpartCheckpoint, LinkMethodType.PATH_AND_TYPE.toString()));
+			assertSame(checkpoint, original.getCheckpoint(counterpartCheckpoint, LinkMethodType.NTH_NAME_AND_TYPE.toString()));
+			assertSame(checkpoint, original.getCheckpoint(counterpartCheckpoint, LinkMethodType.CHECKPOINT_NR.toString()));
+		}
+		assertEquals("/" + reportName + "[0]/y[2]/x[1]", original.getCheckpoints().get(8).getPath().toString());
+	}
+
 	private static void addSomething(TestTool testTool, String correlationId, String name, Integer something) {
 		something = testTool.startpoint(correlationId, null, name, something);
 		i = i + something;
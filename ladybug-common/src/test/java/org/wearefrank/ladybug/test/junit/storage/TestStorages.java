@@ -1,17 +1,49 @@
 package org.wearefrank.ladybug.test.junit.storage;
 
+import org.wearefrank.ladybug.MetadataExtractor;
+import org.wearefrank.ladybug.Report;
+import org.wearefrank.ladybug.storage.InvalidCursorException;
+import org.wearefrank.ladybug.storage.LogStorage;
+import org.wearefrank.ladybug.storage.MetadataPage;
 import org.wearefrank.ladybug.storage.Storage;
+import org.wearefrank.ladybug.storage.StorageException;
+import org.wearefrank.ladybug.storage.async.AsyncLogStorage;
+import org.wearefrank.ladybug.storage.database.DatabaseStorage;
+import org.wearefrank.ladybug.storage.file.TestStorage;
+import org.wearefrank.ladybug.storage.memory.MemoryLogStorage;
+import org.wearefrank.ladybug.storage.xml.XmlStorage;
 import org.wearefrank.ladybug.test.junit.ReportRelatedTestCase;
+import org.wearefrank.ladybug.util.Export;
+import org.wearefrank.ladybug.util.Import;
+import org.wearefrank.ladybug.util.SearchUtil;
 import org.junit.Before;
 import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.lang.invoke.MethodHandles;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
 
 public class TestStorages extends ReportRelatedTestCase {
     private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
@@ -40,6 +72,912 @@ public class TestStorages extends ReportRelatedTestCase {
         }
     }
 
+    @Test
+    public void testMemoryLogStorageEviction() throws Exception {
+        MemoryLogStorage memoryLogStorage = new MemoryLogStorage();
+        memoryLogStorage.setName("MemoryLogStorage");
+        memoryLogStorage.setMaxNumberOfReports(3);
+        testTool.setDebugStorage(memoryLogStorage);
+        for (int i = 0; i < 5; i++) {
+            createReport();
+        }
+        assertEquals(Arrays.asList(2, 3, 4), memoryLogStorage.getStorageIds());
+        assertEquals(2, memoryLogStorage.getEvictedCount());
+        assertNull(memoryLogStorage.getReport(1));
+        assertEquals(reportName, memoryLogStorage.getReport(4).getName());
+        long estimatedMemoryUsage = memoryLogStorage.getEstimatedMemoryUsage();
+        assertTrue(estimatedMemoryUsage > 0);
+        // Room for two reports (the last stored report is always kept)
+        memoryLogStorage.setMaxEstimatedMemoryUsage(estimatedMemoryUsage * 2 / 3);
+        createReport();
+        assertEquals(Arrays.asList(4, 5), memoryLogStorage.getStorageIds());
+        assertEquals(4, memoryLogStorage.getEvictedCount());
+        assertEquals(estimatedMemoryUsage * 2 / 3, memoryLogStorage.getEstimatedMemoryUsage());
+        memoryLogStorage.clear();
+        assertEquals(0, memoryLogStorage.getEstimatedMemoryUsage());
+        createReport();
+        assertEquals(Arrays.asList(0), memoryLogStorage.getStorageIds());
+    }
+
+    @Test
+    public void testMemoryStorageConcurrentReadsAndWrites() throws Exception {
+        CountDownLatch extracting = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        MetadataExtractor metadataExtractor = new MetadataExtractor() {
+            @Override
+            public Object getMetadata(Report report, String metadataName, int metadataValueType) {
+                if ("block".equals(metadataName)) {
+                    extracting.countDown();
+                    try {
+                        release.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return null;
+                }
+                return super.getMetadata(report, metadataName, metadataValueType);
+            }
+        };
+        metadataExtractor.init();
+        MemoryLogStorage memoryLogStorage = new MemoryLogStorage();
+        memoryLogStorage.setName("MemoryLogStorage");
+        memoryLogStorage.setMetadataExtractor(metadataExtractor);
+        memoryLogStorage.setMaxNumberOfReports(100);
+        testTool.setDebugStorage(memoryLogStorage);
+        createReport();
+        Report report = memoryLogStorage.getReport(0);
+        // A metadata query in progress should not block the capture path
+        Thread blockingReader = new Thread(() -> {
+            try {
+                memoryLogStorage.getMetadata(-1, Arrays.asList("block"), null, MetadataExtractor.VALUE_TYPE_OBJECT);
+            } catch (StorageException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        blockingReader.start();
+        assertTrue(extracting.await(10, TimeUnit.SECONDS));
+        memoryLogStorage.store(report.clone());
+        assertEquals(2, memoryLogStorage.getSize());
+        release.countDown();
+        blockingReader.join(10000);
+        // Readers and writers (with eviction) at the same time
+        List<String> metadataNames = Arrays.asList("storageId", "name");
+        List<Throwable> errors = Collections.synchronizedList(new ArrayList<Throwable>());
+        AtomicBoolean writing = new AtomicBoolean(true);
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < 4; i++) {
+            threads.add(new Thread(() -> {
+                try {
+                    for (int j = 0; j < 500; j++) {
+                        memoryLogStorage.store(report.clone());
+                    }
+                } catch (Throwable t) {
+                    errors.add(t);
+                }
+            }));
+            threads.add(new Thread(() -> {
+                try {
+                    while (writing.get()) {
+                        for (List<Object> record : memoryLogStorage.getMetadata(-1, metadataNames, null,
+                                MetadataExtractor.VALUE_TYPE_OBJECT)) {
+                            assertEquals(reportName, record.get(1));
+                            Report storedReport = memoryLogStorage.getReport((Integer)record.get(0));
+                            if (storedReport != null) {
+                                assertEquals(record.get(0), storedReport.getStorageId());
+                            }
+                        }
+                    }
+                } catch (Throwable t) {
+                    errors.add(t);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (int i = 0; i < threads.size(); i += 2) {
+            threads.get(i).join(60000);
+        }
+        writing.set(false);
+        for (Thread thread : threads) {
+            thread.join(60000);
+        }
+        assertEquals(new ArrayList<Throwable>(), errors);
+        assertEquals(100, memoryLogStorage.getSize());
+        assertEquals(2002 - 100, memoryLogStorage.getEvictedCount());
+        List<Integer> storageIds = memoryLogStorage.getStorageIds();
+        assertEquals(Integer.valueOf(1902), storageIds.get(0));
+        assertEquals(Integer.valueOf(2001), storageIds.get(99));
+        assertEquals(100, memoryLogStorage.getMetadata(-1, metadataNames, null,
+                MetadataExtractor.VALUE_TYPE_OBJECT).size());
+    }
+
+    @Test
+    public void testAsyncLogStorage() throws Exception {
+        MemoryLogStorage destination = new MemoryLogStorage();
+        destination.setName("Destination");
+        AsyncLogStorage asyncLogStorage = new AsyncLogStorage();
+        asyncLogStorage.setName("AsyncLogStorage");
+        asyncLogStorage.setDestination(destination);
+        asyncLogStorage.setQueueSize(5);
+        asyncLogStorage.setBatchSize(3);
+        asyncLogStorage.setWriterThreads(2);
+        asyncLogStorage.init();
+        testTool.setDebugStorage(asyncLogStorage);
+        for (int i = 0; i < 20; i++) {
+            createReport();
+        }
+        waitForReportsInProgress();
+        asyncLogStorage.close();
+        assertEquals(20, destination.getSize());
+        assertEquals(20, asyncLogStorage.getStoredCount());
+        assertEquals(0, asyncLogStorage.getDroppedNewestCount() + asyncLogStorage.getDroppedOldestCount());
+        assertNull(asyncLogStorage.getWarningsAndErrors());
+    }
+
+    @Test
+    public void testAsyncLogStorageDropNewest() throws Exception {
+        CountDownLatch storing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        MemoryLogStorage destination = new MemoryLogStorage() {
+            @Override
+            public void storeWithoutException(Report report) {
+                storing.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.storeWithoutException(report);
+            }
+        };
+        destination.setName("Destination");
+        AsyncLogStorage asyncLogStorage = new AsyncLogStorage();
+        asyncLogStorage.setName("AsyncLogStorage");
+        asyncLogStorage.setDestination(destination);
+        asyncLogStorage.setQueueSize(1);
+        asyncLogStorage.setOverflowPolicy(AsyncLogStorage.OverflowPolicy.DROP_NEWEST);
+        asyncLogStorage.init();
+        testTool.setDebugStorage(asyncLogStorage);
+        // First report is taken from the queue by the writer thread which will wait for the release latch
+        createReport();
+        assertTrue(storing.await(10, TimeUnit.SECONDS));
+        // Second report will stay in the queue
+        createReport();
+        // Third report doesn't fit in the queue and will be dropped
+        createReport();
+        assertEquals(1, asyncLogStorage.getDroppedNewestCount());
+        assertEquals("Reports should be in progress until stored", 2, testTool.getNumberOfReportsInProgress());
+        release.countDown();
+        waitForReportsInProgress();
+        asyncLogStorage.close();
+        assertEquals(2, destination.getSize());
+        assertNotNull(asyncLogStorage.getWarningsAndErrors());
+    }
+
+    @Test
+    public void testDatabaseStorageStoreBatch() throws Exception {
+        assumeTrue("Database storage only", storage instanceof DatabaseStorage);
+        DatabaseStorage databaseStorage = (DatabaseStorage)storage;
+        List<Report> reports = createReportsInMemory(3);
+        int size = databaseStorage.getSize();
+        databaseStorage.store(reports);
+        assertEquals(size + 3, databaseStorage.getSize());
+        Integer previousStorageId = null;
+        for (Report report : reports) {
+            Integer storageId = report.getStorageId();
+            if (previousStorageId != null) {
+                assertTrue(storageId > previousStorageId);
+            }
+            previousStorageId = storageId;
+            Report storedReport = databaseStorage.getReport(storageId);
+            assertEquals(storageId, storedReport.getStorageId());
+            assertEquals(report.getCorrelationId(), storedReport.getCorrelationId());
+        }
+    }
+
+    @Test
+    public void testFileStorageReportIndex() throws Exception {
+        File folder = Files.createTempDirectory("ladybug-report-index").toFile();
+        try {
+            org.wearefrank.ladybug.storage.file.Storage fileStorage = createFileStorage(folder);
+            testTool.setDebugStorage(fileStorage);
+            // Small maximum file size to have reports in rotated files
+            for (int i = 0; i < 20; i++) {
+                createReport();
+            }
+            List<Integer> storageIds = fileStorage.getStorageIds();
+            assertEquals(20, storageIds.size());
+            assertTrue(new File(folder, "ladybug.tts.idx.1").exists());
+            List<String> names = new ArrayList<String>();
+            for (Integer storageId : storageIds) {
+                Report report = fileStorage.getReport(storageId);
+                assertEquals(storageId, report.getStorageId());
+                names.add(report.getName());
+            }
+            // Reports in different (rotated) files in one call
+            Map<Integer, Report> reports = fileStorage.getReports(storageIds);
+            assertEquals(storageIds, new ArrayList<Integer>(reports.keySet()));
+            for (int i = 0; i < storageIds.size(); i++) {
+                assertEquals(names.get(i), reports.get(storageIds.get(i)).getName());
+            }
+            fileStorage.close();
+            // Index files should be rebuild when missing
+            for (File file : folder.listFiles()) {
+                if (file.getName().contains(".idx")) {
+                    assertTrue(file.delete());
+                }
+            }
+            fileStorage = createFileStorage(folder);
+            assertTrue(new File(folder, "ladybug.tts.idx").exists());
+            assertEquals(storageIds, fileStorage.getStorageIds());
+            for (int i = 0; i < storageIds.size(); i++) {
+                assertEquals(names.get(i), fileStorage.getReport(storageIds.get(i)).getName());
+            }
+            fileStorage.close();
+        } finally {
+            for (File file : folder.listFiles()) {
+                file.delete();
+            }
+            folder.delete();
+        }
+    }
+
+    @Test
+    public void testGetReports() throws Exception {
+        List<Integer> storageIdsBefore = storage.getStorageIds();
+        for (int i = 0; i < 5; i++) {
+            createReport();
+        }
+        waitForReportsInProgress();
+        List<Integer> storageIds = new ArrayList<Integer>(storage.getStorageIds());
+        storageIds.removeAll(storageIdsBefore);
+        assertEquals(5, storageIds.size());
+        // Requested order should be kept, also when it differs from the order in the storage. Unknown and duplicate
+        // storage ids should be ignored
+        Collections.shuffle(storageIds, new Random(1));
+        List<Integer> requestedStorageIds = new ArrayList<Integer>(storageIds);
+        requestedStorageIds.add(-1);
+        requestedStorageIds.add(storageIds.get(0));
+        Map<Integer, Report> reports = storage.getReports(requestedStorageIds);
+        assertEquals(storageIds, new ArrayList<Integer>(reports.keySet()));
+        for (Integer storageId : storageIds) {
+            Report report = storage.getReport(storageId);
+            assertEquals(storageId, reports.get(storageId).getStorageId());
+            assertEquals(report.toXml(), reports.get(storageId).toXml());
+        }
+        assertTrue(storage.getReports(Collections.emptyList()).isEmpty());
+        // Reports should be decoded in the calling thread when the executor service has been shut down (e.g. when the
+        // storage is closed while getting reports)
+        Map<Integer, byte[]> reportsBytes = new LinkedHashMap<Integer, byte[]>();
+        for (Integer storageId : storageIds) {
+            reportsBytes.put(storageId, Export.getReportBytes(reports.get(storageId)));
+        }
+        ExecutorService executorService = Import.createDecodeExecutorService("TestGetReports");
+        executorService.shutdown();
+        Map<Integer, Report> decodedReports = Import.getReports(reportsBytes, executorService, log);
+        assertEquals(storageIds, new ArrayList<Integer>(decodedReports.keySet()));
+        for (Integer storageId : storageIds) {
+            assertEquals(reports.get(storageId).toXml(), decodedReports.get(storageId).toXml());
+        }
+    }
+
+    @Test
+    public void testFileStorageMetadataIndex() throws Exception {
+        File folder = Files.createTempDirectory("ladybug-metadata-index").toFile();
+        try {
+            org.wearefrank.ladybug.storage.file.Storage fileStorage = createFileStorage(folder);
+            testTool.setDebugStorage(fileStorage);
+            for (int i = 0; i < 10; i++) {
+                String correlationId = getCorrelationId();
+                String name = "Report " + (i % 3);
+                testTool.startpoint(correlationId, this.getClass().getTypeName(), name, "startmessage");
+                testTool.endpoint(correlationId, this.getClass().getTypeName(), name, "endmessage");
+            }
+            // Persistent metadata only, served by the metadata index
+            List<List<Object>> indexed = fileStorage.getMetadata(-1, Arrays.asList("storageId", "name"),
+                    Arrays.asList(null, "[Report 1]"), MetadataExtractor.VALUE_TYPE_OBJECT);
+            // Metadata that needs to be extracted from the reports, served by the metadata records
+            List<List<Object>> extracted = fileStorage.getMetadata(-1,
+                    Arrays.asList("storageId", "name", "numberOfCheckpoints"), Arrays.asList(null, "[Report 1]", null),
+                    MetadataExtractor.VALUE_TYPE_OBJECT);
+            assertEquals(3, indexed.size());
+            assertEquals(3, extracted.size());
+            for (int i = 0; i < indexed.size(); i++) {
+                assertEquals(extracted.get(i).subList(0, 2), indexed.get(i));
+                assertEquals("Report 1", indexed.get(i).get(1));
+                assertEquals(2, extracted.get(i).get(2));
+            }
+            // Latest report first
+            assertTrue((Integer)indexed.get(0).get(0) > (Integer)indexed.get(1).get(0));
+            List<List<Object>> latest = fileStorage.getMetadata(4, Arrays.asList("storageId"), null,
+                    MetadataExtractor.VALUE_TYPE_OBJECT);
+            assertEquals(4, latest.size());
+            for (int i = 0; i < latest.size(); i++) {
+                assertEquals(fileStorage.getStorageIds().get(i), latest.get(i).get(0));
+            }
+            assertEquals(0, fileStorage.getMetadata(-1, Arrays.asList("storageId", "name"),
+                    Arrays.asList("(-1)", null), MetadataExtractor.VALUE_TYPE_STRING).size());
+            // Search values for Integer columns are evaluated on the primitive values
+            for (String searchValue : Arrays.asList("1", "[1]", "*1", "1*", "1*1", "(1.*)", "[]", "a")) {
+                List<Integer> expected = new ArrayList<Integer>();
+                for (Integer storageId : fileStorage.getStorageIds()) {
+                    if (SearchUtil.matches(storageId, searchValue)) {
+                        expected.add(storageId);
+                    }
+                }
+                List<List<Object>> records = fileStorage.getMetadata(-1, Arrays.asList("storageId"),
+                        Arrays.asList(searchValue), MetadataExtractor.VALUE_TYPE_OBJECT);
+                List<Integer> actual = new ArrayList<Integer>();
+                for (List<Object> record : records) {
+                    actual.add((Integer)record.get(0));
+                }
+                Collections.sort(expected);
+                Collections.sort(actual);
+                assertEquals("Search value " + searchValue, expected, actual);
+            }
+            // Pages served by the metadata index should be the same as the pages of the default implementation
+            List<String> metadataNames = Arrays.asList("storageId", "name");
+            assertEquals(getPagedStorageIds(fileStorage, 3, "name", false, metadataNames, null),
+                    getPagedStorageIds(fileStorage, null, "name", false, metadataNames, null));
+            assertEquals(getPagedStorageIds(fileStorage, 2, "storageSize", true, metadataNames,
+                    Arrays.asList(null, "[Report 2]")),
+                    getPagedStorageIds(fileStorage, null, "storageSize", true, metadataNames,
+                    Arrays.asList(null, "[Report 2]")));
+            assertEquals(getPagedStorageIds(fileStorage, 4, null, true, metadataNames, null),
+                    fileStorage.getStorageIds());
+            // The cursor of the metadata index can be used by the default implementation and vice versa (the metadata
+            // names used might not be indexed anymore when the index has been built again between two pages)
+            List<Object> expected = new ArrayList<Object>();
+            for (Object storageId : getPagedStorageIds(fileStorage, null, "storageSize", true, metadataNames, null)) {
+                expected.add(storageId.toString());
+            }
+            List<Object> actual = new ArrayList<Object>();
+            MetadataPage page = fileStorage.getMetadataPage(3, null, "storageSize", true, metadataNames, null,
+                    MetadataExtractor.VALUE_TYPE_GUI);
+            boolean useIndex = true;
+            while (true) {
+                for (List<Object> record : page.getRecords()) {
+                    actual.add(record.get(0));
+                }
+                if (page.getNextCursor() == null) {
+                    break;
+                }
+                useIndex = !useIndex;
+                if (useIndex) {
+                    page = fileStorage.getMetadataPage(3, page.getNextCursor(), "storageSize", true, metadataNames,
+                            null, MetadataExtractor.VALUE_TYPE_GUI);
+                } else {
+                    page = MetadataPage.getPage(fileStorage, 3, page.getNextCursor(), "storageSize", true,
+                            metadataNames, null, MetadataExtractor.VALUE_TYPE_GUI);
+                }
+            }
+            assertEquals(expected, actual);
+            // Records with the same sort value are ordered on storageId, also when it isn't the first metadata name
+            List<List<Object>> records = fileStorage.getMetadata(-1, Arrays.asList("name"), null,
+                    MetadataExtractor.VALUE_TYPE_OBJECT);
+            List<String> names = new ArrayList<String>();
+            for (List<Object> record : records) {
+                names.add((String)record.get(0));
+            }
+            Collections.sort(names);
+            List<Object> pagedNames = new ArrayList<Object>();
+            String cursor = null;
+            do {
+                page = fileStorage.getMetadataPage(4, cursor, "name", false, Arrays.asList("name"), null,
+                        MetadataExtractor.VALUE_TYPE_OBJECT);
+                for (List<Object> record : page.getRecords()) {
+                    assertEquals(1, record.size());
+                    pagedNames.add(record.get(0));
+                }
+                cursor = page.getNextCursor();
+            } while (cursor != null);
+            assertEquals(names, pagedNames);
+            try {
+                fileStorage.getMetadataPage(4, "invalid cursor", "storageSize", false, metadataNames, null,
+                        MetadataExtractor.VALUE_TYPE_OBJECT);
+                fail("Expected InvalidCursorException");
+            } catch (InvalidCursorException e) {
+                assertTrue(e.getMessage(), e.getMessage().startsWith("Invalid cursor"));
+            }
+            fileStorage.close();
+        } finally {
+            for (File file : folder.listFiles()) {
+                file.delete();
+            }
+            folder.delete();
+        }
+    }
+
+    @Test
+    public void testMetadataPage() throws Exception {
+        MetadataExtractor metadataExtractor = new MetadataExtractor();
+        metadataExtractor.init();
+        MemoryLogStorage memoryLogStorage = new MemoryLogStorage();
+        memoryLogStorage.setName("MemoryLogStorage");
+        memoryLogStorage.setMetadataExtractor(metadataExtractor);
+        testTool.setDebugStorage(memoryLogStorage);
+        for (int i = 0; i < 7; i++) {
+            createReport();
+        }
+        List<Integer> storageIds = memoryLogStorage.getStorageIds();
+        assertEquals(7, storageIds.size());
+        // Latest first
+        storageIds.sort(Collections.reverseOrder());
+        List<String> metadataNames = Arrays.asList("storageId", "name");
+        List<Object> pagedStorageIds = new ArrayList<Object>();
+        List<Integer> pageSizes = new ArrayList<Integer>();
+        String cursor = null;
+        do {
+            MetadataPage page = memoryLogStorage.getMetadataPage(3, cursor, null, true, metadataNames, null,
+                    MetadataExtractor.VALUE_TYPE_OBJECT);
+            pageSizes.add(page.getRecords().size());
+            for (List<Object> record : page.getRecords()) {
+                pagedStorageIds.add(record.get(0));
+            }
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        assertEquals(Arrays.asList(3, 3, 1), pageSizes);
+        assertEquals(storageIds, pagedStorageIds);
+        // Ascending, sorted on a metadata name that isn't returned
+        MetadataPage page = memoryLogStorage.getMetadataPage(4, null, "endTime", false, metadataNames,
+                Arrays.asList(null, reportName), MetadataExtractor.VALUE_TYPE_STRING);
+        assertEquals(4, page.getRecords().size());
+        assertEquals(2, page.getRecords().get(0).size());
+        page = memoryLogStorage.getMetadataPage(4, page.getNextCursor(), "endTime", false, metadataNames,
+                Arrays.asList(null, reportName), MetadataExtractor.VALUE_TYPE_STRING);
+        assertEquals(3, page.getRecords().size());
+        assertNull(page.getNextCursor());
+        // Records that are added after the first page was requested should not influence the next pages
+        page = memoryLogStorage.getMetadataPage(2, null, null, true, metadataNames, null,
+                MetadataExtractor.VALUE_TYPE_OBJECT);
+        createReport();
+        page = memoryLogStorage.getMetadataPage(2, page.getNextCursor(), null, true, metadataNames, null,
+                MetadataExtractor.VALUE_TYPE_OBJECT);
+        assertEquals(storageIds.get(2), page.getRecords().get(0).get(0));
+        // Same name for all reports, ordered on storageId although it isn't the first metadata name
+        storageIds = memoryLogStorage.getStorageIds();
+        storageIds.sort(null);
+        List<Object> pagedStorageIdsByName = new ArrayList<Object>();
+        cursor = null;
+        do {
+            page = memoryLogStorage.getMetadataPage(3, cursor, "name", false, Arrays.asList("name", "storageId"),
+                    null, MetadataExtractor.VALUE_TYPE_OBJECT);
+            for (List<Object> record : page.getRecords()) {
+                pagedStorageIdsByName.add(record.get(1));
+            }
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        assertEquals(storageIds, pagedStorageIdsByName);
+    }
+
+    @Test
+    public void testDatabaseStorageMetadataPage() throws Exception {
+        assumeTrue("Database storage only", storage instanceof DatabaseStorage);
+        for (int i = 0; i < 5; i++) {
+            createReport();
+        }
+        List<String> searchValues = Arrays.asList(null, "[" + reportName + "]");
+        List<List<Object>> metadata = storage.getMetadata(-1, Arrays.asList("storageId", "name", "endTime"),
+                Arrays.asList(null, "[" + reportName + "]", null), MetadataExtractor.VALUE_TYPE_OBJECT);
+        assertTrue(metadata.size() >= 5);
+        // Latest end time first, same end time sorted on storageId
+        metadata.sort((record1, record2) -> {
+            int result = Long.compare((Long)record2.get(2), (Long)record1.get(2));
+            if (result == 0) {
+                result = Integer.compare((Integer)record2.get(0), (Integer)record1.get(0));
+            }
+            return result;
+        });
+        List<Object> expected = new ArrayList<Object>();
+        for (List<Object> record : metadata) {
+            expected.add(record.get(0));
+        }
+        // Keyset on (endTime, storageId) with endTime not in the metadata names
+        List<String> metadataNames = Arrays.asList("storageId", "name");
+        assertEquals(expected, getPagedStorageIds(storage, 2, "endTime", true, metadataNames, searchValues));
+        Collections.reverse(expected);
+        assertEquals(expected, getPagedStorageIds(storage, 3, "endTime", false, metadataNames, searchValues));
+        // Cursor doesn't depend on metadata value type
+        MetadataPage page = storage.getMetadataPage(2, null, "endTime", false, Arrays.asList("storageId", "endTime"),
+                Arrays.asList(null, null), MetadataExtractor.VALUE_TYPE_GUI);
+        assertEquals(2, page.getRecords().get(0).size());
+        assertTrue(page.getRecords().get(0).get(1) instanceof String);
+        assertNotNull(page.getNextCursor());
+        page = storage.getMetadataPage(2, page.getNextCursor(), "endTime", false, metadataNames, null,
+                MetadataExtractor.VALUE_TYPE_OBJECT);
+        assertEquals(2, page.getRecords().size());
+    }
+
+    @Test
+    public void testFileTestStorageAppendOnly() throws Exception {
+        MemoryLogStorage memoryLogStorage = new MemoryLogStorage();
+        memoryLogStorage.setName("MemoryLogStorage");
+        testTool.setDebugStorage(memoryLogStorage);
+        for (int i = 0; i < 3; i++) {
+            createReport();
+        }
+        File folder = Files.createTempDirectory("ladybug-append-only").toFile();
+        try {
+            TestStorage testStorage = createFileTestStorage(folder);
+            for (Integer storageId : memoryLogStorage.getStorageIds()) {
+                testStorage.store(memoryLogStorage.getReport(storageId));
+            }
+            List<Integer> storageIds = testStorage.getStorageIds();
+            assertEquals(3, storageIds.size());
+            Report report = testStorage.getReport(storageIds.get(1));
+            report.setName("Updated");
+            testStorage.update(report);
+            testStorage.delete(testStorage.getReport(storageIds.get(2)));
+            assertAppendOnlyResult(testStorage, storageIds);
+            testStorage.close();
+            // Old versions and tombstones should also be handled when read from file
+            testStorage = createFileTestStorage(folder);
+            assertAppendOnlyResult(testStorage, storageIds);
+            testStorage.compact();
+            assertAppendOnlyResult(testStorage, storageIds);
+            testStorage.close();
+        } finally {
+            for (File file : folder.listFiles()) {
+                file.delete();
+            }
+            folder.delete();
+        }
+    }
+
+    @Test
+    public void testFileTestStorageCompactionConcurrentReads() throws Exception {
+        List<Report> reports = createReportsInMemory(5);
+        File folder = Files.createTempDirectory("ladybug-compaction").toFile();
+        try {
+            TestStorage testStorage = createFileTestStorage(folder);
+            for (Report report : reports) {
+                testStorage.store(report);
+            }
+            List<Integer> storageIds = testStorage.getStorageIds();
+            List<Throwable> errors = Collections.synchronizedList(new ArrayList<Throwable>());
+            AtomicBoolean compacting = new AtomicBoolean(true);
+            List<Thread> threads = new ArrayList<Thread>();
+            for (int i = 0; i < 4; i++) {
+                threads.add(new Thread(() -> {
+                    try {
+                        while (compacting.get()) {
+                            for (Integer storageId : storageIds) {
+                                Report report = testStorage.getReport(storageId);
+                                assertEquals(storageId, report.getStorageId());
+                                assertEquals(reportName, report.getName());
+                            }
+                        }
+                    } catch (Throwable t) {
+                        errors.add(t);
+                    }
+                }));
+            }
+            for (Thread thread : threads) {
+                thread.start();
+            }
+            for (int i = 0; i < 20; i++) {
+                testStorage.update(testStorage.getReport(storageIds.get(i % storageIds.size())));
+                testStorage.compact();
+            }
+            compacting.set(false);
+            for (Thread thread : threads) {
+                thread.join(60000);
+            }
+            assertEquals(new ArrayList<Throwable>(), errors);
+            assertEquals(storageIds, testStorage.getStorageIds());
+            testStorage.close();
+        } finally {
+            for (File file : folder.listFiles()) {
+                file.delete();
+            }
+            folder.delete();
+        }
+    }
+
+    @Test
+    public void testFileTestStorageCompactionConcurrentUpdates() throws Exception {
+        List<Report> reports = createReportsInMemory(10);
+        File folder = Files.createTempDirectory("ladybug-compaction-updates").toFile();
+        try {
+            TestStorage testStorage = createFileTestStorage(folder);
+            for (int i = 0; i < 5; i++) {
+                testStorage.store(reports.get(i));
+            }
+            List<Throwable> errors = Collections.synchronizedList(new ArrayList<Throwable>());
+            AtomicBoolean updating = new AtomicBoolean(true);
+            // Stores, updates and deletes are not blocked while reports are copied by compact() so they need to be
+            // copied again before the compacted files become active
+            Thread thread = new Thread(() -> {
+                try {
+                    while (updating.get()) {
+                        testStorage.compact();
+                    }
+                } catch (Throwable t) {
+                    errors.add(t);
+                }
+            });
+            thread.start();
+            List<Integer> expectedStorageIds = new ArrayList<Integer>();
+            for (int i = 0; i < 5; i++) {
+                testStorage.store(reports.get(i + 5));
+                expectedStorageIds.add(reports.get(i + 5).getStorageId());
+                Report report = testStorage.getReport(reports.get(i).getStorageId());
+                report.setName("Updated");
+                testStorage.update(report);
+                if (i % 2 == 1) {
+                    testStorage.delete(report);
+                } else {
+                    expectedStorageIds.add(report.getStorageId());
+                }
+            }
+            updating.set(false);
+            thread.join(60000);
+            assertEquals(new ArrayList<Throwable>(), errors);
+            testStorage.compact();
+            TestStorage storage = testStorage;
+            for (int i = 0; i < 2; i++) {
+                List<Integer> storageIds = new ArrayList<Integer>(storage.getStorageIds());
+                Collections.sort(storageIds);
+                Collections.sort(expectedStorageIds);
+                assertEquals(expectedStorageIds, storageIds);
+                for (int j = 0; j < 10; j++) {
+                    Report report = storage.getReport(reports.get(j).getStorageId());
+                    if (j < 5 && j % 2 == 1) {
+                        assertNull(report);
+                    } else {
+                        assertEquals(j < 5 ? "Updated" : reportName, report.getName());
+                    }
+                }
+                storage.close();
+                // Should also be the case when read from file
+                storage = createFileTestStorage(folder);
+            }
+            storage.close();
+        } finally {
+            for (File file : folder.listFiles()) {
+                file.delete();
+            }
+            folder.delete();
+        }
+    }
+
+    @Test
+    public void testFileTestStorageCompactionWithoutStorageId() throws Exception {
+        File folder = Files.createTempDirectory("ladybug-compaction-storage-id").toFile();
+        try {
+            TestStorage testStorage = createFileTestStorage(folder);
+            testStorage.setPersistentMetadata(Arrays.asList("storageSize", "name"));
+            try {
+                testStorage.compact();
+                fail("Expected StorageException");
+            } catch (StorageException e) {
+                assertTrue(e.getMessage(), e.getMessage().contains("should contain storageId"));
+            }
+            testStorage.close();
+        } finally {
+            for (File file : folder.listFiles()) {
+                file.delete();
+            }
+            folder.delete();
+        }
+    }
+
+    private void assertAppendOnlyResult(TestStorage testStorage, List<Integer> storageIds) throws Exception {
+        assertEquals(storageIds.subList(0, 2), testStorage.getStorageIds());
+        assertEquals(reportName, testStorage.getReport(storageIds.get(0)).getName());
+        assertEquals("Updated", testStorage.getReport(storageIds.get(1)).getName());
+        assertNull(testStorage.getReport(storageIds.get(2)));
+    }
+
+    @Test
+    public void testXmlStorage() throws Exception {
+        MemoryLogStorage memoryLogStorage = new MemoryLogStorage();
+        memoryLogStorage.setName("MemoryLogStorage");
+        testTool.setDebugStorage(memoryLogStorage);
+        for (int i = 0; i < 2; i++) {
+            createReport();
+        }
+        for (boolean useWatchService : new boolean[] {false, true}) {
+            File folder = Files.createTempDirectory("ladybug-xml-storage").toFile();
+            try {
+                XmlStorage xmlStorage = new XmlStorage();
+                xmlStorage.setName("XmlStorage");
+                xmlStorage.setReportsFolder(folder.getPath());
+                xmlStorage.setUseWatchService(useWatchService);
+                xmlStorage.init();
+                for (Integer storageId : memoryLogStorage.getStorageIds()) {
+                    Report report = memoryLogStorage.getReport(storageId);
+                    report.setPath("folder" + storageId);
+                    xmlStorage.store(report);
+                }
+                assertEquals(2, xmlStorage.getSize());
+                // Human editable report xml file added outside the storage
+                File humanEditableFile = new File(folder, "Human editable" + XmlStorage.FILE_EXTENSION);
+                writeHumanEditableReport(humanEditableFile, "First");
+                assertTrue(waitForSize(xmlStorage, 3));
+                Integer humanEditableStorageId = null;
+                for (Integer storageId : xmlStorage.getStorageIds()) {
+                    if (storageId < 0) {
+                        humanEditableStorageId = storageId;
+                    }
+                }
+                assertNotNull(humanEditableStorageId);
+                assertEquals("First", xmlStorage.getReport(humanEditableStorageId).getDescription());
+                // Storage id of human editable report should be stable when file is changed
+                writeHumanEditableReport(humanEditableFile, "Second version");
+                long end = System.currentTimeMillis() + 10000;
+                while (!"Second version".equals(xmlStorage.getReport(humanEditableStorageId).getDescription())
+                        && System.currentTimeMillis() < end) {
+                    Thread.sleep(10);
+                }
+                assertEquals("Second version", xmlStorage.getReport(humanEditableStorageId).getDescription());
+                // And for another instance on the same folder (e.g. after a restart)
+                XmlStorage otherXmlStorage = new XmlStorage();
+                otherXmlStorage.setName("OtherXmlStorage");
+                otherXmlStorage.setReportsFolder(folder.getPath());
+                otherXmlStorage.setUseWatchService(false);
+                otherXmlStorage.init();
+                assertEquals("Second version", otherXmlStorage.getReport(humanEditableStorageId).getDescription());
+                otherXmlStorage.close();
+                // Delete report and its folder
+                Integer storageId = xmlStorage.getStorageIds().get(0);
+                if (storageId < 0) {
+                    storageId = xmlStorage.getStorageIds().get(1);
+                }
+                xmlStorage.delete(xmlStorage.getReport(storageId));
+                assertEquals(2, xmlStorage.getSize());
+                assertNull(xmlStorage.getReport(storageId));
+                assertTrue(humanEditableFile.delete());
+                assertTrue(waitForSize(xmlStorage, 1));
+                xmlStorage.close();
+            } finally {
+                deleteFolder(folder);
+            }
+        }
+    }
+
+    @Test
+    public void testXmlStorageStorageIdsAfterRestart() throws Exception {
+        List<Report> reports = createReportsInMemory(2);
+        File folder = Files.createTempDirectory("ladybug-xml-storage-restart").toFile();
+        try {
+            XmlStorage xmlStorage = createXmlStorage(folder);
+            xmlStorage.store(reports.get(0));
+            Integer firstStorageId = reports.get(0).getStorageId();
+            xmlStorage.close();
+            // Storage ids of reports stored after a restart should not clash with the reports on disk
+            xmlStorage = createXmlStorage(folder);
+            reports.get(1).setName("Second");
+            xmlStorage.store(reports.get(1));
+            Integer secondStorageId = reports.get(1).getStorageId();
+            assertNotEquals(firstStorageId, secondStorageId);
+            assertEquals(2, xmlStorage.getSize());
+            assertEquals(reportName, xmlStorage.getReport(firstStorageId).getName());
+            assertEquals("Second", xmlStorage.getReport(secondStorageId).getName());
+            xmlStorage.close();
+        } finally {
+            deleteFolder(folder);
+        }
+    }
+
+    private XmlStorage createXmlStorage(File folder) throws Exception {
+        XmlStorage xmlStorage = new XmlStorage();
+        xmlStorage.setName("XmlStorage");
+        xmlStorage.setReportsFolder(folder.getPath());
+        xmlStorage.init();
+        return xmlStorage;
+    }
+
+    private void writeHumanEditableReport(File file, String description) throws Exception {
+        Files.write(file.toPath(), ("<Report Description=\"" + description + "\">"
+                + "<Checkpoint Name=\"Start\" Type=\"Startpoint\">Hello</Checkpoint>"
+                + "<Checkpoint Name=\"End\" Type=\"Endpoint\">World</Checkpoint>"
+                + "</Report>").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private boolean waitForSize(Storage storage, int size) throws Exception {
+        // Changes made outside the storage are detected asynchronously when the WatchService is used
+        long end = System.currentTimeMillis() + 10000;
+        while (storage.getSize() != size && System.currentTimeMillis() < end) {
+            Thread.sleep(10);
+        }
+        return storage.getSize() == size;
+    }
+
+    private void deleteFolder(File folder) {
+        File[] files = folder.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                deleteFolder(file);
+            }
+        }
+        folder.delete();
+    }
+
+    private TestStorage createFileTestStorage(File folder) throws Exception {
+        MetadataExtractor metadataExtractor = new MetadataExtractor();
+        metadataExtractor.init();
+        TestStorage testStorage = new TestStorage();
+        testStorage.setName("TestStorage");
+        testStorage.setReportsFilename(new File(folder, "ladybug-test.tts").getPath());
+        testStorage.setMetadataFilename(new File(folder, "ladybug-test.ttm").getPath());
+        testStorage.setMetadataExtractor(metadataExtractor);
+        testStorage.setPersistentMetadata(Arrays.asList("storageId", "storageSize", "name"));
+        testStorage.setAppendOnly(true);
+        // Compact explicitly in test
+        testStorage.setCompactionThreshold(1);
+        testStorage.init();
+        return testStorage;
+    }
+
+    private org.wearefrank.ladybug.storage.file.Storage createFileStorage(File folder) throws Exception {
+        MetadataExtractor metadataExtractor = new MetadataExtractor();
+        metadataExtractor.init();
+        org.wearefrank.ladybug.storage.file.Storage fileStorage = new org.wearefrank.ladybug.storage.file.Storage();
+        fileStorage.setName("FileStorage");
+        fileStorage.setReportsFilename(new File(folder, "ladybug.tts").getPath());
+        fileStorage.setMetadataFilename(new File(folder, "ladybug.ttm").getPath());
+        fileStorage.setMetadataExtractor(metadataExtractor);
+        fileStorage.setPersistentMetadata(Arrays.asList("storageId", "storageSize", "name"));
+        fileStorage.setMaximumFileSize(1000);
+        fileStorage.setMaximumBackupIndex(100);
+        fileStorage.init();
+        return fileStorage;
+    }
+
+    private void waitForReportsInProgress() throws InterruptedException {
+        long end = System.currentTimeMillis() + 10000;
+        while (testTool.getNumberOfReportsInProgress() > 0 && System.currentTimeMillis() < end) {
+            Thread.sleep(10);
+        }
+        assertEquals("Found report(s) in progress", 0, testTool.getNumberOfReportsInProgress());
+    }
+
+    /**
+     * Create reports that haven't been stored in the storage under test
+     */
+    private List<Report> createReportsInMemory(int numberOfReports) throws StorageException {
+        Storage debugStorage = testTool.getDebugStorage();
+        MemoryLogStorage memoryLogStorage = new MemoryLogStorage();
+        memoryLogStorage.setName("MemoryLogStorage");
+        testTool.setDebugStorage(memoryLogStorage);
+        for (int i = 0; i < numberOfReports; i++) {
+            createReport();
+        }
+        testTool.setDebugStorage((LogStorage)debugStorage);
+        List<Report> reports = new ArrayList<Report>();
+        for (Integer storageId : memoryLogStorage.getStorageIds()) {
+            reports.add(memoryLogStorage.getReport(storageId));
+        }
+        return reports;
+    }
+
+    /**
+     * Get the storage ids of all pages (or of the default implementation when pageSize is null)
+     */
+    private static List<Object> getPagedStorageIds(Storage storage, Integer pageSize, String sortMetadataName,
+            boolean descending, List<String> metadataNames, List<String> searchValues) throws StorageException {
+        List<Object> storageIds = new ArrayList<Object>();
+        String cursor = null;
+        do {
+            MetadataPage page;
+            if (pageSize == null) {
+                page = MetadataPage.getPage(storage, -1, null, sortMetadataName, descending, metadataNames,
+                        searchValues, MetadataExtractor.VALUE_TYPE_OBJECT);
+            } else {
+                page = storage.getMetadataPage(pageSize, cursor, sortMetadataName, descending, metadataNames,
+                        searchValues, MetadataExtractor.VALUE_TYPE_OBJECT);
+                assertTrue(page.getRecords().size() <= pageSize);
+            }
+            for (List<Object> record : page.getRecords()) {
+                storageIds.add(record.get(0));
+            }
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return storageIds;
+    }
+
     private void createReport() {
         String correlationId = getCorrelationId();
         testTool.startpoint(correlationId, this.getClass().getTypeName(), reportName, "startmessage");
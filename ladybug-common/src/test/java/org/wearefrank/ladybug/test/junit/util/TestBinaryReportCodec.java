@@ -0,0 +1,183 @@
+/*
+   Copyright 2026 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.wearefrank.ladybug.test.junit.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.wearefrank.ladybug.Checkpoint;
+import org.wearefrank.ladybug.CheckpointType;
+import org.wearefrank.ladybug.MessageEncoderImpl;
+import org.wearefrank.ladybug.Report;
+import org.wearefrank.ladybug.storage.StorageException;
+import org.wearefrank.ladybug.storage.memory.MemoryCrudStorage;
+import org.wearefrank.ladybug.test.junit.ReportRelatedTestCase;
+import org.wearefrank.ladybug.util.BinaryReportCodec;
+import org.wearefrank.ladybug.util.Export;
+import org.wearefrank.ladybug.util.Import;
+import org.wearefrank.ladybug.util.ImportResult;
+import org.wearefrank.ladybug.util.ReportFormat;
+
+/**
+ * @author Jaco de Groot
+ */
+public class TestBinaryReportCodec {
+	private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+	@Test
+	public void testRoundTrip() throws Exception {
+		Report report = createReport();
+		String expected = toXmlEncoderXml(report);
+		int serializedSize = -1;
+		int binarySize = -1;
+		for (ReportFormat reportFormat : ReportFormat.values()) {
+			byte[] bytes = Export.getReportBytes(report, reportFormat);
+			Report decoded = Import.getReport(new ByteArrayInputStream(bytes), report.getStorageId(),
+					(long)bytes.length, log);
+			assertEquals(reportFormat.toString(), expected, toXmlEncoderXml(decoded));
+			assertEquals(Long.valueOf(bytes.length), decoded.getStorageSize());
+			for (Checkpoint checkpoint : decoded.getCheckpoints()) {
+				assertTrue(checkpoint.getReport() == decoded);
+			}
+			if (reportFormat == ReportFormat.SERIALIZED) {
+				serializedSize = bytes.length;
+			} else if (reportFormat == ReportFormat.BINARY) {
+				binarySize = bytes.length;
+			} else {
+				assertTrue("Compressed binary (" + bytes.length + ") should be smaller than serialized ("
+						+ serializedSize + ")", bytes.length < serializedSize);
+				assertTrue("Compressed binary (" + bytes.length + ") should be smaller than uncompressed binary ("
+						+ binarySize + ")", bytes.length < binarySize);
+			}
+		}
+	}
+
+	@Test
+	public void testImportTtr() throws Exception {
+		Report report = createReport();
+		byte[] bytes = Export.getReportBytes(report, ReportFormat.BINARY_DEFLATE);
+		MemoryCrudStorage storage = new MemoryCrudStorage();
+		ImportResult result = Import.importTtr(new ByteArrayInputStream(bytes), storage, log);
+		assertNull(result.getErrorMessage());
+		Report imported = storage.getReport(result.getNewStorageId());
+		imported.setStorageId(report.getStorageId());
+		assertEquals(toXmlEncoderXml(report), toXmlEncoderXml(imported));
+	}
+
+	@Test
+	public void testCorruptBytes() throws Exception {
+		byte[] bytes = BinaryReportCodec.encode(createReport(), true);
+		// Truncated bytes
+		for (int length = BinaryReportCodec.FORMAT_MARKER.length + 1; length < bytes.length; length = length + 97) {
+			assertDecodeFails(Arrays.copyOf(bytes, length));
+		}
+		// Corrupt length of the correlationId (after marker, version, start time and end time)
+		int offset = BinaryReportCodec.FORMAT_MARKER.length + 1 + 8 + 8;
+		for (int length : new int[] {-2, Integer.MIN_VALUE, Integer.MAX_VALUE}) {
+			byte[] corruptBytes = Arrays.copyOf(bytes, bytes.length);
+			ByteBuffer.wrap(corruptBytes, offset, 4).putInt(length);
+			assertDecodeFails(corruptBytes);
+		}
+	}
+
+	private static void assertDecodeFails(byte[] bytes) {
+		try {
+			BinaryReportCodec.decode(new ByteArrayInputStream(bytes));
+			fail("Expected IOException for " + bytes.length + " bytes");
+		} catch (IOException e) {
+			// Expected
+		}
+	}
+
+	private static Report createReport() throws StorageException, IOException {
+		// Start with a report with all properties set (see TestExport)
+		String string = ReportRelatedTestCase.getResource(TestExport.RESOURCE_PATH, "testExport-expected.xml", false);
+		string = string
+				.replace("IGNORE-STORAGE-ID", "0")
+				.replace("IGNORE-START-TIME", "1")
+				.replace("IGNORE-END-TIME", "2");
+		ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+		GZIPOutputStream gzipOutputStream = new GZIPOutputStream(byteArrayOutputStream);
+		gzipOutputStream.write(string.getBytes(ReportRelatedTestCase.DEFAULT_CHARSET));
+		gzipOutputStream.close();
+		MemoryCrudStorage storage = new MemoryCrudStorage();
+		ImportResult result = Import.importTtr(new ByteArrayInputStream(byteArrayOutputStream.toByteArray()), storage,
+				log);
+		assertNull(result.getErrorMessage());
+		Report report = storage.getReport(result.getNewStorageId());
+		// Add checkpoints with a large text message, a binary message, a null message and a message context with
+		// different types of values
+		StringBuilder largeMessage = new StringBuilder();
+		for (int i = 0; i < 1000; i++) {
+			largeMessage.append("<line number=\"" + i + "\">Ladybug €</line>\n");
+		}
+		byte[] binaryMessage = new byte[5000];
+		new Random(1).nextBytes(binaryMessage);
+		Map<String, Object> messageContext = new LinkedHashMap<String, Object>();
+		messageContext.put("string", "value");
+		messageContext.put("integer", 1);
+		messageContext.put("long", 2L);
+		messageContext.put("boolean", true);
+		messageContext.put("double", 3.5);
+		messageContext.put("null", null);
+		messageContext.put("other", new java.util.Date(4));
+		addCheckpoint(report, "Large", largeMessage.toString(), null, null);
+		addCheckpoint(report, "Binary", Base64.getEncoder().encodeToString(binaryMessage),
+				MessageEncoderImpl.BASE64_ENCODER, messageContext);
+		addCheckpoint(report, "Truncated binary", "AAECAwQ", MessageEncoderImpl.BASE64_ENCODER, null);
+		addCheckpoint(report, "Null", null, null, null);
+		return report;
+	}
+
+	private static void addCheckpoint(Report report, String name, String message, String encoding,
+			Map<String, Object> messageContext) {
+		Checkpoint checkpoint = new Checkpoint();
+		checkpoint.setName(name);
+		checkpoint.setType(CheckpointType.INFOPOINT.toInt());
+		checkpoint.setMessage(message);
+		checkpoint.setEncoding(encoding);
+		checkpoint.setMessageContext(messageContext);
+		checkpoint.setReport(report);
+		report.getCheckpoints().add(checkpoint);
+	}
+
+	private static String toXmlEncoderXml(Report report) throws IOException {
+		GZIPInputStream gzipInputStream = new GZIPInputStream(
+				new ByteArrayInputStream(Export.getReportBytesPortable(report)));
+		return new String(gzipInputStream.readAllBytes(), StandardCharsets.UTF_8);
+	}
+
+}
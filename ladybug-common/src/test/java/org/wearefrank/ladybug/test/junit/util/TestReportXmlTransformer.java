@@ -0,0 +1,90 @@
+/*
+   Copyright 2026 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.wearefrank.ladybug.test.junit.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import org.wearefrank.ladybug.transform.ReportXmlTransformer;
+
+/**
+ * @author Jaco de Groot
+ */
+public class TestReportXmlTransformer {
+	private static final String XSLT =
+			"<xsl:stylesheet xmlns:xsl=\"http://www.w3.org/1999/XSL/Transform\" version=\"1.0\">"
+			+ "<xsl:output method=\"xml\" omit-xml-declaration=\"yes\"/>"
+			+ "<xsl:template match=\"/Report\"><Result><xsl:value-of select=\"@Name\"/></Result></xsl:template>"
+			+ "</xsl:stylesheet>";
+
+	@Test
+	public void testConcurrentTransformations() throws Exception {
+		ReportXmlTransformer reportXmlTransformer = new ReportXmlTransformer();
+		reportXmlTransformer.setXslt(XSLT);
+		ExecutorService executorService = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<String>> futures = new ArrayList<Future<String>>();
+			for (int i = 0; i < 1000; i++) {
+				String name = "Report " + i;
+				futures.add(executorService.submit(() -> reportXmlTransformer.transform(
+						"<Report Name=\"" + name + "\">" + "<Checkpoint/>".repeat(100) + "</Report>")));
+			}
+			for (int i = 0; i < futures.size(); i++) {
+				assertEquals("<Result>Report " + i + "</Result>", futures.get(i).get());
+			}
+		} finally {
+			executorService.shutdown();
+		}
+	}
+
+	@Test
+	public void testSameXsltForMultipleTransformers() {
+		ReportXmlTransformer reportXmlTransformer1 = new ReportXmlTransformer();
+		reportXmlTransformer1.setXslt(XSLT);
+		ReportXmlTransformer reportXmlTransformer2 = new ReportXmlTransformer();
+		reportXmlTransformer2.setXslt(XSLT);
+		assertEquals("<Result>Test</Result>", reportXmlTransformer1.transform("<Report Name=\"Test\"/>"));
+		assertEquals("<Result>Test</Result>", reportXmlTransformer2.transform("<Report Name=\"Test\"/>"));
+		// The XSLT should only be compiled once
+		assertNotNull(reportXmlTransformer1.getTemplates());
+		assertSame(reportXmlTransformer1.getTemplates(), reportXmlTransformer2.getTemplates());
+	}
+
+	@Test
+	public void testCachedXsltAfterInvalidXslt() {
+		ReportXmlTransformer reportXmlTransformer = new ReportXmlTransformer();
+		reportXmlTransformer.setXslt(XSLT);
+		String error = reportXmlTransformer.updateXslt("<invalid");
+		assertNotNull(error);
+		assertTrue(reportXmlTransformer.transform("<Report Name=\"Test\"/>").startsWith(error));
+		// Set XSLT that is in the cache already, the previous error should not be returned anymore
+		reportXmlTransformer.setXslt(XSLT);
+		assertEquals("<Result>Test</Result>", reportXmlTransformer.transform("<Report Name=\"Test\"/>"));
+		assertNull(reportXmlTransformer.updateXslt(XSLT));
+	}
+
+}
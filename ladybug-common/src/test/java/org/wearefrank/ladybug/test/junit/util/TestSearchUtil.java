@@ -1,5 +1,5 @@
 /*
-   Copyright 2021, 2025 WeAreFrank!
+   Copyright 2021, 2025-2026 WeAreFrank!
 
    Licensed under the Apache License, Version 2.0 (the "License");
    you may not use this file except in compliance with the License.
@@ -15,13 +15,19 @@
 */
 package org.wearefrank.ladybug.test.junit.util;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
 
 import java.util.Arrays;
+import java.util.regex.PatternSyntaxException;
 
 import org.junit.Test;
 
+import org.wearefrank.ladybug.storage.StorageException;
+import org.wearefrank.ladybug.util.SearchPredicate;
 import org.wearefrank.ladybug.util.SearchUtil;
 
 /**
@@ -82,6 +88,62 @@ public class TestSearchUtil {
 
 	}
 
+	@Test
+	public void testSearchPredicate() {
+		// Compile once and match against many values
+		String[] values = new String[]{null, "", "abc", "ABC", "xabcx", "cba"};
+		assertMatches("abc", values, false, false, true, true, true, false);
+		assertMatches("a*c", values, false, false, true, true, false, false);
+		assertMatches("*b*", values, false, false, true, true, true, true);
+		assertMatches("[[abc]]", values, false, false, true, false, false, false);
+		assertMatches("[]", values, false, true, false, false, false, false);
+		assertMatches("null", values, true, false, false, false, false, false);
+		assertMatches("(a.*)", values, false, false, true, false, false, false);
+		assertMatches(null, values, true, true, true, true, true, true);
+		assertFalse(SearchUtil.matchesPredicates(Arrays.asList("abc", null),
+				SearchUtil.compile(Arrays.asList("b*", null))));
+		assertTrue(SearchUtil.matchesPredicates(Arrays.asList("abc", null),
+				SearchUtil.compile(Arrays.asList("a*", "null"))));
+	}
+
+	@Test
+	public void testInvalidSearchValue() {
+		assertNull(SearchPredicate.compile("(a.*)").getErrorMessage());
+		assertNull(SearchPredicate.compile("(a").getErrorMessage());
+		SearchPredicate searchPredicate = SearchPredicate.compile("(a(b)");
+		assertTrue(searchPredicate.getErrorMessage(),
+				searchPredicate.getErrorMessage().startsWith("Invalid regular expression search value '(a(b)': "));
+		assertThrows(PatternSyntaxException.class, () -> searchPredicate.matches("ab"));
+		StorageException storageException = assertThrows(StorageException.class,
+				() -> SearchUtil.compileAndValidate(Arrays.asList("a*", null, "(a(b)")));
+		assertEquals(searchPredicate.getErrorMessage(), storageException.getMessage());
+	}
+
+	@Test
+	public void testMatchesPrimitive() {
+		String[] searchValues = {null, "", "0", "5", "05", "10", "105", "[5]", "[05]", "[0]", "[[12]]", "1*", "*1",
+				"1*2", "*0*", "*05*", "*00", "01*", "a", "*a*", "[]", "null", "(1.*)", "*", "-1", "[-1]", "*-1",
+				"1234567890123456789", "12345678901234567890"};
+		long[] values = {0, 1, 5, 10, 12, 50, 105, 120, 1050, 5005, -1, -15, Integer.MAX_VALUE, Long.MAX_VALUE,
+				1234567890123456789L};
+		for (String searchValue : searchValues) {
+			SearchPredicate searchPredicate = SearchPredicate.compile(searchValue);
+			for (long value : values) {
+				assertEquals("Value " + value + " and search value '" + searchValue + "'",
+						searchPredicate.matches(Long.valueOf(value)), searchPredicate.matches(value));
+			}
+		}
+	}
+
+	private void assertMatches(String searchValue, String[] values, boolean... expected) {
+		SearchPredicate searchPredicate = SearchPredicate.compile(searchValue);
+		for (int i = 0; i < values.length; i++) {
+			assertEquals("Value '" + values[i] + "' and search value '" + searchValue + "'", expected[i],
+					searchPredicate.matches(values[i]));
+			assertEquals(SearchUtil.matches(values[i], searchValue), searchPredicate.matches(values[i]));
+		}
+	}
+
 	private void assertAllMatch(String[] values, String[] searchValues) {
 		assertTrue(SearchUtil.matches(Arrays.asList(values), Arrays.asList(searchValues)));
 	}